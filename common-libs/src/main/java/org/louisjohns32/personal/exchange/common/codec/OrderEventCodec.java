@@ -0,0 +1,394 @@
+package org.louisjohns32.personal.exchange.common.codec;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderExpiryEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-layout little-endian binary format for {@link OrderEvent}s.
+ * <pre>
+ * header  u8 templateId | u8 version | u16 blockLength
+ * block   i64 sequenceNumber | template fields, fixed offsets
+ * symbol  u8 length | ASCII bytes, at HEADER_LENGTH + blockLength
+ * </pre>
+ * Prices and quantities travel as {@link FixedPoint} scaled longs. Decoders
+ * skip to the symbol using the encoded block length, so a later version can
+ * append fields to a block without breaking older readers. The static
+ * accessors read single fields in place, without decoding the event.
+ */
+public final class OrderEventCodec {
+
+    public static final byte VERSION = 1;
+    public static final int HEADER_LENGTH = 4;
+
+    // template ids are part of the wire format, never renumber them
+    public static final byte ORDER_CREATED = 1;
+    public static final byte TRADE_EXECUTED = 2;
+    public static final byte ORDER_CANCELLED = 3;
+    public static final byte ORDER_RESTED = 4;
+    public static final byte ORDER_AMENDED = 5;
+    public static final byte ORDER_EXPIRED = 6;
+
+    static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_SIDE = -1;
+
+    private static final int SEQUENCE_OFFSET = HEADER_LENGTH;
+    // the first template field, also where created, cancelled, rested and expired events keep their order id
+    private static final int FIELDS_OFFSET = SEQUENCE_OFFSET + Long.BYTES;
+    private static final int CREATED_BLOCK = 41;
+    private static final int TRADE_BLOCK = 49;
+    private static final int CANCELLED_BLOCK = 41;
+    private static final int RESTED_BLOCK = 33;
+    private static final int AMENDED_BLOCK = 65;
+    // laid out as a cancellation
+    private static final int EXPIRED_BLOCK = 41;
+
+    private OrderEventCodec() {
+    }
+
+    public static int encodedLength(OrderEvent event) {
+        return encodedLength(templateId(event), event.getSymbol());
+    }
+
+    public static int encodedLength(byte templateId, String symbol) {
+        return HEADER_LENGTH + blockLength(templateId) + 1 + symbol.length();
+    }
+
+    /**
+     * Length of the encoded event starting at {@code offset}.
+     */
+    public static int encodedLength(ByteBuffer buffer, int offset) {
+        int blockLength = blockLengthAt(buffer, offset);
+        return HEADER_LENGTH + blockLength + 1 + buffer.get(offset + HEADER_LENGTH + blockLength);
+    }
+
+    /**
+     * Writes {@code event} at the buffer's position and advances it.
+     */
+    public static void encode(OrderEvent event, ByteBuffer buffer) {
+        switch (event) {
+            case OrderCreationEvent e -> encodeOrderCreated(buffer, e.getSequenceNumber(), orNull(e.getOrderId()),
+                    e.getSymbol(), e.getSide(), scaled(e.getQuantity()), scaled(e.getPrice()), e.getTimestamp());
+            case TradeExecutionEvent e -> encodeTradeExecuted(buffer, e.getSequenceNumber(), e.getSymbol(),
+                    e.getBuyOrderId(), e.getSellOrderId(), FixedPoint.toScaled(e.getPrice()),
+                    FixedPoint.toScaled(e.getQuantity()), e.getTimestamp(), e.getMakerSide());
+            case OrderCancellationEvent e -> encodeOrderCancelled(buffer, e.getSequenceNumber(), orNull(e.getOrderId()),
+                    e.getSymbol(), e.getSide(), scaled(e.getPrice()), scaled(e.getRemainingQuantity()), e.getTimestamp());
+            case OrderRestEvent e -> encodeOrderRested(buffer, e.getSequenceNumber(), orNull(e.getOrderId()),
+                    e.getSymbol(), e.getSide(), scaled(e.getQuantity()), scaled(e.getPrice()));
+            case OrderAmendEvent e -> encodeOrderAmended(buffer, e.getSequenceNumber(), orNull(e.getOrderId()),
+                    e.getSymbol(), e.getSide(), scaled(e.getPrice()), scaled(e.getRemainingQuantity()),
+                    scaled(e.getNewPrice()), scaled(e.getNewQuantity()), scaled(e.getNewRemainingQuantity()),
+                    e.getTimestamp());
+            case OrderExpiryEvent e -> encodeOrderExpired(buffer, e.getSequenceNumber(), orNull(e.getOrderId()),
+                    e.getSymbol(), e.getSide(), scaled(e.getPrice()), scaled(e.getRemainingQuantity()), e.getTimestamp());
+        }
+    }
+
+    // The encodeX methods write straight from primitives, so events can be
+    // encoded without building event objects. Prices and quantities are scaled.
+
+    public static void encodeOrderCreated(ByteBuffer buffer, long sequenceNumber, long orderId, String symbol,
+                                          Side side, long quantity, long price, long timestamp) {
+        ByteOrder order = putHeader(buffer, ORDER_CREATED, sequenceNumber);
+        buffer.putLong(orderId);
+        buffer.putLong(quantity);
+        buffer.putLong(price);
+        buffer.putLong(timestamp);
+        buffer.put(side(side));
+        putSymbol(buffer, symbol, order);
+    }
+
+    public static void encodeTradeExecuted(ByteBuffer buffer, long sequenceNumber, String symbol, long buyOrderId,
+                                           long sellOrderId, long price, long quantity, long timestamp, Side makerSide) {
+        ByteOrder order = putHeader(buffer, TRADE_EXECUTED, sequenceNumber);
+        buffer.putLong(buyOrderId);
+        buffer.putLong(sellOrderId);
+        buffer.putLong(price);
+        buffer.putLong(quantity);
+        buffer.putLong(timestamp);
+        buffer.put(side(makerSide));
+        putSymbol(buffer, symbol, order);
+    }
+
+    public static void encodeOrderCancelled(ByteBuffer buffer, long sequenceNumber, long orderId, String symbol,
+                                            Side side, long price, long remainingQuantity, long timestamp) {
+        putOrderEnded(buffer, ORDER_CANCELLED, sequenceNumber, orderId, symbol, side, price, remainingQuantity, timestamp);
+    }
+
+    public static void encodeOrderExpired(ByteBuffer buffer, long sequenceNumber, long orderId, String symbol,
+                                          Side side, long price, long remainingQuantity, long timestamp) {
+        putOrderEnded(buffer, ORDER_EXPIRED, sequenceNumber, orderId, symbol, side, price, remainingQuantity, timestamp);
+    }
+
+    private static void putOrderEnded(ByteBuffer buffer, byte templateId, long sequenceNumber, long orderId,
+                                      String symbol, Side side, long price, long remainingQuantity, long timestamp) {
+        ByteOrder order = putHeader(buffer, templateId, sequenceNumber);
+        buffer.putLong(orderId);
+        buffer.putLong(price);
+        buffer.putLong(remainingQuantity);
+        buffer.putLong(timestamp);
+        buffer.put(side(side));
+        putSymbol(buffer, symbol, order);
+    }
+
+    public static void encodeOrderRested(ByteBuffer buffer, long sequenceNumber, long orderId, String symbol,
+                                         Side side, long quantity, long price) {
+        ByteOrder order = putHeader(buffer, ORDER_RESTED, sequenceNumber);
+        buffer.putLong(orderId);
+        buffer.putLong(quantity);
+        buffer.putLong(price);
+        buffer.put(side(side));
+        putSymbol(buffer, symbol, order);
+    }
+
+    public static void encodeOrderAmended(ByteBuffer buffer, long sequenceNumber, long orderId, String symbol,
+                                          Side side, long price, long remainingQuantity, long newPrice,
+                                          long newQuantity, long newRemainingQuantity, long timestamp) {
+        ByteOrder order = putHeader(buffer, ORDER_AMENDED, sequenceNumber);
+        buffer.putLong(orderId);
+        buffer.putLong(price);
+        buffer.putLong(remainingQuantity);
+        buffer.putLong(newPrice);
+        buffer.putLong(newQuantity);
+        buffer.putLong(newRemainingQuantity);
+        buffer.putLong(timestamp);
+        buffer.put(side(side));
+        putSymbol(buffer, symbol, order);
+    }
+
+    private static ByteOrder putHeader(ByteBuffer buffer, byte templateId, long sequenceNumber) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(templateId).put(VERSION).putShort((short) blockLength(templateId));
+        buffer.putLong(sequenceNumber);
+        return order;
+    }
+
+    private static void putSymbol(ByteBuffer buffer, String symbol, ByteOrder order) {
+        if (symbol.length() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Symbol too long to encode: " + symbol);
+        }
+        buffer.put((byte) symbol.length());
+        for (int i = 0; i < symbol.length(); i++) {
+            buffer.put((byte) symbol.charAt(i));
+        }
+        buffer.order(order);
+    }
+
+    /**
+     * Reads the event at the buffer's position and advances past it.
+     */
+    public static OrderEvent decode(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        byte templateId = buffer.get();
+        byte version = buffer.get();
+        if (version < 1) {
+            throw new IllegalArgumentException("Unsupported order event version: " + version);
+        }
+        int blockLength = Short.toUnsignedInt(buffer.getShort());
+        if (blockLength < blockLength(templateId)) {
+            throw new IllegalArgumentException("Order event block too short for template " + templateId + ": " + blockLength);
+        }
+        String symbol = symbolAt(buffer, start, blockLength);
+        long sequenceNumber = buffer.getLong();
+        OrderEvent event = switch (templateId) {
+            case ORDER_CREATED -> {
+                Long orderId = nullable(buffer.getLong());
+                Double quantity = unscaled(buffer.getLong());
+                Double price = unscaled(buffer.getLong());
+                long timestamp = buffer.getLong();
+                yield new OrderCreationEvent(orderId, symbol, side(buffer.get()), quantity, price, timestamp, sequenceNumber);
+            }
+            case TRADE_EXECUTED -> {
+                long buyOrderId = buffer.getLong();
+                long sellOrderId = buffer.getLong();
+                double price = FixedPoint.toDouble(buffer.getLong());
+                double quantity = FixedPoint.toDouble(buffer.getLong());
+                long timestamp = buffer.getLong();
+                yield new TradeExecutionEvent(symbol, buyOrderId, sellOrderId, price, quantity, timestamp,
+                        sequenceNumber, side(buffer.get()));
+            }
+            case ORDER_CANCELLED, ORDER_EXPIRED -> {
+                Long orderId = nullable(buffer.getLong());
+                Double price = unscaled(buffer.getLong());
+                Double remaining = unscaled(buffer.getLong());
+                long timestamp = buffer.getLong();
+                Side side = side(buffer.get());
+                yield templateId == ORDER_CANCELLED
+                        ? new OrderCancellationEvent(orderId, symbol, timestamp, sequenceNumber, side, price, remaining)
+                        : new OrderExpiryEvent(orderId, symbol, timestamp, sequenceNumber, side, price, remaining);
+            }
+            case ORDER_RESTED -> {
+                Long orderId = nullable(buffer.getLong());
+                Double quantity = unscaled(buffer.getLong());
+                Double price = unscaled(buffer.getLong());
+                yield new OrderRestEvent(orderId, symbol, side(buffer.get()), quantity, price, sequenceNumber);
+            }
+            case ORDER_AMENDED -> {
+                Long orderId = nullable(buffer.getLong());
+                Double price = unscaled(buffer.getLong());
+                Double remaining = unscaled(buffer.getLong());
+                Double newPrice = unscaled(buffer.getLong());
+                Double newQuantity = unscaled(buffer.getLong());
+                Double newRemaining = unscaled(buffer.getLong());
+                long timestamp = buffer.getLong();
+                yield new OrderAmendEvent(orderId, symbol, timestamp, sequenceNumber, side(buffer.get()),
+                        price, remaining, newPrice, newQuantity, newRemaining);
+            }
+            default -> throw new IllegalArgumentException("Unknown order event template: " + templateId);
+        };
+        buffer.position(start + HEADER_LENGTH + blockLength + 1 + symbol.length());
+        buffer.order(order);
+        return event;
+    }
+
+    public static byte templateId(ByteBuffer buffer, int offset) {
+        return buffer.get(offset);
+    }
+
+    public static long sequenceNumber(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Order id of an order created, cancelled, rested or expired event.
+     */
+    public static long orderId(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET);
+    }
+
+    /**
+     * Remaining quantity of an order cancelled or expired event, or the remaining
+     * quantity taken off the book by an order amended event, scaled.
+     */
+    public static long cancelledQuantity(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 2 * Long.BYTES);
+    }
+
+    /**
+     * New price of an order amended event, scaled.
+     */
+    public static long amendedPrice(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 3 * Long.BYTES);
+    }
+
+    /**
+     * New total quantity of an order amended event, scaled.
+     */
+    public static long amendedQuantity(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 4 * Long.BYTES);
+    }
+
+    /**
+     * Remaining quantity of an order amended event once amended, before any
+     * matching at the new price, scaled.
+     */
+    public static long amendedRemainingQuantity(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 5 * Long.BYTES);
+    }
+
+    public static long tradeBuyOrderId(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET);
+    }
+
+    public static long tradeSellOrderId(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + Long.BYTES);
+    }
+
+    /**
+     * Price of a trade executed event, scaled.
+     */
+    public static long tradePrice(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 2 * Long.BYTES);
+    }
+
+    /**
+     * Quantity of a trade executed event, scaled.
+     */
+    public static long tradeQuantity(ByteBuffer buffer, int offset) {
+        return longAt(buffer, offset + FIELDS_OFFSET + 3 * Long.BYTES);
+    }
+
+    private static long longAt(ByteBuffer buffer, int index) {
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN
+                ? buffer.getLong(index)
+                : Long.reverseBytes(buffer.getLong(index));
+    }
+
+    public static String symbol(ByteBuffer buffer, int offset) {
+        return symbolAt(buffer, offset, blockLengthAt(buffer, offset));
+    }
+
+    private static int blockLengthAt(ByteBuffer buffer, int offset) {
+        return Short.toUnsignedInt(buffer.order() == ByteOrder.LITTLE_ENDIAN
+                ? buffer.getShort(offset + 2)
+                : Short.reverseBytes(buffer.getShort(offset + 2)));
+    }
+
+    private static String symbolAt(ByteBuffer buffer, int start, int blockLength) {
+        int symbolOffset = start + HEADER_LENGTH + blockLength;
+        byte[] symbol = new byte[buffer.get(symbolOffset)];
+        buffer.get(symbolOffset + 1, symbol);
+        return new String(symbol, StandardCharsets.US_ASCII);
+    }
+
+    private static byte templateId(OrderEvent event) {
+        return switch (event) {
+            case OrderCreationEvent e -> ORDER_CREATED;
+            case TradeExecutionEvent e -> TRADE_EXECUTED;
+            case OrderCancellationEvent e -> ORDER_CANCELLED;
+            case OrderRestEvent e -> ORDER_RESTED;
+            case OrderAmendEvent e -> ORDER_AMENDED;
+            case OrderExpiryEvent e -> ORDER_EXPIRED;
+        };
+    }
+
+    private static int blockLength(byte templateId) {
+        return switch (templateId) {
+            case ORDER_CREATED -> CREATED_BLOCK;
+            case TRADE_EXECUTED -> TRADE_BLOCK;
+            case ORDER_CANCELLED -> CANCELLED_BLOCK;
+            case ORDER_RESTED -> RESTED_BLOCK;
+            case ORDER_AMENDED -> AMENDED_BLOCK;
+            case ORDER_EXPIRED -> EXPIRED_BLOCK;
+            default -> throw new IllegalArgumentException("Unknown order event template: " + templateId);
+        };
+    }
+
+    private static long orNull(Long value) {
+        return value == null ? NULL_LONG : value;
+    }
+
+    private static Long nullable(long value) {
+        return value == NULL_LONG ? null : value;
+    }
+
+    private static long scaled(Double value) {
+        return value == null ? NULL_LONG : FixedPoint.toScaled(value);
+    }
+
+    private static Double unscaled(long value) {
+        return value == NULL_LONG ? null : FixedPoint.toDouble(value);
+    }
+
+    private static byte side(Side side) {
+        return side == null ? NULL_SIDE : (byte) side.ordinal();
+    }
+
+    private static Side side(byte side) {
+        return side == NULL_SIDE ? null : Side.values()[side];
+    }
+}
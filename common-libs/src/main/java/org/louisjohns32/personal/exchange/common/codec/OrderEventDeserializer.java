@@ -0,0 +1,32 @@
+package org.louisjohns32.personal.exchange.common.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Kafka value deserializer for the {@link OrderEventCodec} binary format.
+ * Records that start with {@code '{'} are read as JSON instead, so a producer
+ * switched to JSON for debugging is still understood by every consumer.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        try {
+            if (data.length > 0 && data[0] == '{') {
+                return json.readValue(data, OrderEvent.class);
+            }
+            return OrderEventCodec.decode(ByteBuffer.wrap(data));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to decode order event from " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.louisjohns32.personal.exchange.common.codec;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kafka value serializer writing the {@link OrderEventCodec} binary format.
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent event) {
+        if (event == null) return null;
+        byte[] bytes = new byte[OrderEventCodec.encodedLength(event)];
+        OrderEventCodec.encode(event, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+}
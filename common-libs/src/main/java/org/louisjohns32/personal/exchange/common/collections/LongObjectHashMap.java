@@ -0,0 +1,190 @@
+package org.louisjohns32.personal.exchange.common.collections;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to objects, for
+ * hot paths keyed by ids. Keys are stored unboxed in a flat array and probed
+ * linearly, so lookups never allocate and touch one or two cache lines.
+ * Removal shifts later entries back rather than leaving tombstones, so a
+ * map that churns keeps its probe lengths short.
+ * <p>
+ * Key {@code 0} marks an empty slot and cannot be stored. Not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative, got: " + expectedSize);
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public V get(long key) {
+        if (key == 0) return null;
+        int index = index(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == key) return values[index];
+            if (existing == 0) return null;
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the previous value for {@code key}, or null.
+     */
+    public V put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved for empty slots");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int index = index(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == key) {
+                V previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            if (existing == 0) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size >= resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> mapping) {
+        V value = get(key);
+        if (value == null) {
+            value = mapping.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the removed value, or null if {@code key} was absent.
+     */
+    public V remove(long key) {
+        if (key == 0) return null;
+        int index = index(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == 0) return null;
+            if (existing == key) break;
+            index = (index + 1) & mask;
+        }
+        V removed = values[index];
+        size--;
+        // shift back every later entry of the probe run that the gap would cut off from its home slot
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = index(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Visits every entry, in no particular order. The map must not be
+     * modified while it is being visited.
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private int index(long key) {
+        // murmur3 finalizer, so sequential and time-based ids spread over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int index = index(key);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR) + 1;
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+}
@@ -0,0 +1,39 @@
+package org.louisjohns32.personal.exchange.common.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point representation used for prices and quantities on the hot path.
+ * Values are stored as a {@code long} scaled by {@link #SCALE}, so comparisons
+ * and fills are exact integer arithmetic with no boxing. Convert only at the
+ * REST and event boundaries.
+ */
+public final class FixedPoint {
+
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    private static final double MAX_VALUE = (double) Long.MAX_VALUE / SCALE;
+
+    private FixedPoint() {
+    }
+
+    public static long toScaled(double value) {
+        if (Double.isNaN(value) || Math.abs(value) >= MAX_VALUE) {
+            throw new ArithmeticException("Value out of fixed-point range: " + value);
+        }
+        return Math.round(value * SCALE);
+    }
+
+    public static double toDouble(long scaled) {
+        return scaled / (double) SCALE;
+    }
+
+    public static long toScaled(BigDecimal value) {
+        return value.movePointRight(DECIMALS).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long scaled) {
+        return BigDecimal.valueOf(scaled, DECIMALS);
+    }
+}
@@ -0,0 +1,63 @@
+package org.louisjohns32.personal.exchange.common.events;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Getter;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+/**
+ * A resting order's price or quantity was changed. The order's remaining
+ * quantity leaves the book at its old price; whatever rests afterwards,
+ * at the same level when only the quantity went down, is reported by the
+ * trades and rest event that follow, as for a new order.
+ */
+@Getter
+@Builder
+public final class OrderAmendEvent implements OrderEvent {
+    private final Long orderId;
+    private final String symbol;
+    private final long timestamp;
+    private final long sequenceNumber;
+    private final Side side;
+    private final Double price;
+    private final Double remainingQuantity;
+    private final Double newPrice;
+    private final Double newQuantity;
+    private final Double newRemainingQuantity;
+
+    @JsonCreator
+    public OrderAmendEvent(
+            @JsonProperty("orderId") Long orderId,
+            @JsonProperty("symbol") String symbol,
+            @JsonProperty("timestamp") long timestamp,
+            @JsonProperty("sequenceNumber") long sequenceNumber,
+            @JsonProperty("side") Side side,
+            @JsonProperty("price") Double price,
+            @JsonProperty("remainingQuantity") Double remainingQuantity,
+            @JsonProperty("newPrice") Double newPrice,
+            @JsonProperty("newQuantity") Double newQuantity,
+            @JsonProperty("newRemainingQuantity") Double newRemainingQuantity
+    ) {
+        this.orderId = orderId;
+        this.symbol = symbol;
+        this.timestamp = timestamp;
+        this.sequenceNumber = sequenceNumber;
+        this.side = side;
+        this.price = price;
+        this.remainingQuantity = remainingQuantity;
+        this.newPrice = newPrice;
+        this.newQuantity = newQuantity;
+        this.newRemainingQuantity = newRemainingQuantity;
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    @Override
+    public String getSymbol() {
+        return symbol;
+    }
+}
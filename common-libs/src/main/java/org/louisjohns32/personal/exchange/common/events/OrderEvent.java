@@ -11,10 +11,14 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 @JsonSubTypes({
         @JsonSubTypes.Type(value = OrderCreationEvent.class, name = "ORDER_CREATED"),
         @JsonSubTypes.Type(value = TradeExecutionEvent.class, name = "TRADE_EXECUTED"),
-        @JsonSubTypes.Type(value = OrderCancellationEvent.class, name = "ORDER_CANCELLED")
+        @JsonSubTypes.Type(value = OrderCancellationEvent.class, name = "ORDER_CANCELLED"),
+        @JsonSubTypes.Type(value = OrderRestEvent.class, name = "ORDER_RESTED"),
+        @JsonSubTypes.Type(value = OrderAmendEvent.class, name = "ORDER_AMENDED"),
+        @JsonSubTypes.Type(value = OrderExpiryEvent.class, name = "ORDER_EXPIRED")
 })
 public sealed interface OrderEvent
-permits OrderCreationEvent, OrderCancellationEvent, TradeExecutionEvent, OrderRestEvent
+permits OrderCreationEvent, OrderCancellationEvent, TradeExecutionEvent, OrderRestEvent, OrderAmendEvent,
+        OrderExpiryEvent
 {
 
     String getSymbol();
@@ -0,0 +1,53 @@
+package org.louisjohns32.personal.exchange.common.events;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Getter;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+/**
+ * The unfilled remainder of a market, immediate-or-cancel or fill-or-kill
+ * order, which expired instead of resting. It was never on the book, so
+ * unlike a cancellation it takes no volume off a level.
+ */
+@Getter
+@Builder
+public final class OrderExpiryEvent implements OrderEvent {
+    private final Long orderId;
+    private final String symbol;
+    private final long timestamp;
+    private final long sequenceNumber;
+    private final Side side;
+    private final Double price;
+    private final Double remainingQuantity;
+
+    @JsonCreator
+    public OrderExpiryEvent(
+            @JsonProperty("orderId") Long orderId,
+            @JsonProperty("symbol") String symbol,
+            @JsonProperty("timestamp") long timestamp,
+            @JsonProperty("sequenceNumber") long sequenceNumber,
+            @JsonProperty("side") Side side,
+            @JsonProperty("price") Double price,
+            @JsonProperty("remainingQuantity")  Double remainingQuantity
+    ) {
+        this.orderId = orderId;
+        this.symbol = symbol;
+        this.timestamp = timestamp;
+        this.sequenceNumber = sequenceNumber;
+        this.side = side;
+        this.price = price;
+        this.remainingQuantity = remainingQuantity;
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    @Override
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,123 @@
+package org.louisjohns32.personal.exchange.common.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderExpiryEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderEventCodecTest {
+
+    private final OrderEventSerializer serializer = new OrderEventSerializer();
+    private final OrderEventDeserializer deserializer = new OrderEventDeserializer();
+
+    static List<OrderEvent> events() {
+        return List.of(
+                new OrderCreationEvent(1L, "AAPL", Side.BUY, 12.5, 150.01, 1_700_000_000_000L, 1),
+                new TradeExecutionEvent("AAPL", 1L, 2L, 150.01, 0.25, 1_700_000_000_001L, 2, Side.SELL),
+                new OrderCancellationEvent(3L, "MSFT", 1_700_000_000_002L, 7, Side.SELL, 410.5, 3.0),
+                new OrderRestEvent(4L, "GOOGL", Side.BUY, 0.00000001, 2800.0, 9),
+                new OrderAmendEvent(5L, "NVDA", 1_700_000_000_003L, 11, Side.BUY, 120.5, 4.0, 121.0, 6.0, 5.0),
+                new OrderExpiryEvent(6L, "AMZN", 1_700_000_000_004L, 13, Side.SELL, 0.0, 2.5),
+                new OrderCreationEvent(null, "TSLA", null, null, null, 0, 0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("events")
+    void binaryRoundTripPreservesEveryField(OrderEvent event) {
+        byte[] bytes = serializer.serialize("order.events", event);
+
+        assertThat(bytes).hasSize(OrderEventCodec.encodedLength(event));
+        OrderEvent decoded = deserializer.deserialize("order.events", bytes);
+        assertThat(decoded).isExactlyInstanceOf(event.getClass())
+                .usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @MethodSource("events")
+    void jsonRecordsAreStillDecoded(OrderEvent event) throws Exception {
+        byte[] json = new ObjectMapper().writeValueAsBytes(event);
+
+        assertThat(deserializer.deserialize("order.events", json))
+                .isExactlyInstanceOf(event.getClass())
+                .usingRecursiveComparison().isEqualTo(event);
+        assertThat(serializer.serialize("order.events", event).length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void fieldsCanBeReadInPlaceAndEventsDecodeBackToBack() {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        for (OrderEvent event : events()) {
+            OrderEventCodec.encode(event, buffer);
+        }
+        buffer.flip();
+
+        assertThat(OrderEventCodec.templateId(buffer, 0)).isEqualTo(OrderEventCodec.ORDER_CREATED);
+        assertThat(OrderEventCodec.sequenceNumber(buffer, 0)).isEqualTo(1);
+        assertThat(OrderEventCodec.symbol(buffer, 0)).isEqualTo("AAPL");
+        assertThat(OrderEventCodec.orderId(buffer, 0)).isEqualTo(1L);
+        int trade = OrderEventCodec.encodedLength(buffer, 0);
+        assertThat(OrderEventCodec.tradeBuyOrderId(buffer, trade)).isEqualTo(1L);
+        assertThat(OrderEventCodec.tradeSellOrderId(buffer, trade)).isEqualTo(2L);
+        assertThat(OrderEventCodec.tradePrice(buffer, trade)).isEqualTo(15_001_000_000L);
+        assertThat(OrderEventCodec.tradeQuantity(buffer, trade)).isEqualTo(25_000_000L);
+        int cancel = trade + OrderEventCodec.encodedLength(buffer, trade);
+        assertThat(OrderEventCodec.orderId(buffer, cancel)).isEqualTo(3L);
+        assertThat(OrderEventCodec.cancelledQuantity(buffer, cancel)).isEqualTo(300_000_000L);
+        int rest = cancel + OrderEventCodec.encodedLength(buffer, cancel);
+        int amend = rest + OrderEventCodec.encodedLength(buffer, rest);
+        assertThat(OrderEventCodec.templateId(buffer, amend)).isEqualTo(OrderEventCodec.ORDER_AMENDED);
+        assertThat(OrderEventCodec.orderId(buffer, amend)).isEqualTo(5L);
+        assertThat(OrderEventCodec.cancelledQuantity(buffer, amend)).isEqualTo(400_000_000L);
+        assertThat(OrderEventCodec.amendedPrice(buffer, amend)).isEqualTo(12_100_000_000L);
+        assertThat(OrderEventCodec.amendedQuantity(buffer, amend)).isEqualTo(600_000_000L);
+        assertThat(OrderEventCodec.amendedRemainingQuantity(buffer, amend)).isEqualTo(500_000_000L);
+        int expiry = amend + OrderEventCodec.encodedLength(buffer, amend);
+        assertThat(OrderEventCodec.templateId(buffer, expiry)).isEqualTo(OrderEventCodec.ORDER_EXPIRED);
+        assertThat(OrderEventCodec.orderId(buffer, expiry)).isEqualTo(6L);
+        assertThat(OrderEventCodec.cancelledQuantity(buffer, expiry)).isEqualTo(250_000_000L);
+        for (OrderEvent event : events()) {
+            assertThat(OrderEventCodec.decode(buffer).getSequenceNumber()).isEqualTo(event.getSequenceNumber());
+        }
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void newerVersionWithLongerBlockIsReadByOlderDecoder() {
+        OrderEvent event = new OrderRestEvent(4L, "GOOGL", Side.BUY, 1.0, 2800.0, 9);
+        byte[] current = serializer.serialize("order.events", event);
+        // a future version appending a 4 byte field to the block
+        ByteBuffer extended = ByteBuffer.allocate(current.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        int symbolAt = OrderEventCodec.HEADER_LENGTH + 33;
+        extended.put(current, 0, symbolAt).putInt(0xCAFE).put(current, symbolAt, current.length - symbolAt);
+        extended.put(1, (byte) 2).putShort(2, (short) 37);
+
+        OrderEvent decoded = deserializer.deserialize("order.events", extended.array());
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void unknownTemplateIsRejected() {
+        byte[] bytes = serializer.serialize("order.events", events().getFirst());
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> deserializer.deserialize("order.events", bytes))
+                .isInstanceOf(SerializationException.class);
+    }
+}
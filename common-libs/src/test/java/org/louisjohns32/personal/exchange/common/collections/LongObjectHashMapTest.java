@@ -0,0 +1,76 @@
+package org.louisjohns32.personal.exchange.common.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThat(map.put(7L, "a")).isNull();
+        assertThat(map.put(-3L, "b")).isNull();
+        assertThat(map.put(7L, "c")).isEqualTo("a");
+
+        assertThat(map.get(7L)).isEqualTo("c");
+        assertThat(map.get(-3L)).isEqualTo("b");
+        assertThat(map.get(8L)).isNull();
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(7L)).isEqualTo("c");
+        assertThat(map.remove(7L)).isNull();
+        assertThat(map.containsKey(7L)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroKeyIsReserved() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThatThrownBy(() -> map.put(0L, "a")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.remove(0L)).isNull();
+    }
+
+    @Test
+    void matchesHashMapThroughGrowthAndChurn() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // a small key range keeps probe runs colliding, so removals have to shift entries back
+            long key = random.nextInt(5_000) + 1;
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnce() {
+        LongObjectHashMap<StringBuilder> map = new LongObjectHashMap<>();
+
+        StringBuilder first = map.computeIfAbsent(1L, key -> new StringBuilder());
+        StringBuilder second = map.computeIfAbsent(1L, key -> new StringBuilder());
+
+        assertThat(second).isSameAs(first);
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(1L)).isNull();
+    }
+}
@@ -22,6 +22,12 @@ CREATE TABLE IF NOT EXISTS trades (
     executed_at TIMESTAMP NOT NULL
 );
 
+-- Last event sequence number applied per symbol, so republished events are skipped
+CREATE TABLE IF NOT EXISTS symbol_sequences (
+    symbol VARCHAR(10) PRIMARY KEY,
+    last_sequence_number BIGINT NOT NULL
+);
+
 -- Indexes for performance
 CREATE INDEX IF NOT EXISTS idx_orders_symbol ON orders(symbol);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
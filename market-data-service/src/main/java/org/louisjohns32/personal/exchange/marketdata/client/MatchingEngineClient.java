@@ -0,0 +1,49 @@
+package org.louisjohns32.personal.exchange.marketdata.client;
+
+import org.louisjohns32.personal.exchange.marketdata.model.MarketSnapshot;
+import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Reads aggregated books from the matching engine. Each is taken on the
+ * book's matching thread, so its levels are exactly those after the event
+ * numbered by its sequence number.
+ */
+@Component
+public class MatchingEngineClient {
+
+    private final RestClient restClient;
+
+    @Autowired
+    public MatchingEngineClient(
+            @Value("${exchange.matching-engine.url:http://localhost:8080}") String baseUrl,
+            @Value("${exchange.matching-engine.timeout-ms:2000}") long timeoutMillis) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(timeoutMillis));
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMillis));
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    public MarketSnapshot fetchMarketSnapshot() {
+        return restClient.get()
+                .uri("/api/orderbook")
+                .retrieve()
+                .body(MarketSnapshot.class);
+    }
+
+    public OrderBookSnapshot fetchOrderBook(String symbol) {
+        return restClient.get()
+                .uri("/api/orderbook/{symbol}", symbol)
+                .retrieve()
+                .body(OrderBookSnapshot.class);
+    }
+}
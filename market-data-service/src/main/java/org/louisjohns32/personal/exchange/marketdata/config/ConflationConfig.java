@@ -0,0 +1,50 @@
+package org.louisjohns32.personal.exchange.marketdata.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves how long a symbol's book changes are conflated before its delta
+ * is published, from {@code exchange.market-data.conflation.<SYMBOL>.*},
+ * falling back to {@code exchange.market-data.conflation.default.*}:
+ * {@code window-ms} while subscribers keep up, widening by another window
+ * for every {@code backlog-step} messages queued for them, up to
+ * {@code max-window-ms}.
+ */
+@Component
+public class ConflationConfig {
+
+    private static final String PREFIX = "exchange.market-data.conflation.";
+
+    public static final long DEFAULT_WINDOW_MS = 50;
+    public static final long DEFAULT_MAX_WINDOW_MS = 1000;
+    public static final long DEFAULT_BACKLOG_STEP = 500;
+
+    private record Window(long base, long max, long backlogStep) {}
+
+    @Autowired
+    private Environment env;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public long windowMillis(String symbol, int backlog) {
+        Window window = windows.computeIfAbsent(symbol, s -> new Window(
+                property(s, "window-ms", DEFAULT_WINDOW_MS),
+                property(s, "max-window-ms", DEFAULT_MAX_WINDOW_MS),
+                Math.max(1, property(s, "backlog-step", DEFAULT_BACKLOG_STEP))));
+        long widened = window.base() + Math.max(window.base(), 1) * (backlog / window.backlogStep());
+        return Math.min(widened, Math.max(window.max(), window.base()));
+    }
+
+    private long property(String symbol, String key, long fallback) {
+        Long value = env.getProperty(PREFIX + symbol + "." + key, Long.class);
+        if (value == null) {
+            value = env.getProperty(PREFIX + "default." + key, Long.class);
+        }
+        return value != null ? value : fallback;
+    }
+}
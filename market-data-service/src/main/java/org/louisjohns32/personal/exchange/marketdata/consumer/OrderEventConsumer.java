@@ -1,27 +1,47 @@
 package org.louisjohns32.personal.exchange.marketdata.consumer;
 
 import lombok.extern.slf4j.Slf4j;
-import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.apache.kafka.common.TopicPartition;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.marketdata.scheduled.DeltaPublicationScheduler;
 import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 @Service
 @Slf4j
-public class OrderEventConsumer {
+public class OrderEventConsumer implements ConsumerSeekAware {
 
     @Autowired
     private OrderBookStateService orderBookService;
 
+    @Autowired
+    private DeltaPublicationScheduler deltaPublicationScheduler;
+
+    @Autowired
+    private SnapshotBootstrap snapshotBootstrap;
+
+    // runs on the consumer thread before the first poll, so no event is applied ahead of the snapshot
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long seekTo = snapshotBootstrap.load();
+        if (seekTo != SnapshotBootstrap.NO_SEEK) {
+            callback.seekToTimestamp(assignments.keySet(), seekTo);
+        }
+    }
+
     @KafkaListener(topics = "${exchange.kafka.topics.order-events}", groupId = "${exchange.kafka.group-id}",
             containerFactory = "kafkaListenerContainerFactory")
     public void consume(OrderEvent orderEvent) {
         log.info("Order Event {}",orderEvent.getSymbol());
         try {
-            if (!(orderEvent instanceof OrderCreationEvent))
-                orderBookService.applyEvent(orderEvent);
+            // every event is sequenced, even those that leave the levels alone
+            if (orderBookService.applyEvent(orderEvent))
+                deltaPublicationScheduler.scheduleFlush(orderEvent.getSymbol());
         }catch (Exception e){
             log.error("Failed to apply event: {}", orderEvent, e);
             //throw e;
@@ -0,0 +1,61 @@
+package org.louisjohns32.personal.exchange.marketdata.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.marketdata.client.MatchingEngineClient;
+import org.louisjohns32.personal.exchange.marketdata.model.MarketSnapshot;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Starts the books from the matching engine's snapshot instead of replaying
+ * the event topic from the start, so startup time no longer depends on the
+ * topic's retention. The consumer then seeks to the snapshot's timestamp,
+ * less a margin; events before it are covered by the snapshot, and any
+ * after it that the books already reflect are dropped by sequence number.
+ * If the engine cannot be reached, consumption carries on from the
+ * committed offsets and each book resyncs once its sequence gap shows.
+ */
+@Component
+@Slf4j
+public class SnapshotBootstrap {
+
+    public static final long NO_SEEK = -1;
+
+    @Autowired
+    private MatchingEngineClient matchingEngineClient;
+
+    @Autowired
+    private OrderBookStateService orderBookStateService;
+
+    @Value("${exchange.market-data.bootstrap.enabled:true}")
+    private boolean enabled;
+
+    @Value("${exchange.market-data.bootstrap.seek-margin-ms:1000}")
+    private long seekMarginMillis;
+
+    private final AtomicBoolean loaded = new AtomicBoolean();
+
+    /**
+     * Loads the snapshot the first time partitions are assigned, returning
+     * the timestamp to seek them to, or {@link #NO_SEEK}.
+     */
+    public long load() {
+        if (!enabled || !loaded.compareAndSet(false, true)) {
+            return NO_SEEK;
+        }
+        try {
+            MarketSnapshot snapshot = matchingEngineClient.fetchMarketSnapshot();
+            orderBookStateService.bootstrap(snapshot.getBooks());
+            log.info("Loaded {} books from the matching engine snapshot taken at {}",
+                    snapshot.getBooks().size(), snapshot.getTimestamp());
+            return Math.max(snapshot.getTimestamp() - seekMarginMillis, 0);
+        } catch (Exception e) {
+            log.warn("Failed to load a snapshot from the matching engine, consuming from the committed offsets", e);
+            return NO_SEEK;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.louisjohns32.personal.exchange.marketdata.core;
 
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
@@ -10,9 +12,31 @@ import org.louisjohns32.personal.exchange.marketdata.model.LevelSnapshot;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookDelta;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
 
-import java.math.BigDecimal;
-import java.util.*;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated levels for one symbol, rebuilt from the order event stream.
+ * Prices and volumes stay {@link FixedPoint} scaled longs from the event to
+ * the flush; {@code BigDecimal}s are only made for the deltas and snapshots
+ * handed out to be serialized.
+ * <p>
+ * Events only accumulate into the pending deltas. A flush applies them to
+ * the levels, touching nothing else, so the levels always match what
+ * subscribers have been sent. Snapshots are built from them on first read
+ * after a flush that changed something, and only as deep as asked for.
+ * <p>
+ * Events are applied strictly in the engine's per-symbol sequence order.
+ * Ones that arrive past a gap wait in a bounded reorder buffer until the gap
+ * closes. A gap wider than the buffer, or one still open after the maximum
+ * gap time, cannot be closed from the stream, so the book stops applying
+ * events until it is resynced from an engine snapshot. Events consumed while
+ * the resync is pending are still held, and the ones past the snapshot are
+ * applied once it is in.
+ */
 public class OrderBookState {
 
 
@@ -20,48 +44,91 @@ public class OrderBookState {
 
     private final String symbol;
 
-    // maintain most recent snapshot
-    private OrderBookSnapshot recentSnapshot;
+    // built lazily; levels past snapshotDepth on either side were left out
+    private OrderBookSnapshot snapshot;
+    private int snapshotDepth;
 
-    // maintain deltas
-    private final Map<Side, Map<BigDecimal, BigDecimal>> pendingDeltas = new EnumMap<>(Side.class);
+    // net change per level since the last flush
+    private final SortedLevels bidDeltas = new SortedLevels(Side.BUY, true);
+    private final SortedLevels askDeltas = new SortedLevels(Side.SELL, true);
 
-    private final TreeMap<BigDecimal, BigDecimal> bidLevels = new TreeMap<>(Comparator.reverseOrder());
-    private final TreeMap<BigDecimal, BigDecimal> askLevels = new TreeMap<>();
+    // levels as of the last flush
+    private final SortedLevels bidLevels = new SortedLevels(Side.BUY, false);
+    private final SortedLevels askLevels = new SortedLevels(Side.SELL, false);
 
 
     private long currentSequenceNumber = 0;
+    private long flushedSequenceNumber = 0;
+
+    // levels changed since the last flush
+    private boolean dirty;
+
+    public static final int DEFAULT_REORDER_BUFFER = 256;
+    public static final long DEFAULT_MAX_GAP_MILLIS = 1000;
+
+    // events past a gap, in the slot for their sequence number modulo the buffer length
+    private final OrderEvent[] reorderBuffer;
+    private int buffered;
+    private final long maxGapNanos;
+    private long gapOpenedAt;
+    private boolean resyncNeeded;
+    private long resyncNotBefore;
 
 
-    // TODO need to construct this state from a snapshot
     public OrderBookState(String symbol) {
-        pendingDeltas.put(Side.BUY, new HashMap<>());
-        pendingDeltas.put(Side.SELL, new HashMap<>());
+        this(symbol, DEFAULT_REORDER_BUFFER, DEFAULT_MAX_GAP_MILLIS);
+    }
+
+    public OrderBookState(String symbol, int reorderBufferSize, long maxGapMillis) {
         this.symbol = symbol;
+        this.reorderBuffer = new OrderEvent[Math.max(reorderBufferSize, 1)];
+        this.maxGapNanos = TimeUnit.MILLISECONDS.toNanos(maxGapMillis);
+    }
+
+    public String getSymbol() {
+        return symbol;
     }
 
 
     public OrderBookSnapshot getSnapshot() {
-        return recentSnapshot;
+        return getSnapshot(0);
     }
 
-    // consume OrderEvent, update state and deltas
-
-    // flush delta - returns current delta and resets delta and updates snapshot
-    public OrderBookDelta flushDelta() {
-        List<LevelDelta> deltas = new ArrayList<>();
+    /**
+     * Snapshot as of the last flush holding at most {@code depth} levels a
+     * side, or every level if {@code depth} is not positive. A cached
+     * snapshot at least as deep is truncated with list views rather than
+     * copied.
+     */
+    public synchronized OrderBookSnapshot getSnapshot(int depth) {
+        int wanted = depth > 0 ? depth : Integer.MAX_VALUE;
+        if (snapshot == null || snapshotDepth < wanted) {
+            snapshot = buildSnapshot(wanted);
+            snapshotDepth = wanted >= Math.max(bidLevels.size(), askLevels.size()) ? Integer.MAX_VALUE : wanted;
+        }
+        if (wanted >= snapshot.getBidLevels().size() && wanted >= snapshot.getAskLevels().size()) {
+            return snapshot;
+        }
+        return OrderBookSnapshot.builder()
+                .symbol(symbol)
+                .sequenceNumber(snapshot.getSequenceNumber())
+                .timestamp(snapshot.getTimestamp())
+                .bidLevels(top(snapshot.getBidLevels(), wanted))
+                .askLevels(top(snapshot.getAskLevels(), wanted))
+                .build();
+    }
 
-        for (var sideEntry : pendingDeltas.entrySet()) {
-            Side side = sideEntry.getKey();
-            for (var levelEntry : sideEntry.getValue().entrySet()) {
-                BigDecimal price = levelEntry.getKey();
-                BigDecimal deltaQty = levelEntry.getValue();
+    // consume OrderEvent, update state and deltas
 
-                if (!deltaQty.equals(BigDecimal.ZERO)) {
-                    deltas.add(new LevelDelta(side, price, deltaQty));
-                }
-            }
-            sideEntry.getValue().clear();
+    // flush delta - returns current delta, applies it to the levels and resets it
+    public synchronized OrderBookDelta flushDelta() {
+        List<LevelDelta> deltas = new ArrayList<>(bidDeltas.size() + askDeltas.size());
+        drainDeltas(Side.BUY, bidDeltas, bidLevels, deltas);
+        drainDeltas(Side.SELL, askDeltas, askLevels, deltas);
+        dirty = false;
+        if (!deltas.isEmpty() || flushedSequenceNumber != currentSequenceNumber) {
+            snapshot = null;
+            flushedSequenceNumber = currentSequenceNumber;
         }
 
         OrderBookDelta delta = OrderBookDelta.builder()
@@ -71,84 +138,240 @@ public class OrderBookState {
                 .symbol(symbol)
                 .build();
 
-        updateSnapshot();
         return delta;
     }
 
 
-    public synchronized void applyEvent(OrderEvent orderEvent) {
-        // TODO what to do if we get out of order events?
+    /**
+     * Applies the event, and any it unblocks from the reorder buffer, to the
+     * pending deltas. Returns true if the book has just gone from clean to
+     * dirty, so a flush needs scheduling. Events already applied are dropped.
+     */
+    public synchronized boolean applyEvent(OrderEvent orderEvent) {
+        long sequenceNumber = orderEvent.getSequenceNumber();
+        if (resyncNeeded) {
+            holdForResync(orderEvent);
+            return false;
+        }
+        if (sequenceNumber <= currentSequenceNumber) {
+            return false;
+        }
+        if (sequenceNumber != currentSequenceNumber + 1) {
+            hold(orderEvent);
+            return false;
+        }
+        boolean wasDirty = dirty;
+        apply(orderEvent);
+        applyBuffered();
+        return dirty && !wasDirty;
+    }
+
+    /**
+     * Gives up on a gap that has been open longer than the maximum gap time,
+     * so it is caught even when no later event arrives for the symbol.
+     * Returns true if a resync is now needed.
+     */
+    public synchronized boolean expireGap() {
+        if (!resyncNeeded && buffered > 0 && System.nanoTime() - gapOpenedAt > maxGapNanos) {
+            needResync();
+        }
+        return resyncNeeded;
+    }
+
+    /**
+     * True once a gap could not be closed from the stream and the resync
+     * has not been put off by a failed attempt.
+     */
+    public synchronized boolean isResyncDue(long nowMillis) {
+        return resyncNeeded && nowMillis >= resyncNotBefore;
+    }
+
+    public synchronized void deferResync(long untilMillis) {
+        resyncNotBefore = untilMillis;
+    }
+
+    /**
+     * Replaces the book with an engine snapshot taken at
+     * {@code sequenceNumber}. The difference from what subscribers were last
+     * sent becomes the pending delta, so the next flush corrects them.
+     * Returns true if the book has just gone from clean to dirty.
+     */
+    public synchronized boolean resync(long sequenceNumber, List<LevelSnapshot> bids, List<LevelSnapshot> asks) {
+        rebase(bidLevels, bidDeltas, bids);
+        rebase(askLevels, askDeltas, asks);
+        currentSequenceNumber = sequenceNumber;
+        resyncNeeded = false;
+        // events held while the snapshot was fetched; those it already covers,
+        // or too far past it for the buffer to close the gap, are dropped
+        buffered = 0;
+        for (int i = 0; i < reorderBuffer.length; i++) {
+            if (reorderBuffer[i] == null) continue;
+            long held = reorderBuffer[i].getSequenceNumber();
+            if (held <= sequenceNumber || held - sequenceNumber > reorderBuffer.length) {
+                reorderBuffer[i] = null;
+            } else {
+                buffered++;
+            }
+        }
+        boolean newlyDirty = !dirty;
+        dirty = true;
+        applyBuffered();
+        return newlyDirty;
+    }
+
+    // applies held events for as long as they follow on from the current one
+    private void applyBuffered() {
+        while (buffered > 0) {
+            int slot = slot(currentSequenceNumber + 1);
+            OrderEvent next = reorderBuffer[slot];
+            if (next == null) {
+                // still short of the next event; time the gap from here
+                gapOpenedAt = System.nanoTime();
+                break;
+            }
+            reorderBuffer[slot] = null;
+            buffered--;
+            apply(next);
+        }
+    }
+
+    private void apply(OrderEvent orderEvent) {
+        boolean levelChanged = true;
         switch (orderEvent) {
             case OrderRestEvent orderRestEvent -> handleOrderRest(orderRestEvent);
             case TradeExecutionEvent tradeExecutionEvent -> handleTradeExecution(tradeExecutionEvent);
             case OrderCancellationEvent orderCancellationEvent -> handleOrderCancellation(orderCancellationEvent);
-            default -> {}
+            case OrderAmendEvent orderAmendEvent -> handleOrderAmend(orderAmendEvent);
+            default -> levelChanged = false;
         }
-        currentSequenceNumber = Math.max(currentSequenceNumber, orderEvent.getSequenceNumber());
+        currentSequenceNumber = orderEvent.getSequenceNumber();
+        dirty |= levelChanged;
     }
 
-    private synchronized void updateSnapshot() {
-        recentSnapshot = OrderBookSnapshot.builder()
-                .askLevels(toLevelSnapshots(askLevels))
-                .bidLevels(toLevelSnapshots(bidLevels))
-                .sequenceNumber(currentSequenceNumber)
-                .build();
+    private void hold(OrderEvent orderEvent) {
+        long now = System.nanoTime();
+        if (orderEvent.getSequenceNumber() - currentSequenceNumber > reorderBuffer.length
+                || (buffered > 0 && now - gapOpenedAt > maxGapNanos)) {
+            needResync();
+            holdForResync(orderEvent);
+            return;
+        }
+        if (buffered == 0) {
+            gapOpenedAt = now;
+        }
+        int slot = slot(orderEvent.getSequenceNumber());
+        if (reorderBuffer[slot] == null) {
+            buffered++;
+        }
+        reorderBuffer[slot] = orderEvent;
     }
 
+    private void needResync() {
+        resyncNeeded = true;
+        Arrays.fill(reorderBuffer, null);
+        buffered = 0;
+    }
+
+    // keeps the latest events, one per slot, for whichever snapshot the resync fetches
+    private void holdForResync(OrderEvent orderEvent) {
+        int slot = slot(orderEvent.getSequenceNumber());
+        OrderEvent held = reorderBuffer[slot];
+        if (held == null) {
+            buffered++;
+        } else if (held.getSequenceNumber() >= orderEvent.getSequenceNumber()) {
+            return;
+        }
+        reorderBuffer[slot] = orderEvent;
+    }
 
-    private void updateLevel(Side side, BigDecimal price, BigDecimal quantityChange) {
-        Map<BigDecimal, BigDecimal> levelMap = getSideMap(side);
+    private int slot(long sequenceNumber) {
+        return (int) Math.floorMod(sequenceNumber, (long) reorderBuffer.length);
+    }
 
-        levelMap.merge(price, quantityChange, BigDecimal::add);
-        BigDecimal newVolume = levelMap.get(price);
-        if (newVolume == null || newVolume.compareTo(BigDecimal.ZERO) <= 0) {
-            levelMap.remove(price);
+    private static void rebase(SortedLevels levels, SortedLevels pending, List<LevelSnapshot> snapshot) {
+        pending.clear();
+        for (int i = 0; i < levels.size(); i++) {
+            pending.add(levels.price(i), -levels.quantity(i));
         }
+        for (LevelSnapshot level : snapshot) {
+            pending.add(FixedPoint.toScaled(level.getPrice()), FixedPoint.toScaled(level.getVolume()));
+        }
+    }
 
-        recordDelta(side, price, quantityChange);
+    private OrderBookSnapshot buildSnapshot(int depth) {
+        return OrderBookSnapshot.builder()
+                .symbol(symbol)
+                .askLevels(toLevelSnapshots(askLevels, depth))
+                .bidLevels(toLevelSnapshots(bidLevels, depth))
+                .sequenceNumber(flushedSequenceNumber)
+                .build();
+    }
+
+
+    private void updateLevel(Side side, double price, double quantityChange) {
+        long scaledPrice = FixedPoint.toScaled(price);
+        long scaledChange = FixedPoint.toScaled(quantityChange);
+        (side == Side.BUY ? bidDeltas : askDeltas).add(scaledPrice, scaledChange);
     }
 
     private void handleOrderRest(OrderRestEvent orderRestEvent) {
         updateLevel(
                 orderRestEvent.getSide(),
-                BigDecimal.valueOf(orderRestEvent.getPrice()),
-                BigDecimal.valueOf(orderRestEvent.getQuantity())
+                orderRestEvent.getPrice(),
+                orderRestEvent.getQuantity()
         );
     }
 
     private void handleTradeExecution(TradeExecutionEvent tradeExecutionEvent) {
         updateLevel(
                 tradeExecutionEvent.getMakerSide(),
-                BigDecimal.valueOf(tradeExecutionEvent.getPrice()),
-                BigDecimal.valueOf(-tradeExecutionEvent.getQuantity())
+                tradeExecutionEvent.getPrice(),
+                -tradeExecutionEvent.getQuantity()
         );
     }
 
     private void handleOrderCancellation(OrderCancellationEvent orderCancellationEvent) {
         updateLevel(
                 orderCancellationEvent.getSide(),
-                BigDecimal.valueOf(orderCancellationEvent.getPrice()),
-                BigDecimal.valueOf(-orderCancellationEvent.getRemainingQuantity())
+                orderCancellationEvent.getPrice(),
+                -orderCancellationEvent.getRemainingQuantity()
         );
     }
 
+    // the amended order leaves its old level; the rest event that follows puts back what remains
+    private void handleOrderAmend(OrderAmendEvent orderAmendEvent) {
+        updateLevel(
+                orderAmendEvent.getSide(),
+                orderAmendEvent.getPrice(),
+                -orderAmendEvent.getRemainingQuantity()
+        );
+    }
 
-    private List<LevelSnapshot> toLevelSnapshots(TreeMap<BigDecimal, BigDecimal> levelMap) {
-        List<LevelSnapshot> levelSnapshots = new ArrayList<>();
-        for  (var levelEntry : levelMap.entrySet()) {
+
+    private List<LevelSnapshot> toLevelSnapshots(SortedLevels levels, int depth) {
+        int count = Math.min(levels.size(), depth);
+        List<LevelSnapshot> levelSnapshots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
             levelSnapshots.add(LevelSnapshot.builder()
-                    .volume(levelEntry.getValue())
-                    .price(levelEntry.getKey())
+                    .volume(FixedPoint.toBigDecimal(levels.quantity(i)))
+                    .price(FixedPoint.toBigDecimal(levels.price(i)))
                     .build()
             );
         }
-        return levelSnapshots;
+        return Collections.unmodifiableList(levelSnapshots);
     }
 
-    private Map<BigDecimal, BigDecimal> getSideMap(Side side) {
-        return side == Side.BUY ? bidLevels : askLevels;
+    private static List<LevelSnapshot> top(List<LevelSnapshot> levels, int depth) {
+        return levels.size() > depth ? levels.subList(0, depth) : levels;
     }
-    private void recordDelta(Side side, BigDecimal price, BigDecimal quantityDelta) {
-        pendingDeltas.get(side).merge(price, quantityDelta, BigDecimal::add);
+
+    // every touched level is sent, even one that netted to zero, so subscribers see it was filled through
+    private static void drainDeltas(Side side, SortedLevels pending, SortedLevels levels, List<LevelDelta> deltas) {
+        for (int i = 0; i < pending.size(); i++) {
+            levels.add(pending.price(i), pending.quantity(i));
+            deltas.add(new LevelDelta(side, FixedPoint.toBigDecimal(pending.price(i)),
+                    FixedPoint.toBigDecimal(pending.quantity(i))));
+        }
+        pending.clear();
     }
 }
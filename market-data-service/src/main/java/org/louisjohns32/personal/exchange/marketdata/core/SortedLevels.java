@@ -0,0 +1,112 @@
+package org.louisjohns32.personal.exchange.marketdata.core;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.util.Arrays;
+
+/**
+ * Quantities by price for one side of a book, as parallel arrays of
+ * {@link FixedPoint} scaled longs sorted best price first: descending for
+ * bids, ascending for asks. A lookup is a binary search, and nothing is
+ * allocated unless the arrays grow. Activity clusters near the top of the
+ * book, so the shift on inserting or removing a level stays short.
+ * <p>
+ * Book sides drop a level once its quantity falls to zero; delta
+ * accumulators keep it, since a level can net out to no change.
+ * Not thread-safe.
+ */
+public final class SortedLevels {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean descending;
+    private final boolean keepEmpty;
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private int size;
+
+    public SortedLevels(Side side, boolean keepEmpty) {
+        this.descending = side == Side.BUY;
+        this.keepEmpty = keepEmpty;
+    }
+
+    /**
+     * Adds {@code change} to the quantity at {@code price}, creating the
+     * level if needed, and returns the new quantity.
+     */
+    public long add(long price, long change) {
+        int index = indexOf(price);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, price);
+        }
+        long quantity = quantities[index] + change;
+        quantities[index] = quantity;
+        if (quantity <= 0 && !keepEmpty) {
+            removeAt(index);
+        }
+        return quantity;
+    }
+
+    /**
+     * Quantity at {@code price}, or 0 if there is no level there.
+     */
+    public long quantityAt(long price) {
+        int index = indexOf(price);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Price of the level {@code index} places from the best.
+     */
+    public long price(int index) {
+        return prices[index];
+    }
+
+    public long quantity(int index) {
+        return quantities[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private int indexOf(long price) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            if (midPrice == price) return mid;
+            if (descending ? midPrice > price : midPrice < price) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insert(int index, long price) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        System.arraycopy(quantities, index, quantities, index + 1, size - index);
+        prices[index] = price;
+        quantities[index] = 0;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+        System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+        size--;
+    }
+}
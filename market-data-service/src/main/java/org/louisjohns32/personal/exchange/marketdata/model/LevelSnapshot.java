@@ -2,11 +2,13 @@ package org.louisjohns32.personal.exchange.marketdata.model;
 
 import lombok.Builder;
 import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 
 import java.math.BigDecimal;
 
 @Getter
 @Builder
+@Jacksonized
 public class LevelSnapshot {
 
     private BigDecimal price;
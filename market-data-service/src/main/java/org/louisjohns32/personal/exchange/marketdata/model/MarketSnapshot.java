@@ -0,0 +1,21 @@
+package org.louisjohns32.personal.exchange.marketdata.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * Every book on the matching engine, read after {@code timestamp}; any event
+ * a book emitted after being read was published later than it.
+ */
+@Builder
+@Jacksonized
+@Getter
+public class MarketSnapshot {
+
+    private long timestamp;
+
+    private List<OrderBookSnapshot> books;
+}
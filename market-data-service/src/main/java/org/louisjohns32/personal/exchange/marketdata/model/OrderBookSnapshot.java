@@ -2,13 +2,16 @@ package org.louisjohns32.personal.exchange.marketdata.model;
 
 import lombok.Builder;
 import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
 
 @Builder
+@Jacksonized
 @Getter
 public class OrderBookSnapshot {
 
+    private String symbol;
     private long sequenceNumber;
     private long timestamp;
 
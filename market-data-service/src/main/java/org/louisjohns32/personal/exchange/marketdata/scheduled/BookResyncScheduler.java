@@ -0,0 +1,65 @@
+package org.louisjohns32.personal.exchange.marketdata.scheduled;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweeps every book for a sequence gap that has outlived the maximum gap
+ * time or a resync that is due, so a book whose stream went quiet behind a
+ * lost event is still resynced. Resyncs fetch from the matching engine on
+ * this thread rather than the consumer's or a publisher's, and a book they
+ * change has its delta scheduled like any other.
+ */
+@Component
+@Slf4j
+public class BookResyncScheduler {
+
+    @Autowired
+    private OrderBookStateService orderBookStateService;
+
+    @Autowired
+    private DeltaPublicationScheduler deltaPublicationScheduler;
+
+    @Value("${exchange.market-data.gap-sweep-ms:100}")
+    private long sweepMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void sweep() {
+        Iterator<String> symbols = orderBookStateService.getSymbols();
+        while (symbols.hasNext()) {
+            String symbol = symbols.next();
+            try {
+                if (orderBookStateService.resyncIfDue(symbol)) {
+                    deltaPublicationScheduler.scheduleFlush(symbol);
+                }
+            } catch (Exception e) {
+                log.error("Failed to sweep {} for a resync", symbol, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
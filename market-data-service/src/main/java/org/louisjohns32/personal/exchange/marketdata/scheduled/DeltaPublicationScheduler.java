@@ -0,0 +1,88 @@
+package org.louisjohns32.personal.exchange.marketdata.scheduled;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.marketdata.config.ConflationConfig;
+import org.louisjohns32.personal.exchange.marketdata.model.OrderBookDelta;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookDeltaPublisher;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a symbol's delta once its conflation window has passed since the
+ * first change after the previous publish. Only books that changed are ever
+ * flushed, and each symbol always publishes from the same thread so its
+ * deltas go out in order. The window is read when it opens, widening while
+ * the broker's queue of messages to subscribers is backed up.
+ */
+@Component
+@Slf4j
+public class DeltaPublicationScheduler {
+
+    @Autowired
+    private OrderBookStateService orderBookStateService;
+
+    @Autowired
+    private OrderBookDeltaPublisher deltaPublisher;
+
+    @Autowired
+    private ConflationConfig conflationConfig;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private Executor outboundExecutor;
+
+    private final ScheduledExecutorService[] executors;
+
+    public DeltaPublicationScheduler(@Value("${exchange.market-data.publisher-threads:2}") int threads) {
+        executors = new ScheduledExecutorService[Math.max(threads, 1)];
+        for (int i = 0; i < executors.length; i++) {
+            String name = "delta-publisher-" + i;
+            executors[i] = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Opens the symbol's conflation window; called when its book goes from
+     * clean to dirty.
+     */
+    public void scheduleFlush(String symbol) {
+        long window = conflationConfig.windowMillis(symbol, subscriberBacklog());
+        executors[Math.floorMod(symbol.hashCode(), executors.length)]
+                .schedule(() -> publish(symbol), window, TimeUnit.MILLISECONDS);
+    }
+
+    // messages queued for subscribers; the broker's default executor is a bounded thread pool
+    private int subscriberBacklog() {
+        return outboundExecutor instanceof ThreadPoolTaskExecutor pool ? pool.getQueueSize() : 0;
+    }
+
+    private void publish(String symbol) {
+        try {
+            OrderBookDelta delta = orderBookStateService.flushDelta(symbol);
+            deltaPublisher.publishDelta(symbol, delta);
+        } catch (Exception e) {
+            log.error("Failed to publish delta for {}", symbol, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ScheduledExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.louisjohns32.personal.exchange.marketdata.service;
 
 import org.louisjohns32.personal.exchange.marketdata.core.OrderBookState;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Iterator;
@@ -11,8 +12,14 @@ import java.util.concurrent.ConcurrentHashMap;
 public class OrderBookRegistry {
     private final Map<String, OrderBookState> registry = new ConcurrentHashMap<>();
 
+    @Value("${exchange.market-data.reorder-buffer:" + OrderBookState.DEFAULT_REORDER_BUFFER + "}")
+    private int reorderBufferSize = OrderBookState.DEFAULT_REORDER_BUFFER;
+
+    @Value("${exchange.market-data.max-gap-ms:" + OrderBookState.DEFAULT_MAX_GAP_MILLIS + "}")
+    private long maxGapMillis = OrderBookState.DEFAULT_MAX_GAP_MILLIS;
+
     public OrderBookState getOrCreate(String symbol) {
-        return registry.computeIfAbsent(symbol, s -> new OrderBookState(symbol));
+        return registry.computeIfAbsent(symbol, s -> new OrderBookState(symbol, reorderBufferSize, maxGapMillis));
     }
 
     public Iterator<String> getSymbolsIterator() {
@@ -2,11 +2,12 @@ package org.louisjohns32.personal.exchange.marketdata.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.marketdata.client.MatchingEngineClient;
 import org.louisjohns32.personal.exchange.marketdata.core.OrderBookState;
-import org.louisjohns32.personal.exchange.marketdata.model.LevelSnapshot;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookDelta;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Iterator;
@@ -19,6 +20,12 @@ public class OrderBookStateService {
     @Autowired
     private OrderBookRegistry orderBookRegistry;
 
+    @Autowired
+    private MatchingEngineClient matchingEngineClient;
+
+    @Value("${exchange.market-data.resync-retry-ms:1000}")
+    private long resyncRetryMillis;
+
 
     public OrderBookSnapshot getOrderBookSnapshot(String symbol) {
         OrderBookState orderBookState = orderBookRegistry.getOrCreate(symbol);
@@ -26,35 +33,54 @@ public class OrderBookStateService {
     }
 
     public OrderBookSnapshot getOrderBookSnapshot(String symbol, int depth) {
-        OrderBookSnapshot full = getOrderBookSnapshot(symbol);
-        if (depth <= 0) {
-            return full;
-        }
-        List<LevelSnapshot> bids =
-                full.getBidLevels()
-                        .stream()
-                        .limit(depth)
-                        .toList();
-        List<LevelSnapshot> asks =
-                full.getAskLevels()
-                        .stream()
-                        .limit(depth)
-                        .toList();
-        return OrderBookSnapshot.builder()
-                .sequenceNumber(full.getSequenceNumber())
-                .timestamp(full.getTimestamp())
-                .bidLevels(bids)
-                .askLevels(asks)
-                .build();
+        OrderBookState orderBookState = orderBookRegistry.getOrCreate(symbol);
+        return orderBookState.getSnapshot(depth);
     }
 
 
-    // consume OrderEvent, pass onto OrderBookState
-    public void applyEvent(OrderEvent orderEvent) {
+    // consume OrderEvent, pass onto OrderBookState; true if the book has just become dirty
+    public boolean applyEvent(OrderEvent orderEvent) {
         String symbol = orderEvent.getSymbol();
         OrderBookState orderBookState = orderBookRegistry.getOrCreate(symbol);
+        return orderBookState.applyEvent(orderEvent);
+    }
+
+    /**
+     * Replaces a book whose event stream has an unclosable gap with the
+     * engine's current one, giving up on a gap that has gone quiet first.
+     * Called off the consuming thread so the fetch never stalls consumption;
+     * events consumed meanwhile are held by the book and the ones the
+     * snapshot doesn't cover are applied after it. A failed fetch is retried
+     * on a later call once the retry delay has passed. Returns true if the
+     * book has just become dirty.
+     */
+    public boolean resyncIfDue(String symbol) {
+        OrderBookState orderBookState = orderBookRegistry.getOrCreate(symbol);
+        if (!orderBookState.expireGap() || !orderBookState.isResyncDue(System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            OrderBookSnapshot snapshot = matchingEngineClient.fetchOrderBook(symbol);
+            log.warn("Resynced {} from the matching engine at sequence {}", symbol, snapshot.getSequenceNumber());
+            return orderBookState.resync(snapshot.getSequenceNumber(), snapshot.getBidLevels(), snapshot.getAskLevels());
+        } catch (Exception e) {
+            log.error("Failed to resync {} from the matching engine", symbol, e);
+            orderBookState.deferResync(System.currentTimeMillis() + resyncRetryMillis);
+            return false;
+        }
+    }
 
-        orderBookState.applyEvent(orderEvent);
+    /**
+     * Loads books from an engine snapshot before any subscriber could have
+     * seen them, so nothing is published for the load itself. Events the
+     * books already cover are dropped when they are consumed.
+     */
+    public void bootstrap(List<OrderBookSnapshot> books) {
+        for (OrderBookSnapshot book : books) {
+            OrderBookState orderBookState = orderBookRegistry.getOrCreate(book.getSymbol());
+            orderBookState.resync(book.getSequenceNumber(), book.getBidLevels(), book.getAskLevels());
+            orderBookState.flushDelta();
+        }
     }
 
     public OrderBookDelta flushDelta(String symbol) {
@@ -0,0 +1,73 @@
+package org.louisjohns32.personal.exchange.consumer;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.marketdata.client.MatchingEngineClient;
+import org.louisjohns32.personal.exchange.marketdata.consumer.OrderEventConsumer;
+import org.louisjohns32.personal.exchange.marketdata.consumer.SnapshotBootstrap;
+import org.louisjohns32.personal.exchange.marketdata.model.MarketSnapshot;
+import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class SnapshotBootstrapTest {
+
+    private final MatchingEngineClient matchingEngineClient = mock(MatchingEngineClient.class);
+    private final OrderBookStateService stateService = mock(OrderBookStateService.class);
+    private final SnapshotBootstrap bootstrap = new SnapshotBootstrap();
+    private final OrderEventConsumer consumer = new OrderEventConsumer();
+    private final ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+    private final Map<TopicPartition, Long> assignments = Map.of(new TopicPartition("order.events", 0), 0L);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bootstrap, "matchingEngineClient", matchingEngineClient);
+        ReflectionTestUtils.setField(bootstrap, "orderBookStateService", stateService);
+        ReflectionTestUtils.setField(bootstrap, "enabled", true);
+        ReflectionTestUtils.setField(bootstrap, "seekMarginMillis", 1_000L);
+        ReflectionTestUtils.setField(consumer, "snapshotBootstrap", bootstrap);
+    }
+
+    @Test
+    void firstAssignment_loadsTheSnapshotAndSeeksToJustBeforeIt() {
+        List<OrderBookSnapshot> books = List.of(OrderBookSnapshot.builder().symbol("AAPL").sequenceNumber(7)
+                .bidLevels(List.of()).askLevels(List.of()).build());
+        when(matchingEngineClient.fetchMarketSnapshot())
+                .thenReturn(MarketSnapshot.builder().timestamp(50_000).books(books).build());
+
+        consumer.onPartitionsAssigned(assignments, callback);
+        consumer.onPartitionsAssigned(assignments, callback);
+
+        verify(stateService).bootstrap(books);
+        verify(callback, times(1)).seekToTimestamp(assignments.keySet(), 49_000);
+    }
+
+    @Test
+    void unreachableEngine_consumesFromTheCommittedOffsets() {
+        when(matchingEngineClient.fetchMarketSnapshot()).thenThrow(new ResourceAccessException("refused"));
+
+        consumer.onPartitionsAssigned(assignments, callback);
+
+        verifyNoInteractions(stateService);
+        verify(callback, never()).seekToTimestamp(anyCollection(), anyLong());
+    }
+
+    @Test
+    void disabled_neverCallsTheEngine() {
+        ReflectionTestUtils.setField(bootstrap, "enabled", false);
+
+        assertThat(bootstrap.load()).isEqualTo(SnapshotBootstrap.NO_SEEK);
+        verifyNoInteractions(matchingEngineClient);
+    }
+}
@@ -7,10 +7,12 @@ import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
 import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
 import org.louisjohns32.personal.exchange.marketdata.core.OrderBookState;
+import org.louisjohns32.personal.exchange.marketdata.model.LevelSnapshot;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookDelta;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -125,6 +127,159 @@ public class OrderBookStateTest {
                 .anyMatch(l -> l.getPrice().compareTo(BigDecimal.valueOf(101)) == 0);
     }
 
+    @Test
+    void snapshot_reflectsLastFlushNotPendingEvents() {
+        orderBookState.applyEvent(restBuy(100, 50));
+        orderBookState.flushDelta();
+        orderBookState.applyEvent(restBuy(99, 10));
+
+        OrderBookSnapshot snapshot = orderBookState.getSnapshot();
+
+        assertThat(snapshot.getBidLevels()).hasSize(1);
+        assertThat(snapshot.getSequenceNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void idleFlush_keepsTheCachedSnapshot() {
+        orderBookState.applyEvent(restBuy(100, 50));
+        orderBookState.flushDelta();
+        OrderBookSnapshot first = orderBookState.getSnapshot();
+
+        orderBookState.flushDelta();
+
+        assertThat(orderBookState.getSnapshot()).isSameAs(first);
+    }
+
+    @Test
+    void depthLimitedSnapshot_holdsTheBestLevels() {
+        for (int price = 90; price < 100; price++) {
+            orderBookState.applyEvent(restBuy(price, 1));
+            orderBookState.applyEvent(restSell(price + 10, 1));
+        }
+        orderBookState.flushDelta();
+
+        OrderBookSnapshot top = orderBookState.getSnapshot(3);
+        OrderBookSnapshot full = orderBookState.getSnapshot();
+
+        assertThat(top.getBidLevels()).extracting(l -> l.getPrice().intValue()).containsExactly(99, 98, 97);
+        assertThat(top.getAskLevels()).extracting(l -> l.getPrice().intValue()).containsExactly(100, 101, 102);
+        assertThat(full.getBidLevels()).hasSize(10);
+        assertThat(orderBookState.getSnapshot(3).getAskLevels()).hasSize(3);
+    }
+
+    @Test
+    void applyEvent_reportsOnlyTheFirstChangeSinceAFlush() {
+        assertThat(orderBookState.applyEvent(restBuy(100, 50))).isTrue();
+        assertThat(orderBookState.applyEvent(restBuy(99, 50))).isFalse();
+
+        orderBookState.flushDelta();
+
+        assertThat(orderBookState.applyEvent(cancelBuy(100, 50))).isTrue();
+    }
+
+    @Test
+    void duplicateEvents_areDropped() {
+        orderBookState.applyEvent(restBuy(100, 50));
+        seq--;
+        orderBookState.applyEvent(restBuy(100, 50));
+        orderBookState.flushDelta();
+
+        assertThat(orderBookState.getSnapshot().getBidLevels())
+                .singleElement()
+                .matches(l -> l.getVolume().compareTo(BigDecimal.valueOf(50)) == 0);
+    }
+
+    @Test
+    void gapWiderThanTheReorderBuffer_needsResync() {
+        orderBookState = new OrderBookState("GOOG", 4, 60_000);
+        orderBookState.applyEvent(restBuy(100, 50));
+        seq += 4;
+
+        orderBookState.applyEvent(restBuy(99, 10));
+
+        assertThat(orderBookState.isResyncDue(0)).isTrue();
+        seq = 2;
+        assertThat(orderBookState.applyEvent(restBuy(98, 10))).isFalse();
+
+        orderBookState.deferResync(500);
+        assertThat(orderBookState.isResyncDue(499)).isFalse();
+        assertThat(orderBookState.isResyncDue(500)).isTrue();
+    }
+
+    @Test
+    void gapOpenPastTheMaximum_needsResync() throws InterruptedException {
+        orderBookState = new OrderBookState("GOOG", 256, 1);
+        seq = 3;
+        orderBookState.applyEvent(restBuy(100, 50));
+        assertThat(orderBookState.isResyncDue(0)).isFalse();
+
+        Thread.sleep(5);
+        orderBookState.applyEvent(restBuy(99, 10));
+
+        assertThat(orderBookState.isResyncDue(0)).isTrue();
+    }
+
+    @Test
+    void quietGap_expiresWithoutALaterEvent() throws InterruptedException {
+        orderBookState = new OrderBookState("GOOG", 256, 1);
+        seq = 3;
+        orderBookState.applyEvent(restBuy(100, 50));
+        assertThat(orderBookState.expireGap()).isFalse();
+
+        Thread.sleep(5);
+
+        assertThat(orderBookState.expireGap()).isTrue();
+        assertThat(orderBookState.isResyncDue(0)).isTrue();
+    }
+
+    @Test
+    void eventsConsumedDuringAResync_areAppliedAfterTheSnapshot() {
+        orderBookState = new OrderBookState("GOOG", 4, 60_000);
+        orderBookState.applyEvent(restBuy(100, 50));
+        seq = 10;
+        orderBookState.applyEvent(restBuy(99, 10));
+        assertThat(orderBookState.isResyncDue(0)).isTrue();
+
+        // consumed while the snapshot, taken at 11, was being fetched
+        orderBookState.applyEvent(restBuy(98, 10));
+        orderBookState.applyEvent(restBuy(97, 10));
+        orderBookState.applyEvent(restBuy(96, 10));
+        orderBookState.resync(11, List.of(level(100, 50), level(99, 10), level(98, 10)), List.of());
+
+        assertThat(orderBookState.isResyncDue(0)).isFalse();
+        assertThat(orderBookState.flushDelta().getSequenceNumber()).isEqualTo(13);
+        assertThat(orderBookState.getSnapshot().getBidLevels())
+                .extracting(l -> l.getPrice().intValue())
+                .containsExactly(100, 99, 98, 97, 96);
+    }
+
+    @Test
+    void resync_sendsTheDifferenceAndResumesAfterTheSnapshot() {
+        orderBookState.applyEvent(restBuy(100, 50));
+        orderBookState.applyEvent(restSell(101, 40));
+        orderBookState.flushDelta();
+
+        orderBookState.resync(10, List.of(level(100, 30)), List.of(level(102, 5)));
+        seq = 10;
+        orderBookState.applyEvent(restBuy(100, 99));
+        seq = 11;
+        orderBookState.applyEvent(restBuy(100, 5));
+        OrderBookDelta delta = orderBookState.flushDelta();
+
+        assertThat(delta.getSequenceNumber()).isEqualTo(11);
+        assertThat(delta.getLevelDeltas()).extracting(l -> l.getVolumeDifference().intValue())
+                .containsExactly(-15, -40, 5);
+        OrderBookSnapshot snapshot = orderBookState.getSnapshot();
+        assertThat(snapshot.getBidLevels()).singleElement()
+                .matches(l -> l.getVolume().compareTo(BigDecimal.valueOf(35)) == 0);
+        assertThat(snapshot.getAskLevels()).singleElement()
+                .matches(l -> l.getPrice().compareTo(BigDecimal.valueOf(102)) == 0);
+    }
+
+    private static LevelSnapshot level(double price, double volume) {
+        return LevelSnapshot.builder().price(BigDecimal.valueOf(price)).volume(BigDecimal.valueOf(volume)).build();
+    }
+
     private OrderRestEvent restBuy(double price, double qty) {
         return OrderRestEvent.builder()
                 .orderId(1L)
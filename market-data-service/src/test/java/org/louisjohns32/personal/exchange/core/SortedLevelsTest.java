@@ -0,0 +1,70 @@
+package org.louisjohns32.personal.exchange.core;
+
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.marketdata.core.SortedLevels;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedLevelsTest {
+
+    private static long[] prices(SortedLevels levels) {
+        long[] prices = new long[levels.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = levels.price(i);
+        }
+        return prices;
+    }
+
+    @Test
+    void bids_areOrderedHighestFirst_andAsksLowestFirst() {
+        SortedLevels bids = new SortedLevels(Side.BUY, false);
+        SortedLevels asks = new SortedLevels(Side.SELL, false);
+        for (long price : new long[]{101, 99, 105, 100}) {
+            bids.add(price, 1);
+            asks.add(price, 1);
+        }
+
+        assertThat(prices(bids)).containsExactly(105, 101, 100, 99);
+        assertThat(prices(asks)).containsExactly(99, 100, 101, 105);
+    }
+
+    @Test
+    void add_aggregatesAndDropsEmptiedLevels() {
+        SortedLevels bids = new SortedLevels(Side.BUY, false);
+        bids.add(100, 50);
+        assertThat(bids.add(100, 20)).isEqualTo(70);
+
+        assertThat(bids.add(100, -70)).isZero();
+
+        assertThat(bids.size()).isZero();
+        assertThat(bids.quantityAt(100)).isZero();
+    }
+
+    @Test
+    void keepEmpty_retainsLevelsThatNetToZero() {
+        SortedLevels deltas = new SortedLevels(Side.SELL, true);
+        deltas.add(100, 30);
+        deltas.add(100, -30);
+        deltas.add(99, -5);
+
+        assertThat(prices(deltas)).containsExactly(99, 100);
+        assertThat(deltas.quantity(0)).isEqualTo(-5);
+        assertThat(deltas.quantity(1)).isZero();
+
+        deltas.clear();
+        assertThat(deltas.size()).isZero();
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        SortedLevels asks = new SortedLevels(Side.SELL, false);
+        for (long price = 1_000; price > 0; price--) {
+            asks.add(price, price);
+        }
+
+        assertThat(asks.size()).isEqualTo(1_000);
+        assertThat(asks.price(0)).isEqualTo(1);
+        assertThat(asks.quantityAt(500)).isEqualTo(500);
+    }
+}
@@ -0,0 +1,96 @@
+package org.louisjohns32.personal.exchange.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.marketdata.client.MatchingEngineClient;
+import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
+import org.louisjohns32.personal.exchange.marketdata.scheduled.BookResyncScheduler;
+import org.louisjohns32.personal.exchange.marketdata.scheduled.DeltaPublicationScheduler;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookRegistry;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class BookResyncSchedulerTest {
+
+    private final OrderBookStateService stateService = new OrderBookStateService();
+    private final OrderBookRegistry registry = new OrderBookRegistry();
+    private final MatchingEngineClient matchingEngineClient = mock(MatchingEngineClient.class);
+    private final DeltaPublicationScheduler deltaPublicationScheduler = mock(DeltaPublicationScheduler.class);
+    private final BookResyncScheduler scheduler = new BookResyncScheduler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "maxGapMillis", 1L);
+        ReflectionTestUtils.setField(stateService, "orderBookRegistry", registry);
+        ReflectionTestUtils.setField(stateService, "matchingEngineClient", matchingEngineClient);
+        ReflectionTestUtils.setField(stateService, "resyncRetryMillis", 1000L);
+        ReflectionTestUtils.setField(scheduler, "orderBookStateService", stateService);
+        ReflectionTestUtils.setField(scheduler, "deltaPublicationScheduler", deltaPublicationScheduler);
+        ReflectionTestUtils.setField(scheduler, "sweepMillis", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void quietGap_isResyncedOffTheConsumerThreadAndFlushed() {
+        stateService.applyEvent(rest("AAPL", 1));
+        stateService.flushDelta("AAPL");
+        // 2 is lost and nothing else arrives for AAPL
+        stateService.applyEvent(rest("AAPL", 3));
+        stateService.applyEvent(rest("MSFT", 1));
+        when(matchingEngineClient.fetchOrderBook("AAPL")).thenReturn(OrderBookSnapshot.builder()
+                .sequenceNumber(3)
+                .bidLevels(List.of())
+                .askLevels(List.of())
+                .build());
+
+        scheduler.start();
+
+        verify(deltaPublicationScheduler, timeout(2000)).scheduleFlush("AAPL");
+        verify(matchingEngineClient).fetchOrderBook("AAPL");
+        verify(matchingEngineClient, never()).fetchOrderBook("MSFT");
+        assertThat(stateService.flushDelta("AAPL").getSequenceNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void failedFetch_isRetriedByALaterSweep() {
+        ReflectionTestUtils.setField(stateService, "resyncRetryMillis", 20L);
+        stateService.applyEvent(rest("AAPL", 1));
+        stateService.flushDelta("AAPL");
+        stateService.applyEvent(rest("AAPL", 3));
+        when(matchingEngineClient.fetchOrderBook("AAPL"))
+                .thenThrow(new IllegalStateException("Matching engine unavailable"))
+                .thenReturn(OrderBookSnapshot.builder()
+                        .sequenceNumber(3)
+                        .bidLevels(List.of())
+                        .askLevels(List.of())
+                        .build());
+
+        scheduler.start();
+
+        verify(deltaPublicationScheduler, timeout(2000)).scheduleFlush("AAPL");
+        verify(matchingEngineClient, times(2)).fetchOrderBook("AAPL");
+    }
+
+    private static OrderRestEvent rest(String symbol, long sequenceNumber) {
+        return OrderRestEvent.builder()
+                .orderId(sequenceNumber)
+                .symbol(symbol)
+                .side(Side.BUY)
+                .price(100.)
+                .quantity(10.)
+                .sequenceNumber(sequenceNumber)
+                .build();
+    }
+}
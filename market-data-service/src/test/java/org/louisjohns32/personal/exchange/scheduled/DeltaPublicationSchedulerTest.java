@@ -0,0 +1,104 @@
+package org.louisjohns32.personal.exchange.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.marketdata.config.ConflationConfig;
+import org.louisjohns32.personal.exchange.marketdata.model.OrderBookDelta;
+import org.louisjohns32.personal.exchange.marketdata.scheduled.DeltaPublicationScheduler;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookDeltaPublisher;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookRegistry;
+import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DeltaPublicationSchedulerTest {
+
+    private final OrderBookStateService stateService = new OrderBookStateService();
+    private final OrderBookDeltaPublisher deltaPublisher = mock(OrderBookDeltaPublisher.class);
+    private final ThreadPoolTaskExecutor outboundExecutor = new ThreadPoolTaskExecutor();
+    private final MockEnvironment env = new MockEnvironment()
+            .withProperty("exchange.market-data.conflation.default.window-ms", "200")
+            .withProperty("exchange.market-data.conflation.default.max-window-ms", "500")
+            .withProperty("exchange.market-data.conflation.default.backlog-step", "100")
+            .withProperty("exchange.market-data.conflation.AAPL.window-ms", "0");
+    private final ConflationConfig conflationConfig = new ConflationConfig();
+    private DeltaPublicationScheduler scheduler;
+    private final Map<String, Long> sequenceNumbers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stateService, "orderBookRegistry", new OrderBookRegistry());
+        ReflectionTestUtils.setField(conflationConfig, "env", env);
+        scheduler = new DeltaPublicationScheduler(1);
+        ReflectionTestUtils.setField(scheduler, "orderBookStateService", stateService);
+        ReflectionTestUtils.setField(scheduler, "deltaPublisher", deltaPublisher);
+        ReflectionTestUtils.setField(scheduler, "conflationConfig", conflationConfig);
+        ReflectionTestUtils.setField(scheduler, "outboundExecutor", outboundExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private void apply(String symbol, double price, double quantity) {
+        long seq = sequenceNumbers.merge(symbol, 1L, Long::sum);
+        if (stateService.applyEvent(OrderRestEvent.builder()
+                .orderId(seq)
+                .symbol(symbol)
+                .side(Side.BUY)
+                .price(price)
+                .quantity(quantity)
+                .sequenceNumber(seq)
+                .build())) {
+            scheduler.scheduleFlush(symbol);
+        }
+    }
+
+    @Test
+    void changesWithinAWindow_arePublishedAsOneDelta() {
+        apply("AAPL", 100, 10);
+        ArgumentCaptor<OrderBookDelta> first = ArgumentCaptor.forClass(OrderBookDelta.class);
+        verify(deltaPublisher, timeout(1000)).publishDelta(eq("AAPL"), first.capture());
+
+        apply("MSFT", 100, 10);
+        apply("MSFT", 100, 5);
+        apply("MSFT", 99, 5);
+
+        ArgumentCaptor<OrderBookDelta> conflated = ArgumentCaptor.forClass(OrderBookDelta.class);
+        verify(deltaPublisher, after(100).never()).publishDelta(eq("MSFT"), any());
+        verify(deltaPublisher, timeout(1000)).publishDelta(eq("MSFT"), conflated.capture());
+        assertThat(first.getValue().getLevelDeltas()).hasSize(1);
+        assertThat(conflated.getValue().getLevelDeltas()).hasSize(2);
+        assertThat(conflated.getValue().getSequenceNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void idleSymbols_areNeverFlushed() {
+        apply("AAPL", 100, 10);
+        verify(deltaPublisher, timeout(1000)).publishDelta(eq("AAPL"), any());
+
+        verify(deltaPublisher, after(200).times(1)).publishDelta(any(), any());
+    }
+
+    @Test
+    void windowWidensWithSubscriberBacklog_upToTheCap() {
+        assertThat(conflationConfig.windowMillis("MSFT", 0)).isEqualTo(200);
+        assertThat(conflationConfig.windowMillis("MSFT", 150)).isEqualTo(400);
+        assertThat(conflationConfig.windowMillis("MSFT", 10_000)).isEqualTo(500);
+        assertThat(conflationConfig.windowMillis("AAPL", 250)).isEqualTo(2);
+    }
+}
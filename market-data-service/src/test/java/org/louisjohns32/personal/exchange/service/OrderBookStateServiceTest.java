@@ -6,15 +6,26 @@ import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
 import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
+import org.louisjohns32.personal.exchange.marketdata.client.MatchingEngineClient;
+import org.louisjohns32.personal.exchange.marketdata.core.OrderBookState;
+import org.louisjohns32.personal.exchange.marketdata.model.LevelSnapshot;
 import org.louisjohns32.personal.exchange.marketdata.model.OrderBookSnapshot;
 import org.louisjohns32.personal.exchange.marketdata.service.OrderBookRegistry;
 import org.louisjohns32.personal.exchange.marketdata.service.OrderBookStateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 
 @SpringBootTest(classes = {OrderBookStateService.class, OrderBookRegistry.class})
@@ -23,6 +34,12 @@ class OrderBookStateServiceTest {
     @Autowired
     private OrderBookStateService service;
 
+    @Autowired
+    private OrderBookRegistry registry;
+
+    @MockitoBean
+    private MatchingEngineClient matchingEngineClient;
+
     private long seq;
 
     @BeforeEach
@@ -66,7 +83,7 @@ class OrderBookStateServiceTest {
     @Test
     void multipleSymbols_areIndependent() {
         String symbol1 = "MSFT";
-        String symbol2 = "TSLA";
+        String symbol2 = "NVDA";
 
         service.applyEvent(OrderRestEvent.builder()
                 .orderId(1L)
@@ -82,7 +99,8 @@ class OrderBookStateServiceTest {
                 .side(Side.BUY)
                 .price(200.)
                 .quantity(20.)
-                .sequenceNumber(seq++)
+                // sequence numbers are per symbol
+                .sequenceNumber(1)
                 .build());
 
         OrderBookSnapshot snapshot1 = flushAndGetSnapshot(symbol1);
@@ -132,7 +150,7 @@ class OrderBookStateServiceTest {
                 .side(Side.BUY)
                 .price(10.)
                 .quantity(1.)
-                .sequenceNumber(100)
+                .sequenceNumber(1)
                 .build());
         service.applyEvent(OrderRestEvent.builder()
                 .orderId(2L)
@@ -140,11 +158,11 @@ class OrderBookStateServiceTest {
                 .side(Side.BUY)
                 .price(10.)
                 .quantity(1.)
-                .sequenceNumber(105)
+                .sequenceNumber(2)
                 .build());
         OrderBookSnapshot snapshot = flushAndGetSnapshot(symbol);
 
-        assertThat(snapshot.getSequenceNumber()).isEqualTo(105);
+        assertThat(snapshot.getSequenceNumber()).isEqualTo(2);
     }
     @Test
     void flushDelta_returnsCorrectDeltasAndResets() {
@@ -252,7 +270,8 @@ class OrderBookStateServiceTest {
 
     @Test
     void fullyFilledLevel_removesDeltaAndLevel() {
-        String symbol = "AMZN";
+        // the context, and so every symbol's sequence, is shared across tests
+        String symbol = "ORCL";
 
         service.applyEvent(OrderRestEvent.builder()
                 .orderId(1L)
@@ -282,7 +301,7 @@ class OrderBookStateServiceTest {
 
     @Test
     void mixedBuySellDeltas_areCorrectlySeparated() {
-        String symbol = "NFLX";
+        String symbol = "INTC";
 
         service.applyEvent(OrderRestEvent.builder()
                 .orderId(1L)
@@ -317,4 +336,140 @@ class OrderBookStateServiceTest {
                         && l.getVolumeDifference().compareTo(BigDecimal.valueOf(15)) == 0);
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void reorderedEvents_areAppliedInSequence() {
+        String symbol = "UBER";
+
+        service.applyEvent(rest(symbol, Side.BUY, 100., 50., 2));
+        assertThat(service.flushDelta(symbol).getLevelDeltas()).isEmpty();
+
+        service.applyEvent(TradeExecutionEvent.builder()
+                .symbol(symbol)
+                .makerSide(Side.SELL)
+                .price(101.)
+                .quantity(10.)
+                .sequenceNumber(3)
+                .build());
+        service.applyEvent(rest(symbol, Side.SELL, 101., 30., 1));
+
+        var delta = service.flushDelta(symbol);
+        assertThat(delta.getSequenceNumber()).isEqualTo(3);
+        assertThat(delta.getLevelDeltas()).hasSize(2);
+        assertThat(flushAndGetSnapshot(symbol).getAskLevels())
+                .singleElement()
+                .matches(l -> l.getVolume().compareTo(BigDecimal.valueOf(20)) == 0);
+        verifyNoInteractions(matchingEngineClient);
+    }
+
+    @Test
+    void unclosableGap_resyncsFromTheMatchingEngine() {
+        String symbol = "SHOP";
+        service.applyEvent(rest(symbol, Side.BUY, 100., 50., 1));
+        service.flushDelta(symbol);
+        when(matchingEngineClient.fetchOrderBook(symbol)).thenReturn(OrderBookSnapshot.builder()
+                .sequenceNumber(5_000)
+                .bidLevels(List.of(LevelSnapshot.builder().price(BigDecimal.valueOf(99)).volume(BigDecimal.ONE).build()))
+                .askLevels(List.of())
+                .build());
+
+        service.applyEvent(rest(symbol, Side.BUY, 98., 7., 4_000));
+        service.applyEvent(rest(symbol, Side.BUY, 97., 3., 5_001));
+        verifyNoInteractions(matchingEngineClient);
+
+        assertThat(service.resyncIfDue(symbol)).isTrue();
+
+        var delta = service.flushDelta(symbol);
+        assertThat(delta.getSequenceNumber()).isEqualTo(5_001);
+        assertThat(delta.getLevelDeltas())
+                .anyMatch(l -> l.getPrice().compareTo(BigDecimal.valueOf(100)) == 0
+                        && l.getVolumeDifference().compareTo(BigDecimal.valueOf(-50)) == 0);
+        assertThat(service.getOrderBookSnapshot(symbol).getBidLevels())
+                .extracting(l -> l.getPrice().intValue())
+                .containsExactly(99, 97);
+    }
+
+    @Test
+    void quietGap_isResyncedWithoutALaterEvent() throws InterruptedException {
+        String symbol = "LYFT";
+        ReflectionTestUtils.setField(registry, "maxGapMillis", 1L);
+        try {
+            service.applyEvent(rest(symbol, Side.BUY, 100., 50., 1));
+            service.applyEvent(rest(symbol, Side.BUY, 98., 7., 3));
+        } finally {
+            ReflectionTestUtils.setField(registry, "maxGapMillis", OrderBookState.DEFAULT_MAX_GAP_MILLIS);
+        }
+        when(matchingEngineClient.fetchOrderBook(symbol)).thenReturn(OrderBookSnapshot.builder()
+                .sequenceNumber(3)
+                .bidLevels(List.of(LevelSnapshot.builder().price(BigDecimal.valueOf(98)).volume(BigDecimal.ONE).build()))
+                .askLevels(List.of())
+                .build());
+
+        Thread.sleep(5);
+        service.resyncIfDue(symbol);
+
+        service.flushDelta(symbol);
+        assertThat(service.getOrderBookSnapshot(symbol).getSequenceNumber()).isEqualTo(3);
+        assertThat(service.getOrderBookSnapshot(symbol).getBidLevels())
+                .extracting(l -> l.getPrice().intValue())
+                .containsExactly(98);
+    }
+
+    @Test
+    void failedResync_isRetriedAfterTheDelay() throws InterruptedException {
+        String symbol = "DASH";
+        ReflectionTestUtils.setField(service, "resyncRetryMillis", 20L);
+        service.applyEvent(rest(symbol, Side.BUY, 100., 50., 1));
+        service.applyEvent(rest(symbol, Side.BUY, 98., 7., 1_000));
+        when(matchingEngineClient.fetchOrderBook(symbol))
+                .thenThrow(new IllegalStateException("Matching engine unavailable"))
+                .thenReturn(OrderBookSnapshot.builder()
+                        .sequenceNumber(1_000)
+                        .bidLevels(List.of())
+                        .askLevels(List.of())
+                        .build());
+
+        assertThat(service.resyncIfDue(symbol)).isFalse();
+        assertThat(service.resyncIfDue(symbol)).isFalse();
+        verify(matchingEngineClient, times(1)).fetchOrderBook(symbol);
+
+        Thread.sleep(50);
+        service.resyncIfDue(symbol);
+
+        verify(matchingEngineClient, times(2)).fetchOrderBook(symbol);
+        assertThat(flushAndGetSnapshot(symbol).getSequenceNumber()).isEqualTo(1_000);
+    }
+
+    @Test
+    void bootstrap_loadsBooksAndDropsEventsTheyCover() {
+        String symbol = "ABNB";
+        service.bootstrap(List.of(OrderBookSnapshot.builder()
+                .symbol(symbol)
+                .sequenceNumber(20)
+                .bidLevels(List.of(LevelSnapshot.builder().price(BigDecimal.valueOf(99)).volume(BigDecimal.TEN).build()))
+                .askLevels(List.of())
+                .build()));
+
+        assertThat(service.flushDelta(symbol).getLevelDeltas()).isEmpty();
+        assertThat(service.getOrderBookSnapshot(symbol).getSequenceNumber()).isEqualTo(20);
+
+        service.applyEvent(rest(symbol, Side.BUY, 99., 10., 20));
+        service.applyEvent(rest(symbol, Side.BUY, 99., 5., 21));
+
+        service.flushDelta(symbol);
+        assertThat(service.getOrderBookSnapshot(symbol).getBidLevels()).singleElement()
+                .matches(l -> l.getVolume().compareTo(BigDecimal.valueOf(15)) == 0);
+        verifyNoInteractions(matchingEngineClient);
+    }
+
+    private OrderRestEvent rest(String symbol, Side side, double price, double quantity, long sequenceNumber) {
+        return OrderRestEvent.builder()
+                .orderId(sequenceNumber)
+                .symbol(symbol)
+                .side(side)
+                .price(price)
+                .quantity(quantity)
+                .sequenceNumber(sequenceNumber)
+                .build();
+    }
+}
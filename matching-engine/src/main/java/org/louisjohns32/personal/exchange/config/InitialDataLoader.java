@@ -3,6 +3,7 @@ package org.louisjohns32.personal.exchange.config;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.entities.Order;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistry;
 import org.louisjohns32.personal.exchange.services.OrderBookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -20,9 +21,16 @@ public class InitialDataLoader {
 	@Autowired
 	OrderBookService orderBookService;
 	
+	@Autowired
+	OrderBookRegistry registry;
+	
 	@Bean
 	CommandLineRunner initOrderBooks() {
 		return args -> {
+			if(registry.orderBookExists("AMZN")) {
+				// already seeded before a restart and recovered from the journal
+				return;
+			}
 			orderBookService.createOrderBook("NVDA");
 			orderBookService.createOrderBook("AMZN");
 			orderBookService.createOrderBook("GOOG");
@@ -0,0 +1,62 @@
+package org.louisjohns32.personal.exchange.config;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves per-symbol settings from {@code exchange.instruments.<SYMBOL>.*},
+ * falling back to {@code exchange.instruments.default.*}: tick and lot size,
+ * price band and max quantity for the {@link InstrumentSpec}, and the
+ * {@link OrderBookType}, ladder size and expected resting orders used when the
+ * symbol's book is created.
+ */
+@Component
+public class InstrumentConfig {
+
+    private static final String PREFIX = "exchange.instruments.";
+
+    @Autowired
+    private Environment env;
+
+    public InstrumentSpec specFor(String symbol) {
+        double tickSize = resolve(symbol, "tick-size", InstrumentSpec.DEFAULT.getTickSize());
+        double lotSize = resolve(symbol, "lot-size", InstrumentSpec.DEFAULT.getLotSize());
+        double minPrice = resolve(symbol, "min-price", 0);
+        double maxPrice = resolve(symbol, "max-price", 0);
+        double maxQuantity = resolve(symbol, "max-quantity", 0);
+        return new InstrumentSpec(tickSize, lotSize, minPrice, maxPrice, maxQuantity);
+    }
+
+    public OrderBookType bookTypeFor(String symbol) {
+        OrderBookType type = property(symbol, "book-type", OrderBookType.class);
+        return type != null ? type : OrderBookType.SKIP_LIST;
+    }
+
+    public int ladderLevelsFor(String symbol) {
+        Integer levels = property(symbol, "ladder-levels", Integer.class);
+        return levels != null ? levels : OrderBook.DEFAULT_LADDER_LEVELS;
+    }
+
+    public int expectedOrdersFor(String symbol) {
+        Integer orders = property(symbol, "expected-orders", Integer.class);
+        return orders != null ? orders : OrderBook.DEFAULT_EXPECTED_ORDERS;
+    }
+
+    private double resolve(String symbol, String key, long fallbackScaled) {
+        Double value = property(symbol, key, Double.class);
+        return value != null ? value : FixedPoint.toDouble(fallbackScaled);
+    }
+
+    private <T> T property(String symbol, String key, Class<T> type) {
+        T value = env.getProperty(PREFIX + symbol + "." + key, type);
+        if (value == null) {
+            value = env.getProperty(PREFIX + "default." + key, type);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,40 @@
+package org.louisjohns32.personal.exchange.config;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.risk.RiskLimits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves per-account limits from {@code exchange.risk.accounts.<ID>.*},
+ * falling back to {@code exchange.risk.default.*}: max open notional, max
+ * position and max orders per second for the account's {@link RiskLimits}.
+ */
+@Component
+public class RiskConfig {
+
+    private static final String PREFIX = "exchange.risk.";
+
+    @Autowired
+    private Environment env;
+
+    public boolean isEnabled() {
+        return env.getProperty(PREFIX + "enabled", Boolean.class, true);
+    }
+
+    public RiskLimits limitsFor(long accountId) {
+        double maxOpenNotional = property(accountId, "max-open-notional", Double.class, 0.0);
+        double maxPosition = property(accountId, "max-position", Double.class, 0.0);
+        int maxOrdersPerSecond = property(accountId, "max-orders-per-second", Integer.class, 0);
+        return new RiskLimits(FixedPoint.toScaled(maxOpenNotional), FixedPoint.toScaled(maxPosition), maxOrdersPerSecond);
+    }
+
+    private <T> T property(long accountId, String key, Class<T> type, T fallback) {
+        T value = env.getProperty(PREFIX + "accounts." + accountId + "." + key, type);
+        if (value == null) {
+            value = env.getProperty(PREFIX + "default." + key, type);
+        }
+        return value != null ? value : fallback;
+    }
+}
@@ -2,6 +2,8 @@ package org.louisjohns32.personal.exchange.controllers;
 
 import jakarta.validation.Valid;
 import org.louisjohns32.personal.exchange.assemblers.OrderBookModelAssembler;
+import org.louisjohns32.personal.exchange.dto.MarketSnapshotDTO;
+import org.louisjohns32.personal.exchange.dto.OrderAmendRequestDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookRequestDTO;
 import org.louisjohns32.personal.exchange.dto.OrderRequestDTO;
@@ -42,6 +44,11 @@ public class OrderBookApiController {
 		return orderBookService.getAggregatedOrderBook(symbol);
 	}
 	
+	@GetMapping("/orderbook")
+	public MarketSnapshotDTO getMarketSnapshot() {
+		return orderBookService.getMarketSnapshot();
+	}
+	
 	@PostMapping("/orders")
     @ResponseStatus(HttpStatus.CREATED)
 	public OrderResponseDTO createOrder(@RequestBody @Valid OrderRequestDTO orderRequest) {
@@ -49,6 +56,18 @@ public class OrderBookApiController {
         return OrderResponseDTO.fromEntity(createdOrder);
 	}
 	
+	@DeleteMapping("/orders/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void cancelOrder(@PathVariable long id) {
+		orderBookService.cancelOrder(id);
+	}
+	
+	@PatchMapping("/orders/{id}")
+	public OrderResponseDTO amendOrder(@PathVariable long id, @RequestBody @Valid OrderAmendRequestDTO amendRequest) {
+		Order amendedOrder = orderBookService.amendOrder(id, amendRequest.getQuantity(), amendRequest.getPrice());
+		return OrderResponseDTO.fromEntity(amendedOrder);
+	}
+	
 	
 	@PostMapping("/orderbook")
 	public ResponseEntity<?> createOrderBook(@RequestBody @Valid OrderBookRequestDTO orderBookRequest, BindingResult result) {
@@ -63,7 +82,9 @@ public class OrderBookApiController {
 			return ResponseEntity.badRequest().body(errors);
 		}
 		
-		OrderBook ob = orderBookService.createOrderBook(orderBookRequest.getSymbol());
+		OrderBook ob = orderBookRequest.getBookType() != null
+				? orderBookService.createOrderBook(orderBookRequest.getSymbol(), orderBookRequest.getBookType())
+				: orderBookService.createOrderBook(orderBookRequest.getSymbol());
 		EntityModel<OrderBook> obEntityModel = orderBookAssembler.toModel(ob);
 		return ResponseEntity.created(obEntityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).build();
 	}
@@ -0,0 +1,27 @@
+package org.louisjohns32.personal.exchange.dto;
+
+import java.util.List;
+
+/**
+ * Every book's aggregated levels, each with the sequence number it reflects.
+ * The timestamp is taken before any book is read, so every event published
+ * after a book was read carries a later Kafka timestamp; consumers can seek
+ * to it and drop what the books already cover by sequence number.
+ */
+public class MarketSnapshotDTO {
+	private final long timestamp;
+	private final List<OrderBookDTO> books;
+
+	public MarketSnapshotDTO(long timestamp, List<OrderBookDTO> books) {
+		this.timestamp = timestamp;
+		this.books = books;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public List<OrderBookDTO> getBooks() {
+		return books;
+	}
+}
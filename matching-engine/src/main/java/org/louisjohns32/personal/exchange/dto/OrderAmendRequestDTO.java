@@ -0,0 +1,28 @@
+package org.louisjohns32.personal.exchange.dto;
+
+
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Getter;
+
+/**
+ * New terms for a resting order. Either may be left out to keep it as it is,
+ * but not both.
+ */
+@Getter
+public class OrderAmendRequestDTO {
+
+    // the order's new total quantity, including whatever has already filled
+    @DecimalMin(value = "0.01", inclusive = true, message = "Quantity must be greater than 0")
+    private Double quantity;
+
+    @DecimalMin(value = "0.01", inclusive = true, message = "Price must be greater than 0")
+    private Double price;
+
+    public OrderAmendRequestDTO() {}
+
+    public OrderAmendRequestDTO(Double quantity, Double price) {
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+}
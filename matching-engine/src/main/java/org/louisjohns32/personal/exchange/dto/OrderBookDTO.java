@@ -6,11 +6,19 @@ public class OrderBookDTO {
 	private final String symbol;
 	private final List<OrderBookLevelDTO> bidLevels;
 	private final List<OrderBookLevelDTO> askLevels;
+	// the last event sequence number the levels reflect
+	private final long sequenceNumber;
 	
 	public OrderBookDTO(String symbol, List<OrderBookLevelDTO> bidLevels, List<OrderBookLevelDTO> askLevels) {
+        this(symbol, bidLevels, askLevels, 0);
+    }
+
+	public OrderBookDTO(String symbol, List<OrderBookLevelDTO> bidLevels, List<OrderBookLevelDTO> askLevels,
+			long sequenceNumber) {
         this.symbol = symbol;
         this.bidLevels = bidLevels;
         this.askLevels = askLevels;
+        this.sequenceNumber = sequenceNumber;
     }
 
 	public String getSymbol() {
@@ -26,4 +34,8 @@ public class OrderBookDTO {
 		return askLevels;
 	}
 
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
 }
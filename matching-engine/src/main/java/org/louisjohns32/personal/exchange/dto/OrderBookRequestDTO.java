@@ -3,6 +3,7 @@ package org.louisjohns32.personal.exchange.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
 
 public class OrderBookRequestDTO {
 	
@@ -11,6 +12,9 @@ public class OrderBookRequestDTO {
     @Pattern(regexp = "^[A-Z]+$", message = "Symbol must only contain chars in the english alphabet")
 	private String symbol;
 	
+	// optional, defaults to the symbol's configured book type
+	private OrderBookType bookType;
+	
 	public String getSymbol() {
         return symbol;
     }
@@ -18,4 +22,12 @@ public class OrderBookRequestDTO {
     public void setSymbol(String symbol) {
         this.symbol = symbol;
     }
+
+    public OrderBookType getBookType() {
+        return bookType;
+    }
+
+    public void setBookType(OrderBookType bookType) {
+        this.bookType = bookType;
+    }
 }
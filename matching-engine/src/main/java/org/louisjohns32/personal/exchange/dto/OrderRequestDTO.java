@@ -1,13 +1,18 @@
 package org.louisjohns32.personal.exchange.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
 
 @Getter
 public class OrderRequestDTO {
@@ -16,7 +21,7 @@ public class OrderRequestDTO {
     @DecimalMin(value = "0.01", inclusive = true, message = "Quantity must be greater than 0")
     private Double quantity;
 
-    @NotNull(message = "Price is required")
+    // required for limit orders, absent for market orders
     @DecimalMin(value = "0.01", inclusive = true, message = "Price must be greater than 0")
     private Double price;
 
@@ -28,6 +33,16 @@ public class OrderRequestDTO {
     @Pattern(regexp = "^[A-Z]+$", message = "Symbol must be uppercase alphabetical characters only")
     private String symbol;
 
+    // optional; orders without an account skip the per-account risk checks
+    @PositiveOrZero(message = "Account id must not be negative")
+    private Long accountId;
+
+    // optional, defaults to LIMIT
+    private OrderType type;
+
+    // optional, defaults to GTC
+    private TimeInForce timeInForce;
+
     public OrderRequestDTO() {}
 
     public OrderRequestDTO(Double quantity, Double price, Side side, String symbol) {
@@ -37,4 +52,22 @@ public class OrderRequestDTO {
         this.symbol = symbol;
     }
 
+    public OrderRequestDTO(Double quantity, Double price, Side side, String symbol, Long accountId) {
+        this(quantity, price, side, symbol);
+        this.accountId = accountId;
+    }
+
+    public OrderRequestDTO(Double quantity, Double price, Side side, String symbol, Long accountId,
+                           OrderType type, TimeInForce timeInForce) {
+        this(quantity, price, side, symbol, accountId);
+        this.type = type;
+        this.timeInForce = timeInForce;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Price is required for limit orders and not allowed for market orders")
+    public boolean isPricedForType() {
+        return (type == OrderType.MARKET) == (price == null);
+    }
+
 }
\ No newline at end of file
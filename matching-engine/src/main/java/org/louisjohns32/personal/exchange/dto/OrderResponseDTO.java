@@ -5,6 +5,8 @@ import lombok.Value;
 import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
 
 import java.time.LocalDateTime;
 
@@ -27,6 +29,12 @@ public class OrderResponseDTO {
     @JsonProperty("price")
     Double price;
 
+    @JsonProperty("type")
+    OrderType type;
+
+    @JsonProperty("timeInForce")
+    TimeInForce timeInForce;
+
     @JsonProperty("filledQuantity")
     Double filledQuantity;
 
@@ -49,6 +57,8 @@ public class OrderResponseDTO {
                 .side(order.getSide())
                 .quantity(order.getQuantity())
                 .price(order.getPrice())
+                .type(order.getType())
+                .timeInForce(order.getTimeInForce())
                 .filledQuantity(order.getFilledQuantity())
                 .remainingQuantity(order.getQuantity() - order.getFilledQuantity())
                 .status(order.getStatus())
@@ -0,0 +1,111 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import lombok.Getter;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+
+/**
+ * Trading rules for one symbol. Tick and lot size are {@link FixedPoint}
+ * scaled longs; every price must be a multiple of the tick and every
+ * quantity a multiple of the lot; market orders carry no price. An optional
+ * price band and maximum quantity bound orders further; zero means
+ * unbounded.
+ * <p>
+ * {@link #validate(Order)} is the engine's pre-trade check. It is plain
+ * arithmetic and allocates nothing unless it rejects the order.
+ */
+@Getter
+public class InstrumentSpec {
+
+	public static final InstrumentSpec DEFAULT = new InstrumentSpec(0.01, 0.01);
+
+	private final long tickSize;
+	private final long lotSize;
+	private final long minPrice;
+	private final long maxPrice;
+	private final long maxQuantity;
+
+	public InstrumentSpec(long tickSize, long lotSize) {
+		this(tickSize, lotSize, 0, 0, 0);
+	}
+
+	public InstrumentSpec(long tickSize, long lotSize, long minPrice, long maxPrice, long maxQuantity) {
+		if(tickSize <= 0 || lotSize <= 0) {
+			throw new IllegalArgumentException("Tick and lot size must be positive");
+		}
+		if(minPrice < 0 || maxPrice < 0 || maxQuantity < 0) {
+			throw new IllegalArgumentException("Price band and max quantity must not be negative");
+		}
+		if(maxPrice != 0 && maxPrice < minPrice) {
+			throw new IllegalArgumentException("Max price must not be below min price");
+		}
+		this.tickSize = tickSize;
+		this.lotSize = lotSize;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+		this.maxQuantity = maxQuantity;
+	}
+
+	public InstrumentSpec(double tickSize, double lotSize) {
+		this(FixedPoint.toScaled(tickSize), FixedPoint.toScaled(lotSize));
+	}
+
+	public InstrumentSpec(double tickSize, double lotSize, double minPrice, double maxPrice, double maxQuantity) {
+		this(FixedPoint.toScaled(tickSize), FixedPoint.toScaled(lotSize), FixedPoint.toScaled(minPrice),
+				FixedPoint.toScaled(maxPrice), FixedPoint.toScaled(maxQuantity));
+	}
+
+	public boolean isValidPrice(long scaledPrice) {
+		return scaledPrice > 0 && scaledPrice % tickSize == 0;
+	}
+
+	public boolean isValidQuantity(long scaledQuantity) {
+		return scaledQuantity > 0 && scaledQuantity % lotSize == 0;
+	}
+
+	public boolean isWithinBand(long scaledPrice) {
+		return scaledPrice >= minPrice && (maxPrice == 0 || scaledPrice <= maxPrice);
+	}
+
+	public void validate(Order order) {
+		if(order.getSide() == null) {
+			throw new InvalidOrderException("Side is required");
+		}
+		if(order.getType() == OrderType.MARKET) {
+			if(order.getScaledPrice() != 0) {
+				throw new InvalidOrderException("Market orders take no price");
+			}
+		} else {
+			validatePrice(order.getScaledPrice());
+		}
+		validateQuantity(order.getScaledQuantity());
+	}
+
+	/**
+	 * Checks a price on its own, for an amend that only changes the price.
+	 */
+	public void validatePrice(long scaledPrice) {
+		if(!isValidPrice(scaledPrice)) {
+			throw new InvalidOrderException("Price " + FixedPoint.toDouble(scaledPrice) + " is not a positive multiple of tick size "
+					+ FixedPoint.toDouble(tickSize));
+		}
+		if(!isWithinBand(scaledPrice)) {
+			throw new InvalidOrderException("Price " + FixedPoint.toDouble(scaledPrice) + " is outside the band "
+					+ FixedPoint.toDouble(minPrice) + " to " + (maxPrice == 0 ? "unbounded" : FixedPoint.toDouble(maxPrice)));
+		}
+	}
+
+	/**
+	 * Checks a quantity on its own, for an amend that only changes the quantity.
+	 */
+	public void validateQuantity(long scaledQuantity) {
+		if(!isValidQuantity(scaledQuantity)) {
+			throw new InvalidOrderException("Quantity " + FixedPoint.toDouble(scaledQuantity) + " is not a positive multiple of lot size "
+					+ FixedPoint.toDouble(lotSize));
+		}
+		if(maxQuantity != 0 && scaledQuantity > maxQuantity) {
+			throw new InvalidOrderException("Quantity " + FixedPoint.toDouble(scaledQuantity) + " exceeds the maximum of "
+					+ FixedPoint.toDouble(maxQuantity));
+		}
+	}
+}
@@ -1,13 +1,20 @@
 package org.louisjohns32.personal.exchange.entities;
 
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 
 import java.time.LocalDateTime;
 
+/**
+ * Price and quantities are held as {@link FixedPoint} scaled longs; the
+ * {@code Double} accessors convert at the REST and event boundary, while
+ * matching works on the {@code getScaled*} values.
+ */
 @Getter
 @Setter
 public class Order {
@@ -18,11 +25,19 @@ public class Order {
 
     private Side side;
 
-    private Double quantity;
+    // account the order is traded for, checked against its risk limits; 0 for none
+    private long accountId;
 
-    private Double price;
+    private long scaledQuantity;
 
-    private Double filledQuantity;
+    // 0 for a market order, which has no price
+    private long scaledPrice;
+
+    private OrderType type = OrderType.LIMIT;
+
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
+    private long scaledFilledQuantity;
 
     private OrderStatus status = OrderStatus.OPEN;
 
@@ -30,6 +45,18 @@ public class Order {
 
     private LocalDateTime updatedAt;
 
+    // Intrusive FIFO links, owned by the OrderBookLevel the order rests on
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    Order prev;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    Order next;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    OrderBookLevel level;
 
     protected Order() {
     }
@@ -39,9 +66,8 @@ public class Order {
         this.id = id;
         this.symbol = symbol;
         this.side = side;
-        this.quantity = quantity;
-        this.price = price;
-        this.filledQuantity = 0.0;
+        this.scaledQuantity = FixedPoint.toScaled(quantity);
+        this.scaledPrice = FixedPoint.toScaled(price);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
@@ -51,45 +77,122 @@ public class Order {
         this.id = id;
         this.symbol = order.getSymbol();
         this.side = order.getSide();
-        this.quantity = order.getQuantity();
-        this.price = order.getPrice();
-        this.filledQuantity = order.getFilledQuantity();
+        this.accountId = order.getAccountId();
+        this.scaledQuantity = order.getScaledQuantity();
+        this.scaledPrice = order.getScaledPrice();
+        this.scaledFilledQuantity = order.getScaledFilledQuantity();
+        this.type = order.getType();
+        this.timeInForce = order.getTimeInForce();
         this.status = order.getStatus();
         this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
     }
 
 
     public Order(String symbol, Side side, Double quantity, Double price) {
         this.symbol = symbol;
         this.side = side;
-        this.quantity = quantity;
-        this.price = price;
-        this.filledQuantity = 0.0;
+        this.scaledQuantity = FixedPoint.toScaled(quantity);
+        this.scaledPrice = FixedPoint.toScaled(price);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
 
+    public static Order fromScaled(String symbol, Side side, long scaledQuantity, long scaledPrice) {
+        Order order = new Order();
+        order.symbol = symbol;
+        order.side = side;
+        order.scaledQuantity = scaledQuantity;
+        order.scaledPrice = scaledPrice;
+        order.createdAt = LocalDateTime.now();
+        order.updatedAt = order.createdAt;
+        return order;
+    }
+
+    public Double getQuantity() {
+        return FixedPoint.toDouble(scaledQuantity);
+    }
+
+    public void setQuantity(Double quantity) {
+        this.scaledQuantity = FixedPoint.toScaled(quantity);
+    }
+
+    public Double getPrice() {
+        return FixedPoint.toDouble(scaledPrice);
+    }
+
+    public void setPrice(Double price) {
+        this.scaledPrice = FixedPoint.toScaled(price);
+    }
+
+    public Double getFilledQuantity() {
+        return FixedPoint.toDouble(scaledFilledQuantity);
+    }
+
+    public void setFilledQuantity(Double filledQuantity) {
+        this.scaledFilledQuantity = FixedPoint.toScaled(filledQuantity);
+    }
+
     public Double getRemainingQuantity() {
-        return quantity - filledQuantity;
+        return FixedPoint.toDouble(getScaledRemainingQuantity());
+    }
+
+    public long getScaledRemainingQuantity() {
+        return scaledQuantity - scaledFilledQuantity;
     }
 
     public void fill(Double amount) {
-        if (amount > getRemainingQuantity()) {
+        fillScaled(FixedPoint.toScaled(amount));
+    }
+
+    public void fillScaled(long amount) {
+        if (amount > getScaledRemainingQuantity()) {
             throw new IllegalArgumentException("Fill amount exceeds remaining quantity");
         }
-        this.filledQuantity += amount;
+        this.scaledFilledQuantity += amount;
         this.updatedAt = LocalDateTime.now();
+        if (level != null) {
+            level.onFill(amount);
+        }
 
         // Update status based on fill
         if (isFilled()) {
             this.status = OrderStatus.FILLED;
-        } else if (filledQuantity > 0) {
+        } else if (scaledFilledQuantity > 0) {
             this.status = OrderStatus.PARTIAL;
         }
     }
 
+    /**
+     * Lowers the total quantity of an order in place, so while it rests it
+     * keeps its place in its level's queue. The new quantity must not be above
+     * the current one and must leave some of the order unfilled.
+     */
+    public void reduceQuantity(long newScaledQuantity) {
+        if (newScaledQuantity > scaledQuantity || newScaledQuantity <= scaledFilledQuantity) {
+            throw new IllegalArgumentException("Quantity can only be reduced to above the filled quantity");
+        }
+        long reduction = scaledQuantity - newScaledQuantity;
+        this.scaledQuantity = newScaledQuantity;
+        this.updatedAt = LocalDateTime.now();
+        if (level != null) {
+            level.onFill(reduction);
+        }
+    }
+
+    /**
+     * Whether the order only ever matches on arrival, so what it cannot fill
+     * straight away expires instead of resting. Market orders always are.
+     */
+    public boolean isImmediate() {
+        return type == OrderType.MARKET || timeInForce != TimeInForce.GTC;
+    }
+
+    public boolean isResting() {
+        return level != null;
+    }
+
     public boolean isFilled() {
-        return filledQuantity.equals(quantity);
+        return scaledFilledQuantity == scaledQuantity;
     }
 }
\ No newline at end of file
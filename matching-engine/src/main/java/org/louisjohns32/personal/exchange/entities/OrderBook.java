@@ -1,71 +1,130 @@
 package org.louisjohns32.personal.exchange.entities;
 
+import org.louisjohns32.personal.exchange.common.collections.LongObjectHashMap;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
 
 
 /**
- * Thread-safe order book maintaining bid and ask price levels.
- * Uses ConcurrentSkipListMap for sorted price levels and 
- * ConcurrentHashMap for O(1) order lookup by ID.
+ * Order book maintaining bid and ask price levels.
+ * Levels are stored per {@link OrderBookType}: a ConcurrentSkipListMap per side,
+ * or an array price ladder indexed by tick for symbols trading in a bounded band.
+ * Orders are looked up by ID in a primitive-keyed open-addressing map,
+ * pre-sized per symbol, which only the book's matching thread mutates.
+ * Levels are keyed by {@link FixedPoint} scaled price.
  */
 public class OrderBook {
 	
+	public static final int DEFAULT_LADDER_LEVELS = 4096;
+	public static final int DEFAULT_EXPECTED_ORDERS = 1024;
 
-	private ConcurrentSkipListMap<Double, OrderBookLevel> bidLevels; 
-	private ConcurrentSkipListMap<Double, OrderBookLevel> askLevels;
+	private final PriceLevels bidLevels; 
+	private final PriceLevels askLevels;
 	
-	private Map<Long, Order> orderMap; 
+	private final OrderBookType type;
+	
+	private final LongObjectHashMap<Order> orderMap;
 	
 	private final String symbol;
 	
+	private final InstrumentSpec instrumentSpec;
+	
+	// event sequence numbers, drawn on the book's matching thread by SequenceNumberGenerator;
+	// numbers below sequenceLimit are already reserved
+	private long nextSequence = 1;
+	private long sequenceLimit;
+	
 	public OrderBook(String symbol) {
+		this(symbol, InstrumentSpec.DEFAULT);
+	}
+	
+	public OrderBook(String symbol, InstrumentSpec instrumentSpec) {
+		this(symbol, instrumentSpec, OrderBookType.SKIP_LIST);
+	}
+	
+	public OrderBook(String symbol, InstrumentSpec instrumentSpec, OrderBookType type) {
+		this(symbol, instrumentSpec, type, DEFAULT_LADDER_LEVELS);
+	}
+	
+	/**
+	 * @param ladderLevels initial number of ticks per side for {@link OrderBookType#PRICE_LADDER}
+	 */
+	public OrderBook(String symbol, InstrumentSpec instrumentSpec, OrderBookType type, int ladderLevels) {
+		this(symbol, instrumentSpec, type, ladderLevels, DEFAULT_EXPECTED_ORDERS);
+	}
+	
+	/**
+	 * @param expectedOrders resting orders the order map is sized for before it first grows
+	 */
+	public OrderBook(String symbol, InstrumentSpec instrumentSpec, OrderBookType type, int ladderLevels, int expectedOrders) {
 		this.symbol = symbol;
-		bidLevels = new ConcurrentSkipListMap<Double, OrderBookLevel>();
-		askLevels = new ConcurrentSkipListMap<Double, OrderBookLevel>();
-		orderMap = new ConcurrentHashMap<Long, Order>();
+		this.instrumentSpec = instrumentSpec;
+		this.type = type;
+		if(type == OrderBookType.PRICE_LADDER) {
+			bidLevels = new PriceLadder(Side.BUY, instrumentSpec.getTickSize(), ladderLevels);
+			askLevels = new PriceLadder(Side.SELL, instrumentSpec.getTickSize(), ladderLevels);
+		} else {
+			bidLevels = new SkipListPriceLevels(Side.BUY);
+			askLevels = new SkipListPriceLevels(Side.SELL);
+		}
+		orderMap = new LongObjectHashMap<>(expectedOrders);
 	}
 	
 	public String getSymbol() {
 		return symbol;
 	}
 	
+	public InstrumentSpec getInstrumentSpec() {
+		return instrumentSpec;
+	}
+	
+	public OrderBookType getType() {
+		return type;
+	}
+	
 	public void addOrder(Order order) {
-		OrderBookLevel level;
-        level = order.getSide() == Side.BUY
-                ? bidLevels.computeIfAbsent(order.getPrice(), p -> new OrderBookLevel(p, Side.BUY))
-                : askLevels.computeIfAbsent(order.getPrice(), p -> new OrderBookLevel(p, Side.SELL));
+		OrderBookLevel level = levels(order.getSide()).getOrCreate(order.getScaledPrice());
 
 		level.addOrder(order);
 		orderMap.put(order.getId(), order);
 	}
 	
+	/**
+	 * Whether an order on {@code side} could rest at {@code scaledPrice}.
+	 * Always true for skip list books; a price ladder can only span
+	 * {@link PriceLadder#MAX_CAPACITY} / 2 ticks per side. Resting orders,
+	 * including one about to be moved, count towards the span.
+	 */
+	public boolean canRestAt(Side side, long scaledPrice) {
+		return levels(side).canHold(scaledPrice);
+	}
+	
 	public OrderBookLevel getLevel(double price, Side side) {
-		if(side == Side.BUY) return bidLevels.get(price);
-		return askLevels.get(price);
+		return getLevelByScaledPrice(FixedPoint.toScaled(price), side);
 	}
 	
-	private OrderBookLevel createLevel(double price, Side side) {
-        OrderBookLevel level = new OrderBookLevel(price, side);
-        if(side == Side.BUY) bidLevels.put(price, level);
-        else askLevels.put(price, level);
-        return level;
+	public OrderBookLevel getLevelByScaledPrice(long scaledPrice, Side side) {
+		return levels(side).get(scaledPrice);
 	}
 	
 	public OrderBookLevel getHighestBidLevel() {
-		Entry<Double, OrderBookLevel> entry = bidLevels.lastEntry();
-		if(entry == null) return null;
-		return entry.getValue();
+		return bidLevels.best();
 	}
 	
 	public OrderBookLevel getLowestAskLevel() {
-		Entry<Double, OrderBookLevel> entry = askLevels.firstEntry();
-		if(entry == null) return null;
-		return entry.getValue();
+		return askLevels.best();
+	}
+	
+	/**
+	 * Quantity an order on {@code side} could fill at {@code limitPrice} or
+	 * better, counted until it reaches {@code wanted}. Reads the opposing
+	 * levels' cached volumes without changing the book.
+	 */
+	public long fillableQuantity(Side side, long limitPrice, long wanted) {
+		return levels(side == Side.BUY ? Side.SELL : Side.BUY).volumeUpTo(limitPrice, wanted);
 	}
 	
 	public Order getOrderById(long id) {
@@ -73,24 +132,62 @@ public class OrderBook {
 	}
 	
 	public void removeOrder(Order order) { 
-        OrderBookLevel level = getLevel(order.getPrice(), order.getSide());
-        level.removeOrderById(order.getId());
+        OrderBookLevel level = order.level != null ? order.level : getLevelByScaledPrice(order.getScaledPrice(), order.getSide());
         orderMap.remove(order.getId());
-        if(level.isEmpty()) removeLevel(level);
+        if(level == null) return;
+        if(level.contains(order)) level.removeOrder(order);
+        else level.removeOrderById(order.getId());
+        if(level.isEmpty()) levels(level.getSide()).remove(level);
+	}
+	
+	/**
+	 * Bid levels in ascending price order. A snapshot for price ladder books.
+	 */
+	public Map<Long, OrderBookLevel> getBidLevels() {
+		return bidLevels.asMap();
+	}
+	
+	/**
+	 * Ask levels in ascending price order. A snapshot for price ladder books.
+	 */
+	public Map<Long, OrderBookLevel> getAskLevels() {
+		return askLevels.asMap();
+	}
+
+	
+	public int getOrderCount() {
+		return orderMap.size();
+	}
+	
+	public long getNextSequence() {
+		return nextSequence;
+	}
+	
+	public void setNextSequence(long nextSequence) {
+		this.nextSequence = nextSequence;
+	}
+	
+	public long getSequenceLimit() {
+		return sequenceLimit;
 	}
 	
-	public Map<Double, OrderBookLevel> getBidLevels() {
-		return bidLevels;
+	public void setSequenceLimit(long sequenceLimit) {
+		this.sequenceLimit = sequenceLimit;
 	}
 	
-	public Map<Double, OrderBookLevel> getAskLevels() {
-		return askLevels;
+	/**
+	 * Visits every resting order, bids then asks, each side in ascending price
+	 * and each level in time priority. Adding the orders back in this order
+	 * rebuilds the same book.
+	 */
+	public void forEachOrder(Consumer<Order> action) {
+		bidLevels.forEach(level -> level.forEachOrder(action));
+		askLevels.forEach(level -> level.forEachOrder(action));
 	}
 
 	
-	private void removeLevel(OrderBookLevel level) {
-		if(level.getSide() == Side.BUY) bidLevels.remove(level.getPrice());
-		else askLevels.remove(level.getPrice());
+	private PriceLevels levels(Side side) {
+		return side == Side.BUY ? bidLevels : askLevels;
 	}
 	
 }
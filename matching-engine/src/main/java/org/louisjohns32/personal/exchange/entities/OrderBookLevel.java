@@ -1,63 +1,176 @@
 package org.louisjohns32.personal.exchange.entities;
 
 import lombok.Getter;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * Represents a single price level in the order book.
- * Maintains FIFO queue of orders at the same price using LinkedList.
+ * Maintains FIFO queue of orders at the same price as an intrusive
+ * doubly-linked list threaded through the orders themselves, so append,
+ * head removal and cancel are all O(1) and resting orders need no extra nodes.
+ * The remaining volume is cached and kept up to date on add, fill and removal.
+ * Price and volume are {@link FixedPoint} scaled longs.
  * Must be single-threaded
  */
 public class OrderBookLevel {
 
-	// contains orders
-	
-	private final LinkedList<Order> orders;
+	/**
+	 * When enabled, every mutation cross-checks the cached volume against a full
+	 * recompute and throws on mismatch. Meant for tests, off by default.
+	 */
+	private static volatile boolean consistencyChecks = Boolean.getBoolean("exchange.orderbook.consistency-checks");
+
+	// contains orders, oldest first
+	private Order head;
+	private Order tail;
+	private int size;
 	@Getter
-    private final double price;
+    private final long scaledPrice;
 	@Getter
     private final Side side;
-	private double volume;
-	// FUTURE: Implement custom linked list for O(1) removal (currently O(n))
+	// remaining quantity of all orders on the level
+	@Getter
+	private long scaledVolume;
 	
-	public OrderBookLevel(double price, Side side) {
-		this.price = price;
+	public static void setConsistencyChecks(boolean enabled) {
+		consistencyChecks = enabled;
+	}
+	
+	public static boolean isConsistencyChecks() {
+		return consistencyChecks;
+	}
+	
+	public OrderBookLevel(long scaledPrice, Side side) {
+		this.scaledPrice = scaledPrice;
 		this.side = side;
-		this.volume = 0;
-		orders = new LinkedList<Order>();
+		this.scaledVolume = 0;
+	}
+	
+	public OrderBookLevel(double price, Side side) {
+		this(FixedPoint.toScaled(price), side);
+	}
+	
+	public double getPrice() {
+		return FixedPoint.toDouble(scaledPrice);
 	}
 
     public void addOrder(Order order) {
-        orders.addLast(order);
-        volume += order.getQuantity();
+        if (order.level != null) {
+            throw new IllegalStateException("Order " + order.getId() + " already rests on a level");
+        }
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) head = order;
+        else tail.next = order;
+        tail = order;
+        size++;
+        scaledVolume += order.getScaledRemainingQuantity();
+        if (consistencyChecks) checkConsistency();
 	}
 	
 	public Order getOrder() {
-        return orders.getFirst();
+        if (head == null) throw new NoSuchElementException();
+        return head;
 	}
 	
 	public double getVolume() {
-		// FUTURE: Cache volume instead of recomputing (requires tracking partial fills)
-		double volume = 0;
-		for(Order order : orders) {
-			volume += order.getRemainingQuantity();
+		return FixedPoint.toDouble(scaledVolume);
+	}
+	
+	/**
+	 * Sums the remaining quantity of every order on the level, ignoring the cache.
+	 */
+	public long recomputeVolume() {
+		long total = 0;
+		for(Order order = head; order != null; order = order.next) {
+			total += order.getScaledRemainingQuantity();
 		}
-		return volume;
+		return total;
 	}
 	
-	public void removeOrderById(long id) { // O(n), could be optimized with custom LinkedList
-        orders.removeIf(order ->(order.getId() == id));
+	/**
+	 * Throws if the cached volume or order count disagree with the orders on the level.
+	 */
+	public void checkConsistency() {
+		int count = 0;
+		for(Order order = head; order != null; order = order.next) {
+			count++;
+		}
+		long expected = recomputeVolume();
+		if(count != size || expected != scaledVolume) {
+			throw new IllegalStateException("Level " + side + " " + getPrice() + " cached volume " + scaledVolume + " / "
+					+ size + " orders, recomputed " + expected + " / " + count + " orders");
+		}
+	}
+	
+	// Called by Order.fill and Order.reduceQuantity while the order rests on this level
+	void onFill(long amount) {
+		scaledVolume -= amount;
+		if (consistencyChecks) checkConsistency();
+	}
+	
+	/**
+	 * Unlinks an order resting on this level in O(1).
+	 */
+	public void removeOrder(Order order) {
+		if (order.level != this) {
+			throw new IllegalArgumentException("Order " + order.getId() + " does not rest on this level");
+		}
+		if (order.prev == null) head = order.next;
+		else order.prev.next = order.next;
+		if (order.next == null) tail = order.prev;
+		else order.next.prev = order.prev;
+		order.prev = null;
+		order.next = null;
+		order.level = null;
+		size--;
+		scaledVolume -= order.getScaledRemainingQuantity();
+		if (consistencyChecks) checkConsistency();
+	}
+	
+	public void removeOrderById(long id) { // O(n), prefer removeOrder when the order is at hand
+		for(Order order = head; order != null; order = order.next) {
+			if(order.getId() == id) {
+				removeOrder(order);
+				return;
+			}
+		}
+	}
+	
+	public boolean contains(Order order) {
+		return order.level == this;
+	}
+	
+	public int getOrderCount() {
+		return size;
 	}
 	
 	public List<Order> getOrders() {
+		List<Order> orders = new ArrayList<>(size);
+		for(Order order = head; order != null; order = order.next) {
+			orders.add(order);
+		}
         return Collections.unmodifiableList(orders);
 	}
 	
+	/**
+	 * Visits resting orders in time priority without copying them.
+	 */
+	public void forEachOrder(Consumer<Order> action) {
+		for(Order order = head; order != null; order = order.next) {
+			action.accept(order);
+		}
+	}
+	
 	public boolean isEmpty() {
-        return orders.isEmpty();
+        return head == null;
 	}
 }
@@ -0,0 +1,11 @@
+package org.louisjohns32.personal.exchange.entities;
+
+/**
+ * How an {@link OrderBook} stores its price levels.
+ */
+public enum OrderBookType {
+	/** Sorted skip list per side. Works for any price, O(log n) level access. */
+	SKIP_LIST,
+	/** Flat array of levels indexed by tick. O(1) level access for symbols trading in a bounded band. */
+	PRICE_LADDER
+}
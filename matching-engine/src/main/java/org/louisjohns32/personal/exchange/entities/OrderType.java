@@ -0,0 +1,11 @@
+package org.louisjohns32.personal.exchange.entities;
+
+/**
+ * How an {@link Order} is priced.
+ */
+public enum OrderType {
+	/** Trades at its price or better. */
+	LIMIT,
+	/** Takes whatever the opposing side offers, at any price. Never rests. */
+	MARKET
+}
@@ -0,0 +1,187 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * One side of the book as a flat array of levels indexed by
+ * {@code (price - basePrice) / tickSize}. Level lookup is O(1), and the best
+ * level is tracked by cursors over the occupied index range.
+ * When a price falls outside the array the ladder is recentered around the
+ * occupied range, growing if the range no longer fits.
+ * Must be single-threaded
+ */
+class PriceLadder implements PriceLevels {
+
+	static final int MAX_CAPACITY = 1 << 20;
+
+	private final Side side;
+	private final long tickSize;
+	private OrderBookLevel[] levels;
+	private long basePrice;
+	// occupied index range, -1 when empty
+	private int minIndex = -1;
+	private int maxIndex = -1;
+	private int levelCount;
+
+	PriceLadder(Side side, long tickSize, int capacity) {
+		if(capacity <= 0 || capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Ladder capacity must be positive, got: " + capacity);
+		}
+		this.side = side;
+		this.tickSize = tickSize;
+		this.levels = new OrderBookLevel[capacity];
+	}
+
+	@Override
+	public OrderBookLevel get(long scaledPrice) {
+		int index = indexOf(scaledPrice);
+		if(index < 0 || index >= levels.length) return null;
+		return levels[index];
+	}
+
+	@Override
+	public OrderBookLevel getOrCreate(long scaledPrice) {
+		if(scaledPrice % tickSize != 0) {
+			throw new IllegalArgumentException("Price " + scaledPrice + " is not on tick " + tickSize);
+		}
+		if(levelCount == 0) {
+			// nothing to move, so just centre the empty ladder on the new price
+			basePrice = scaledPrice - (long) (levels.length / 2) * tickSize;
+		}
+		int index = indexOf(scaledPrice);
+		if(index < 0 || index >= levels.length) {
+			recenter(scaledPrice);
+			index = indexOf(scaledPrice);
+		}
+		OrderBookLevel level = levels[index];
+		if(level == null) {
+			level = new OrderBookLevel(scaledPrice, side);
+			levels[index] = level;
+			levelCount++;
+			if(minIndex < 0 || index < minIndex) minIndex = index;
+			if(index > maxIndex) maxIndex = index;
+		}
+		return level;
+	}
+
+	@Override
+	public void remove(OrderBookLevel level) {
+		int index = indexOf(level.getScaledPrice());
+		if(index < 0 || index >= levels.length || levels[index] != level) return;
+		levels[index] = null;
+		levelCount--;
+		if(levelCount == 0) {
+			minIndex = -1;
+			maxIndex = -1;
+			return;
+		}
+		if(index == minIndex) {
+			while(levels[minIndex] == null) minIndex++;
+		}
+		if(index == maxIndex) {
+			while(levels[maxIndex] == null) maxIndex--;
+		}
+	}
+
+	@Override
+	public OrderBookLevel best() {
+		if(levelCount == 0) return null;
+		return side == Side.BUY ? levels[maxIndex] : levels[minIndex];
+	}
+
+	/**
+	 * Snapshot of the occupied levels; not a live view.
+	 */
+	@Override
+	public Map<Long, OrderBookLevel> asMap() {
+		TreeMap<Long, OrderBookLevel> snapshot = new TreeMap<Long, OrderBookLevel>();
+		for(int i = minIndex; i >= 0 && i <= maxIndex; i++) {
+			if(levels[i] != null) snapshot.put(levels[i].getScaledPrice(), levels[i]);
+		}
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	@Override
+	public void forEach(Consumer<OrderBookLevel> action) {
+		for(int i = minIndex; i >= 0 && i <= maxIndex; i++) {
+			if(levels[i] != null) action.accept(levels[i]);
+		}
+	}
+
+	@Override
+	public long volumeUpTo(long limitPrice, long wanted) {
+		if(levelCount == 0) return 0;
+		long volume = 0;
+		int step = side == Side.BUY ? -1 : 1;
+		for(int i = side == Side.BUY ? maxIndex : minIndex; i >= minIndex && i <= maxIndex && volume < wanted; i += step) {
+			OrderBookLevel level = levels[i];
+			if(level == null) continue;
+			long price = level.getScaledPrice();
+			if(side == Side.BUY ? price < limitPrice : price > limitPrice) break;
+			volume += level.getScaledVolume();
+		}
+		return volume;
+	}
+
+	/**
+	 * False if the price is so far from the occupied levels that the ladder
+	 * would have to grow past {@link #MAX_CAPACITY} to hold both.
+	 */
+	@Override
+	public boolean canHold(long scaledPrice) {
+		if(levelCount == 0) return true;
+		long low = Math.min(basePrice + (long) minIndex * tickSize, scaledPrice);
+		long high = Math.max(basePrice + (long) maxIndex * tickSize, scaledPrice);
+		return (high - low) / tickSize + 1 <= MAX_CAPACITY / 2;
+	}
+
+	int getCapacity() {
+		return levels.length;
+	}
+
+	long getBasePrice() {
+		return basePrice;
+	}
+
+	private int indexOf(long scaledPrice) {
+		long offset = scaledPrice - basePrice;
+		if(offset < 0) return -1;
+		long index = offset / tickSize;
+		return index > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) index;
+	}
+
+	private void recenter(long scaledPrice) {
+		long low = Math.min(basePrice + (long) minIndex * tickSize, scaledPrice);
+		long high = Math.max(basePrice + (long) maxIndex * tickSize, scaledPrice);
+		long span = (high - low) / tickSize + 1;
+		int capacity = levels.length;
+		while(capacity < span * 2) {
+			if(capacity >= MAX_CAPACITY) {
+				throw new InvalidOrderException("Price range of " + span + " ticks is too wide for the price ladder");
+			}
+			capacity *= 2;
+		}
+		long newBase = low - ((capacity - span) / 2) * tickSize;
+		OrderBookLevel[] resized = new OrderBookLevel[capacity];
+		int newMin = -1;
+		int newMax = -1;
+		for(int i = minIndex; i <= maxIndex; i++) {
+			OrderBookLevel level = levels[i];
+			if(level == null) continue;
+			int index = (int) ((level.getScaledPrice() - newBase) / tickSize);
+			resized[index] = level;
+			if(newMin < 0) newMin = index;
+			newMax = index;
+		}
+		levels = resized;
+		basePrice = newBase;
+		minIndex = newMin;
+		maxIndex = newMax;
+	}
+}
@@ -0,0 +1,45 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage for one side of an {@link OrderBook}, keyed by scaled price.
+ */
+interface PriceLevels {
+
+	OrderBookLevel get(long scaledPrice);
+
+	OrderBookLevel getOrCreate(long scaledPrice);
+
+	void remove(OrderBookLevel level);
+
+	/**
+	 * Highest bid or lowest ask, or null when the side is empty.
+	 */
+	OrderBookLevel best();
+
+	/**
+	 * Levels in ascending price order.
+	 */
+	Map<Long, OrderBookLevel> asMap();
+
+	/**
+	 * Visits levels in ascending price order without allocating a view.
+	 */
+	void forEach(Consumer<OrderBookLevel> action);
+
+	/**
+	 * Volume resting from the best level outwards, at {@code limitPrice} or
+	 * better, counted until it reaches {@code wanted}.
+	 */
+	long volumeUpTo(long limitPrice, long wanted);
+
+	/**
+	 * Whether a level at {@code scaledPrice} could be added without exceeding
+	 * the storage's limits, given the levels held now.
+	 */
+	default boolean canHold(long scaledPrice) {
+		return true;
+	}
+}
@@ -0,0 +1,63 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+class SkipListPriceLevels implements PriceLevels {
+
+	private final ConcurrentSkipListMap<Long, OrderBookLevel> levels = new ConcurrentSkipListMap<Long, OrderBookLevel>();
+	private final Side side;
+
+	SkipListPriceLevels(Side side) {
+		this.side = side;
+	}
+
+	@Override
+	public OrderBookLevel get(long scaledPrice) {
+		return levels.get(scaledPrice);
+	}
+
+	@Override
+	public OrderBookLevel getOrCreate(long scaledPrice) {
+		return levels.computeIfAbsent(scaledPrice, p -> new OrderBookLevel(p.longValue(), side));
+	}
+
+	@Override
+	public void remove(OrderBookLevel level) {
+		levels.remove(level.getScaledPrice());
+	}
+
+	@Override
+	public OrderBookLevel best() {
+		Entry<Long, OrderBookLevel> entry = side == Side.BUY ? levels.lastEntry() : levels.firstEntry();
+		if(entry == null) return null;
+		return entry.getValue();
+	}
+
+	@Override
+	public Map<Long, OrderBookLevel> asMap() {
+		return levels;
+	}
+
+	@Override
+	public void forEach(Consumer<OrderBookLevel> action) {
+		levels.values().forEach(action);
+	}
+
+	@Override
+	public long volumeUpTo(long limitPrice, long wanted) {
+		long volume = 0;
+		Iterable<OrderBookLevel> fromBest = side == Side.BUY
+				? levels.tailMap(limitPrice, true).descendingMap().values()
+				: levels.headMap(limitPrice, true).values();
+		for(OrderBookLevel level : fromBest) {
+			if(volume >= wanted) break;
+			volume += level.getScaledVolume();
+		}
+		return volume;
+	}
+}
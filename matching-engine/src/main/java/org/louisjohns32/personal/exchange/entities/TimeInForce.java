@@ -0,0 +1,13 @@
+package org.louisjohns32.personal.exchange.entities;
+
+/**
+ * How long an {@link Order} stays working once it has matched what it can.
+ */
+public enum TimeInForce {
+	/** Good till cancelled: any remainder rests on the book. */
+	GTC,
+	/** Immediate or cancel: any remainder expires instead of resting. */
+	IOC,
+	/** Fill or kill: fills in full straight away or expires without trading. */
+	FOK
+}
@@ -4,6 +4,7 @@ package org.louisjohns32.personal.exchange.entities;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 
 import java.time.LocalDateTime;
@@ -21,9 +22,9 @@ public class Trade {
 
     private Long sellOrderId;
 
-    private Double price;
+    private long scaledPrice;
 
-    private Double quantity;
+    private long scaledQuantity;
 
     private Side makerSide;
 
@@ -32,16 +33,24 @@ public class Trade {
     public Trade() {}
 
     public Trade(String symbol, Long buyOrderId, Long sellOrderId,
-                 Double price, Double quantity, Long timestamp, Side makerSide) {
+                 long scaledPrice, long scaledQuantity, Long timestamp, Side makerSide) {
         this.symbol = symbol;
         this.buyOrderId = buyOrderId;
         this.sellOrderId = sellOrderId;
-        this.price = price;
-        this.quantity = quantity;
+        this.scaledPrice = scaledPrice;
+        this.scaledQuantity = scaledQuantity;
         this.executedAt = LocalDateTime.ofInstant(
                 java.time.Instant.ofEpochMilli(timestamp),
                 java.time.ZoneOffset.UTC
         );
         this.makerSide = makerSide;
     }
+
+    public Double getPrice() {
+        return FixedPoint.toDouble(scaledPrice);
+    }
+
+    public Double getQuantity() {
+        return FixedPoint.toDouble(scaledQuantity);
+    }
 }
\ No newline at end of file
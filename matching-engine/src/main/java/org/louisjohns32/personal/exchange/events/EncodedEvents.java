@@ -0,0 +1,140 @@
+package org.louisjohns32.personal.exchange.events;
+
+import org.louisjohns32.personal.exchange.common.codec.OrderEventCodec;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable buffer of events encoded straight into the {@link OrderEventCodec}
+ * wire format. Each pipeline slot owns one, so once it has grown to fit the
+ * largest sweep seen, matching writes events with no allocation and the
+ * publisher sends the bytes as they are.
+ * Not thread-safe; the pipeline hands it from the match stage to the publish
+ * stage.
+ */
+public class EncodedEvents implements EventSink {
+
+    static final int INITIAL_CAPACITY = 512;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private int count;
+    private String symbol;
+
+    @Override
+    public void orderCreated(long sequenceNumber, long orderId, String symbol, Side side,
+                             long quantity, long price, long timestamp) {
+        ensureCapacity(OrderEventCodec.ORDER_CREATED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeOrderCreated(buffer, sequenceNumber, orderId, symbol, side, quantity, price, timestamp);
+        count++;
+    }
+
+    @Override
+    public void tradeExecuted(long sequenceNumber, String symbol, long buyOrderId, long sellOrderId,
+                              long price, long quantity, long timestamp, Side makerSide) {
+        ensureCapacity(OrderEventCodec.TRADE_EXECUTED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeTradeExecuted(buffer, sequenceNumber, symbol, buyOrderId, sellOrderId,
+                price, quantity, timestamp, makerSide);
+        count++;
+    }
+
+    @Override
+    public void orderCancelled(long sequenceNumber, long orderId, String symbol, Side side,
+                               long price, long remainingQuantity, long timestamp) {
+        ensureCapacity(OrderEventCodec.ORDER_CANCELLED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeOrderCancelled(buffer, sequenceNumber, orderId, symbol, side,
+                price, remainingQuantity, timestamp);
+        count++;
+    }
+
+    @Override
+    public void orderRested(long sequenceNumber, long orderId, String symbol, Side side,
+                            long quantity, long price) {
+        ensureCapacity(OrderEventCodec.ORDER_RESTED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeOrderRested(buffer, sequenceNumber, orderId, symbol, side, quantity, price);
+        count++;
+    }
+
+    @Override
+    public void orderAmended(long sequenceNumber, long orderId, String symbol, Side side, long price,
+                             long remainingQuantity, long newPrice, long newQuantity, long newRemainingQuantity,
+                             long timestamp) {
+        ensureCapacity(OrderEventCodec.ORDER_AMENDED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeOrderAmended(buffer, sequenceNumber, orderId, symbol, side, price, remainingQuantity,
+                newPrice, newQuantity, newRemainingQuantity, timestamp);
+        count++;
+    }
+
+    @Override
+    public void orderExpired(long sequenceNumber, long orderId, String symbol, Side side,
+                             long price, long remainingQuantity, long timestamp) {
+        ensureCapacity(OrderEventCodec.ORDER_EXPIRED, symbol);
+        this.symbol = symbol;
+        OrderEventCodec.encodeOrderExpired(buffer, sequenceNumber, orderId, symbol, side,
+                price, remainingQuantity, timestamp);
+        count++;
+    }
+
+    /**
+     * Symbol of the events, which all belong to the one command's book.
+     */
+    public String symbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * The encoded events, back to back from index 0 up to {@link #length()}.
+     * Use {@link OrderEventCodec#encodedLength(ByteBuffer, int)} to step
+     * between them.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return buffer.position();
+    }
+
+    /**
+     * Decodes the events into objects, for publishers that need them.
+     */
+    public List<OrderEvent> decode() {
+        List<OrderEvent> events = new ArrayList<>(count);
+        ByteBuffer reader = buffer.duplicate().flip();
+        while (reader.hasRemaining()) {
+            events.add(OrderEventCodec.decode(reader));
+        }
+        return events;
+    }
+
+    public void clear() {
+        buffer.clear();
+        count = 0;
+        symbol = null;
+    }
+
+    private void ensureCapacity(byte templateId, String symbol) {
+        int needed = OrderEventCodec.encodedLength(templateId, symbol);
+        if (buffer.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.louisjohns32.personal.exchange.events;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderExpiryEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
+
+import java.util.List;
+
+/**
+ * Builds {@link OrderEvent} objects into a list, for callers that publish
+ * events directly rather than through the command pipeline.
+ */
+public record EventListSink(List<OrderEvent> events) implements EventSink {
+
+    @Override
+    public void orderCreated(long sequenceNumber, long orderId, String symbol, Side side,
+                             long quantity, long price, long timestamp) {
+        events.add(new OrderCreationEvent(orderId, symbol, side, FixedPoint.toDouble(quantity),
+                FixedPoint.toDouble(price), timestamp, sequenceNumber));
+    }
+
+    @Override
+    public void tradeExecuted(long sequenceNumber, String symbol, long buyOrderId, long sellOrderId,
+                              long price, long quantity, long timestamp, Side makerSide) {
+        events.add(new TradeExecutionEvent(symbol, buyOrderId, sellOrderId, FixedPoint.toDouble(price),
+                FixedPoint.toDouble(quantity), timestamp, sequenceNumber, makerSide));
+    }
+
+    @Override
+    public void orderCancelled(long sequenceNumber, long orderId, String symbol, Side side,
+                               long price, long remainingQuantity, long timestamp) {
+        events.add(new OrderCancellationEvent(orderId, symbol, timestamp, sequenceNumber, side,
+                FixedPoint.toDouble(price), FixedPoint.toDouble(remainingQuantity)));
+    }
+
+    @Override
+    public void orderRested(long sequenceNumber, long orderId, String symbol, Side side,
+                            long quantity, long price) {
+        events.add(new OrderRestEvent(orderId, symbol, side, FixedPoint.toDouble(quantity),
+                FixedPoint.toDouble(price), sequenceNumber));
+    }
+
+    @Override
+    public void orderAmended(long sequenceNumber, long orderId, String symbol, Side side, long price,
+                             long remainingQuantity, long newPrice, long newQuantity, long newRemainingQuantity,
+                             long timestamp) {
+        events.add(new OrderAmendEvent(orderId, symbol, timestamp, sequenceNumber, side,
+                FixedPoint.toDouble(price), FixedPoint.toDouble(remainingQuantity), FixedPoint.toDouble(newPrice),
+                FixedPoint.toDouble(newQuantity), FixedPoint.toDouble(newRemainingQuantity)));
+    }
+
+    @Override
+    public void orderExpired(long sequenceNumber, long orderId, String symbol, Side side,
+                             long price, long remainingQuantity, long timestamp) {
+        events.add(new OrderExpiryEvent(orderId, symbol, timestamp, sequenceNumber, side,
+                FixedPoint.toDouble(price), FixedPoint.toDouble(remainingQuantity)));
+    }
+}
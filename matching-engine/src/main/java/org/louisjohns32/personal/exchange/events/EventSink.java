@@ -0,0 +1,30 @@
+package org.louisjohns32.personal.exchange.events;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+/**
+ * Where matching writes the events an order produces. Fields are passed as
+ * primitives, with prices and quantities as scaled longs, so an implementation
+ * can record them without any per-event allocation.
+ */
+public interface EventSink {
+
+    void orderCreated(long sequenceNumber, long orderId, String symbol, Side side,
+                      long quantity, long price, long timestamp);
+
+    void tradeExecuted(long sequenceNumber, String symbol, long buyOrderId, long sellOrderId,
+                       long price, long quantity, long timestamp, Side makerSide);
+
+    void orderCancelled(long sequenceNumber, long orderId, String symbol, Side side,
+                        long price, long remainingQuantity, long timestamp);
+
+    void orderRested(long sequenceNumber, long orderId, String symbol, Side side,
+                     long quantity, long price);
+
+    void orderAmended(long sequenceNumber, long orderId, String symbol, Side side, long price,
+                      long remainingQuantity, long newPrice, long newQuantity, long newRemainingQuantity,
+                      long timestamp);
+
+    void orderExpired(long sequenceNumber, long orderId, String symbol, Side side,
+                      long price, long remainingQuantity, long timestamp);
+}
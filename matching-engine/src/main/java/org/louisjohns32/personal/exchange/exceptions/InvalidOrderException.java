@@ -0,0 +1,14 @@
+package org.louisjohns32.personal.exchange.exceptions;
+
+import java.io.Serial;
+
+public class InvalidOrderException extends RuntimeException {
+	
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+	public InvalidOrderException(String message) {
+		super(message);
+	}
+
+}
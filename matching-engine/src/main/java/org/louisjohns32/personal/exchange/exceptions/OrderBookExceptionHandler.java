@@ -5,6 +5,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.Map;
+
 @ControllerAdvice
 public class OrderBookExceptionHandler {
 	
@@ -14,4 +16,16 @@ public class OrderBookExceptionHandler {
 				.body(null);
 	}
 	
+	@ExceptionHandler(InvalidOrderException.class)
+	public ResponseEntity<?> invalidOrderHandler(InvalidOrderException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(Map.of("error", ex.getMessage()));
+	}
+
+	@ExceptionHandler(RiskLimitExceededException.class)
+	public ResponseEntity<?> riskLimitExceededHandler(RiskLimitExceededException ex) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+				.body(Map.of("error", ex.getMessage()));
+	}
+	
 }
@@ -0,0 +1,24 @@
+package org.louisjohns32.personal.exchange.exceptions;
+
+import java.io.Serial;
+
+/**
+ * An order turned away by the pre-trade risk checks. Rejections are routine,
+ * so no stack trace is captured.
+ */
+public class RiskLimitExceededException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final long accountId;
+
+	public RiskLimitExceededException(long accountId, String message) {
+		super(message, null, false, false);
+		this.accountId = accountId;
+	}
+
+	public long getAccountId() {
+		return accountId;
+	}
+
+}
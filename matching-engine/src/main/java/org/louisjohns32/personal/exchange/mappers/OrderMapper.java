@@ -8,6 +8,18 @@ import org.springframework.stereotype.Component;
 public class OrderMapper {
 
     public Order toEntity(OrderRequestDTO dto) {
-        return new Order(dto.getSymbol(),dto.getSide(), dto.getQuantity(), dto.getPrice());
+        // market orders come without a price
+        Double price = dto.getPrice() != null ? dto.getPrice() : 0.0;
+        Order order = new Order(dto.getSymbol(),dto.getSide(), dto.getQuantity(), price);
+        if (dto.getAccountId() != null) {
+            order.setAccountId(dto.getAccountId());
+        }
+        if (dto.getType() != null) {
+            order.setType(dto.getType());
+        }
+        if (dto.getTimeInForce() != null) {
+            order.setTimeInForce(dto.getTimeInForce());
+        }
+        return order;
     }
 }
\ No newline at end of file
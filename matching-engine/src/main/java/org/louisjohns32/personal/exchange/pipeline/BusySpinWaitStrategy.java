@@ -0,0 +1,20 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+/**
+ * Lowest latency, burns a core per stage. Only use with dedicated cores.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public long waitFor(long sequence, SequenceBarrier barrier) {
+        long available;
+        while ((available = barrier.availableSequence()) < sequence && !barrier.isHalted()) {
+            Thread.onSpinWait();
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
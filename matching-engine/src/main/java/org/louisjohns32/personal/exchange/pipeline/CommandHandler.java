@@ -0,0 +1,8 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+@FunctionalInterface
+public interface CommandHandler {
+
+    void onCommand(OrderCommand command, long sequence, boolean endOfBatch);
+
+}
@@ -0,0 +1,38 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import java.util.function.Consumer;
+
+/**
+ * Journal stage of the command pipeline. Sees every command before it is matched.
+ */
+public interface CommandJournal {
+
+    void append(OrderCommand command, boolean endOfBatch);
+
+    /**
+     * Position just past the last journalled command. Positions only increase,
+     * so a command is covered by a snapshot taken at {@code p} iff its
+     * position is at most {@code p}.
+     */
+    default long position() {
+        return 0;
+    }
+
+    /**
+     * Hands every journalled command positioned after {@code fromPosition} to
+     * {@code handler} in append order, reusing one {@link OrderCommand} with
+     * its journal position set. Called once at startup, before the pipeline runs.
+     * @return the number of commands replayed
+     */
+    default long replay(long fromPosition, Consumer<OrderCommand> handler) {
+        return 0;
+    }
+
+    /**
+     * Drops journal data that is only needed to replay up to {@code position},
+     * once a snapshot covers it. May keep more than asked.
+     */
+    default void truncateBefore(long position) {
+    }
+
+}
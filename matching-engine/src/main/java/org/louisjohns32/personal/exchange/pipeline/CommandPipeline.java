@@ -0,0 +1,130 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * LMAX style command pipeline: journal -> match -> publish.
+ * Producers (request threads) claim a slot in a shared ring, the journal
+ * stage sees every command first, then one match stage per shard handles the
+ * commands assigned to it, and the publish stage runs once every shard has
+ * passed a slot before recycling it.
+ */
+@Slf4j
+public class CommandPipeline {
+
+    private final CommandRingBuffer ringBuffer;
+    private final WaitStrategy waitStrategy;
+    private final StageProcessor journalStage;
+    private final StageProcessor[] matchStages;
+    private final StageProcessor publishStage;
+    private final List<SequenceBarrier> barriers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    public CommandPipeline(int ringSize, WaitStrategy waitStrategy, CommandHandler journalHandler,
+                           CommandHandler[] matchHandlers, CommandHandler publishHandler) {
+        this.ringBuffer = new CommandRingBuffer(ringSize, waitStrategy);
+        this.waitStrategy = waitStrategy;
+
+        journalStage = new StageProcessor("pipeline-journal", ringBuffer,
+                barrier(), waitStrategy, journalHandler);
+
+        matchStages = new StageProcessor[matchHandlers.length];
+        AtomicLong[] matchSequences = new AtomicLong[matchHandlers.length];
+        for (int i = 0; i < matchHandlers.length; i++) {
+            matchStages[i] = new StageProcessor("matching-shard-" + i, ringBuffer,
+                    barrier(journalStage.getSequence()), waitStrategy, matchHandlers[i]);
+            matchSequences[i] = matchStages[i].getSequence();
+        }
+
+        publishStage = new StageProcessor("pipeline-publish", ringBuffer,
+                barrier(matchSequences), waitStrategy, (command, sequence, endOfBatch) -> {
+                    try {
+                        publishHandler.onCommand(command, sequence, endOfBatch);
+                    } finally {
+                        command.clear();
+                    }
+                });
+
+        ringBuffer.setGatingSequences(publishStage.getSequence());
+    }
+
+    private SequenceBarrier barrier(AtomicLong... dependencies) {
+        SequenceBarrier barrier = new SequenceBarrier(ringBuffer, dependencies);
+        barriers.add(barrier);
+        return barrier;
+    }
+
+    public void start() {
+        startThread(journalStage);
+        for (StageProcessor matchStage : matchStages) {
+            startThread(matchStage);
+        }
+        startThread(publishStage);
+        log.info("Started command pipeline with {} slots and {} match stages", ringBuffer.getSize(), matchStages.length);
+    }
+
+    private void startThread(StageProcessor processor) {
+        Thread thread = new Thread(processor, processor.getName());
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Claims a slot, lets the translator fill it in and publishes it to the journal stage.
+     */
+    public void publish(Consumer<OrderCommand> translator) {
+        long sequence = ringBuffer.next();
+        try {
+            translator.accept(ringBuffer.get(sequence));
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    public boolean isMatchThread(int shard) {
+        return matchStages[shard].isProcessorThread();
+    }
+
+    /**
+     * Waits until every command claimed before this call has been through the publish stage.
+     * @return false if that took longer than {@code timeoutNanos}
+     */
+    public boolean awaitPublished(long timeoutNanos) {
+        long claimed = ringBuffer.getClaimedSequence();
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (publishStage.getSequence().get() < claimed) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /**
+     * Lets in-flight commands drain through the publish stage, then stops every stage.
+     */
+    public void halt() {
+        awaitPublished(TimeUnit.SECONDS.toNanos(5));
+        for (SequenceBarrier barrier : barriers) {
+            barrier.halt();
+        }
+        waitStrategy.signalAllWhenBlocking();
+        for (Thread thread : threads) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed size, pre-allocated multi-producer ring of {@link OrderCommand} slots.
+ * Producers claim a sequence, fill the slot and publish it. A claimed slot is
+ * only reused once the last stage has moved past it.
+ */
+public class CommandRingBuffer {
+
+    private final OrderCommand[] slots;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimCursor = new AtomicLong(-1);
+    private final WaitStrategy waitStrategy;
+    private volatile AtomicLong[] gatingSequences = new AtomicLong[0];
+
+    public CommandRingBuffer(int size, WaitStrategy waitStrategy) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of 2, got: " + size);
+        }
+        this.slots = new OrderCommand[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new OrderCommand();
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    void setGatingSequences(AtomicLong... sequences) {
+        this.gatingSequences = sequences;
+    }
+
+    /**
+     * Claims the next slot, parking briefly between checks while the ring is
+     * full so waiting producers don't take CPU from the stages that free it.
+     */
+    public long next() {
+        long sequence = claimCursor.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        while (wrapPoint > minimum(gatingSequences)) {
+            LockSupport.parkNanos(this, 1);
+        }
+        return sequence;
+    }
+
+    public OrderCommand get(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    public void publish(long sequence) {
+        published.set((int) (sequence & mask), sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    long getClaimedSequence() {
+        return claimCursor.get();
+    }
+
+    long highestPublished(long lowerBound, long availableSequence) {
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++) {
+            if (published.get((int) (sequence & mask)) != sequence) {
+                return sequence - 1;
+            }
+        }
+        return availableSequence;
+    }
+
+    public int getSize() {
+        return slots.length;
+    }
+
+    static long minimum(AtomicLong[] sequences) {
+        long min = Long.MAX_VALUE;
+        for (AtomicLong sequence : sequences) {
+            min = Math.min(min, sequence.get());
+        }
+        return min;
+    }
+}
@@ -0,0 +1,23 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+public enum CommandType {
+    CREATE_ORDER_BOOK(true),
+    CREATE_ORDER(true),
+    CANCEL_ORDER(true),
+    AMEND_ORDER(true),
+    QUERY(false),
+    SNAPSHOT(false);
+
+    private final boolean journalled;
+
+    CommandType(boolean journalled) {
+        this.journalled = journalled;
+    }
+
+    /**
+     * Whether the command changes a book, and so must be journalled and replayed.
+     */
+    public boolean isJournalled() {
+        return journalled;
+    }
+}
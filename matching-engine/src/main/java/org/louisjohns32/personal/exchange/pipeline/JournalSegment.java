@@ -0,0 +1,77 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One pre-sized, memory-mapped journal file. Unwritten space is zero, which
+ * is how readers find the end of the records.
+ */
+final class JournalSegment implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int syncedTo;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment open(Path path, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // keep an existing segment's size in case the configured size has changed
+        long mappedSize = Math.max(channel.size(), size);
+        return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    boolean hasRoom(int bytes) {
+        return buffer.remaining() >= bytes;
+    }
+
+    void resumeAt(int position) {
+        buffer.position(position);
+        syncedTo = position;
+    }
+
+    /**
+     * Resumes writing at {@code position}, wiping anything after it so a torn
+     * record can never be read back.
+     */
+    void truncate(int position) {
+        for (int i = position; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+        resumeAt(position);
+    }
+
+    void force() {
+        int position = buffer.position();
+        if (position > syncedTo) {
+            buffer.force(syncedTo, position - syncedTo);
+            syncedTo = position;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,35 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+/**
+ * When the journal forces written records to disk.
+ */
+public enum JournalSyncPolicy {
+
+    /**
+     * Never fsync; records reach disk when the OS flushes the mapped pages.
+     * Survives a process crash but not a power loss.
+     */
+    NEVER,
+
+    /**
+     * Fsync at the end of every pipeline batch, before the batch is matched.
+     * One fsync covers every command that arrived while the previous one ran
+     * (group commit).
+     */
+    BATCH,
+
+    /**
+     * Fsync at the end of a batch once the sync interval has passed since the
+     * last one, bounding how much can be lost without paying for every batch.
+     */
+    INTERVAL;
+
+    public static JournalSyncPolicy fromName(String name) {
+        return switch (name.toLowerCase()) {
+            case "never" -> NEVER;
+            case "batch" -> BATCH;
+            case "interval" -> INTERVAL;
+            default -> throw new IllegalArgumentException("Unknown journal sync policy: " + name);
+        };
+    }
+}
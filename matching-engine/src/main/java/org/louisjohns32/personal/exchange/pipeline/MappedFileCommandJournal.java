@@ -0,0 +1,365 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of every command that changes a book, appended to
+ * memory-mapped segment files by the pipeline's journal stage. Replaying it
+ * through the matching code at startup rebuilds the books, the event sequence
+ * numbers and the last issued order id.
+ * <p>
+ * Each record is {@code [int length][int crc32c][payload]}. A zero length
+ * marks the end of a segment's records; a record that fails its checksum is a
+ * write torn by a crash and ends the journal. Queries and snapshots are not
+ * journalled, so they must not change book state. A command's position is
+ * its segment index and end offset packed into a long.
+ * Only the journal stage thread may append.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "exchange.journal.enabled", havingValue = "true")
+public class MappedFileCommandJournal implements CommandJournal {
+
+    static final int HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 1024;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    // record codes are part of the file format, never renumber them
+    private static final byte CREATE_ORDER_BOOK = 1;
+    private static final byte CREATE_ORDER = 2;
+    private static final byte CANCEL_ORDER = 3;
+    // a CREATE_ORDER followed by the order's account, written only for orders with one
+    private static final byte CREATE_ACCOUNT_ORDER = 4;
+    private static final byte AMEND_ORDER = 5;
+    // a CREATE_ACCOUNT_ORDER followed by the order type and time in force, written only for
+    // orders that are not good-till-cancelled limits
+    private static final byte CREATE_IMMEDIATE_ORDER = 6;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final JournalSyncPolicy syncPolicy;
+    private final long syncIntervalNanos;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD_BYTES);
+    private final CRC32C crc = new CRC32C();
+
+    private JournalSegment segment;
+    private long segmentIndex;
+    private long lastSyncNanos;
+
+    public MappedFileCommandJournal(
+            @Value("${exchange.journal.dir:data/journal}") String directory,
+            @Value("${exchange.journal.segment-size:67108864}") int segmentSize,
+            @Value("${exchange.journal.sync:batch}") String syncPolicy,
+            @Value("${exchange.journal.sync-interval-ms:10}") long syncIntervalMs) {
+        if (segmentSize < HEADER_BYTES + MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Journal segment size must be at least "
+                    + (HEADER_BYTES + MAX_PAYLOAD_BYTES) + " bytes, got: " + segmentSize);
+        }
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.syncPolicy = JournalSyncPolicy.fromName(syncPolicy);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMs);
+    }
+
+    @Override
+    public void append(OrderCommand command, boolean endOfBatch) {
+        if (command.getType().isJournalled()) {
+            if (segment == null) {
+                replay(Long.MAX_VALUE, replayed -> {});
+            }
+            scratch.clear();
+            encode(command, scratch);
+            scratch.flip();
+            int length = scratch.remaining();
+            if (!segment.hasRoom(HEADER_BYTES + length)) {
+                roll();
+            }
+            crc.reset();
+            crc.update(scratch.array(), 0, length);
+            segment.buffer()
+                    .putInt(length)
+                    .putInt((int) crc.getValue())
+                    .put(scratch);
+        }
+        if (endOfBatch && segment != null) {
+            sync();
+        }
+    }
+
+    @Override
+    public long position() {
+        return segment == null ? 0 : position(segmentIndex, segment.buffer().position());
+    }
+
+    @Override
+    public long replay(long fromPosition, Consumer<OrderCommand> handler) {
+        if (segment != null) {
+            throw new IllegalStateException("Journal has already been replayed");
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            OrderCommand command = new OrderCommand();
+            long replayed = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                Path path = segments.get(i);
+                long index = indexOf(path);
+                boolean last = i == segments.size() - 1;
+                if (!last && index < fromPosition >>> 32) {
+                    // wholly before the snapshot
+                    continue;
+                }
+                JournalSegment replaying = JournalSegment.open(path, segmentSize);
+                ByteBuffer buffer = replaying.buffer();
+                int position = 0;
+                boolean torn = false;
+                while (position + HEADER_BYTES <= buffer.capacity()) {
+                    int length = buffer.getInt(position);
+                    if (length == 0) break;
+                    if (length < 0 || length > MAX_PAYLOAD_BYTES || position + HEADER_BYTES + length > buffer.capacity()
+                            || !checksumMatches(buffer, position, length)) {
+                        torn = true;
+                        break;
+                    }
+                    position += HEADER_BYTES + length;
+                    long end = position(index, position);
+                    if (end > fromPosition) {
+                        decode(buffer.slice(position - length, length), command);
+                        command.setJournalPosition(end);
+                        handler.accept(command);
+                        command.clear();
+                        replayed++;
+                    }
+                }
+
+                if (!last) {
+                    if (torn) {
+                        replaying.close();
+                        throw new IllegalStateException("Journal segment " + path + " is corrupt at byte " + position
+                                + " but is followed by later segments");
+                    }
+                    replaying.close();
+                    continue;
+                }
+                if (torn) {
+                    log.warn("Discarding torn journal record at byte {} of {}", position, path);
+                    replaying.truncate(position);
+                } else {
+                    replaying.resumeAt(position);
+                }
+                segment = replaying;
+                segmentIndex = index;
+            }
+            if (segment == null) {
+                segmentIndex = 0;
+                segment = JournalSegment.open(segmentPath(segmentIndex), segmentSize);
+            }
+            lastSyncNanos = System.nanoTime();
+            return replayed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes whole segments that end before {@code position}. Safe to call
+     * from another thread, since the segment being appended to is never older
+     * than a position the journal has handed out.
+     */
+    @Override
+    public void truncateBefore(long position) {
+        long keepFrom = position >>> 32;
+        try {
+            for (Path path : listSegments()) {
+                if (indexOf(path) < keepFrom) {
+                    Files.deleteIfExists(path);
+                    log.info("Deleted journal segment {} covered by a snapshot", path.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to truncate journal in {}", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (segment == null) return;
+        try {
+            segment.close();
+            segment = null;
+        } catch (IOException e) {
+            log.error("Failed to close journal segment", e);
+        }
+    }
+
+    private void sync() {
+        switch (syncPolicy) {
+            case NEVER -> {
+            }
+            case BATCH -> segment.force();
+            case INTERVAL -> {
+                long now = System.nanoTime();
+                if (now - lastSyncNanos >= syncIntervalNanos) {
+                    segment.force();
+                    lastSyncNanos = now;
+                }
+            }
+        }
+    }
+
+    private void roll() {
+        try {
+            segment.close();
+            segmentIndex++;
+            segment = JournalSegment.open(segmentPath(segmentIndex), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment in " + directory, e);
+        }
+    }
+
+    private boolean checksumMatches(ByteBuffer buffer, int position, int length) {
+        crc.reset();
+        crc.update(buffer.slice(position + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(position + 4);
+    }
+
+    // Side, OrderBookType, OrderType and TimeInForce are written by ordinal, so only ever append to them
+    private static void encode(OrderCommand command, ByteBuffer buffer) {
+        byte[] symbol = command.getSymbol().getBytes(StandardCharsets.US_ASCII);
+        switch (command.getType()) {
+            case CREATE_ORDER_BOOK -> {
+                buffer.put(CREATE_ORDER_BOOK);
+                putSymbol(buffer, symbol);
+                buffer.put(command.getBookType() == null ? -1 : (byte) command.getBookType().ordinal());
+            }
+            case CREATE_ORDER -> {
+                Order order = command.getOrder();
+                byte code = order.isImmediate() ? CREATE_IMMEDIATE_ORDER
+                        : order.getAccountId() != 0 ? CREATE_ACCOUNT_ORDER : CREATE_ORDER;
+                buffer.put(code);
+                putSymbol(buffer, symbol);
+                buffer.putLong(command.getOrderId());
+                buffer.put((byte) order.getSide().ordinal());
+                buffer.putLong(order.getScaledQuantity());
+                buffer.putLong(order.getScaledPrice());
+                if (code != CREATE_ORDER) {
+                    buffer.putLong(order.getAccountId());
+                }
+                if (code == CREATE_IMMEDIATE_ORDER) {
+                    buffer.put((byte) order.getType().ordinal());
+                    buffer.put((byte) order.getTimeInForce().ordinal());
+                }
+            }
+            case CANCEL_ORDER -> {
+                buffer.put(CANCEL_ORDER);
+                putSymbol(buffer, symbol);
+                buffer.putLong(command.getOrderId());
+            }
+            case AMEND_ORDER -> {
+                buffer.put(AMEND_ORDER);
+                putSymbol(buffer, symbol);
+                buffer.putLong(command.getOrderId());
+                buffer.putLong(command.getQuantity());
+                buffer.putLong(command.getPrice());
+            }
+            case QUERY, SNAPSHOT -> throw new IllegalArgumentException(command.getType() + " is not journalled");
+        }
+    }
+
+    private static void decode(ByteBuffer buffer, OrderCommand command) {
+        byte code = buffer.get();
+        String symbol = getSymbol(buffer);
+        command.setSymbol(symbol);
+        switch (code) {
+            case CREATE_ORDER_BOOK -> {
+                command.setType(CommandType.CREATE_ORDER_BOOK);
+                byte bookType = buffer.get();
+                command.setBookType(bookType < 0 ? null : OrderBookType.values()[bookType]);
+            }
+            case CREATE_ORDER, CREATE_ACCOUNT_ORDER, CREATE_IMMEDIATE_ORDER -> {
+                command.setType(CommandType.CREATE_ORDER);
+                command.setOrderId(buffer.getLong());
+                Side side = Side.values()[buffer.get()];
+                long quantity = buffer.getLong();
+                long price = buffer.getLong();
+                Order order = Order.fromScaled(symbol, side, quantity, price);
+                if (code != CREATE_ORDER) {
+                    order.setAccountId(buffer.getLong());
+                }
+                if (code == CREATE_IMMEDIATE_ORDER) {
+                    order.setType(OrderType.values()[buffer.get()]);
+                    order.setTimeInForce(TimeInForce.values()[buffer.get()]);
+                }
+                command.setOrder(order);
+            }
+            case CANCEL_ORDER -> {
+                command.setType(CommandType.CANCEL_ORDER);
+                command.setOrderId(buffer.getLong());
+            }
+            case AMEND_ORDER -> {
+                command.setType(CommandType.AMEND_ORDER);
+                command.setOrderId(buffer.getLong());
+                command.setQuantity(buffer.getLong());
+                command.setPrice(buffer.getLong());
+            }
+            default -> throw new IllegalStateException("Unknown journal record code: " + code);
+        }
+    }
+
+    private static void putSymbol(ByteBuffer buffer, byte[] symbol) {
+        if (symbol.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Symbol too long to journal: " + symbol.length + " bytes");
+        }
+        buffer.put((byte) symbol.length);
+        buffer.put(symbol);
+    }
+
+    private static String getSymbol(ByteBuffer buffer) {
+        byte[] symbol = new byte[buffer.get()];
+        buffer.get(symbol);
+        return new String(symbol, StandardCharsets.US_ASCII);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // segment index in the high half, byte offset within the segment in the low half
+    private static long position(long segmentIndex, int offset) {
+        return segmentIndex << 32 | offset;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,13 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "exchange.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpCommandJournal implements CommandJournal {
+
+    @Override
+    public void append(OrderCommand command, boolean endOfBatch) {
+    }
+}
@@ -0,0 +1,63 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Pre-allocated ring buffer slot. Producers fill it in, the match stage
+ * writes the result and events, and the publish stage recycles it.
+ */
+@Getter
+@Setter
+public class OrderCommand {
+
+    private CommandType type;
+
+    private String symbol;
+
+    private int shard;
+
+    private Order order;
+
+    private long orderId;
+
+    // new total quantity and price for an amend, scaled; 0 leaves either unchanged
+    private long quantity;
+
+    private long price;
+
+    private OrderBookType bookType;
+
+    // journal position once this command is journalled, see CommandJournal#position
+    private long journalPosition;
+
+    private Supplier<?> query;
+
+    // turned away by the journal stage's pre-trade checks; not journalled or matched
+    private boolean rejected;
+
+    private CompletableFuture<Object> future;
+
+    private final EncodedEvents events = new EncodedEvents();
+
+    void clear() {
+        type = null;
+        symbol = null;
+        order = null;
+        orderId = 0L;
+        quantity = 0L;
+        price = 0L;
+        bookType = null;
+        journalPosition = 0L;
+        query = null;
+        rejected = false;
+        future = null;
+        events.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how far a stage may advance: up to the last published slot for the
+ * first stage, or up to the slowest upstream stage otherwise.
+ */
+public class SequenceBarrier {
+
+    private final CommandRingBuffer ringBuffer;
+    private final AtomicLong[] dependencies;
+    private volatile boolean halted;
+
+    SequenceBarrier(CommandRingBuffer ringBuffer, AtomicLong[] dependencies) {
+        this.ringBuffer = ringBuffer;
+        this.dependencies = dependencies;
+    }
+
+    public long availableSequence() {
+        if (dependencies.length == 0) {
+            return ringBuffer.getClaimedSequence();
+        }
+        return CommandRingBuffer.minimum(dependencies);
+    }
+
+    /**
+     * @return highest sequence that can be processed, lower than {@code sequence} if nothing is ready yet
+     */
+    long waitFor(long sequence, WaitStrategy waitStrategy) throws InterruptedException {
+        long available = waitStrategy.waitFor(sequence, this);
+        if (dependencies.length == 0) {
+            // claimed slots may not be published yet, only hand out the contiguous published run
+            return ringBuffer.highestPublished(sequence, available);
+        }
+        return available;
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    void halt() {
+        halted = true;
+    }
+}
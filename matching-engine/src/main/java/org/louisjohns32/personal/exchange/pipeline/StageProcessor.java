@@ -0,0 +1,71 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one pipeline stage on its own thread, handing every available slot to
+ * the handler in sequence order and then advancing the stage's sequence.
+ */
+@Slf4j
+public class StageProcessor implements Runnable {
+
+    private final String name;
+    private final CommandRingBuffer ringBuffer;
+    private final SequenceBarrier barrier;
+    private final WaitStrategy waitStrategy;
+    private final CommandHandler handler;
+    private final AtomicLong sequence = new AtomicLong(-1);
+    private volatile Thread thread;
+
+    StageProcessor(String name, CommandRingBuffer ringBuffer, SequenceBarrier barrier,
+                   WaitStrategy waitStrategy, CommandHandler handler) {
+        this.name = name;
+        this.ringBuffer = ringBuffer;
+        this.barrier = barrier;
+        this.waitStrategy = waitStrategy;
+        this.handler = handler;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    AtomicLong getSequence() {
+        return sequence;
+    }
+
+    boolean isProcessorThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        long next = sequence.get() + 1;
+        while (!barrier.isHalted()) {
+            long available;
+            try {
+                available = barrier.waitFor(next, waitStrategy);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (available < next) {
+                continue;
+            }
+            while (next <= available) {
+                OrderCommand command = ringBuffer.get(next);
+                try {
+                    handler.onCommand(command, next, next == available);
+                } catch (RuntimeException e) {
+                    log.error("Stage {} failed on sequence {}", name, next, e);
+                }
+                next++;
+            }
+            sequence.set(available);
+            waitStrategy.signalAllWhenBlocking();
+        }
+    }
+}
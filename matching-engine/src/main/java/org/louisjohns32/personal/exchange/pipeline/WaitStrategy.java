@@ -0,0 +1,24 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+/**
+ * How a pipeline stage waits for its upstream to make progress.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until the barrier has reached {@code sequence} or has been halted.
+     * @return the highest sequence the barrier currently allows, may be lower than requested if halted
+     */
+    long waitFor(long sequence, SequenceBarrier barrier) throws InterruptedException;
+
+    void signalAllWhenBlocking();
+
+    static WaitStrategy fromName(String name) {
+        return switch (name.toLowerCase()) {
+            case "busy-spin" -> new BusySpinWaitStrategy();
+            case "yielding" -> new YieldingWaitStrategy();
+            case "blocking" -> new BlockingWaitStrategy();
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        };
+    }
+}
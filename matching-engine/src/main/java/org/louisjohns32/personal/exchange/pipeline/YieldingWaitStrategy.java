@@ -0,0 +1,28 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+/**
+ * Spins briefly then yields, trading a little latency for giving the core back.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public long waitFor(long sequence, SequenceBarrier barrier) {
+        int counter = SPIN_TRIES;
+        long available;
+        while ((available = barrier.availableSequence()) < sequence && !barrier.isHalted()) {
+            if (counter > 0) {
+                counter--;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
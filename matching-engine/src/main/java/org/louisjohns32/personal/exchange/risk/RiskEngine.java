@@ -0,0 +1,448 @@
+package org.louisjohns32.personal.exchange.risk;
+
+import org.louisjohns32.personal.exchange.common.codec.OrderEventCodec;
+import org.louisjohns32.personal.exchange.common.collections.LongObjectHashMap;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.config.RiskConfig;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.louisjohns32.personal.exchange.exceptions.RiskLimitExceededException;
+import org.louisjohns32.personal.exchange.services.TimeProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Pre-trade risk checks per account: open notional, net position per symbol
+ * and order rate, each against the account's {@link RiskLimits}. Orders
+ * without an account are not checked.
+ * <p>
+ * An accepted order reserves its notional and quantity until matching reports
+ * it filled or cancelled, or reports that it never reached the book. With
+ * sharding, checks run on the pipeline's journal stage, before an order is
+ * journalled or matched, and matching results come back on the publish stage.
+ * Both stages take this engine's monitor for every command, so a check on the
+ * pipeline's one serial stage can wait behind the publish stage's
+ * bookkeeping; {@code RiskCheckBenchmark}'s contended group measures how much.
+ * Inside the monitor, accounts and open orders are only ever reached through
+ * primitive-keyed maps.
+ * <p>
+ * Notional is price times quantity, rounded to double precision when an
+ * order is accepted and released exactly as it was reserved. A market order
+ * has no price, so it is reserved at its instrument's max price, the most it
+ * could trade at on either side, and fills release it at that price until
+ * its expiry releases the rest. The check runs before matching and can't see
+ * the book, so the best opposing price is not used. Without a max price,
+ * market orders are rejected for accounts with a notional limit. Positions
+ * are built from fills this session; open orders are rebuilt on recovery but
+ * positions start flat.
+ */
+@Component
+public class RiskEngine {
+
+    private final boolean enabled;
+    private final LongFunction<RiskLimits> limits;
+    private final TimeProvider timeProvider;
+    private final LongObjectHashMap<AccountRisk> accounts = new LongObjectHashMap<>();
+    private final LongObjectHashMap<OpenOrder> orders = new LongObjectHashMap<>(1 << 16);
+    private final Map<String, Integer> symbolIndexes = new HashMap<>();
+    // open orders whose fills have all been reported, kept to be reused
+    private final ArrayDeque<OpenOrder> spare = new ArrayDeque<>();
+
+    /**
+     * Tracks every account with no limits.
+     */
+    public RiskEngine() {
+        this(true, accountId -> RiskLimits.UNLIMITED, TimeProvider.getSystemTimeProvider());
+    }
+
+    @Autowired
+    public RiskEngine(RiskConfig config) {
+        this(config.isEnabled(), config::limitsFor, TimeProvider.getSystemTimeProvider());
+    }
+
+    public RiskEngine(boolean enabled, LongFunction<RiskLimits> limits, TimeProvider timeProvider) {
+        this.enabled = enabled;
+        this.limits = limits;
+        this.timeProvider = timeProvider;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * As {@link #check(long, Order, InstrumentSpec)} for an instrument with
+     * no price band.
+     */
+    public void check(long orderId, Order order) {
+        check(orderId, order, InstrumentSpec.DEFAULT);
+    }
+
+    /**
+     * Checks {@code order} against its account's limits and, if it passes,
+     * reserves its notional and quantity under {@code orderId}. A market
+     * order is reserved at {@code spec}'s max price.
+     *
+     * @throws RiskLimitExceededException if accepting the order would breach a limit
+     */
+    public synchronized void check(long orderId, Order order, InstrumentSpec spec) {
+        long accountId = order.getAccountId();
+        if (!enabled || accountId == 0) return;
+        AccountRisk account = account(accountId);
+        RiskLimits limit = account.limits;
+        long quantity = order.getScaledRemainingQuantity();
+        long price = order.getType() == OrderType.MARKET ? spec.getMaxPrice() : order.getScaledPrice();
+        long notional = notional(quantity, price);
+        int symbol = symbolIndex(order.getSymbol());
+        account.ensureSymbol(symbol);
+
+        checkOrderRate(accountId, account);
+        if (price == 0 && limit.maxOpenNotional() > 0) {
+            throw new RiskLimitExceededException(accountId, "Account " + accountId + " has a max open notional, and "
+                    + order.getSymbol() + " has no max price to reserve a market order at");
+        }
+        if (limit.maxOpenNotional() > 0 && account.openNotional + notional > limit.maxOpenNotional()) {
+            throw new RiskLimitExceededException(accountId, "Account " + accountId + " would exceed max open notional "
+                    + FixedPoint.toDouble(limit.maxOpenNotional()));
+        }
+        if (limit.maxPosition() > 0) {
+            // the position the account would hold if every open order on this side filled
+            long worstCase = order.getSide() == Side.BUY
+                    ? account.positions[symbol] + account.openBuys[symbol] + quantity
+                    : account.openSells[symbol] + quantity - account.positions[symbol];
+            if (worstCase > limit.maxPosition()) {
+                throw new RiskLimitExceededException(accountId, "Account " + accountId + " would exceed max position "
+                        + FixedPoint.toDouble(limit.maxPosition()) + " in " + order.getSymbol());
+            }
+        }
+        account.ordersInWindow++;
+        reserve(orderId, account, symbol, order.getSide(), price, quantity, notional);
+    }
+
+    /**
+     * Checks an amend of an open order to a new total quantity and/or price,
+     * 0 leaving either unchanged, and counts it towards the order rate. Fills
+     * matching has not reported yet still count as open, so the check errs
+     * towards rejecting. Anything the amend adds to the reservation is
+     * reserved straight away, as for a new order; the amend's matching result
+     * then settles the reservation at exactly what was amended, or
+     * {@link #rejectAmend(long)} hands it back if matching rejects the amend.
+     *
+     * @throws RiskLimitExceededException if the amended order would breach a limit
+     */
+    public synchronized void checkAmend(long orderId, long quantity, long price) {
+        if (!enabled) return;
+        OpenOrder order = orders.get(orderId);
+        if (order == null) return;
+        AccountRisk account = order.account;
+        RiskLimits limit = account.limits;
+        long newQuantity = quantity != 0 ? quantity : order.quantity;
+        long newPrice = price != 0 ? price : order.price;
+        long newRemaining = Math.max(0, newQuantity - (order.quantity - order.remaining));
+        long addedNotional = Math.max(0, notional(newRemaining, newPrice) - order.notional);
+        long addedQuantity = Math.max(0, newRemaining - order.remaining);
+        int symbol = order.symbol;
+
+        checkOrderRate(account.accountId, account);
+        // an amend that only shrinks the order is never held back by a limit, only by the rate
+        if (addedNotional > 0 && limit.maxOpenNotional() > 0
+                && account.openNotional + addedNotional > limit.maxOpenNotional()) {
+            throw new RiskLimitExceededException(account.accountId, "Account " + account.accountId
+                    + " would exceed max open notional " + FixedPoint.toDouble(limit.maxOpenNotional()));
+        }
+        if (addedQuantity > 0 && limit.maxPosition() > 0) {
+            long worstCase = order.side == Side.BUY
+                    ? account.positions[symbol] + account.openBuys[symbol] + addedQuantity
+                    : account.openSells[symbol] + addedQuantity - account.positions[symbol];
+            if (worstCase > limit.maxPosition()) {
+                throw new RiskLimitExceededException(account.accountId, "Account " + account.accountId
+                        + " would exceed max position " + FixedPoint.toDouble(limit.maxPosition()));
+            }
+        }
+        account.ordersInWindow++;
+        order.notional += addedNotional;
+        order.remaining += addedQuantity;
+        order.quantity += addedQuantity;
+        order.pendingNotional += addedNotional;
+        order.pendingQuantity += addedQuantity;
+        account.openNotional += addedNotional;
+        if (order.side == Side.BUY) {
+            account.openBuys[symbol] += addedQuantity;
+        } else {
+            account.openSells[symbol] += addedQuantity;
+        }
+    }
+
+    /**
+     * Reserves an order that was accepted before a restart, without checking
+     * it, as recovery rebuilds the books.
+     */
+    public synchronized void restore(long orderId, Order order) {
+        long accountId = order.getAccountId();
+        if (!enabled || accountId == 0 || orders.containsKey(orderId)) return;
+        AccountRisk account = account(accountId);
+        int symbol = symbolIndex(order.getSymbol());
+        account.ensureSymbol(symbol);
+        long quantity = order.getScaledRemainingQuantity();
+        reserve(orderId, account, symbol, order.getSide(), order.getScaledPrice(), quantity,
+                notional(quantity, order.getScaledPrice()));
+    }
+
+    /**
+     * Applies a command's matching results: fills move quantity from open
+     * orders into positions, cancellations and expiries release what was left, and amends
+     * reserve the order again on its new terms.
+     */
+    public synchronized void apply(EncodedEvents events) {
+        if (!enabled || orders.isEmpty()) return;
+        ByteBuffer buffer = events.buffer();
+        int offset = 0;
+        while (offset < events.length()) {
+            switch (OrderEventCodec.templateId(buffer, offset)) {
+                case OrderEventCodec.TRADE_EXECUTED -> {
+                    long quantity = OrderEventCodec.tradeQuantity(buffer, offset);
+                    fill(OrderEventCodec.tradeBuyOrderId(buffer, offset), quantity);
+                    fill(OrderEventCodec.tradeSellOrderId(buffer, offset), quantity);
+                }
+                case OrderEventCodec.ORDER_CANCELLED, OrderEventCodec.ORDER_EXPIRED ->
+                        release(OrderEventCodec.orderId(buffer, offset));
+                case OrderEventCodec.ORDER_AMENDED -> amend(OrderEventCodec.orderId(buffer, offset),
+                        OrderEventCodec.amendedPrice(buffer, offset), OrderEventCodec.amendedQuantity(buffer, offset),
+                        OrderEventCodec.amendedRemainingQuantity(buffer, offset));
+                default -> {
+                }
+            }
+            offset += OrderEventCodec.encodedLength(buffer, offset);
+        }
+    }
+
+    /**
+     * Releases everything still reserved for an order, for one that matching
+     * rejected or that is no longer open.
+     */
+    public synchronized void release(long orderId) {
+        if (!enabled) return;
+        OpenOrder order = orders.remove(orderId);
+        if (order == null) return;
+        AccountRisk account = order.account;
+        account.openNotional -= order.notional;
+        if (order.side == Side.BUY) {
+            account.openBuys[order.symbol] -= order.remaining;
+        } else {
+            account.openSells[order.symbol] -= order.remaining;
+        }
+        recycle(order);
+    }
+
+    /**
+     * Hands back what {@link #checkAmend(long, long, long)} reserved for an
+     * amend that matching then rejected, keeping the order open on its
+     * last settled terms. Every amend still in flight for the order is
+     * handed back; the ones that go on to match settle the order afresh.
+     */
+    public synchronized void rejectAmend(long orderId) {
+        if (!enabled) return;
+        OpenOrder order = orders.get(orderId);
+        if (order == null) return;
+        if (order.remaining <= order.pendingQuantity) {
+            // filled while the amend was in flight
+            release(orderId);
+            return;
+        }
+        AccountRisk account = order.account;
+        long notional = Math.min(order.pendingNotional, order.notional);
+        order.notional -= notional;
+        order.remaining -= order.pendingQuantity;
+        order.quantity -= order.pendingQuantity;
+        account.openNotional -= notional;
+        if (order.side == Side.BUY) {
+            account.openBuys[order.symbol] -= order.pendingQuantity;
+        } else {
+            account.openSells[order.symbol] -= order.pendingQuantity;
+        }
+        order.pendingNotional = 0;
+        order.pendingQuantity = 0;
+    }
+
+    /**
+     * Clears every position, keeping open orders. Called once recovery has
+     * rebuilt the open orders.
+     */
+    public synchronized void resetPositions() {
+        accounts.forEach((accountId, account) -> Arrays.fill(account.positions, 0));
+    }
+
+    public synchronized long getOpenNotional(long accountId) {
+        AccountRisk account = accounts.get(accountId);
+        return account == null ? 0 : account.openNotional;
+    }
+
+    public synchronized long getPosition(long accountId, String symbol) {
+        AccountRisk account = accounts.get(accountId);
+        Integer index = symbolIndexes.get(symbol);
+        if (account == null || index == null || index >= account.positions.length) return 0;
+        return account.positions[index];
+    }
+
+    public synchronized int getOpenOrderCount() {
+        return orders.size();
+    }
+
+    private void checkOrderRate(long accountId, AccountRisk account) {
+        int maxOrdersPerSecond = account.limits.maxOrdersPerSecond();
+        if (maxOrdersPerSecond <= 0) return;
+        long now = timeProvider.currentTimeMillis();
+        if (now - account.windowStart >= 1000) {
+            account.windowStart = now;
+            account.ordersInWindow = 0;
+        }
+        if (account.ordersInWindow >= maxOrdersPerSecond) {
+            throw new RiskLimitExceededException(accountId, "Account " + accountId + " exceeds "
+                    + maxOrdersPerSecond + " orders per second");
+        }
+    }
+
+    private void amend(long orderId, long price, long quantity, long remaining) {
+        OpenOrder order = orders.get(orderId);
+        if (order == null) return;
+        AccountRisk account = order.account;
+        long notional = notional(remaining, price);
+        account.openNotional += notional - order.notional;
+        if (order.side == Side.BUY) {
+            account.openBuys[order.symbol] += remaining - order.remaining;
+        } else {
+            account.openSells[order.symbol] += remaining - order.remaining;
+        }
+        order.price = price;
+        order.quantity = quantity;
+        order.remaining = remaining;
+        order.notional = notional;
+        order.pendingNotional = 0;
+        order.pendingQuantity = 0;
+    }
+
+    private void fill(long orderId, long quantity) {
+        OpenOrder order = orders.get(orderId);
+        if (order == null) return;
+        AccountRisk account = order.account;
+        long released = quantity >= order.remaining ? order.notional : Math.min(order.notional, notional(quantity, order.price));
+        order.remaining -= quantity;
+        order.notional -= released;
+        account.openNotional -= released;
+        if (order.side == Side.BUY) {
+            account.openBuys[order.symbol] -= quantity;
+            account.positions[order.symbol] += quantity;
+        } else {
+            account.openSells[order.symbol] -= quantity;
+            account.positions[order.symbol] -= quantity;
+        }
+        if (order.remaining <= 0) {
+            orders.remove(orderId);
+            recycle(order);
+        }
+    }
+
+    private void reserve(long orderId, AccountRisk account, int symbol, Side side, long price, long quantity, long notional) {
+        OpenOrder order = spare.isEmpty() ? new OpenOrder() : spare.pop();
+        order.account = account;
+        order.symbol = symbol;
+        order.side = side;
+        order.price = price;
+        order.quantity = quantity;
+        order.remaining = quantity;
+        order.notional = notional;
+        order.pendingNotional = 0;
+        order.pendingQuantity = 0;
+        orders.put(orderId, order);
+        account.openNotional += notional;
+        if (side == Side.BUY) {
+            account.openBuys[symbol] += quantity;
+        } else {
+            account.openSells[symbol] += quantity;
+        }
+    }
+
+    private void recycle(OpenOrder order) {
+        order.account = null;
+        spare.push(order);
+    }
+
+    private AccountRisk account(long accountId) {
+        AccountRisk account = accounts.get(accountId);
+        if (account == null) {
+            account = new AccountRisk(accountId, limits.apply(accountId), symbolIndexes.size());
+            accounts.put(accountId, account);
+        }
+        return account;
+    }
+
+    private int symbolIndex(String symbol) {
+        Integer index = symbolIndexes.get(symbol);
+        if (index == null) {
+            index = symbolIndexes.size();
+            symbolIndexes.put(symbol, index);
+        }
+        return index;
+    }
+
+    static long notional(long quantity, long price) {
+        return Math.round((double) quantity * price / FixedPoint.SCALE);
+    }
+
+    private static final class AccountRisk {
+
+        private final long accountId;
+        private final RiskLimits limits;
+        private long openNotional;
+        // indexed by symbol; open quantities and net position, scaled
+        private long[] positions;
+        private long[] openBuys;
+        private long[] openSells;
+        private long windowStart;
+        private int ordersInWindow;
+
+        private AccountRisk(long accountId, RiskLimits limits, int symbols) {
+            this.accountId = accountId;
+            this.limits = limits;
+            int length = Math.max(symbols, 8);
+            this.positions = new long[length];
+            this.openBuys = new long[length];
+            this.openSells = new long[length];
+        }
+
+        private void ensureSymbol(int symbol) {
+            if (symbol >= positions.length) {
+                int length = Math.max(symbol + 1, positions.length * 2);
+                positions = Arrays.copyOf(positions, length);
+                openBuys = Arrays.copyOf(openBuys, length);
+                openSells = Arrays.copyOf(openSells, length);
+            }
+        }
+    }
+
+    private static final class OpenOrder {
+
+        private AccountRisk account;
+        private int symbol;
+        private Side side;
+        private long price;
+        // total quantity as reserved, so what has filled is quantity - remaining
+        private long quantity;
+        private long remaining;
+        // still reserved against the account's open notional
+        private long notional;
+        // added by amends matching has not settled yet, included in the above
+        private long pendingNotional;
+        private long pendingQuantity;
+    }
+}
@@ -0,0 +1,22 @@
+package org.louisjohns32.personal.exchange.risk;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+
+/**
+ * One account's pre-trade limits. Notional and position are
+ * {@link FixedPoint} scaled; a limit of 0 is unbounded.
+ *
+ * @param maxOpenNotional    total price times remaining quantity of the account's open orders
+ * @param maxPosition        absolute net position per symbol, counting open orders as if they all filled
+ * @param maxOrdersPerSecond orders accepted per one-second window
+ */
+public record RiskLimits(long maxOpenNotional, long maxPosition, int maxOrdersPerSecond) {
+
+    public static final RiskLimits UNLIMITED = new RiskLimits(0, 0, 0);
+
+    public RiskLimits {
+        if (maxOpenNotional < 0 || maxPosition < 0 || maxOrdersPerSecond < 0) {
+            throw new IllegalArgumentException("Risk limits must not be negative");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.louisjohns32.personal.exchange.services;
 
 
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
 
 import java.util.List;
 
@@ -11,4 +12,20 @@ public interface EventPublisher {
 
     void publishBatch(List<OrderEvent> events);
 
+    /**
+     * Publishes events matching has already encoded. The buffer is reused once
+     * this returns. By default the events are decoded and passed to
+     * {@link #publishBatch}.
+     */
+    default void publishEncoded(EncodedEvents events) {
+        publishBatch(events.decode());
+    }
+
+    /**
+     * Blocks until everything published so far has been acknowledged, and
+     * fails if any of it could not be delivered. Nothing to wait for by default.
+     */
+    default void flush() {
+    }
+
 }
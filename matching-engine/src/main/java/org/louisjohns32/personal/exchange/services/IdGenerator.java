@@ -5,4 +5,27 @@ public interface IdGenerator<T> {
 
     public T nextId();
 
+    /**
+     * Next id for a caller that owns {@code stripe}, such as a matching shard.
+     * Generators that do not stripe ignore it.
+     */
+    default T nextId(int stripe) {
+        return nextId();
+    }
+
+    /**
+     * Makes sure every later id sorts after {@code lastIssued}, an id handed
+     * out before a restart.
+     */
+    default void recover(T lastIssued) {
+    }
+
+    /**
+     * An id at least as high as every id handed out so far, read without
+     * issuing one; null if nothing has been issued or the generator can't tell.
+     */
+    default T lastIssuedId() {
+        return null;
+    }
+
 }
@@ -1,40 +1,190 @@
 package org.louisjohns32.personal.exchange.services;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.louisjohns32.personal.exchange.common.codec.OrderEventCodec;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * Sends events keyed by symbol, so each symbol's events stay ordered on one
+ * partition. With sharding this runs on the pipeline's publish stage, never
+ * on a matching thread; the producer's linger, batch size and compression
+ * (spring.kafka.producer.*) decide how records are coalesced per partition.
+ * <p>
+ * At most {@code max-in-flight} events may be sent but not yet acknowledged.
+ * Past that, publishing blocks until acknowledgements come back, which stalls
+ * the publish stage and, once the ring fills, parks order producers, rather
+ * than letting the producer buffer fill and drop events.
+ * <p>
+ * Events the pipeline has already encoded are sent as raw bytes through a
+ * second template sharing the producer configuration, so they are never
+ * turned back into objects. With {@code exchange.kafka.publisher.format=json}
+ * they are decoded instead and sent through the configured value
+ * serializer, so pairing it with {@code JsonSerializer} puts readable JSON
+ * on the topic for debugging.
+ * <p>
+ * A send that fails is only logged, so {@link #flush()} reports it instead:
+ * a snapshot is not taken over events that were never delivered, and the
+ * journal tail that republishes them on restart is kept.
+ */
 @Service
 @Primary
 @Slf4j
 public class KafkaEventPublisher implements EventPublisher{
 
+    static final int DEFAULT_MAX_IN_FLIGHT = 65536;
+    static final String BINARY = "binary";
+    static final String JSON = "json";
+
     private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
     private final String ordersTopic;
+    private final Semaphore inFlight;
+    // encoded events are decoded and sent through kafkaTemplate's own serializer
+    private final boolean decodeEncoded;
+    private final AtomicLong failedSends = new AtomicLong();
+    private long failedSendsAtLastFlush;
+    // one callback for every send rather than a lambda per event
+    private final BiConsumer<Object, Throwable> onSendComplete = this::onSendComplete;
+    // created on first use; publishEncoded is only called by recovery and then by the publish stage
+    private volatile KafkaTemplate<String, byte[]> encodedTemplate;
+
+    public KafkaEventPublisher(KafkaTemplate<String, OrderEvent> kafkaTemplate, String ordersTopic) {
+        this(kafkaTemplate, ordersTopic, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    KafkaEventPublisher(KafkaTemplate<String, OrderEvent> kafkaTemplate, KafkaTemplate<String, byte[]> encodedTemplate,
+                        String ordersTopic, int maxInFlight) {
+        this(kafkaTemplate, ordersTopic, maxInFlight);
+        this.encodedTemplate = encodedTemplate;
+    }
 
+    public KafkaEventPublisher(KafkaTemplate<String, OrderEvent> kafkaTemplate, String ordersTopic, int maxInFlight) {
+        this(kafkaTemplate, ordersTopic, maxInFlight, BINARY);
+    }
+
+    /**
+     * @param format {@code binary} to send encoded events as they are, or
+     *               {@code json} to decode them for the configured value serializer
+     */
+    @Autowired
     public KafkaEventPublisher(
             KafkaTemplate<String, OrderEvent> kafkaTemplate,
-            @Value("${exchange.kafka.topics.order-events}") String ordersTopic) {
+            @Value("${exchange.kafka.topics.order-events}") String ordersTopic,
+            @Value("${exchange.kafka.publisher.max-in-flight:" + DEFAULT_MAX_IN_FLIGHT + "}") int maxInFlight,
+            @Value("${exchange.kafka.publisher.format:" + BINARY + "}") String format) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight events must be positive, got: " + maxInFlight);
+        }
         this.kafkaTemplate = kafkaTemplate;
         this.ordersTopic = ordersTopic;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.decodeEncoded = switch (format.toLowerCase()) {
+            case BINARY -> false;
+            case JSON -> true;
+            default -> throw new IllegalArgumentException("Unknown event format: " + format);
+        };
     }
 
     @Override
     public void publish(OrderEvent event) {
-        kafkaTemplate.send(ordersTopic, event.getSymbol(), event)
-                .whenComplete((result, ex) -> {
-            if (ex != null) log.error("Failed to publish event", ex);
-        });
-
+        inFlight.acquireUninterruptibly();
+        try {
+            kafkaTemplate.send(ordersTopic, event.getSymbol(), event).whenComplete(onSendComplete);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            failedSends.incrementAndGet();
+            log.error("Failed to publish event", e);
+        }
     }
 
     @Override
     public void publishBatch(List<OrderEvent> events) {
-        events.forEach(this::publish);
+        for (int i = 0; i < events.size(); i++) {
+            publish(events.get(i));
+        }
+    }
+
+    @Override
+    public void publishEncoded(EncodedEvents events) {
+        if (decodeEncoded) {
+            ByteBuffer encoded = events.buffer().duplicate().limit(events.length()).position(0);
+            while (encoded.hasRemaining()) {
+                publish(OrderEventCodec.decode(encoded));
+            }
+            return;
+        }
+        KafkaTemplate<String, byte[]> template = encodedTemplate();
+        ByteBuffer buffer = events.buffer();
+        int offset = 0;
+        while (offset < events.length()) {
+            int length = OrderEventCodec.encodedLength(buffer, offset);
+            byte[] value = new byte[length];
+            buffer.get(offset, value);
+            inFlight.acquireUninterruptibly();
+            try {
+                template.send(ordersTopic, events.symbol(), value).whenComplete(onSendComplete);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                failedSends.incrementAndGet();
+                log.error("Failed to publish event", e);
+            }
+            offset += length;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private KafkaTemplate<String, byte[]> encodedTemplate() {
+        if (encodedTemplate == null) {
+            ProducerFactory<String, ?> factory = kafkaTemplate.getProducerFactory().copyWithConfigurationOverride(
+                    Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+            encodedTemplate = new KafkaTemplate<>((ProducerFactory<String, byte[]>) factory);
+        }
+        return encodedTemplate;
+    }
+
+    /**
+     * Flushes both producers, then fails if any send has failed since the
+     * last flush. Called from the snapshot thread.
+     */
+    @Override
+    public synchronized void flush() {
+        kafkaTemplate.flush();
+        KafkaTemplate<String, byte[]> encoded = encodedTemplate;
+        if (encoded != null) {
+            encoded.flush();
+        }
+        long failed = failedSends.get();
+        long sinceLastFlush = failed - failedSendsAtLastFlush;
+        failedSendsAtLastFlush = failed;
+        if (sinceLastFlush > 0) {
+            throw new IllegalStateException(sinceLastFlush + " events failed to publish since the last flush");
+        }
+    }
+
+    int availableInFlight() {
+        return inFlight.availablePermits();
+    }
+
+    private void onSendComplete(Object result, Throwable ex) {
+        inFlight.release();
+        if (ex != null) {
+            failedSends.incrementAndGet();
+            log.error("Failed to publish event", ex);
+        }
     }
 }
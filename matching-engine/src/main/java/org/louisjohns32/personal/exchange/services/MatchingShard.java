@@ -0,0 +1,70 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.pipeline.CommandHandler;
+import org.louisjohns32.personal.exchange.pipeline.OrderCommand;
+
+/**
+ * Match stage for one shard of the command pipeline.
+ * Every command for a symbol assigned to this shard runs on the same thread,
+ * so books never need locking and price-time priority stays strict.
+ * Commands for other shards, and commands rejected before matching, are skipped.
+ */
+public class MatchingShard implements CommandHandler {
+
+    private final int index;
+    private final OrderBookServiceImpl orderBookService;
+
+    public MatchingShard(int index, OrderBookServiceImpl orderBookService) {
+        this.index = index;
+        this.orderBookService = orderBookService;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public void onCommand(OrderCommand command, long sequence, boolean endOfBatch) {
+        if (command.getShard() != index || command.isRejected()) {
+            return;
+        }
+        try {
+            command.getFuture().complete(apply(command));
+        } catch (RuntimeException e) {
+            command.getFuture().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs the command against its book and returns the result, collecting
+     * events on the command. Also used to replay the journal at startup.
+     */
+    public Object apply(OrderCommand command) {
+        return switch (command.getType()) {
+            case CREATE_ORDER_BOOK -> command.getBookType() != null
+                    ? orderBookService.createOrderBook(command.getSymbol(), command.getBookType())
+                    : orderBookService.createOrderBook(command.getSymbol());
+            case CREATE_ORDER -> {
+                OrderBook orderBook = orderBookService.getOrderBook(command.getSymbol());
+                yield orderBookService.createOrder(orderBook, command.getOrder(), command.getOrderId(), command.getEvents());
+            }
+            case CANCEL_ORDER -> {
+                OrderBook orderBook = orderBookService.getOrderBook(command.getSymbol());
+                orderBookService.deleteOrderById(orderBook, command.getOrderId(), command.getEvents());
+                yield null;
+            }
+            case AMEND_ORDER -> {
+                OrderBook orderBook = orderBookService.getOrderBook(command.getSymbol());
+                yield orderBookService.amendOrder(orderBook, command.getOrderId(), command.getQuantity(),
+                        command.getPrice(), command.getEvents());
+            }
+            case QUERY -> command.getQuery().get();
+            // a snapshot without a symbol is a barrier reporting how far this shard has got
+            case SNAPSHOT -> command.getSymbol() == null
+                    ? command.getJournalPosition()
+                    : orderBookService.snapshot(orderBookService.getOrderBook(command.getSymbol()),
+                            command.getJournalPosition());
+        };
+    }
+}
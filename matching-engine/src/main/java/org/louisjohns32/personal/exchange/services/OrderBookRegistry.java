@@ -3,6 +3,7 @@ package org.louisjohns32.personal.exchange.services;
 import java.util.List;
 
 import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
 
 public interface OrderBookRegistry {
 	
@@ -10,6 +11,8 @@ public interface OrderBookRegistry {
 	
 	public void createOrderBook(String symbol);
 	
+	public void createOrderBook(String symbol, OrderBookType type);
+	
 	public boolean orderBookExists(String symbol);
 	
 	public List<String> getSymbols();
@@ -4,8 +4,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.louisjohns32.personal.exchange.config.InstrumentConfig;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
 import org.louisjohns32.personal.exchange.exceptions.OrderBookNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -13,6 +17,9 @@ public class OrderBookRegistryImpl implements OrderBookRegistry {
 	
 	private ConcurrentHashMap<String, OrderBook> orderBookMap;
 	
+	@Autowired(required = false)
+	private InstrumentConfig instrumentConfig;
+	
 	public OrderBookRegistryImpl() {
 		orderBookMap = new ConcurrentHashMap<String, OrderBook>();
 	}
@@ -24,7 +31,18 @@ public class OrderBookRegistryImpl implements OrderBookRegistry {
 
 	@Override
 	public void createOrderBook(String symbol) {
-		orderBookMap.putIfAbsent(symbol, new OrderBook(symbol));
+		createOrderBook(symbol, instrumentConfig != null ? instrumentConfig.bookTypeFor(symbol) : OrderBookType.SKIP_LIST);
+	}
+
+	@Override
+	public void createOrderBook(String symbol, OrderBookType type) {
+		int ladderLevels = instrumentConfig != null ? instrumentConfig.ladderLevelsFor(symbol) : OrderBook.DEFAULT_LADDER_LEVELS;
+		int expectedOrders = instrumentConfig != null ? instrumentConfig.expectedOrdersFor(symbol) : OrderBook.DEFAULT_EXPECTED_ORDERS;
+		orderBookMap.computeIfAbsent(symbol, s -> new OrderBook(s, specFor(s), type, ladderLevels, expectedOrders));
+	}
+
+	private InstrumentSpec specFor(String symbol) {
+		return instrumentConfig != null ? instrumentConfig.specFor(symbol) : InstrumentSpec.DEFAULT;
 	}
 
 	@Override
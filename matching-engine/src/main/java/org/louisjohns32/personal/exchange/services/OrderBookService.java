@@ -1,8 +1,10 @@
 package org.louisjohns32.personal.exchange.services;
 
+import org.louisjohns32.personal.exchange.dto.MarketSnapshotDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
 import org.louisjohns32.personal.exchange.entities.Order;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
 import org.louisjohns32.personal.exchange.entities.Trade;
 
 import java.util.List;
@@ -13,13 +15,33 @@ public interface OrderBookService {
 	
 	public OrderBookDTO getAggregatedOrderBook(String symbol);
 	
+	/**
+	 * Aggregated levels of every book, for consumers starting up from a
+	 * snapshot rather than from the start of the event topic.
+	 */
+	public MarketSnapshotDTO getMarketSnapshot();
+	
 	public OrderBook createOrderBook(String symbol);
 	
+	public OrderBook createOrderBook(String symbol, OrderBookType type);
+	
 	public Order createOrder(OrderBook orderBook, Order order);
 	
 	public Order createOrder(String symbol, Order order);
 	 
 	public void deleteOrderById(OrderBook orderBook, long id);
+	
+	/**
+	 * Cancels a resting order by id alone, whichever book it rests on.
+	 */
+	public void cancelOrder(long id);
+	
+	/**
+	 * Changes a resting order's total quantity and/or price; a null leaves
+	 * that part as it is. Lowering only the quantity keeps the order's place
+	 * in the queue, anything else requeues it and may match it.
+	 */
+	public Order amendOrder(long id, Double quantity, Double price);
  
 	public double fillOrder(OrderBook orderBook, Order order, double amnt); 
  
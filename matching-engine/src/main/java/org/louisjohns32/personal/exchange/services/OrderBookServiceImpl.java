@@ -1,21 +1,29 @@
 package org.louisjohns32.personal.exchange.services;
 
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.common.events.*;
+import org.louisjohns32.personal.exchange.dto.MarketSnapshotDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookLevelDTO;
 import org.louisjohns32.personal.exchange.entities.Order;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
 import org.louisjohns32.personal.exchange.entities.OrderBookLevel;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
 import org.louisjohns32.personal.exchange.entities.Trade;
+import org.louisjohns32.personal.exchange.events.EventListSink;
+import org.louisjohns32.personal.exchange.events.EventSink;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+import org.louisjohns32.personal.exchange.exceptions.OrderNotFoundException;
+import org.louisjohns32.personal.exchange.snapshot.OrderBookSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
 
@@ -23,6 +31,8 @@ import java.util.*;
 /**
  * Service handling order book operations and matching engine logic.
  * Implements price-time priority matching and publishes lifecycle events.
+ * Not thread-safe: each order book must only be touched by its owning matching
+ * thread (see {@link ShardedOrderBookService}).
  */
 @Slf4j
 @Service
@@ -31,9 +41,6 @@ public class OrderBookServiceImpl implements OrderBookService {
     @Autowired
 	private IdGenerator<Long> idGenerator;
 
-	@Autowired
-	private Validator validator;
-	
 	@Autowired
 	private OrderBookRegistry registry;
 
@@ -42,136 +49,451 @@ public class OrderBookServiceImpl implements OrderBookService {
 
     @Autowired
     SequenceNumberGenerator sequenceGenerator;
+
+    @Autowired
+    private OrderIndex orderIndex;
 	
 	
 	@Override
-	public synchronized OrderBook getOrderBook(String symbol) {
+	public OrderBook getOrderBook(String symbol) {
 		return registry.getOrderBook(symbol);
 	}
 
 	@Override
-	public synchronized OrderBook createOrderBook(String symbol) {
+	public OrderBook createOrderBook(String symbol) {
 		registry.createOrderBook(symbol);
 		return registry.getOrderBook(symbol);
 	}
+
+	@Override
+	public OrderBook createOrderBook(String symbol, OrderBookType type) {
+		registry.createOrderBook(symbol, type);
+		return registry.getOrderBook(symbol);
+	}
 	
 	@Override
-	public synchronized Order createOrder(OrderBook orderBook, Order order) {
-		Set<ConstraintViolation<Order>> violations = validator.validate(order);
-		if(!violations.isEmpty()) {
-			throw new ConstraintViolationException(violations);
+	public Order createOrder(OrderBook orderBook, Order order) {
+        List<OrderEvent> events = new ArrayList<>();
+        Order newOrder = createOrder(orderBook, order, events);
+        publisher.publishBatch(events);
+        return newOrder;
+	}
+
+    /**
+     * Creates and matches an order, appending the resulting events to {@code events}
+     * instead of publishing them.
+     */
+	public Order createOrder(OrderBook orderBook, Order order, List<OrderEvent> events) {
+		preTradeCheck(orderBook, order);
+		return createOrder(orderBook, order, idGenerator.nextId(), events);
+	}
+
+	/**
+	 * Rejects an order that breaks its instrument's rules. Runs before an
+	 * order is given an id; with sharding, on the caller's thread before the
+	 * command is published, so the matching thread only sees valid orders.
+	 */
+	public void preTradeCheck(OrderBook orderBook, Order order) {
+		if(!orderBook.getSymbol().equals(order.getSymbol())) {
+			throw new InvalidOrderException("Order symbol " + order.getSymbol() + " does not match book " + orderBook.getSymbol());
 		}
-		
-		long orderId = idGenerator.nextId();
-		Order newOrder = new Order(orderId, order);
+		orderBook.getInstrumentSpec().validate(order);
+	}
 
-        // Add order
-		orderBook.addOrder(newOrder);
+    /**
+     * As {@link #createOrder(OrderBook, Order, List)}, but with an id assigned
+     * up front, so a journalled command replays to the same order.
+     */
+	public Order createOrder(OrderBook orderBook, Order order, long orderId, List<OrderEvent> events) {
+		return createOrder(orderBook, order, orderId, new EventListSink(events));
+	}
 
-        List<OrderEvent> events = new ArrayList<>();
-        events.add(new OrderCreationEvent(
-                newOrder.getId(),
-                newOrder.getSymbol(),
+    /**
+     * Creates and matches an order, writing its events to {@code sink}. Used by
+     * the command pipeline's match stage, where the sink is the slot's
+     * {@link org.louisjohns32.personal.exchange.events.EncodedEvents}, so the
+     * only allocation left is the new order itself. The order must already
+     * have passed {@link #preTradeCheck(OrderBook, Order)}.
+     * <p>
+     * What an immediate order (market, IOC or FOK) cannot fill on arrival
+     * expires instead of resting, so it never enters the book. A fill-or-kill
+     * first sums the opposing levels' volume up to its price and expires
+     * untouched unless they can fill all of it.
+     * <p>
+     * A price the book could not rest the order at is rejected here, on the
+     * book's own thread, before the order emits anything.
+     */
+	public Order createOrder(OrderBook orderBook, Order order, long orderId, EventSink sink) {
+		if(!order.isImmediate()) {
+			checkCanRest(orderBook, order.getSide(), order.getScaledPrice());
+		}
+		Order newOrder = new Order(orderId, order);
+		String symbol = newOrder.getSymbol();
+
+        sink.orderCreated(
+                sequenceGenerator.getSequenceNumber(orderBook),
+                orderId,
+                symbol,
                 newOrder.getSide(),
-                newOrder.getQuantity(),
-                newOrder.getPrice(),
-                newOrder.getCreatedAt().atZone(ZoneOffset.UTC).toInstant().toEpochMilli(),
-                sequenceGenerator.getSequenceNumber(newOrder.getSymbol())
-        ));
+                newOrder.getScaledQuantity(),
+                newOrder.getScaledPrice(),
+                epochMillis(newOrder.getCreatedAt())
+        );
+
+        long quantity = newOrder.getScaledQuantity();
+        if (newOrder.getTimeInForce() == TimeInForce.FOK
+                && orderBook.fillableQuantity(newOrder.getSide(), limitPrice(newOrder), quantity) < quantity) {
+            expire(orderBook, newOrder, sink);
+            return newOrder;
+        }
 
+        if (!newOrder.isImmediate()) {
+            orderBook.addOrder(newOrder);
+        }
 
         // Match order
-        events.addAll(match(orderBook, newOrder).stream().map(this::buildTradeEvent).toList());
-
-        if (newOrder.getRemainingQuantity() > 0) {
-            events.add(OrderRestEvent.builder()
-                    .symbol(newOrder.getSymbol())
-                    .price(newOrder.getPrice())
-                    .side(newOrder.getSide())
-                    .quantity(newOrder.getRemainingQuantity())
-                    .sequenceNumber(sequenceGenerator.getSequenceNumber(newOrder.getSymbol()))
-                    .orderId(newOrder.getId())
-                    .build());
-            log.info("Created RestOrderEvent for symbol {}", newOrder.getSymbol());
+        match(orderBook, newOrder, sink);
+
+        if (newOrder.getScaledRemainingQuantity() > 0 && newOrder.isImmediate()) {
+            expire(orderBook, newOrder, sink);
+        } else if (newOrder.getScaledRemainingQuantity() > 0) {
+            orderIndex.put(orderId, symbol);
+            sink.orderRested(
+                    sequenceGenerator.getSequenceNumber(orderBook),
+                    orderId,
+                    symbol,
+                    newOrder.getSide(),
+                    newOrder.getScaledRemainingQuantity(),
+                    newOrder.getScaledPrice());
+            log.debug("Created RestOrderEvent for symbol {}", symbol);
         }
 
-        publisher.publishBatch(events);
         return newOrder;
 	}
 
+	/**
+	 * Rejects a price a price ladder book could not hold alongside its
+	 * resting orders. Depends on what is resting, so unlike the instrument
+	 * rules it can only be checked on the book's matching thread.
+	 */
+	private void checkCanRest(OrderBook orderBook, Side side, long scaledPrice) {
+		if(!orderBook.canRestAt(side, scaledPrice)) {
+			throw new InvalidOrderException("Price " + FixedPoint.toDouble(scaledPrice)
+					+ " is too far from the rest of the " + orderBook.getSymbol() + " book");
+		}
+	}
+
+	private void expire(OrderBook orderBook, Order order, EventSink sink) {
+		order.setStatus(OrderStatus.CANCELLED);
+		sink.orderExpired(
+				sequenceGenerator.getSequenceNumber(orderBook),
+				order.getId(),
+				order.getSymbol(),
+				order.getSide(),
+				order.getScaledPrice(),
+				order.getScaledRemainingQuantity(),
+				System.currentTimeMillis());
+	}
+
+	/**
+	 * Book of a resting order, found through the {@link OrderIndex}.
+	 *
+	 * @throws OrderNotFoundException if the order is not resting on any book
+	 */
+	public OrderBook orderBookFor(long id) {
+		String symbol = orderIndex.symbolOf(id);
+		if(symbol == null) {
+			throw new OrderNotFoundException(id);
+		}
+		return registry.getOrderBook(symbol);
+	}
+
+	@Override
+	public void cancelOrder(long id) {
+		deleteOrderById(orderBookFor(id), id);
+	}
+
 	@Override
-	public synchronized void deleteOrderById(OrderBook orderBook, long id) {
+	public Order amendOrder(long id, Double quantity, Double price) {
+		OrderBook orderBook = orderBookFor(id);
+		long scaledQuantity = quantity == null ? 0 : FixedPoint.toScaled(quantity);
+		long scaledPrice = price == null ? 0 : FixedPoint.toScaled(price);
+		preAmendCheck(orderBook, scaledQuantity, scaledPrice);
+		List<OrderEvent> events = new ArrayList<>();
+		Order order = amendOrder(orderBook, id, scaledQuantity, scaledPrice, new EventListSink(events));
+		publisher.publishBatch(events);
+		return order;
+	}
+
+	/**
+	 * Rejects an amend that breaks the book's instrument rules, like
+	 * {@link #preTradeCheck(OrderBook, Order)} does for new orders. A zero
+	 * quantity or price is left unchanged, but an amend must change one.
+	 */
+	public void preAmendCheck(OrderBook orderBook, long scaledQuantity, long scaledPrice) {
+		if(scaledQuantity == 0 && scaledPrice == 0) {
+			throw new InvalidOrderException("An amend must give a new quantity or price");
+		}
+		if(scaledQuantity != 0) {
+			orderBook.getInstrumentSpec().validateQuantity(scaledQuantity);
+		}
+		if(scaledPrice != 0) {
+			orderBook.getInstrumentSpec().validatePrice(scaledPrice);
+		}
+	}
+
+	/**
+	 * Amends a resting order, writing its events to {@code sink}. A zero
+	 * quantity or price is left unchanged; the amend must already have passed
+	 * {@link #preAmendCheck(OrderBook, long, long)}.
+	 * <p>
+	 * The quantity is the order's new total, fills included. At the same
+	 * price, a lower quantity shrinks the order where it rests, keeping its
+	 * time priority. A new price or a higher quantity takes the order out of
+	 * the book and adds it back at the end of its new level, matching first
+	 * if the new price crosses. A quantity no more than what has already
+	 * filled cancels the rest of the order. A new price the book could not
+	 * rest the order at rejects the amend before it emits anything, leaving
+	 * the order where it was.
+	 */
+	public Order amendOrder(OrderBook orderBook, long id, long scaledQuantity, long scaledPrice, EventSink sink) {
 		Order order = orderBook.getOrderById(id);
+		if(order == null) {
+			throw new OrderNotFoundException(id);
+		}
+		long newQuantity = scaledQuantity != 0 ? scaledQuantity : order.getScaledQuantity();
+		long newPrice = scaledPrice != 0 ? scaledPrice : order.getScaledPrice();
+		long newRemaining = newQuantity - order.getScaledFilledQuantity();
+		if(newRemaining <= 0) {
+			deleteOrderById(orderBook, id, sink);
+			return order;
+		}
+		boolean requeue = newPrice != order.getScaledPrice() || newQuantity > order.getScaledQuantity();
+		if(newPrice != order.getScaledPrice()) {
+			checkCanRest(orderBook, order.getSide(), newPrice);
+		}
+
+		sink.orderAmended(
+				sequenceGenerator.getSequenceNumber(orderBook),
+				id,
+				order.getSymbol(),
+				order.getSide(),
+				order.getScaledPrice(),
+				order.getScaledRemainingQuantity(),
+				newPrice,
+				newQuantity,
+				newRemaining,
+				System.currentTimeMillis());
+
+		if(!requeue) {
+			order.reduceQuantity(newQuantity);
+		} else {
+			orderBook.removeOrder(order);
+			order.setScaledQuantity(newQuantity);
+			order.setScaledPrice(newPrice);
+			order.setUpdatedAt(LocalDateTime.now());
+			orderBook.addOrder(order);
+			match(orderBook, order, sink);
+		}
+
+		if(order.getScaledRemainingQuantity() > 0) {
+			sink.orderRested(
+					sequenceGenerator.getSequenceNumber(orderBook),
+					id,
+					order.getSymbol(),
+					order.getSide(),
+					order.getScaledRemainingQuantity(),
+					order.getScaledPrice());
+		}
+		return order;
+	}
+
+	public long nextOrderId() {
+		return idGenerator.nextId();
+	}
+
+	/**
+	 * Next order id for a command bound for {@code shard}, so each shard can
+	 * draw from its own id stripe.
+	 */
+	public long nextOrderId(int shard) {
+		return idGenerator.nextId(shard);
+	}
+
+	/**
+	 * An id at least as high as every order id issued so far, or 0 if the
+	 * generator can't tell. Doesn't use one up.
+	 */
+	public long lastIssuedOrderId() {
+		Long lastIssued = idGenerator.lastIssuedId();
+		return lastIssued == null ? 0 : lastIssued;
+	}
+
+	/**
+	 * Moves the id generator past {@code lastOrderId}, the highest id found
+	 * when replaying the journal, so ids are never reissued after a restart.
+	 */
+	public void recoverOrderIds(long lastOrderId) {
+		idGenerator.recover(lastOrderId);
+	}
+
+	/**
+	 * Brackets a journal replay, during which books re-draw the sequence
+	 * numbers they issued before the restart.
+	 */
+	public void setReplaying(boolean replaying) {
+		sequenceGenerator.setReplaying(replaying);
+	}
+
+	public List<String> getSymbols() {
+		return registry.getSymbols();
+	}
+
+	/**
+	 * Copies the book's resting orders and sequence counter. Must run on the
+	 * book's matching thread.
+	 */
+	public OrderBookSnapshot snapshot(OrderBook orderBook, long journalPosition) {
+		return OrderBookSnapshot.capture(orderBook, journalPosition,
+				sequenceGenerator.peekSequenceNumber(orderBook));
+	}
+
+	/**
+	 * Recreates a book from a snapshot, re-adding its orders without matching
+	 * or publishing anything.
+	 */
+	public void restore(OrderBookSnapshot snapshot) {
+		registry.createOrderBook(snapshot.symbol(), snapshot.type());
+		OrderBook orderBook = registry.getOrderBook(snapshot.symbol());
+		for(int i = 0; i < snapshot.orderCount(); i++) {
+			orderBook.addOrder(snapshot.order(i));
+			orderIndex.put(snapshot.orderIds()[i], snapshot.symbol());
+		}
+		sequenceGenerator.restoreSequenceNumber(orderBook, snapshot.nextSequence());
+	}
+
+	@Override
+	public void deleteOrderById(OrderBook orderBook, long id) {
+        List<OrderEvent> events = new ArrayList<>(1);
+        deleteOrderById(orderBook, id, events);
+        publisher.publish(events.getFirst());
+	}
+
+	public void deleteOrderById(OrderBook orderBook, long id, List<OrderEvent> events) {
+		deleteOrderById(orderBook, id, new EventListSink(events));
+	}
+
+	public void deleteOrderById(OrderBook orderBook, long id, EventSink sink) {
+		Order order = orderBook.getOrderById(id);
+		if(order == null) {
+			throw new OrderNotFoundException(id);
+		}
 		orderBook.removeOrder(order);
+		orderIndex.remove(id);
 
-        publisher.publish(new OrderCancellationEvent(order.getId(),
+        sink.orderCancelled(
+                sequenceGenerator.getSequenceNumber(orderBook),
+                order.getId(),
                 order.getSymbol(),
-                System.currentTimeMillis(),
-                sequenceGenerator.getSequenceNumber(order.getSymbol()),
                 order.getSide(),
-                order.getPrice(),
-                order.getRemainingQuantity()
-                )
+                order.getScaledPrice(),
+                order.getScaledRemainingQuantity(),
+                System.currentTimeMillis()
         );
 	}
 
 	@Override
-	public synchronized double fillOrder(OrderBook orderBook, Order order, double amnt) {
-		order.fill(amnt);
-		double amntLeft = order.getRemainingQuantity();
-		if(amntLeft == 0) {
+	public double fillOrder(OrderBook orderBook, Order order, double amnt) {
+		return FixedPoint.toDouble(fillOrder(orderBook, order, FixedPoint.toScaled(amnt)));
+	}
+	
+	private long fillOrder(OrderBook orderBook, Order order, long amnt) {
+		order.fillScaled(amnt);
+		long amntLeft = order.getScaledRemainingQuantity();
+		// immediate orders never rest, so there is nothing to take off the book
+		if(amntLeft == 0 && !order.isImmediate()) {
 			orderBook.removeOrder(order);
+			orderIndex.remove(order.getId());
 		}
 		
 		return amntLeft;
 	}
 	
 	@Override
-	public synchronized List<Trade> match(OrderBook orderBook, Order newOrder) {
-		OrderBookLevel opposingLevel;
-        Trade executedTrade;
+	public List<Trade> match(OrderBook orderBook, Order newOrder) {
         List<Trade> trades = new ArrayList<>();
-		do {
-			opposingLevel = getOpposingSideLevel(orderBook, newOrder);
-            executedTrade = matchWithLevel(orderBook, newOrder, opposingLevel);
-            trades.add(executedTrade);
-		} while(executedTrade != null);
-        trades.removeLast();
+		Order opposingOrder;
+		while((opposingOrder = crossingOrder(orderBook, newOrder)) != null) {
+			long amntToFill = fill(orderBook, newOrder, opposingOrder);
+			trades.add(new Trade(
+					orderBook.getSymbol(),
+					buyOrderId(newOrder, opposingOrder),
+					sellOrderId(newOrder, opposingOrder),
+					opposingOrder.getScaledPrice(),
+					amntToFill,
+					System.currentTimeMillis(),
+					opposingOrder.getSide()
+			));
+		}
         return trades;
 	}
-	
-	private Trade matchWithLevel(OrderBook orderBook, Order newOrder, OrderBookLevel opposingLevel) {
-		if(newOrder.isFilled() || opposingLevel == null) return null;
+
+	/**
+	 * Matches like {@link #match(OrderBook, Order)}, writing a trade event per
+	 * fill to {@code sink} instead of building {@link Trade}s.
+	 */
+	public void match(OrderBook orderBook, Order newOrder, EventSink sink) {
+		Order opposingOrder;
+		while((opposingOrder = crossingOrder(orderBook, newOrder)) != null) {
+			long amntToFill = fill(orderBook, newOrder, opposingOrder);
+			sink.tradeExecuted(
+					sequenceGenerator.getSequenceNumber(orderBook),
+					orderBook.getSymbol(),
+					buyOrderId(newOrder, opposingOrder),
+					sellOrderId(newOrder, opposingOrder),
+					opposingOrder.getScaledPrice(),
+					amntToFill,
+					System.currentTimeMillis(),
+					opposingOrder.getSide());
+		}
+	}
+
+	// best opposing order if it crosses the new order's price, null once filled or no longer crossing
+	private Order crossingOrder(OrderBook orderBook, Order newOrder) {
+		if(newOrder.isFilled()) return null;
+		OrderBookLevel opposingLevel = getOpposingSideLevel(orderBook, newOrder);
+		if(opposingLevel == null) return null;
+		long limitPrice = limitPrice(newOrder);
 		if(
-				(newOrder.getSide() == Side.BUY && opposingLevel.getPrice() <= newOrder.getPrice())
-				|| (newOrder.getSide() == Side.SELL && opposingLevel.getPrice() >= newOrder.getPrice())
+				(newOrder.getSide() == Side.BUY && opposingLevel.getScaledPrice() <= limitPrice)
+				|| (newOrder.getSide() == Side.SELL && opposingLevel.getScaledPrice() >= limitPrice)
 		) {
-			Order opposingOrder = opposingLevel.getOrder();
-			double amntToFill = Math.min(opposingOrder.getRemainingQuantity(), newOrder.getRemainingQuantity());
-			// FUTURE: Track fill price per order (currently uses opposing order price)
-			fillOrder(orderBook, newOrder, amntToFill);
-			fillOrder(orderBook, opposingOrder, amntToFill);
-
-            Long buyOrderId,  sellOrderId;
-            if (newOrder.getSide() == Side.BUY) {
-                buyOrderId = newOrder.getId();
-                sellOrderId = opposingOrder.getId();
-            } else {
-                buyOrderId = opposingOrder.getId();
-                sellOrderId = newOrder.getId();
-            }
-            return new Trade(
-                    orderBook.getSymbol(),
-                    buyOrderId,
-                    sellOrderId,
-                    opposingOrder.getPrice(),
-                    amntToFill,
-                    Instant.now().toEpochMilli(),
-                    opposingOrder.getSide()
-            );
+			return opposingLevel.getOrder();
 		}
 		return null;
 	}
+
+	// worst price the order will trade at; a market order takes any price
+	private static long limitPrice(Order order) {
+		if(order.getType() != OrderType.MARKET) return order.getScaledPrice();
+		return order.getSide() == Side.BUY ? Long.MAX_VALUE : 0;
+	}
+
+	private long fill(OrderBook orderBook, Order newOrder, Order opposingOrder) {
+		long amntToFill = Math.min(opposingOrder.getScaledRemainingQuantity(), newOrder.getScaledRemainingQuantity());
+		// FUTURE: Track fill price per order (currently uses opposing order price)
+		fillOrder(orderBook, newOrder, amntToFill);
+		fillOrder(orderBook, opposingOrder, amntToFill);
+		return amntToFill;
+	}
+
+	private static long buyOrderId(Order newOrder, Order opposingOrder) {
+		return newOrder.getSide() == Side.BUY ? newOrder.getId() : opposingOrder.getId();
+	}
+
+	private static long sellOrderId(Order newOrder, Order opposingOrder) {
+		return newOrder.getSide() == Side.BUY ? opposingOrder.getId() : newOrder.getId();
+	}
 	
 	private OrderBookLevel getOpposingSideLevel(OrderBook orderBook, Order order) {
 		if(order.getSide() == Side.BUY) return orderBook.getLowestAskLevel();
@@ -179,42 +501,48 @@ public class OrderBookServiceImpl implements OrderBookService {
 	}
 
 	@Override
-	public synchronized OrderBookDTO getAggregatedOrderBook(String symbol) {
+	public OrderBookDTO getAggregatedOrderBook(String symbol) {
 		OrderBook orderBook = registry.getOrderBook(symbol);
 		
-		Map<Double, OrderBookLevel> askLevels = orderBook.getAskLevels();
-		Map<Double, OrderBookLevel> bidLevels = orderBook.getBidLevels();
+		Map<Long, OrderBookLevel> askLevels = orderBook.getAskLevels();
+		Map<Long, OrderBookLevel> bidLevels = orderBook.getBidLevels();
 		
 		
 		
 		List<OrderBookLevelDTO> bidDTOs = new ArrayList<OrderBookLevelDTO>();
 		List<OrderBookLevelDTO> askDTOs = new ArrayList<OrderBookLevelDTO>();
-		for(Map.Entry<Double, OrderBookLevel> e : bidLevels.entrySet()) {
-			bidDTOs.add(new OrderBookLevelDTO(e.getKey(), e.getValue().getVolume())); 
+		for(OrderBookLevel level : bidLevels.values()) {
+			bidDTOs.add(new OrderBookLevelDTO(level.getPrice(), level.getVolume())); 
 		}
-		for(Map.Entry<Double, OrderBookLevel> e : askLevels.entrySet()) {
-			askDTOs.add(new OrderBookLevelDTO(e.getKey(), e.getValue().getVolume()));
+		for(OrderBookLevel level : askLevels.values()) {
+			askDTOs.add(new OrderBookLevelDTO(level.getPrice(), level.getVolume()));
 		}
 		
 		Collections.reverse(bidDTOs); // could be optimised (change bid map to be descending? )
 		
-		return new OrderBookDTO(symbol, bidDTOs, askDTOs);
+		// numbers are drawn from 1, so a book yet to emit anything reports 0
+		long lastSequence = Math.max(sequenceGenerator.peekSequenceNumber(orderBook) - 1, 0);
+		return new OrderBookDTO(symbol, bidDTOs, askDTOs, lastSequence);
+	}
+
+	@Override
+	public MarketSnapshotDTO getMarketSnapshot() {
+		long timestamp = System.currentTimeMillis();
+		List<OrderBookDTO> books = new ArrayList<>();
+		for (String symbol : registry.getSymbols()) {
+			books.add(getAggregatedOrderBook(symbol));
+		}
+		return new MarketSnapshotDTO(timestamp, books);
 	}
 
 	@Override
-	public synchronized Order createOrder(String symbol, Order order) {
+	public Order createOrder(String symbol, Order order) {
 		OrderBook ob = registry.getOrderBook(symbol);
 		return createOrder(ob, order);
 	}
 
-    private TradeExecutionEvent buildTradeEvent(Trade trade) {
-        return new TradeExecutionEvent(trade.getSymbol(), trade.getBuyOrderId(),
-                trade.getSellOrderId(),
-                trade.getPrice(),
-                trade.getQuantity(),
-                trade.getExecutedAt().atZone(ZoneOffset.UTC).toInstant().toEpochMilli(),
-                sequenceGenerator.getSequenceNumber(trade.getSymbol()),
-                trade.getMakerSide()
-            );
+    // createdAt is local time; events have always carried it as if it were UTC
+    private static long epochMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
     }
 }
@@ -0,0 +1,70 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.louisjohns32.personal.exchange.common.collections.LongObjectHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Symbol of every resting order by id, across all books, so a cancel or amend
+ * can be routed to its book's shard with just the order id.
+ * <p>
+ * Maintained by {@link OrderBookServiceImpl} as orders rest and leave their
+ * books, on whichever matching thread owns the book, and read by request
+ * threads. Ids are split over lock stripes, each a primitive-keyed map, so a
+ * lookup or update is one uncontended lock and a probe without boxing.
+ * The order itself is then found through its book, on the book's own thread.
+ */
+@Component
+public class OrderIndex {
+
+    private static final int STRIPES = 64;
+
+    private final LongObjectHashMap<String>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public OrderIndex() {
+        stripes = new LongObjectHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectHashMap<>(1024);
+        }
+    }
+
+    /**
+     * Symbol of the book the order rests on, or null if it is not resting.
+     */
+    public String symbolOf(long orderId) {
+        LongObjectHashMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            return stripe.get(orderId);
+        }
+    }
+
+    public void put(long orderId, String symbol) {
+        LongObjectHashMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            stripe.put(orderId, symbol);
+        }
+    }
+
+    public void remove(long orderId) {
+        LongObjectHashMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            stripe.remove(orderId);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongObjectHashMap<String> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private LongObjectHashMap<String> stripe(long orderId) {
+        // snowflake ids share their low bits across a millisecond, so mix before picking a stripe
+        long mixed = orderId * 0x9e3779b97f4a7c15L;
+        return stripes[(int) (mixed >>> 58)];
+    }
+}
@@ -1,24 +1,252 @@
 package org.louisjohns32.personal.exchange.services;
 
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+/**
+ * Per-symbol event sequence numbers. The counter lives on the {@link OrderBook}
+ * and is only touched by the book's matching thread, so drawing a number is a
+ * field increment with no lookup or atomics.
+ * <p>
+ * Numbers are reserved in blocks, and a number is never issued unless a
+ * persisted per-symbol high-water mark covers it. Once a book is half way
+ * through its block, the end of the next block is written and fsynced on a
+ * background thread, so the book moves on to it without waiting. Only if that
+ * hasn't finished by the time the block runs out does the matching thread
+ * persist the mark itself. The default block of about a million numbers
+ * keeps fsyncs to roughly one a second even for a symbol publishing a
+ * million events a second.
+ * <p>
+ * After a restart, replaying the journal re-draws exactly the numbers issued
+ * before it. A book with no recovered history resumes from its mark instead,
+ * which can skip up to two blocks but never reuses a number.
+ * Without a directory, marks are kept in memory only.
+ */
+@Slf4j
 @Service
 public class SequenceNumberGenerator {
 
-    ConcurrentHashMap<String, AtomicLong> sequenceMap = new ConcurrentHashMap<String, AtomicLong>();
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    private static final String SUFFIX = ".seq";
 
-    public Long getSequenceNumber(String symbol) {
-        if  (sequenceMap.containsKey(symbol)) {
-            return sequenceMap.get(symbol).getAndIncrement();
+    private final Path directory;
+    private final int blockSize;
+    // how far before the end of its block a book asks for the next one
+    private final int reserveAhead;
+    private final Map<String, HighWaterMark> highWaterMarks = new ConcurrentHashMap<>();
+    private final ExecutorService reserver;
+    private volatile boolean replaying;
+
+    public SequenceNumberGenerator() {
+        this("", DEFAULT_BLOCK_SIZE);
+    }
+
+    @Autowired
+    public SequenceNumberGenerator(
+            @Value("${exchange.sequence.dir:}") String directory,
+            @Value("${exchange.sequence.block-size:" + DEFAULT_BLOCK_SIZE + "}") int blockSize) {
+        this(directory, blockSize, directory.isBlank() ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sequence-reserver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    SequenceNumberGenerator(String directory, int blockSize, ExecutorService reserver) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Sequence block size must be positive, got: " + blockSize);
+        }
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.blockSize = blockSize;
+        this.reserveAhead = Math.max(1, blockSize / 2);
+        this.reserver = reserver;
+        if (this.directory != null) {
+            load();
         }
-        AtomicLong seq = new AtomicLong(1);
-        sequenceMap.putIfAbsent(symbol, seq);
-        return seq.getAndIncrement();
     }
 
-    // TODO get most recent sequence number on start up (currently not recoverable from crash)
+    public long getSequenceNumber(OrderBook orderBook) {
+        long sequence = orderBook.getNextSequence();
+        long limit = orderBook.getSequenceLimit();
+        if (sequence >= limit) {
+            sequence = reserve(orderBook, sequence);
+        } else if (sequence == limit - reserveAhead) {
+            reserveAhead(orderBook.getSymbol(), limit + blockSize);
+        }
+        orderBook.setNextSequence(sequence + 1);
+        return sequence;
+    }
 
+    /**
+     * The number the book's next event will get, without using it up.
+     */
+    public long peekSequenceNumber(OrderBook orderBook) {
+        return orderBook.getNextSequence();
+    }
+
+    /**
+     * Restores a counter saved in a snapshot. Numbers from there on are
+     * re-drawn by the replay that follows, so no high-water mark applies.
+     */
+    public void restoreSequenceNumber(OrderBook orderBook, long next) {
+        orderBook.setNextSequence(next);
+        orderBook.setSequenceLimit(next);
+    }
+
+    /**
+     * While replaying the journal, books draw the same numbers they did the
+     * first time round instead of resuming from their high-water marks.
+     */
+    public void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    public long getHighWaterMark(String symbol) {
+        HighWaterMark mark = highWaterMarks.get(symbol);
+        return mark == null ? 1L : mark.persisted;
+    }
+
+    // the book has used up its block; move on to whatever is already persisted, or persist a block now
+    private long reserve(OrderBook orderBook, long sequence) {
+        HighWaterMark mark = highWaterMark(orderBook.getSymbol());
+        long persisted = mark.persisted;
+        if (orderBook.getSequenceLimit() == 0 && !replaying) {
+            // first number for a book whose history was not replayed
+            sequence = Math.max(sequence, persisted);
+        }
+        long limit = persisted;
+        if (limit <= sequence) {
+            limit = sequence + blockSize;
+            mark.persist(limit);
+        }
+        orderBook.setSequenceLimit(limit);
+        return sequence;
+    }
+
+    private void reserveAhead(String symbol, long limit) {
+        HighWaterMark mark = highWaterMark(symbol);
+        if (reserver == null) {
+            mark.persist(limit);
+            return;
+        }
+        try {
+            reserver.execute(() -> {
+                try {
+                    mark.persist(limit);
+                } catch (UncheckedIOException e) {
+                    // the book persists its next block itself when it gets there
+                    log.warn("Failed to reserve sequence numbers ahead for {}", symbol, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Not reserving sequence numbers ahead for {} after close", symbol);
+        }
+    }
+
+    private HighWaterMark highWaterMark(String symbol) {
+        return highWaterMarks.computeIfAbsent(symbol, HighWaterMark::new);
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> paths = Files.list(directory)) {
+                for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                    String name = path.getFileName().toString();
+                    byte[] bytes = Files.readAllBytes(path);
+                    if (bytes.length < Long.BYTES) {
+                        log.warn("Ignoring truncated sequence high-water mark {}", path);
+                        continue;
+                    }
+                    HighWaterMark mark = new HighWaterMark(name.substring(0, name.length() - SUFFIX.length()));
+                    mark.persisted = ByteBuffer.wrap(bytes).getLong();
+                    highWaterMarks.put(mark.symbol, mark);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load sequence high-water marks from " + directory, e);
+        }
+        log.info("Loaded sequence high-water marks for {} symbols", highWaterMarks.size());
+    }
+
+    /**
+     * Lets pending reservations finish, then closes the mark files.
+     */
+    @PreDestroy
+    public void close() {
+        if (reserver != null) {
+            reserver.shutdown();
+            try {
+                reserver.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (HighWaterMark mark : highWaterMarks.values()) {
+            mark.close();
+        }
+    }
+
+    /**
+     * One symbol's persisted mark, written by the reserver thread ahead of
+     * time or by the matching thread when it has run out, never lowered.
+     */
+    private final class HighWaterMark {
+
+        private final String symbol;
+        private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        private FileChannel file;
+        // the first number not yet covered
+        private volatile long persisted = 1L;
+
+        private HighWaterMark(String symbol) {
+            this.symbol = symbol;
+        }
+
+        synchronized void persist(long highWaterMark) {
+            if (highWaterMark <= persisted) return;
+            if (directory != null) {
+                try {
+                    if (file == null) {
+                        file = FileChannel.open(directory.resolve(symbol + SUFFIX),
+                                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    }
+                    file.write(buffer.putLong(0, highWaterMark).clear(), 0);
+                    file.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to persist sequence high-water mark for " + symbol, e);
+                }
+            }
+            persisted = highWaterMark;
+        }
+
+        synchronized void close() {
+            if (file == null) return;
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Failed to close sequence high-water mark file for {}", symbol, e);
+            }
+            file = null;
+        }
+    }
 }
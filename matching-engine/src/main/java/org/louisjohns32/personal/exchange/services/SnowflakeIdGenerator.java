@@ -2,9 +2,17 @@ package org.louisjohns32.personal.exchange.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+/**
+ * Snowflake ids from a single synchronized generator. Throws if the clock
+ * moves backwards and waits for the next millisecond once 4096 ids have been
+ * issued in one; see {@link StripedSnowflakeIdGenerator} for a generator
+ * that does neither.
+ */
 @Service
+@ConditionalOnProperty(name = "snowflake.mode", havingValue = "synchronized", matchIfMissing = true)
 public class SnowflakeIdGenerator implements IdGenerator<Long> {
 
     private final long workerId;
@@ -59,6 +67,27 @@ public class SnowflakeIdGenerator implements IdGenerator<Long> {
         return timestamp << (WORKER_BITS + SEQUENCE_BITS) | workerId <<  SEQUENCE_BITS | sequence;
     }
 
+    /**
+     * Resumes after {@code lastIssued}: if its timestamp is ahead of the
+     * generator's, later ids continue from its sequence instead of starting over.
+     */
+    @Override
+    public synchronized void recover(Long lastIssued) {
+        long timestamp = lastIssued >>> (WORKER_BITS + SEQUENCE_BITS);
+        if (timestamp > lastTimestamp || (timestamp == lastTimestamp && (lastIssued & MAX_SEQUENCE) > sequence)) {
+            lastTimestamp = timestamp;
+            sequence = lastIssued & MAX_SEQUENCE;
+        }
+    }
+
+    @Override
+    public synchronized Long lastIssuedId() {
+        if (lastTimestamp < 0) {
+            return null;
+        }
+        return lastTimestamp << (WORKER_BITS + SEQUENCE_BITS) | workerId << SEQUENCE_BITS | sequence;
+    }
+
     private long blockUntil(long timestamp) {
         do  {
             lastTimestamp = timeProvider.currentTimeMillis();
@@ -0,0 +1,177 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Snowflake ids without a global monitor. The low worker bits select one of
+ * several stripes, each with its own timestamp and sequence, so every stripe
+ * issues distinct ids and stripes never contend. Matching shard {@code n}
+ * draws from stripe {@code n % stripes}; callers without a shard use a stripe
+ * picked by thread.
+ * <p>
+ * A stripe's state is {@code timestamp << 12 | sequence} in one atomic long,
+ * advanced by compare-and-set. When a millisecond's 4096 ids run out the
+ * sequence carries into the next millisecond rather than waiting for the
+ * clock, up to {@code max-drift-ms} ahead of it. If the clock moves
+ * backwards, the stripe keeps counting from where it was rather than
+ * throwing. Ids are unique and increase per stripe, but not across stripes.
+ * <p>
+ * With {@code block-size} above one, {@link #nextId(int)} reserves that many
+ * ids per stripe at a time and hands them out with no atomics, so each stripe
+ * must then have a single caller, as it does on the pipeline's journal stage.
+ */
+@Service
+@ConditionalOnProperty(name = "snowflake.mode", havingValue = "striped")
+public class StripedSnowflakeIdGenerator implements IdGenerator<Long> {
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    // longs between stripes, keeping each stripe's slots on their own cache line
+    private static final int PAD = 16;
+    private static final int STATE = 0;
+    private static final int HIGHEST_CLOCK = 1;
+
+    private final int stripeBits;
+    private final int stripeMask;
+    private final long workerId;
+    private final long maxDriftMillis;
+    private final int blockSize;
+    private final TimeProvider timeProvider;
+    private final AtomicLongArray stripes;
+    // pre-fetched block per stripe: next state to hand out and the end of the block, exclusive
+    private final long[] blocks;
+
+    @Autowired
+    public StripedSnowflakeIdGenerator(
+            @Value("${snowflake.worker-id}") long workerId,
+            @Value("${snowflake.stripe-bits:4}") int stripeBits,
+            @Value("${snowflake.max-drift-ms:1000}") long maxDriftMillis,
+            @Value("${snowflake.block-size:1}") int blockSize) {
+        this(workerId, stripeBits, maxDriftMillis, blockSize, TimeProvider.getSystemTimeProvider());
+    }
+
+    public StripedSnowflakeIdGenerator(long workerId, int stripeBits, long maxDriftMillis, int blockSize,
+                                       TimeProvider timeProvider) {
+        if (stripeBits < 0 || stripeBits > WORKER_BITS) {
+            throw new IllegalArgumentException("Stripe bits must be between 0 and " + WORKER_BITS + ", got: " + stripeBits);
+        }
+        long maxWorkerId = (1L << (WORKER_BITS - stripeBits)) - 1;
+        if (workerId < 0 || workerId > maxWorkerId) {
+            throw new IllegalArgumentException(
+                    "Worker ID must be between 0 and " + maxWorkerId + " with " + stripeBits + " stripe bits, got: " + workerId);
+        }
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("Max drift must not be negative, got: " + maxDriftMillis);
+        }
+        if (blockSize < 1 || blockSize > MAX_SEQUENCE + 1) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + (MAX_SEQUENCE + 1) + ", got: " + blockSize);
+        }
+        this.stripeBits = stripeBits;
+        this.stripeMask = (1 << stripeBits) - 1;
+        this.workerId = workerId;
+        this.maxDriftMillis = maxDriftMillis;
+        this.blockSize = blockSize;
+        this.timeProvider = timeProvider;
+        this.stripes = new AtomicLongArray((stripeMask + 1) * PAD);
+        this.blocks = new long[(stripeMask + 1) * PAD];
+    }
+
+    public int getStripeCount() {
+        return stripeMask + 1;
+    }
+
+    /**
+     * Safe to call from any thread; always reserves a single id.
+     */
+    @Override
+    public Long nextId() {
+        int stripe = (int) Thread.currentThread().threadId() & stripeMask;
+        return toId(reserve(stripe, 1), stripe);
+    }
+
+    @Override
+    public Long nextId(int stripe) {
+        stripe &= stripeMask;
+        if (blockSize == 1) {
+            return toId(reserve(stripe, 1), stripe);
+        }
+        int slot = stripe * PAD;
+        long next = blocks[slot];
+        if (next == blocks[slot + 1]) {
+            next = reserve(stripe, blockSize);
+            blocks[slot + 1] = next + blockSize;
+        }
+        blocks[slot] = next + 1;
+        return toId(next, stripe);
+    }
+
+    /**
+     * Moves every stripe past {@code lastIssued}, allowing for stripes that
+     * had drifted ahead of it, and drops pre-fetched blocks.
+     */
+    @Override
+    public synchronized void recover(Long lastIssued) {
+        long timestamp = lastIssued >>> (WORKER_BITS + SEQUENCE_BITS);
+        long floor = (timestamp + maxDriftMillis + 1) << SEQUENCE_BITS;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int slot = stripe * PAD;
+            stripes.accumulateAndGet(slot + STATE, floor, Math::max);
+            stripes.accumulateAndGet(slot + HIGHEST_CLOCK, timestamp + 1, Math::max);
+            blocks[slot] = blocks[slot + 1] = 0;
+        }
+    }
+
+    /**
+     * The highest id any stripe has reserved, which covers ids still waiting
+     * in a pre-fetched block. Safe to call from any thread.
+     */
+    @Override
+    public Long lastIssuedId() {
+        Long highest = null;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            long state = stripes.get(stripe * PAD + STATE);
+            if (state != 0 && (highest == null || toId(state, stripe) > highest)) {
+                highest = toId(state, stripe);
+            }
+        }
+        return highest;
+    }
+
+    // reserves count consecutive states on a stripe and returns the first
+    private long reserve(int stripe, int count) {
+        int slot = stripe * PAD;
+        long now = timeProvider.currentTimeMillis();
+        long highestClock = stripes.get(slot + HIGHEST_CLOCK);
+        if (now > highestClock) {
+            stripes.accumulateAndGet(slot + HIGHEST_CLOCK, now, Math::max);
+            highestClock = now;
+        }
+        while (true) {
+            long current = stripes.get(slot + STATE);
+            long first = Math.max(current + 1, now << SEQUENCE_BITS);
+            long last = first + count - 1;
+            // measured against the highest clock reading, so a clock stepping back never waits
+            if ((last >>> SEQUENCE_BITS) - highestClock > maxDriftMillis) {
+                Thread.onSpinWait();
+                now = timeProvider.currentTimeMillis();
+                highestClock = Math.max(highestClock, now);
+                continue;
+            }
+            if (stripes.compareAndSet(slot + STATE, current, last)) {
+                return first;
+            }
+        }
+    }
+
+    private long toId(long state, int stripe) {
+        long timestamp = state >>> SEQUENCE_BITS;
+        long worker = workerId << stripeBits | stripe;
+        return timestamp << (WORKER_BITS + SEQUENCE_BITS) | worker << SEQUENCE_BITS | (state & MAX_SEQUENCE);
+    }
+}
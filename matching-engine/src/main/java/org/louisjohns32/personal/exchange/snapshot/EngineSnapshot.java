@@ -0,0 +1,13 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import java.util.List;
+
+/**
+ * Every book's snapshot from one snapshot run.
+ *
+ * @param replayFrom  journal position recovery replays from; books are
+ *                    created and copied at or after it
+ * @param lastOrderId an id at least as high as any issued before the run, 0 if the generator can't tell
+ */
+public record EngineSnapshot(long replayFrom, long lastOrderId, List<OrderBookSnapshot> books) {
+}
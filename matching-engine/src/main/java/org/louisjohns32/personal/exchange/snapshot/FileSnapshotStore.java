@@ -0,0 +1,200 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes snapshots as binary files named by their replay position, keeping
+ * the newest few. A file is written under a temporary name, fsynced and
+ * renamed into place, and carries a CRC32C trailer, so a crash mid-write
+ * leaves the previous snapshot to recover from.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "exchange.snapshot.enabled", havingValue = "true")
+public class FileSnapshotStore implements SnapshotStore {
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    // version 2 added each order's account; version 1 files are still read, with no accounts
+    private static final int VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int retain;
+
+    public FileSnapshotStore(
+            @Value("${exchange.snapshot.dir:data/snapshots}") String directory,
+            @Value("${exchange.snapshot.retain:2}") int retain) {
+        if (retain < 1) {
+            throw new IllegalArgumentException("Must retain at least one snapshot, got: " + retain);
+        }
+        this.directory = Path.of(directory);
+        this.retain = retain;
+    }
+
+    @Override
+    public void write(EngineSnapshot snapshot) {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.replayFrom(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32C());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+                writeSnapshot(snapshot, out);
+                out.flush();
+                new DataOutputStream(file).writeInt((int) checked.getChecksum().getValue());
+                file.getFD().sync();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            List<Path> snapshots = listSnapshots();
+            for (int i = retain; i < snapshots.size(); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + target, e);
+        }
+    }
+
+    @Override
+    public EngineSnapshot loadLatest() {
+        try {
+            if (!Files.isDirectory(directory)) return null;
+            for (Path path : listSnapshots()) {
+                try {
+                    return read(path);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Skipping unreadable snapshot {}: {}", path, e.getMessage());
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list snapshots in " + directory, e);
+        }
+    }
+
+    @Override
+    public long earliestReplayPosition() {
+        try {
+            if (!Files.isDirectory(directory)) return 0;
+            List<Path> snapshots = listSnapshots();
+            return snapshots.isEmpty() ? 0 : replayPositionOf(snapshots.getLast());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list snapshots in " + directory, e);
+        }
+    }
+
+    private static void writeSnapshot(EngineSnapshot snapshot, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(snapshot.replayFrom());
+        out.writeLong(snapshot.lastOrderId());
+        out.writeInt(snapshot.books().size());
+        for (OrderBookSnapshot book : snapshot.books()) {
+            byte[] symbol = book.symbol().getBytes(StandardCharsets.US_ASCII);
+            out.writeShort(symbol.length);
+            out.write(symbol);
+            out.writeByte(book.type().ordinal());
+            out.writeLong(book.journalPosition());
+            out.writeLong(book.nextSequence());
+            out.writeInt(book.orderCount());
+            for (int i = 0; i < book.orderCount(); i++) {
+                out.writeLong(book.orderIds()[i]);
+                out.writeByte(book.sides()[i]);
+                out.writeLong(book.prices()[i]);
+                out.writeLong(book.quantities()[i]);
+                out.writeLong(book.filledQuantities()[i]);
+                out.writeLong(book.accountIds()[i]);
+            }
+        }
+    }
+
+    private static EngineSnapshot read(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 4) {
+            throw new IOException("Truncated snapshot");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if ((int) crc.getValue() != buffer.getInt(bytes.length - 4)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        long replayFrom = buffer.getLong();
+        long lastOrderId = buffer.getLong();
+        int bookCount = buffer.getInt();
+        List<OrderBookSnapshot> books = new ArrayList<>(bookCount);
+        for (int b = 0; b < bookCount; b++) {
+            byte[] symbol = new byte[buffer.getShort()];
+            buffer.get(symbol);
+            OrderBookType type = OrderBookType.values()[buffer.get()];
+            long journalPosition = buffer.getLong();
+            long nextSequence = buffer.getLong();
+            int count = buffer.getInt();
+            long[] ids = new long[count];
+            byte[] sides = new byte[count];
+            long[] prices = new long[count];
+            long[] quantities = new long[count];
+            long[] filled = new long[count];
+            long[] accounts = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = buffer.getLong();
+                sides[i] = buffer.get();
+                prices[i] = buffer.getLong();
+                quantities[i] = buffer.getLong();
+                filled[i] = buffer.getLong();
+                if (version >= 2) {
+                    accounts[i] = buffer.getLong();
+                }
+            }
+            books.add(new OrderBookSnapshot(new String(symbol, StandardCharsets.US_ASCII), type,
+                    journalPosition, nextSequence, ids, sides, prices, quantities, filled, accounts));
+        }
+        return new EngineSnapshot(replayFrom, lastOrderId, books);
+    }
+
+    // newest first; names sort by replay position
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    private static long replayPositionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
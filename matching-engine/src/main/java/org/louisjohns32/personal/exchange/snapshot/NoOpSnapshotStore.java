@@ -0,0 +1,23 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "exchange.snapshot.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpSnapshotStore implements SnapshotStore {
+
+    @Override
+    public void write(EngineSnapshot snapshot) {
+    }
+
+    @Override
+    public EngineSnapshot loadLatest() {
+        return null;
+    }
+
+    @Override
+    public long earliestReplayPosition() {
+        return 0;
+    }
+}
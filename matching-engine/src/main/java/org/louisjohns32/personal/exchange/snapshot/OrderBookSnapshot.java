@@ -0,0 +1,71 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+
+import java.util.function.Consumer;
+
+/**
+ * Copy of one book's resting orders, held column-wise in primitive arrays so
+ * taking it on the matching thread is a single tight pass with no per-order
+ * allocation. Orders are in {@link OrderBook#forEachOrder} order, so adding
+ * them back rebuilds the same levels and time priority.
+ *
+ * @param journalPosition journal position the copy was taken at; later commands are replayed on top
+ * @param nextSequence    the book's next event sequence number
+ */
+public record OrderBookSnapshot(
+        String symbol,
+        OrderBookType type,
+        long journalPosition,
+        long nextSequence,
+        long[] orderIds,
+        byte[] sides,
+        long[] prices,
+        long[] quantities,
+        long[] filledQuantities,
+        long[] accountIds) {
+
+    public static OrderBookSnapshot capture(OrderBook orderBook, long journalPosition, long nextSequence) {
+        int count = orderBook.getOrderCount();
+        OrderBookSnapshot snapshot = new OrderBookSnapshot(orderBook.getSymbol(), orderBook.getType(),
+                journalPosition, nextSequence,
+                new long[count], new byte[count], new long[count], new long[count], new long[count], new long[count]);
+        orderBook.forEachOrder(snapshot.new Copier());
+        return snapshot;
+    }
+
+    public int orderCount() {
+        return orderIds.length;
+    }
+
+    public Order order(int index) {
+        Order order = Order.fromScaled(symbol, Side.values()[sides[index]], quantities[index], prices[index]);
+        order.setId(orderIds[index]);
+        order.setScaledFilledQuantity(filledQuantities[index]);
+        order.setAccountId(accountIds[index]);
+        if (filledQuantities[index] > 0) {
+            order.setStatus(OrderStatus.PARTIAL);
+        }
+        return order;
+    }
+
+    private class Copier implements Consumer<Order> {
+
+        private int index;
+
+        @Override
+        public void accept(Order order) {
+            orderIds[index] = order.getId();
+            sides[index] = (byte) order.getSide().ordinal();
+            prices[index] = order.getScaledPrice();
+            quantities[index] = order.getScaledQuantity();
+            filledQuantities[index] = order.getScaledFilledQuantity();
+            accountIds[index] = order.getAccountId();
+            index++;
+        }
+    }
+}
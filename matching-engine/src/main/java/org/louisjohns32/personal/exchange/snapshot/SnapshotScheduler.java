@@ -0,0 +1,90 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.louisjohns32.personal.exchange.pipeline.CommandJournal;
+import org.louisjohns32.personal.exchange.services.ShardedOrderBookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically snapshots every book and drops the journal segments the
+ * retained snapshots no longer need, so restart time is bounded by the
+ * snapshot interval rather than the age of the journal.
+ * Snapshots are taken through the command pipeline, so this needs sharding
+ * enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "exchange.snapshot.enabled", havingValue = "true")
+public class SnapshotScheduler {
+
+    private final ShardedOrderBookService orderBookService;
+    private final SnapshotStore store;
+    private final CommandJournal journal;
+    private final long intervalSeconds;
+    private ScheduledExecutorService executor;
+
+    public SnapshotScheduler(
+            ShardedOrderBookService orderBookService,
+            SnapshotStore store,
+            CommandJournal journal,
+            @Value("${exchange.snapshot.interval-seconds:60}") long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive, got: " + intervalSeconds);
+        }
+        this.orderBookService = orderBookService;
+        this.store = store;
+        this.journal = journal;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::snapshotSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes a snapshot, writes it and truncates the journal behind the oldest
+     * retained snapshot.
+     */
+    public void snapshot() {
+        long start = System.nanoTime();
+        EngineSnapshot snapshot = orderBookService.takeSnapshot();
+        long taken = System.nanoTime();
+        store.write(snapshot);
+        journal.truncateBefore(store.earliestReplayPosition());
+        log.info("Snapshot of {} books ({} orders) taken in {} ms, written in {} ms",
+                snapshot.books().size(),
+                snapshot.books().stream().mapToInt(OrderBookSnapshot::orderCount).sum(),
+                TimeUnit.NANOSECONDS.toMillis(taken - start),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - taken));
+    }
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            // keep the schedule; the journal still covers everything since the last good snapshot
+            log.error("Snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+/**
+ * Where engine snapshots are kept between restarts.
+ */
+public interface SnapshotStore {
+
+    void write(EngineSnapshot snapshot);
+
+    /**
+     * The newest readable snapshot, or null if there is none.
+     */
+    EngineSnapshot loadLatest();
+
+    /**
+     * The earliest journal position any retained snapshot still needs to
+     * replay from; the journal may drop everything before it.
+     */
+    long earliestReplayPosition();
+}
@@ -0,0 +1,55 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistryImpl;
+import org.louisjohns32.personal.exchange.services.OrderBookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBookServiceImpl#getAggregatedOrderBook} over a book with the given
+ * number of levels per side, three orders per level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregatedOrderBookBenchmark {
+
+    private static final String SYMBOL = "BENCH";
+
+    @Param({"10", "1000", "100000"})
+    public int levels;
+
+    @Param({"SKIP_LIST", "PRICE_LADDER"})
+    public OrderBookType type;
+
+    private OrderBookServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderBookRegistryImpl registry = new OrderBookRegistryImpl();
+        registry.createOrderBook(SYMBOL, type);
+        OrderBook orderBook = registry.getOrderBook(SYMBOL);
+        long id = 0;
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i < 3; i++) {
+                orderBook.addOrder(new Order(id++, SYMBOL, Side.BUY, 1.0, 1000.0 - level / 100.0));
+                orderBook.addOrder(new Order(id++, SYMBOL, Side.SELL, 1.0, 1000.01 + level / 100.0));
+            }
+        }
+        service = Benchmarks.orderBookService(registry);
+    }
+
+    @Benchmark
+    public OrderBookDTO getAggregatedOrderBook() {
+        return service.getAggregatedOrderBook(SYMBOL);
+    }
+}
@@ -0,0 +1,42 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.services.EventPublisher;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistry;
+import org.louisjohns32.personal.exchange.services.OrderBookServiceImpl;
+import org.louisjohns32.personal.exchange.services.OrderIndex;
+import org.louisjohns32.personal.exchange.services.SequenceNumberGenerator;
+import org.louisjohns32.personal.exchange.services.SnowflakeIdGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Wiring shared by the benchmarks, standing in for the Spring context.
+ */
+final class Benchmarks {
+
+    static final EventPublisher NO_OP_PUBLISHER = new EventPublisher() {
+        @Override
+        public void publish(OrderEvent event) {
+        }
+
+        @Override
+        public void publishBatch(List<OrderEvent> events) {
+        }
+    };
+
+
+    private Benchmarks() {
+    }
+
+    static OrderBookServiceImpl orderBookService(OrderBookRegistry registry) {
+        OrderBookServiceImpl service = new OrderBookServiceImpl();
+        ReflectionTestUtils.setField(service, "registry", registry);
+        ReflectionTestUtils.setField(service, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(service, "publisher", NO_OP_PUBLISHER);
+        ReflectionTestUtils.setField(service, "sequenceGenerator", new SequenceNumberGenerator());
+        ReflectionTestUtils.setField(service, "orderIndex", new OrderIndex());
+        return service;
+    }
+}
@@ -0,0 +1,57 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.louisjohns32.personal.exchange.events.EventListSink;
+import org.louisjohns32.personal.exchange.events.EventSink;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistryImpl;
+import org.louisjohns32.personal.exchange.services.OrderBookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One resting sell and one buy that fills it, producing four events, written
+ * either as {@link OrderEvent} objects or into a reused {@link EncodedEvents}
+ * as the pipeline does. Compare gc.alloc.rate.norm between the two.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventPathBenchmark {
+
+    @Param({"OBJECTS", "ENCODED"})
+    public String sink;
+
+    private OrderBookServiceImpl service;
+    private OrderBook orderBook;
+    private final Order ask = new Order("BENCH", Side.SELL, 1.0, 100.0);
+    private final Order bid = new Order("BENCH", Side.BUY, 1.0, 100.0);
+    private final EncodedEvents encoded = new EncodedEvents();
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Benchmarks.orderBookService(new OrderBookRegistryImpl());
+        orderBook = new OrderBook("BENCH", InstrumentSpec.DEFAULT, OrderBookType.PRICE_LADDER);
+    }
+
+    @Benchmark
+    public int restAndFill() {
+        EventSink events = sink.equals("ENCODED") ? encoded : new EventListSink(new ArrayList<>());
+        service.createOrder(orderBook, ask, ++nextId, events);
+        service.createOrder(orderBook, bid, ++nextId, events);
+        int size = events instanceof EncodedEvents e ? e.size() : ((EventListSink) events).events().size();
+        encoded.clear();
+        return size;
+    }
+}
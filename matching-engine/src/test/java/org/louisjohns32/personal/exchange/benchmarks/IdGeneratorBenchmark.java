@@ -0,0 +1,80 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.services.SequenceNumberGenerator;
+import org.louisjohns32.personal.exchange.services.SnowflakeIdGenerator;
+import org.louisjohns32.personal.exchange.services.StripedSnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order ID generation, synchronized and striped, uncontended and with four
+ * threads sharing one generator, and sequence numbers, which are only drawn
+ * by a book's own matching thread. The striped generator runs with its
+ * production settings: 16 stripes and 64-id blocks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator idGenerator;
+    private StripedSnowflakeIdGenerator stripedGenerator;
+    private SequenceNumberGenerator sequenceGenerator;
+    private OrderBook book;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idGenerator = new SnowflakeIdGenerator(1);
+        stripedGenerator = new StripedSnowflakeIdGenerator(1, 4, 1000, 64);
+        sequenceGenerator = new SequenceNumberGenerator();
+        book = new OrderBook("BENCH");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long snowflakeNextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long snowflakeNextIdContended() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long stripedNextId() {
+        return stripedGenerator.nextId(0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long stripedNextIdContended() {
+        return stripedGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long stripedNextIdPerShard(Shard shard) {
+        return stripedGenerator.nextId(shard.index);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long sequenceNumber() {
+        return sequenceGenerator.getSequenceNumber(book);
+    }
+
+    @State(Scope.Thread)
+    public static class Shard {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        final int index = NEXT.getAndIncrement();
+    }
+}
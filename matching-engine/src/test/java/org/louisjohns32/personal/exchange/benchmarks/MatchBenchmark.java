@@ -0,0 +1,64 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.entities.Trade;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistryImpl;
+import org.louisjohns32.personal.exchange.services.OrderBookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBookServiceImpl#match} for an aggressive buy that sweeps the given
+ * number of ask levels, each holding {@code ordersPerLevel} resting orders.
+ * The book is rebuilt before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int levels;
+
+    @Param({"1", "10"})
+    public int ordersPerLevel;
+
+    @Param({"SKIP_LIST", "PRICE_LADDER"})
+    public OrderBookType type;
+
+    private OrderBookServiceImpl service;
+    private OrderBook orderBook;
+    private Order aggressor;
+
+    @Setup(Level.Trial)
+    public void setUpService() {
+        service = Benchmarks.orderBookService(new OrderBookRegistryImpl());
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpBook() {
+        orderBook = new OrderBook("BENCH", InstrumentSpec.DEFAULT, type);
+        long id = 0;
+        for (int level = 0; level < levels; level++) {
+            double price = 100.0 + level / 100.0;
+            for (int i = 0; i < ordersPerLevel; i++) {
+                orderBook.addOrder(new Order(id++, "BENCH", Side.SELL, 1.0, price));
+            }
+        }
+        aggressor = new Order(id, "BENCH", Side.BUY, (double) levels * ordersPerLevel, 100.0 + levels / 100.0);
+    }
+
+    @Benchmark
+    public List<Trade> match() {
+        return service.match(orderBook, aggressor);
+    }
+}
@@ -0,0 +1,54 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBook#addOrder} into a fresh book, spreading orders over a band of
+ * price levels, for each level storage type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    @Param({"SKIP_LIST", "PRICE_LADDER"})
+    public OrderBookType type;
+
+    @Param({"10", "1000"})
+    public int priceLevels;
+
+    private Order[] orders;
+    private OrderBook orderBook;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        orderBook = new OrderBook("BENCH", InstrumentSpec.DEFAULT, type);
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            double price = 100.0 + (i % priceLevels) / 100.0;
+            orders[i] = new Order((long) i, "BENCH", Side.BUY, 1.0, price);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void addOrder(Blackhole blackhole) {
+        for (Order order : orders) {
+            orderBook.addOrder(order);
+        }
+        blackhole.consume(orderBook.getHighestBidLevel());
+    }
+}
@@ -0,0 +1,51 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBookLevel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancelling the most recent order from a level of the given queue depth,
+ * then re-appending it so the depth stays constant. Compares the linear
+ * {@link OrderBookLevel#removeOrderById} with the O(1) {@link OrderBookLevel#removeOrder}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookLevelBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int depth;
+
+    private OrderBookLevel level;
+    private Order last;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        level = new OrderBookLevel(100.0, Side.BUY);
+        for (int i = 0; i < depth; i++) {
+            last = new Order((long) i, "BENCH", Side.BUY, 1.0, 100.0);
+            level.addOrder(last);
+        }
+    }
+
+    @Benchmark
+    public OrderBookLevel removeOrderById() {
+        level.removeOrderById(last.getId());
+        level.addOrder(last);
+        return level;
+    }
+
+    @Benchmark
+    public OrderBookLevel removeOrder() {
+        level.removeOrder(last);
+        level.addOrder(last);
+        return level;
+    }
+}
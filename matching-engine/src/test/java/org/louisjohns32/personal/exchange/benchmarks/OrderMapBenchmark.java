@@ -0,0 +1,76 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.collections.LongObjectHashMap;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexing resting orders by id: the order book's primitive-keyed map against
+ * the {@code ConcurrentHashMap<Long, Order>} it replaced. Each fill indexes
+ * {@value #ORDERS} snowflake-sized ids into a map pre-sized for them, so
+ * nothing it allocates is garbage and gc.alloc.rate.norm divided by
+ * {@value #ORDERS} is the index's memory per resting order, the orders
+ * themselves excluded. Lookups run against a map holding every order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderMapBenchmark {
+
+    private static final int ORDERS = 1 << 18;
+
+    private long[] ids;
+    private Order[] orders;
+    private ConcurrentHashMap<Long, Order> concurrentMap;
+    private LongObjectHashMap<Order> primitiveMap;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = new long[ORDERS];
+        orders = new Order[ORDERS];
+        // ids as a snowflake generator issues them: a timestamp in the high bits, a counter in the low ones
+        long base = System.currentTimeMillis() << 22;
+        for (int i = 0; i < ORDERS; i++) {
+            ids[i] = base + ((long) (i / 4096) << 22) + i % 4096;
+            orders[i] = new Order(ids[i], "BENCH", Side.BUY, 1.0, 100.0);
+        }
+        concurrentMap = fillConcurrentHashMap();
+        primitiveMap = fillLongObjectHashMap();
+    }
+
+    @Benchmark
+    public ConcurrentHashMap<Long, Order> fillConcurrentHashMap() {
+        ConcurrentHashMap<Long, Order> map = new ConcurrentHashMap<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            map.put(ids[i], orders[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public LongObjectHashMap<Order> fillLongObjectHashMap() {
+        LongObjectHashMap<Order> map = new LongObjectHashMap<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            map.put(ids[i], orders[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Order getConcurrentHashMap() {
+        return concurrentMap.get(ids[next++ & (ORDERS - 1)]);
+    }
+
+    @Benchmark
+    public Order getLongObjectHashMap() {
+        return primitiveMap.get(ids[next++ & (ORDERS - 1)]);
+    }
+}
@@ -0,0 +1,129 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.louisjohns32.personal.exchange.exceptions.RiskLimitExceededException;
+import org.louisjohns32.personal.exchange.risk.RiskEngine;
+import org.louisjohns32.personal.exchange.risk.RiskLimits;
+import org.louisjohns32.personal.exchange.services.TimeProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a pre-trade risk check across 1024 accounts and 8 symbols, with
+ * every limit configured: an accepted order released again, an accepted
+ * order fully filled by a trade fed back from matching, and a rejection.
+ * <p>
+ * The {@code contended} group runs the check and release on one thread while
+ * a second thread applies matching results for other resting orders, as the
+ * journal and publish stages do, so both take the engine's monitor at once.
+ * Compare its check score with {@code checkAndRelease} for the cost of that
+ * contention; it only means anything with a core per thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskCheckBenchmark {
+
+    private static final int ORDERS = 1024;
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "TSLA", "META", "NVDA", "NFLX"};
+    private static final long REJECTED_ACCOUNT = ORDERS + 1;
+
+    private RiskEngine riskEngine;
+    private Order[] orders;
+    private EncodedEvents[] fills;
+    private Order rejected;
+    private EncodedEvents[] amends;
+    private int next;
+    private int nextApplied;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RiskLimits limits = new RiskLimits(FixedPoint.toScaled(1_000_000_000), FixedPoint.toScaled(1_000_000), 1_000_000_000);
+        RiskLimits tight = new RiskLimits(FixedPoint.toScaled(1), 0, 0);
+        riskEngine = new RiskEngine(true, accountId -> accountId == REJECTED_ACCOUNT ? tight : limits,
+                TimeProvider.getSystemTimeProvider());
+        orders = new Order[ORDERS];
+        fills = new EncodedEvents[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            Side side = i % 2 == 0 ? Side.BUY : Side.SELL;
+            orders[i] = new Order(SYMBOLS[i % SYMBOLS.length], side, 1.0 + i % 10, 100.0 + i % 50);
+            orders[i].setAccountId(i + 1);
+            long orderId = orderId(i);
+            fills[i] = new EncodedEvents();
+            fills[i].tradeExecuted(i, orders[i].getSymbol(), side == Side.BUY ? orderId : -orderId,
+                    side == Side.SELL ? orderId : -orderId, orders[i].getScaledPrice(), orders[i].getScaledQuantity(),
+                    0, side == Side.BUY ? Side.SELL : Side.BUY);
+        }
+        rejected = new Order("AAPL", Side.BUY, 10.0, 100.0);
+        rejected.setAccountId(REJECTED_ACCOUNT);
+
+        // resting orders the publish-side thread keeps amending to their own terms, so they stay open
+        amends = new EncodedEvents[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            Order resting = new Order(SYMBOLS[i % SYMBOLS.length], orders[i].getSide(), 5.0, 90.0);
+            resting.setAccountId(REJECTED_ACCOUNT + 1 + i);
+            riskEngine.restore(restingOrderId(i), resting);
+            amends[i] = new EncodedEvents();
+            amends[i].orderAmended(i, restingOrderId(i), resting.getSymbol(), resting.getSide(),
+                    resting.getScaledPrice(), resting.getScaledQuantity(), resting.getScaledPrice(),
+                    resting.getScaledQuantity(), resting.getScaledQuantity(), 0);
+        }
+    }
+
+    private static long restingOrderId(int index) {
+        return 2_000_000L + index;
+    }
+
+    private static long orderId(int index) {
+        return 1_000_000L + index;
+    }
+
+    @Benchmark
+    public int checkAndRelease() {
+        int i = next++ & (ORDERS - 1);
+        riskEngine.check(orderId(i), orders[i]);
+        riskEngine.release(orderId(i));
+        return i;
+    }
+
+    @Benchmark
+    public int checkAndFill() {
+        int i = next++ & (ORDERS - 1);
+        riskEngine.check(orderId(i), orders[i]);
+        riskEngine.apply(fills[i]);
+        return i;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int contendedCheckAndRelease() {
+        return checkAndRelease();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int contendedApply() {
+        int i = nextApplied++ & (ORDERS - 1);
+        riskEngine.apply(amends[i]);
+        return i;
+    }
+
+    @Benchmark
+    public Object checkRejected() {
+        try {
+            riskEngine.check(1L, rejected);
+            return null;
+        } catch (RiskLimitExceededException e) {
+            return e;
+        }
+    }
+}
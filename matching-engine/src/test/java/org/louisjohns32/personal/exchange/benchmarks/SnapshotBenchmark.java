@@ -0,0 +1,49 @@
+package org.louisjohns32.personal.exchange.benchmarks;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.snapshot.OrderBookSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBookSnapshot#capture}, which runs on the book's matching thread
+ * and so stalls its shard for as long as it takes. The score is the whole
+ * copy; divide by {@code orders} for the cost per resting order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final int PRICE_LEVELS = 1000;
+
+    @Param({"SKIP_LIST", "PRICE_LADDER"})
+    public OrderBookType type;
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    private OrderBook orderBook;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderBook = new OrderBook("BENCH", InstrumentSpec.DEFAULT, type);
+        for (int i = 0; i < orders; i++) {
+            double price = 100.0 + (i % PRICE_LEVELS) / 100.0;
+            orderBook.addOrder(new Order(i + 1L, "BENCH", Side.BUY, 1.0, price));
+        }
+    }
+
+    @Benchmark
+    public OrderBookSnapshot capture() {
+        return OrderBookSnapshot.capture(orderBook, 0, 0);
+    }
+}
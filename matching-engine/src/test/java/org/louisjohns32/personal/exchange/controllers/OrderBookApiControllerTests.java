@@ -6,15 +6,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.louisjohns32.personal.exchange.assemblers.OrderBookModelAssembler;
 import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.dto.MarketSnapshotDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
 import org.louisjohns32.personal.exchange.dto.OrderBookLevelDTO;
 import org.louisjohns32.personal.exchange.entities.Order;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
 import org.louisjohns32.personal.exchange.exceptions.OrderBookNotFoundException;
+import org.louisjohns32.personal.exchange.exceptions.OrderNotFoundException;
 import org.louisjohns32.personal.exchange.mappers.OrderMapper;
 import org.louisjohns32.personal.exchange.services.IdGenerator;
 import org.louisjohns32.personal.exchange.services.OrderBookService;
 import org.louisjohns32.personal.exchange.services.OrderQueryService;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
@@ -27,11 +32,18 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -71,7 +83,8 @@ public class OrderBookApiControllerTests {
             List.of(
                 new OrderBookLevelDTO(192.2, 51.0),
                 new OrderBookLevelDTO(192.21, 10.0)
-            )
+            ),
+            17L
         );
 
         when(orderBookService.getAggregatedOrderBook(eq(symbol))).thenReturn(mockResponse);
@@ -82,7 +95,8 @@ public class OrderBookApiControllerTests {
             .andExpect(jsonPath("$.bidLevels[0].price").value(192.17))
             .andExpect(jsonPath("$.bidLevels[0].volume").value(6.0))
             .andExpect(jsonPath("$.askLevels[1].price").value(192.21))
-            .andExpect(jsonPath("$.askLevels[1].volume").value(10.0));
+            .andExpect(jsonPath("$.askLevels[1].volume").value(10.0))
+            .andExpect(jsonPath("$.sequenceNumber").value(17));
     }
 	 
 	@Test
@@ -106,6 +120,19 @@ public class OrderBookApiControllerTests {
         mvc.perform(get("/api/orderbook/{symbol}", symbol))
             .andExpect(status().isNotFound());
     }
+
+	@Test
+    public void getMarketSnapshot() throws Exception {
+        OrderBookDTO book = new OrderBookDTO("SYMB", List.of(new OrderBookLevelDTO(192.17, 6.0)), List.of(), 42L);
+        when(orderBookService.getMarketSnapshot()).thenReturn(new MarketSnapshotDTO(1_700_000_000_000L, List.of(book)));
+
+        mvc.perform(get("/api/orderbook"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.timestamp").value(1_700_000_000_000L))
+            .andExpect(jsonPath("$.books[0].symbol").value("SYMB"))
+            .andExpect(jsonPath("$.books[0].sequenceNumber").value(42))
+            .andExpect(jsonPath("$.books[0].bidLevels[0].volume").value(6.0));
+    }
 	
 	@Nested
 	public class CreateOrderTests {
@@ -151,6 +178,93 @@ public class OrderBookApiControllerTests {
 	            .andExpect(status().isBadRequest());
 	    }
 
+	    @Test
+	    public void createMarketOrder_withoutPrice_isAccepted() throws Exception {
+	        String symbol = "SYMB";
+	        Order mockOrder = new Order(1L, symbol, Side.SELL, 10., 0.);
+	        when(orderBookService.createOrder(eq(symbol), any(Order.class))).thenReturn(mockOrder);
+
+	        mvc.perform(post("/api/orders")
+	                .content("{\"quantity\": 10, \"side\": \"SELL\", \"type\": \"MARKET\", \"symbol\": \"" + symbol + "\"}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isCreated());
+
+	        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+	        verify(orderBookService).createOrder(eq(symbol), captor.capture());
+	        assertEquals(OrderType.MARKET, captor.getValue().getType());
+	        assertEquals(0L, captor.getValue().getScaledPrice());
+	    }
+
+	    @Test
+	    public void createOrder_priceMismatchedToType_returnsBadRequest() throws Exception {
+	        mvc.perform(post("/api/orders")
+	                .content("{\"quantity\": 10, \"side\": \"BUY\", \"timeInForce\": \"IOC\", \"symbol\": \"SYMB\"}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isBadRequest());
+	        mvc.perform(post("/api/orders")
+	                .content("{\"quantity\": 10, \"price\": 100, \"side\": \"BUY\", \"type\": \"MARKET\", \"symbol\": \"SYMB\"}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isBadRequest());
+
+	        verify(orderBookService, never()).createOrder(any(String.class), any(Order.class));
+	    }
+
+	}
+	
+	@Nested
+	public class CancelAndAmendOrderTests {
+
+	    @Test
+	    public void cancelOrder_returnsNoContent() throws Exception {
+	        mvc.perform(delete("/api/orders/{id}", 42L))
+	            .andExpect(status().isNoContent());
+
+	        verify(orderBookService).cancelOrder(42L);
+	    }
+
+	    @Test
+	    public void cancelOrder_unknownOrder_returnsNotFound() throws Exception {
+	        doThrow(new OrderNotFoundException(42L)).when(orderBookService).cancelOrder(42L);
+
+	        mvc.perform(delete("/api/orders/{id}", 42L))
+	            .andExpect(status().isNotFound());
+	    }
+
+	    @Test
+	    public void amendOrder_returnsAmendedOrder() throws Exception {
+	        Order amended = new Order(42L, "SYMB", Side.BUY, 4., 101.);
+	        when(orderBookService.amendOrder(eq(42L), isNull(), eq(101.))).thenReturn(amended);
+
+	        mvc.perform(patch("/api/orders/{id}", 42L)
+	                .content("{\"price\": 101}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.id").value(42))
+	            .andExpect(jsonPath("$.price").value(101.0))
+	            .andExpect(jsonPath("$.quantity").value(4.0));
+	    }
+
+	    @Test
+	    public void amendOrder_invalidQuantity_returnsBadRequest() throws Exception {
+	        mvc.perform(patch("/api/orders/{id}", 42L)
+	                .content("{\"quantity\": 0}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isBadRequest());
+
+	        verifyNoInteractions(orderBookService);
+	    }
+
+	    @Test
+	    public void amendOrder_rejectedByService_returnsBadRequest() throws Exception {
+	        when(orderBookService.amendOrder(eq(42L), isNull(), isNull()))
+	            .thenThrow(new InvalidOrderException("An amend must give a new quantity or price"));
+
+	        mvc.perform(patch("/api/orders/{id}", 42L)
+	                .content("{}")
+	                .contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(status().isBadRequest())
+	            .andExpect(jsonPath("$.error").value("An amend must give a new quantity or price"));
+	    }
 	}
 	
 	@Nested
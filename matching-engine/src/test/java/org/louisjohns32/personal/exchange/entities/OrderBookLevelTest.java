@@ -0,0 +1,146 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OrderBookLevelTest {
+
+    private static final String SYMBOL = "SYMBOL";
+
+    private OrderBookLevel level;
+    private Order first;
+    private Order middle;
+    private Order last;
+
+    @BeforeEach
+    public void setup() {
+        level = new OrderBookLevel(10.0, Side.BUY);
+        first = new Order(1L, SYMBOL, Side.BUY, 1.0, 10.0);
+        middle = new Order(2L, SYMBOL, Side.BUY, 2.0, 10.0);
+        last = new Order(3L, SYMBOL, Side.BUY, 3.0, 10.0);
+        level.addOrder(first);
+        level.addOrder(middle);
+        level.addOrder(last);
+    }
+
+    @Test
+    public void ordersAreKeptInArrivalOrder() {
+        assertThat(level.getOrder()).isEqualTo(first);
+        assertThat(level.getOrders()).containsExactly(first, middle, last);
+        assertThat(level.getOrderCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void removeMiddleOrderKeepsNeighboursLinked() {
+        level.removeOrder(middle);
+
+        assertThat(level.getOrders()).containsExactly(first, last);
+        assertThat(level.contains(middle)).isFalse();
+        assertThat(level.getOrderCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void removeHeadPromotesNextOrder() {
+        level.removeOrder(first);
+
+        assertThat(level.getOrder()).isEqualTo(middle);
+    }
+
+    @Test
+    public void removeTailThenAppendKeepsFifo() {
+        level.removeOrder(last);
+        Order next = new Order(4L, SYMBOL, Side.BUY, 1.0, 10.0);
+        level.addOrder(next);
+
+        assertThat(level.getOrders()).containsExactly(first, middle, next);
+    }
+
+    @Test
+    public void removeAllOrdersEmptiesLevel() {
+        level.removeOrder(middle);
+        level.removeOrderById(1L);
+        level.removeOrder(last);
+
+        assertThat(level.isEmpty()).isTrue();
+        assertThat(level.getOrders()).isEmpty();
+        assertThatThrownBy(level::getOrder).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void removedOrderCanRestAgain() {
+        level.removeOrder(first);
+        level.addOrder(first);
+
+        assertThat(level.getOrders()).containsExactly(middle, last, first);
+    }
+
+    @Test
+    public void addingRestingOrderTwiceIsRejected() {
+        assertThatThrownBy(() -> level.addOrder(middle)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void removingOrderFromOtherLevelIsRejected() {
+        Order other = new Order(9L, SYMBOL, Side.BUY, 1.0, 11.0);
+
+        assertThatThrownBy(() -> level.removeOrder(other)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(level.getOrderCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void volumeTracksAddFillAndRemove() {
+        assertThat(level.getVolume()).isEqualTo(6.0);
+
+        middle.fill(0.5);
+        assertThat(level.getVolume()).isEqualTo(5.5);
+
+        level.removeOrder(middle);
+        assertThat(level.getVolume()).isEqualTo(4.0);
+        assertThat(level.getOrderCount()).isEqualTo(2);
+
+        level.removeOrder(first);
+        level.removeOrder(last);
+        assertThat(level.getVolume()).isZero();
+    }
+
+    @Test
+    public void fillAfterRemovalDoesNotTouchLevel() {
+        level.removeOrder(last);
+        last.fill(1.0);
+
+        assertThat(level.getVolume()).isEqualTo(3.0);
+    }
+
+    @Test
+    public void readdedPartiallyFilledOrderCountsRemainingOnly() {
+        level.removeOrder(last);
+        last.fill(1.0);
+        level.addOrder(last);
+
+        assertThat(level.getVolume()).isEqualTo(5.0);
+        level.checkConsistency();
+    }
+
+    @Test
+    public void consistencyCheckDetectsStaleCache() {
+        boolean previous = OrderBookLevel.isConsistencyChecks();
+        OrderBookLevel.setConsistencyChecks(false);
+        try {
+            // Mutating a resting order behind the level's back leaves the cache stale
+            first.setQuantity(10.0);
+
+            assertThat(level.getVolume()).isEqualTo(6.0);
+            assertThat(level.recomputeVolume()).isEqualTo(FixedPoint.toScaled(15.0));
+            assertThatThrownBy(level::checkConsistency).isInstanceOf(IllegalStateException.class);
+        } finally {
+            OrderBookLevel.setConsistencyChecks(previous);
+        }
+    }
+}
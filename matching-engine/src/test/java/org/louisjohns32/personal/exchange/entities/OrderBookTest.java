@@ -3,6 +3,9 @@ package org.louisjohns32.personal.exchange.entities;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -116,5 +119,49 @@ public class OrderBookTest {
         public void getOrderByIdReturnsNullForNonExistentOrder() {
             assertThat(orderBook.getOrderById(99)).isNull();
         }
+
+        @Test
+        public void lookupsSurviveGrowingPastExpectedOrdersAndChurn() {
+            OrderBook small = new OrderBook(SYMBOL, InstrumentSpec.DEFAULT, OrderBookType.SKIP_LIST,
+                    OrderBook.DEFAULT_LADDER_LEVELS, 4);
+            for (long id = 1; id <= 1000; id++) {
+                small.addOrder(new Order(id, SYMBOL, id % 2 == 0 ? Side.BUY : Side.SELL, 1.0, id % 2 == 0 ? 10.0 : 20.0));
+            }
+            for (long id = 1; id <= 1000; id += 3) {
+                small.removeOrder(small.getOrderById(id));
+            }
+
+            assertThat(small.getOrderCount()).isEqualTo(666);
+            for (long id = 1; id <= 1000; id++) {
+                assertThat(small.getOrderById(id) != null).isEqualTo(id % 3 != 1);
+            }
+        }
+    }
+
+    @Nested
+    public class FillableQuantityTests {
+
+        @ParameterizedTest
+        @EnumSource(OrderBookType.class)
+        public void sumsOpposingLevelsFromTheBestUpToThePrice(OrderBookType type) {
+            OrderBook book = new OrderBook(SYMBOL, InstrumentSpec.DEFAULT, type);
+            book.addOrder(new Order(1L, SYMBOL, Side.SELL, 2.0, 100.0));
+            book.addOrder(new Order(2L, SYMBOL, Side.SELL, 3.0, 101.0));
+            book.addOrder(new Order(3L, SYMBOL, Side.SELL, 4.0, 103.0));
+            book.addOrder(new Order(4L, SYMBOL, Side.BUY, 5.0, 99.0));
+            book.addOrder(new Order(5L, SYMBOL, Side.BUY, 1.0, 98.0));
+
+            assertThat(book.fillableQuantity(Side.BUY, scaled(99.0), scaled(100))).isZero();
+            assertThat(book.fillableQuantity(Side.BUY, scaled(102.0), scaled(100))).isEqualTo(scaled(5.0));
+            assertThat(book.fillableQuantity(Side.BUY, Long.MAX_VALUE, scaled(100))).isEqualTo(scaled(9.0));
+            assertThat(book.fillableQuantity(Side.SELL, scaled(98.0), scaled(100))).isEqualTo(scaled(6.0));
+            assertThat(book.fillableQuantity(Side.SELL, 0, scaled(100))).isEqualTo(scaled(6.0));
+            // counting stops at the level that reaches the wanted quantity
+            assertThat(book.fillableQuantity(Side.BUY, Long.MAX_VALUE, scaled(4.0))).isEqualTo(scaled(5.0));
+        }
+
+        private static long scaled(double value) {
+            return FixedPoint.toScaled(value);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OrderTest {
+
+    private static final String SYMBOL = "SYMBOL";
+
+    @Test
+    public void fractionalFillsAreExact() {
+        Order order = new Order(1L, SYMBOL, Side.BUY, 0.3, 10.0);
+
+        order.fill(0.1);
+        order.fill(0.2);
+
+        assertThat(order.isFilled()).isTrue();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(order.getRemainingQuantity()).isZero();
+    }
+
+    @Test
+    public void doubleAccessorsRoundTripScaledValues() {
+        Order order = new Order(1L, SYMBOL, Side.SELL, 2.5, 192.17);
+
+        assertThat(order.getScaledPrice()).isEqualTo(19_217_000_000L);
+        assertThat(order.getPrice()).isEqualTo(192.17);
+        assertThat(order.getScaledQuantity()).isEqualTo(2 * FixedPoint.SCALE + FixedPoint.SCALE / 2);
+        assertThat(order.getQuantity()).isEqualTo(2.5);
+    }
+
+    @Test
+    public void partialFillUpdatesStatusAndRemaining() {
+        Order order = new Order(1L, SYMBOL, Side.BUY, 5.0, 10.0);
+
+        order.fillScaled(FixedPoint.toScaled(2.0));
+
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PARTIAL);
+        assertThat(order.getScaledRemainingQuantity()).isEqualTo(FixedPoint.toScaled(3.0));
+    }
+
+    @Test
+    public void overfillIsRejected() {
+        Order order = new Order(1L, SYMBOL, Side.BUY, 1.0, 10.0);
+
+        assertThatThrownBy(() -> order.fill(1.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(order.getFilledQuantity()).isZero();
+    }
+
+    @Test
+    public void instrumentSpecChecksTickAndLot() {
+        InstrumentSpec spec = new InstrumentSpec(0.05, 10.0);
+
+        assertThat(spec.isValidPrice(FixedPoint.toScaled(1.15))).isTrue();
+        assertThat(spec.isValidPrice(FixedPoint.toScaled(1.12))).isFalse();
+        assertThat(spec.isValidQuantity(FixedPoint.toScaled(30.0))).isTrue();
+        assertThat(spec.isValidQuantity(FixedPoint.toScaled(35.0))).isFalse();
+        assertThat(spec.isValidQuantity(0)).isFalse();
+    }
+
+    @Test
+    public void instrumentSpecEnforcesPriceBandAndMaxQuantity() {
+        InstrumentSpec spec = new InstrumentSpec(0.01, 1.0, 90.0, 110.0, 500.0);
+
+        spec.validate(new Order("AAPL", Side.BUY, 500.0, 110.0));
+        assertThatThrownBy(() -> spec.validate(new Order("AAPL", Side.BUY, 1.0, 89.99)))
+                .isInstanceOf(InvalidOrderException.class).hasMessageContaining("band");
+        assertThatThrownBy(() -> spec.validate(new Order("AAPL", Side.SELL, 1.0, 110.01)))
+                .isInstanceOf(InvalidOrderException.class).hasMessageContaining("band");
+        assertThatThrownBy(() -> spec.validate(new Order("AAPL", Side.SELL, 501.0, 100.0)))
+                .isInstanceOf(InvalidOrderException.class).hasMessageContaining("maximum");
+        assertThatThrownBy(() -> spec.validate(new Order("AAPL", null, 1.0, 100.0)))
+                .isInstanceOf(InvalidOrderException.class);
+        InstrumentSpec.DEFAULT.validate(new Order("AAPL", Side.BUY, 1_000_000.0, 99_999.99));
+    }
+}
@@ -0,0 +1,130 @@
+package org.louisjohns32.personal.exchange.entities;
+
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PriceLadderTest {
+
+    private static final long TICK = FixedPoint.toScaled(0.01);
+
+    private static long price(double price) {
+        return FixedPoint.toScaled(price);
+    }
+
+    @Test
+    public void bestBidTracksHighestOccupiedLevel() {
+        PriceLadder bids = new PriceLadder(Side.BUY, TICK, 64);
+
+        OrderBookLevel low = bids.getOrCreate(price(10.00));
+        OrderBookLevel high = bids.getOrCreate(price(10.05));
+        bids.getOrCreate(price(10.02));
+
+        assertThat(bids.best()).isSameAs(high);
+        bids.remove(high);
+        assertThat(bids.best().getPrice()).isEqualTo(10.02);
+        assertThat(bids.get(price(10.00))).isSameAs(low);
+    }
+
+    @Test
+    public void bestAskTracksLowestOccupiedLevel() {
+        PriceLadder asks = new PriceLadder(Side.SELL, TICK, 64);
+
+        OrderBookLevel low = asks.getOrCreate(price(10.00));
+        asks.getOrCreate(price(10.05));
+
+        assertThat(asks.best()).isSameAs(low);
+        asks.remove(low);
+        assertThat(asks.best().getPrice()).isEqualTo(10.05);
+        asks.remove(asks.best());
+        assertThat(asks.best()).isNull();
+        assertThat(asks.asMap()).isEmpty();
+    }
+
+    @Test
+    public void getOrCreateReturnsExistingLevel() {
+        PriceLadder bids = new PriceLadder(Side.BUY, TICK, 16);
+
+        assertThat(bids.getOrCreate(price(5.00))).isSameAs(bids.getOrCreate(price(5.00)));
+    }
+
+    @Test
+    public void priceOutsideLadderRecentersAndKeepsLevels() {
+        PriceLadder bids = new PriceLadder(Side.BUY, TICK, 16);
+        OrderBookLevel first = bids.getOrCreate(price(100.00));
+
+        OrderBookLevel drifted = bids.getOrCreate(price(100.12));
+
+        assertThat(bids.getCapacity()).isEqualTo(32);
+        assertThat(bids.get(price(100.00))).isSameAs(first);
+        assertThat(bids.get(price(100.12))).isSameAs(drifted);
+        assertThat(bids.best()).isSameAs(drifted);
+        assertThat(bids.asMap().keySet()).containsExactly(price(100.00), price(100.12));
+    }
+
+    @Test
+    public void emptyLadderRecentersOnNextPrice() {
+        PriceLadder asks = new PriceLadder(Side.SELL, TICK, 16);
+        asks.remove(asks.getOrCreate(price(1.00)));
+
+        asks.getOrCreate(price(500.00));
+
+        assertThat(asks.getCapacity()).isEqualTo(16);
+        assertThat(asks.best().getPrice()).isEqualTo(500.00);
+    }
+
+    @Test
+    public void offTickPriceIsRejected() {
+        PriceLadder bids = new PriceLadder(Side.BUY, TICK, 16);
+
+        assertThatThrownBy(() -> bids.getOrCreate(price(1.005))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rangeWiderThanMaxCapacityIsRejected() {
+        PriceLadder bids = new PriceLadder(Side.BUY, TICK, 16);
+        bids.getOrCreate(price(1.00));
+
+        assertThatThrownBy(() -> bids.getOrCreate(price(1.00) + (long) PriceLadder.MAX_CAPACITY * TICK))
+                .isInstanceOf(InvalidOrderException.class);
+    }
+
+    @Test
+    public void ladderBookMatchesSkipListBookUnderRandomFlow() {
+        OrderBook skipList = new OrderBook("SYM", InstrumentSpec.DEFAULT, OrderBookType.SKIP_LIST);
+        OrderBook ladder = new OrderBook("SYM", InstrumentSpec.DEFAULT, OrderBookType.PRICE_LADDER, 8);
+        Random random = new Random(42);
+        List<Long> resting = new ArrayList<>();
+
+        for (long id = 1; id <= 5_000; id++) {
+            if (!resting.isEmpty() && random.nextInt(3) == 0) {
+                long cancelId = resting.remove(random.nextInt(resting.size()));
+                skipList.removeOrder(skipList.getOrderById(cancelId));
+                ladder.removeOrder(ladder.getOrderById(cancelId));
+            } else {
+                Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                double px = 100.0 + random.nextInt(400) / 100.0 + (id / 1_000) * 5.0;
+                skipList.addOrder(new Order(id, "SYM", side, 1.0, px));
+                ladder.addOrder(new Order(id, "SYM", side, 1.0, px));
+                resting.add(id);
+            }
+
+            assertThat(priceOf(ladder.getHighestBidLevel())).isEqualTo(priceOf(skipList.getHighestBidLevel()));
+            assertThat(priceOf(ladder.getLowestAskLevel())).isEqualTo(priceOf(skipList.getLowestAskLevel()));
+        }
+        assertThat(ladder.getBidLevels().keySet()).containsExactlyElementsOf(skipList.getBidLevels().keySet());
+        assertThat(ladder.getAskLevels().keySet()).containsExactlyElementsOf(skipList.getAskLevels().keySet());
+    }
+
+    private static Long priceOf(OrderBookLevel level) {
+        return level == null ? null : level.getScaledPrice();
+    }
+}
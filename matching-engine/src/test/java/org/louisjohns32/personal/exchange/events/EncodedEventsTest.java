@@ -0,0 +1,60 @@
+package org.louisjohns32.personal.exchange.events;
+
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.codec.OrderEventCodec;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EncodedEventsTest {
+
+    private static void write(EventSink sink, int trades) {
+        sink.orderCreated(1, 10, "AAPL", Side.BUY, FixedPoint.toScaled(5.0), FixedPoint.toScaled(101.0), 1_000);
+        for (int i = 0; i < trades; i++) {
+            sink.tradeExecuted(2 + i, "AAPL", 10, 20 + i, FixedPoint.toScaled(100.0 + i / 100.0),
+                    FixedPoint.toScaled(0.01), 1_001, Side.SELL);
+        }
+        sink.orderRested(2 + trades, 10, "AAPL", Side.BUY, FixedPoint.toScaled(2.0), FixedPoint.toScaled(101.0));
+        sink.orderCancelled(3 + trades, 10, "AAPL", Side.BUY, FixedPoint.toScaled(101.0), FixedPoint.toScaled(2.0), 1_002);
+    }
+
+    @Test
+    public void decodesToTheSameEventsAsTheObjectSink() {
+        EncodedEvents encoded = new EncodedEvents();
+        List<OrderEvent> objects = new ArrayList<>();
+
+        write(encoded, 3);
+        write(new EventListSink(objects), 3);
+
+        assertThat(encoded.size()).isEqualTo(6);
+        assertThat(encoded.symbol()).isEqualTo("AAPL");
+        assertThat(encoded.decode()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(objects);
+    }
+
+    @Test
+    public void growsForLargeSweepsAndIsReusedAfterClear() {
+        EncodedEvents encoded = new EncodedEvents();
+
+        write(encoded, 100);
+        assertThat(encoded.buffer().capacity()).isGreaterThan(EncodedEvents.INITIAL_CAPACITY);
+        int offset = 0;
+        int events = 0;
+        while (offset < encoded.length()) {
+            offset += OrderEventCodec.encodedLength(encoded.buffer(), offset);
+            events++;
+        }
+        assertThat(events).isEqualTo(encoded.size());
+
+        ByteBuffer grown = encoded.buffer();
+        encoded.clear();
+        write(encoded, 1);
+        assertThat(encoded.buffer()).isSameAs(grown);
+        assertThat(encoded.decode()).hasSize(4);
+    }
+}
@@ -0,0 +1,81 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replays a captured {@code order.events} stream, one JSON event per line (as
+ * written by {@code kafka-console-consumer}). Order creations and cancellations
+ * are resent with their original spacing divided by {@code speed}; trades and
+ * rests are skipped since the engine regenerates them. A speed of zero or less
+ * sends everything as fast as the target accepts it.
+ * The captured order ids are used as refs, so cancels hit the re-created orders.
+ */
+class EventReplayFlow implements OrderFlow {
+
+    private final List<LoadAction> actions = new ArrayList<>();
+    private final List<String> symbols;
+    private int position;
+
+    EventReplayFlow(Path file, double speed) {
+        ObjectMapper mapper = new ObjectMapper();
+        Set<String> seen = new LinkedHashSet<>();
+        long firstTimestamp = -1;
+        long lastOffset = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode event = mapper.readTree(line);
+                String type = event.path("type").asText();
+                if (!type.equals("ORDER_CREATED") && !type.equals("ORDER_CANCELLED")) continue;
+
+                long timestamp = event.path("timestamp").asLong();
+                if (firstTimestamp < 0) firstTimestamp = timestamp;
+                // partitions interleave, so keep due times monotonic
+                long offset = speed > 0 ? (long) ((timestamp - firstTimestamp) * 1_000_000L / speed) : 0;
+                lastOffset = Math.max(lastOffset, offset);
+
+                long ref = event.path("orderId").asLong();
+                String symbol = event.path("symbol").asText();
+                seen.add(symbol);
+                if (type.equals("ORDER_CREATED")) {
+                    actions.add(LoadAction.newOrder(lastOffset, ref, symbol,
+                            Side.valueOf(event.path("side").asText()),
+                            event.path("quantity").asDouble(),
+                            event.path("price").asDouble()));
+                } else {
+                    actions.add(LoadAction.cancel(lastOffset, ref, symbol));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read replay file " + file, e);
+        }
+        this.symbols = List.copyOf(seen);
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public LoadAction next() {
+        return position < actions.size() ? actions.get(position++) : null;
+    }
+
+    int size() {
+        return actions.size();
+    }
+}
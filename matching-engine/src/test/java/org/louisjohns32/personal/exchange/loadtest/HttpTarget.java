@@ -0,0 +1,67 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * Sends orders to a running matching engine over its REST API, so latency
+ * includes the web stack and, through nginx, the proxy hop.
+ */
+class HttpTarget implements LoadTarget {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    HttpTarget(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public void createOrderBook(String symbol) {
+        try {
+            // an existing book is rejected, which is fine for a load run
+            post("/api/orderbook", Map.of("symbol", symbol));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create order book " + symbol, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public long createOrder(String symbol, Side side, double quantity, double price) throws Exception {
+        HttpResponse<String> response = post("/api/orders",
+                Map.of("symbol", symbol, "side", side, "quantity", quantity, "price", price));
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Order rejected with " + response.statusCode() + ": " + response.body());
+        }
+        return mapper.readTree(response.body()).path("id").asLong();
+    }
+
+    @Override
+    public void cancelOrder(String symbol, long orderId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders/" + orderId))
+                .DELETE()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 204) {
+            throw new IllegalStateException("Cancel rejected with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private HttpResponse<String> post(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
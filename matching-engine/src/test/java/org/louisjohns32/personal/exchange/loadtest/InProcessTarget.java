@@ -0,0 +1,66 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.pipeline.NoOpCommandJournal;
+import org.louisjohns32.personal.exchange.services.EventPublisher;
+import org.louisjohns32.personal.exchange.services.OrderBookRegistryImpl;
+import org.louisjohns32.personal.exchange.services.OrderBookServiceImpl;
+import org.louisjohns32.personal.exchange.services.OrderIndex;
+import org.louisjohns32.personal.exchange.services.SequenceNumberGenerator;
+import org.louisjohns32.personal.exchange.services.ShardedOrderBookService;
+import org.louisjohns32.personal.exchange.services.SnowflakeIdGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Drives the sharded matching path directly, without HTTP or Kafka, so the
+ * numbers are the engine's own: pipeline hand-off, matching and event building.
+ */
+class InProcessTarget implements LoadTarget {
+
+    private static final EventPublisher NO_OP_PUBLISHER = new EventPublisher() {
+        @Override
+        public void publish(OrderEvent event) {
+        }
+
+        @Override
+        public void publishBatch(List<OrderEvent> events) {
+        }
+    };
+
+    private final ShardedOrderBookService service;
+
+    InProcessTarget(int shards) {
+        OrderBookServiceImpl delegate = new OrderBookServiceImpl();
+        ReflectionTestUtils.setField(delegate, "registry", new OrderBookRegistryImpl());
+        ReflectionTestUtils.setField(delegate, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(delegate, "publisher", NO_OP_PUBLISHER);
+        ReflectionTestUtils.setField(delegate, "sequenceGenerator", new SequenceNumberGenerator());
+        ReflectionTestUtils.setField(delegate, "orderIndex", new OrderIndex());
+        this.service = new ShardedOrderBookService(delegate, NO_OP_PUBLISHER, new NoOpCommandJournal(),
+                shards, 4096, "blocking");
+    }
+
+    @Override
+    public void createOrderBook(String symbol) {
+        service.createOrderBook(symbol);
+    }
+
+    @Override
+    public long createOrder(String symbol, Side side, double quantity, double price) {
+        return service.createOrder(symbol, new Order(symbol, side, quantity, price)).getId();
+    }
+
+    @Override
+    public void cancelOrder(String symbol, long orderId) {
+        service.cancelOrder(orderId);
+    }
+
+    @Override
+    public void close() {
+        service.shutdown();
+    }
+}
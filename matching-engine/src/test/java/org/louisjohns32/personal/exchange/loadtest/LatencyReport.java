@@ -0,0 +1,71 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+
+/**
+ * Result of a load run. Latencies are in nanoseconds and measured from when
+ * each action was due, not when it was sent, so a stalled engine shows up as
+ * latency instead of as fewer samples (coordinated omission).
+ */
+record LatencyReport(
+        Histogram newOrders,
+        Histogram cancels,
+        long rejectedNewOrders,
+        long rejectedCancels,
+        long skippedCancels,
+        long elapsedNanos) {
+
+    long completed() {
+        return newOrders.getTotalCount() + cancels.getTotalCount();
+    }
+
+    double throughput() {
+        return completed() / (elapsedNanos / 1_000_000_000d);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "action", "count", "p50 us", "p90 us", "p99 us", "p99.9 us", "p99.99 us", "max us");
+        printRow(out, "new", newOrders);
+        printRow(out, "cancel", cancels);
+        out.printf("throughput %.0f actions/s over %.1f s (measured only)%n", throughput(), elapsedNanos / 1e9);
+        out.printf("rejected: %d new, %d cancel; skipped %d cancels for unknown orders%n",
+                rejectedNewOrders, rejectedCancels, skippedCancels);
+    }
+
+    /**
+     * Writes both histograms as an HdrHistogram log, for plotting or merging
+     * with other runs.
+     */
+    void write(String file) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            newOrders.setTag("new");
+            cancels.setTag("cancel");
+            writer.outputIntervalHistogram(newOrders);
+            writer.outputIntervalHistogram(cancels);
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                name,
+                histogram.getTotalCount(),
+                micros(histogram.getValueAtPercentile(50)),
+                micros(histogram.getValueAtPercentile(90)),
+                micros(histogram.getValueAtPercentile(99)),
+                micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getValueAtPercentile(99.99)),
+                micros(histogram.getMaxValue()));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000d;
+    }
+}
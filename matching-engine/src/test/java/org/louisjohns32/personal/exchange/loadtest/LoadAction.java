@@ -0,0 +1,26 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+/**
+ * One step of an order flow. {@code ref} is the flow's own order reference:
+ * a cancel names the ref of an earlier new order, and the generator maps it to
+ * the id the engine assigned.
+ *
+ * @param offsetNanos when the action is due, relative to the start of the run
+ */
+record LoadAction(long offsetNanos, Kind kind, long ref, String symbol, Side side, double quantity, double price) {
+
+    enum Kind {
+        NEW,
+        CANCEL
+    }
+
+    static LoadAction newOrder(long offsetNanos, long ref, String symbol, Side side, double quantity, double price) {
+        return new LoadAction(offsetNanos, Kind.NEW, ref, symbol, side, quantity, price);
+    }
+
+    static LoadAction cancel(long offsetNanos, long ref, String symbol) {
+        return new LoadAction(offsetNanos, Kind.CANCEL, ref, symbol, null, 0, 0);
+    }
+}
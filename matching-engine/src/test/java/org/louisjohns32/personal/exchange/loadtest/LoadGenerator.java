@@ -0,0 +1,166 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import ch.qos.logback.classic.Level;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. A dispatcher releases each action of an
+ * {@link OrderFlow} at its due time, whether or not earlier ones have
+ * finished, and worker threads send them to a {@link LoadTarget}. Actions are
+ * partitioned to workers by symbol so a cancel never overtakes its order.
+ * <p>
+ * Run through the {@code loadtest} profile, for example:
+ * <pre>
+ * mvn install -DskipTests
+ * mvn -pl matching-engine -Ploadtest test-compile exec:java -Dload.rate=50000 -Dload.actions=2000000
+ * mvn -pl matching-engine -Ploadtest test-compile exec:java -Dload.target=http -Dload.replay-file=capture.jsonl
+ * </pre>
+ * See {@link LoadSettings} for the {@code -Dload.*} options.
+ */
+public class LoadGenerator {
+
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    private static final Work POISON = new Work(null, false);
+
+    private record Work(LoadAction action, boolean measured) {
+    }
+
+    private final LoadTarget target;
+    private final int workerCount;
+    private final long warmupActions;
+
+    private final Recorder newOrders = new Recorder(3);
+    private final Recorder cancels = new Recorder(3);
+    private final AtomicLong rejectedNewOrders = new AtomicLong();
+    private final AtomicLong rejectedCancels = new AtomicLong();
+    private final AtomicLong skippedCancels = new AtomicLong();
+
+    LoadGenerator(LoadTarget target, int workerCount, long warmupActions) {
+        this.target = target;
+        this.workerCount = workerCount;
+        this.warmupActions = warmupActions;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // per-order info logging from the engine would dominate the measurement
+        if (LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME) instanceof ch.qos.logback.classic.Logger root) {
+            root.setLevel(Level.WARN);
+        }
+
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        OrderFlow flow = settings.isReplay()
+                ? new EventReplayFlow(Path.of(settings.replayFile()), settings.replaySpeed())
+                : new SyntheticOrderFlow(settings);
+        try (LoadTarget target = settings.target().equals("http")
+                ? new HttpTarget(settings.url())
+                : new InProcessTarget(settings.shards())) {
+            LatencyReport report = new LoadGenerator(target, settings.workers(), settings.warmupActions()).run(flow);
+            report.print(System.out);
+            if (!settings.histogramFile().isBlank()) {
+                report.write(settings.histogramFile());
+            }
+        }
+    }
+
+    LatencyReport run(OrderFlow flow) throws InterruptedException {
+        for (String symbol : flow.symbols()) {
+            target.createOrderBook(symbol);
+        }
+
+        @SuppressWarnings("unchecked")
+        BlockingQueue<Work>[] queues = new BlockingQueue[workerCount];
+        Thread[] workers = new Thread[workerCount];
+        long start = System.nanoTime();
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Work> queue = new LinkedBlockingQueue<>();
+            queues[i] = queue;
+            workers[i] = new Thread(() -> work(queue, start), "load-worker-" + i);
+            workers[i].start();
+        }
+
+        long measuredFrom = -1;
+        long dispatched = 0;
+        LoadAction action;
+        while ((action = flow.next()) != null) {
+            long due = start + action.offsetNanos();
+            waitUntil(due);
+            boolean measured = dispatched++ >= warmupActions;
+            if (measured && measuredFrom < 0) measuredFrom = due;
+            queues[Math.floorMod(action.symbol().hashCode(), workerCount)].add(new Work(action, measured));
+        }
+        for (BlockingQueue<Work> queue : queues) {
+            queue.add(POISON);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = measuredFrom < 0 ? 0 : System.nanoTime() - measuredFrom;
+
+        return new LatencyReport(
+                newOrders.getIntervalHistogram(),
+                cancels.getIntervalHistogram(),
+                rejectedNewOrders.get(),
+                rejectedCancels.get(),
+                skippedCancels.get(),
+                elapsed);
+    }
+
+    private void work(BlockingQueue<Work> queue, long start) {
+        // refs only ever come back to the worker that owns their symbol
+        Map<Long, Long> orderIds = new HashMap<>();
+        try {
+            Work work;
+            while ((work = queue.take()) != POISON) {
+                LoadAction action = work.action();
+                long due = start + action.offsetNanos();
+                if (action.kind() == LoadAction.Kind.NEW) {
+                    try {
+                        long orderId = target.createOrder(action.symbol(), action.side(), action.quantity(), action.price());
+                        orderIds.put(action.ref(), orderId);
+                    } catch (Exception e) {
+                        if (work.measured()) rejectedNewOrders.incrementAndGet();
+                        continue;
+                    }
+                    if (work.measured()) newOrders.recordValue(System.nanoTime() - due);
+                } else {
+                    Long orderId = orderIds.remove(action.ref());
+                    if (orderId == null) {
+                        if (work.measured()) skippedCancels.incrementAndGet();
+                        continue;
+                    }
+                    try {
+                        target.cancelOrder(action.symbol(), orderId);
+                    } catch (Exception e) {
+                        // usually the order had already been filled
+                        if (work.measured()) rejectedCancels.incrementAndGet();
+                        continue;
+                    }
+                    if (work.measured()) cancels.recordValue(System.nanoTime() - due);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
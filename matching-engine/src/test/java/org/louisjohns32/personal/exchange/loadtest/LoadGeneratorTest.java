@@ -0,0 +1,89 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LoadGeneratorTest {
+
+    private static LoadSettings settings(double rate, long actions, long warmup) {
+        return new LoadSettings("in-process", "", "", 1.0, rate, actions, warmup,
+                List.of("AAPL", "MSFT", "NVDA"), 1.0, 0.3, 100.0, 0.01, 20, 1.0, 10, 2, 2, 7, "");
+    }
+
+    @Test
+    public void syntheticFlowFollowsRateMixAndSkew() {
+        SyntheticOrderFlow flow = new SyntheticOrderFlow(settings(1_000, 20_000, 0));
+        Set<Long> sent = new HashSet<>();
+        Set<Long> cancelled = new HashSet<>();
+        Map<String, Integer> perSymbol = new HashMap<>();
+        long lastOffset = 0;
+        int count = 0;
+
+        LoadAction action;
+        while ((action = flow.next()) != null) {
+            count++;
+            assertThat(action.offsetNanos()).isGreaterThanOrEqualTo(lastOffset);
+            lastOffset = action.offsetNanos();
+            perSymbol.merge(action.symbol(), 1, Integer::sum);
+            if (action.kind() == LoadAction.Kind.CANCEL) {
+                assertThat(sent).contains(action.ref());
+                assertThat(cancelled.add(action.ref())).isTrue();
+            } else {
+                sent.add(action.ref());
+                assertThat(FixedPoint.toScaled(action.price()) % FixedPoint.toScaled(0.01)).isZero();
+            }
+        }
+
+        assertThat(count).isEqualTo(20_000);
+        // 20k arrivals at 1k/s should take about 20 seconds
+        assertThat(lastOffset / 1e9).isCloseTo(20.0, within(1.0));
+        assertThat(cancelled.size() / (double) count).isCloseTo(0.3, within(0.03));
+        assertThat(perSymbol.get("AAPL")).isGreaterThan(perSymbol.get("MSFT"));
+        assertThat(perSymbol.get("MSFT")).isGreaterThan(perSymbol.get("NVDA"));
+    }
+
+    @Test
+    public void replayFlowKeepsCreationsAndCancelsAtCapturedPace(@TempDir Path dir) throws Exception {
+        Path capture = dir.resolve("order-events.jsonl");
+        Files.write(capture, List.of(
+                "{\"type\":\"ORDER_CREATED\",\"orderId\":11,\"symbol\":\"AAPL\",\"side\":\"BUY\",\"quantity\":2.0,\"price\":100.5,\"timestamp\":1000,\"sequenceNumber\":1}",
+                "{\"type\":\"TRADE_EXECUTED\",\"symbol\":\"AAPL\",\"timestamp\":1001}",
+                "{\"type\":\"ORDER_CANCELLED\",\"orderId\":11,\"symbol\":\"AAPL\",\"timestamp\":1010,\"sequenceNumber\":2}"));
+
+        EventReplayFlow flow = new EventReplayFlow(capture, 2.0);
+
+        assertThat(flow.size()).isEqualTo(2);
+        assertThat(flow.symbols()).containsExactly("AAPL");
+        assertThat(flow.next()).isEqualTo(LoadAction.newOrder(0, 11, "AAPL", Side.BUY, 2.0, 100.5));
+        assertThat(flow.next()).isEqualTo(LoadAction.cancel(5_000_000, 11, "AAPL"));
+        assertThat(flow.next()).isNull();
+    }
+
+    @Test
+    public void inProcessRunAccountsForEveryMeasuredAction() throws Exception {
+        LatencyReport report;
+        try (InProcessTarget target = new InProcessTarget(2)) {
+            report = new LoadGenerator(target, 2, 200).run(new SyntheticOrderFlow(settings(20_000, 2_000, 200)));
+        }
+
+        assertThat(report.completed() + report.rejectedNewOrders() + report.rejectedCancels() + report.skippedCancels())
+                .isEqualTo(1_800);
+        assertThat(report.rejectedNewOrders()).isZero();
+        assertThat(report.newOrders().getTotalCount()).isPositive();
+        assertThat(report.cancels().getTotalCount()).isPositive();
+        assertThat(report.newOrders().getMaxValue()).isPositive();
+    }
+}
@@ -0,0 +1,61 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load generator settings, read from {@code -Dload.*} system properties so the
+ * same run can be repeated from the command line or the {@code loadtest} profile.
+ */
+record LoadSettings(
+        String target,
+        String url,
+        String replayFile,
+        double replaySpeed,
+        double rate,
+        long totalActions,
+        long warmupActions,
+        List<String> symbols,
+        double symbolSkew,
+        double cancelRatio,
+        double mid,
+        double tickSize,
+        double priceSigmaTicks,
+        double lotSize,
+        int maxLots,
+        int workers,
+        int shards,
+        long seed,
+        String histogramFile) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                property("target", "in-process"),
+                property("url", "http://localhost:8080"),
+                property("replay-file", ""),
+                Double.parseDouble(property("replay-speed", "1.0")),
+                Double.parseDouble(property("rate", "20000")),
+                Long.parseLong(property("actions", "1000000")),
+                Long.parseLong(property("warmup-actions", "100000")),
+                Arrays.asList(property("symbols", "AAPL,MSFT,NVDA,AMZN,GOOG,META,TSLA,NFLX").split(",")),
+                Double.parseDouble(property("symbol-skew", "1.0")),
+                Double.parseDouble(property("cancel-ratio", "0.3")),
+                Double.parseDouble(property("mid", "100.0")),
+                Double.parseDouble(property("tick-size", "0.01")),
+                Double.parseDouble(property("price-sigma-ticks", "20")),
+                Double.parseDouble(property("lot-size", "1.0")),
+                Integer.parseInt(property("max-lots", "10")),
+                Integer.parseInt(property("workers", "4")),
+                Integer.parseInt(property("shards", "0")),
+                Long.parseLong(property("seed", "42")),
+                property("histogram-file", ""));
+    }
+
+    boolean isReplay() {
+        return !replayFile.isBlank();
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("load." + name, defaultValue);
+    }
+}
@@ -0,0 +1,23 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+/**
+ * Where the load generator sends orders. Calls block until the engine has
+ * answered, and are made from several worker threads at once.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    void createOrderBook(String symbol);
+
+    /**
+     * @return the id the engine assigned to the new order
+     */
+    long createOrder(String symbol, Side side, double quantity, double price) throws Exception;
+
+    void cancelOrder(String symbol, long orderId) throws Exception;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,14 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import java.util.List;
+
+/**
+ * Source of {@link LoadAction}s in due-time order. A flow returns
+ * {@code null} once it is exhausted.
+ */
+interface OrderFlow {
+
+    List<String> symbols();
+
+    LoadAction next();
+}
@@ -0,0 +1,118 @@
+package org.louisjohns32.personal.exchange.loadtest;
+
+import org.louisjohns32.personal.exchange.common.domain.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated order flow shaped like a real venue rather than a fixed loop:
+ * <ul>
+ *     <li>Poisson arrivals, so inter-arrival gaps are exponential and bursts happen</li>
+ *     <li>Zipf-skewed symbol choice, so a few books take most of the flow</li>
+ *     <li>Prices drawn around a per-symbol mid that random-walks, so most orders
+ *     rest near the touch and some cross and trade</li>
+ *     <li>A fixed share of cancels against orders the flow has previously sent</li>
+ * </ul>
+ * Seeded, so two runs with the same settings send the same flow.
+ */
+class SyntheticOrderFlow implements OrderFlow {
+
+    private final List<String> symbols;
+    private final double[] cumulativeWeights;
+    private final double[] mids;
+    private final List<List<Long>> liveRefs = new ArrayList<>();
+    private final Random random;
+    private final double meanGapNanos;
+    private final double cancelRatio;
+    private final double tickSize;
+    private final double priceSigmaTicks;
+    private final int maxLots;
+    private final double lotSize;
+    private final long totalActions;
+
+    private long offsetNanos;
+    private long nextRef = 1;
+    private long emitted;
+
+    SyntheticOrderFlow(LoadSettings settings) {
+        this.symbols = settings.symbols();
+        this.random = new Random(settings.seed());
+        this.meanGapNanos = 1_000_000_000d / settings.rate();
+        this.cancelRatio = settings.cancelRatio();
+        this.tickSize = settings.tickSize();
+        this.priceSigmaTicks = settings.priceSigmaTicks();
+        this.maxLots = settings.maxLots();
+        this.lotSize = settings.lotSize();
+        this.totalActions = settings.totalActions();
+
+        this.cumulativeWeights = new double[symbols.size()];
+        double total = 0;
+        for (int i = 0; i < symbols.size(); i++) {
+            total += 1 / Math.pow(i + 1, settings.symbolSkew());
+            cumulativeWeights[i] = total;
+        }
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] /= total;
+        }
+        this.mids = new double[symbols.size()];
+        Arrays.fill(mids, settings.mid());
+        for (int i = 0; i < symbols.size(); i++) {
+            liveRefs.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public LoadAction next() {
+        if (emitted >= totalActions) return null;
+        emitted++;
+        // exponential gap gives a Poisson arrival process at the target rate
+        offsetNanos += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+
+        int symbolIndex = pickSymbol();
+        String symbol = symbols.get(symbolIndex);
+        List<Long> live = liveRefs.get(symbolIndex);
+
+        if (!live.isEmpty() && random.nextDouble() < cancelRatio) {
+            int index = random.nextInt(live.size());
+            long ref = live.get(index);
+            live.set(index, live.get(live.size() - 1));
+            live.remove(live.size() - 1);
+            return LoadAction.cancel(offsetNanos, ref, symbol);
+        }
+
+        // nudge the mid by a tick now and then so the book drifts
+        if (random.nextInt(50) == 0) {
+            mids[symbolIndex] = Math.max(tickSize * 100, mids[symbolIndex] + (random.nextBoolean() ? tickSize : -tickSize));
+        }
+        Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+        // positive offsets are passive; the negative tail crosses the mid and trades
+        long ticksFromMid = Math.round(random.nextGaussian() * priceSigmaTicks + priceSigmaTicks / 2);
+        double price = side == Side.BUY
+                ? mids[symbolIndex] - ticksFromMid * tickSize
+                : mids[symbolIndex] + ticksFromMid * tickSize;
+        price = Math.max(tickSize, roundToTick(price));
+        double quantity = (1 + random.nextInt(maxLots)) * lotSize;
+
+        long ref = nextRef++;
+        live.add(ref);
+        return LoadAction.newOrder(offsetNanos, ref, symbol, side, quantity, price);
+    }
+
+    private int pickSymbol() {
+        int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        if (index < 0) index = -index - 1;
+        return Math.min(index, cumulativeWeights.length - 1);
+    }
+
+    private double roundToTick(double price) {
+        return Math.round(price / tickSize) * tickSize;
+    }
+}
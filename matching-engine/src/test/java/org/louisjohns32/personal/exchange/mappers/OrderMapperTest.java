@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.dto.OrderRequestDTO;
 import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -34,4 +36,22 @@ public class OrderMapperTest {
         assertEquals(10.0, order.getQuantity());
         assertEquals(500.0, order.getPrice());
     }
-}
\ No newline at end of file
+
+    @Test
+    void toEntity_shouldMapAccountWhenGiven() {
+        assertEquals(42L, mapper.toEntity(new OrderRequestDTO(1.0, 2.0, Side.BUY, "AAPL", 42L)).getAccountId());
+        assertEquals(0L, mapper.toEntity(new OrderRequestDTO(1.0, 2.0, Side.BUY, "AAPL")).getAccountId());
+    }
+
+    @Test
+    void toEntity_shouldMapTypeAndTimeInForceWhenGiven() {
+        Order market = mapper.toEntity(new OrderRequestDTO(1.0, null, Side.SELL, "AAPL", null, OrderType.MARKET, TimeInForce.IOC));
+        assertEquals(OrderType.MARKET, market.getType());
+        assertEquals(TimeInForce.IOC, market.getTimeInForce());
+        assertEquals(0L, market.getScaledPrice());
+
+        Order limit = mapper.toEntity(new OrderRequestDTO(1.0, 2.0, Side.BUY, "AAPL"));
+        assertEquals(OrderType.LIMIT, limit.getType());
+        assertEquals(TimeInForce.GTC, limit.getTimeInForce());
+    }
+}
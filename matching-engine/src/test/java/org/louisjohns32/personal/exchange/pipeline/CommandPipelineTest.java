@@ -0,0 +1,204 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.time.Duration.ofSeconds;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandPipelineTest {
+
+    private static final int SHARDS = 2;
+    private static final int PRODUCERS = 4;
+    private static final int COMMANDS_PER_PRODUCER = 2_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"busy-spin", "yielding", "blocking"})
+    void commandsFlowThroughEveryStageInOrder(String waitStrategy) throws Exception {
+        List<Long> journalled = Collections.synchronizedList(new ArrayList<>());
+        List<List<Long>> matchedPerShard = new ArrayList<>();
+        List<Long> publishedSequences = Collections.synchronizedList(new ArrayList<>());
+        List<String> publishViolations = Collections.synchronizedList(new ArrayList<>());
+
+        CommandHandler[] matchHandlers = new CommandHandler[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            int shard = i;
+            List<Long> matched = Collections.synchronizedList(new ArrayList<>());
+            matchedPerShard.add(matched);
+            matchHandlers[i] = (command, sequence, endOfBatch) -> {
+                if (command.getShard() != shard) return;
+                matched.add(command.getOrderId());
+                command.getFuture().complete(command.getOrderId());
+            };
+        }
+
+        CommandPipeline pipeline = new CommandPipeline(
+                16,
+                WaitStrategy.fromName(waitStrategy),
+                (command, sequence, endOfBatch) -> journalled.add(sequence),
+                matchHandlers,
+                (command, sequence, endOfBatch) -> {
+                    if (!command.getFuture().isDone()) publishViolations.add("not matched: " + sequence);
+                    publishedSequences.add(sequence);
+                });
+        pipeline.start();
+
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                results.add(producers.submit(() -> {
+                    for (int i = 0; i < COMMANDS_PER_PRODUCER; i++) {
+                        long id = (long) producer * COMMANDS_PER_PRODUCER + i;
+                        CompletableFuture<Object> future = new CompletableFuture<>();
+                        pipeline.publish(command -> {
+                            command.setType(CommandType.QUERY);
+                            command.setShard(producer % SHARDS);
+                            command.setOrderId(id);
+                            command.setFuture(future);
+                        });
+                        assertEquals(id, future.join());
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+
+            int total = PRODUCERS * COMMANDS_PER_PRODUCER;
+            await().atMost(ofSeconds(10)).until(() -> publishedSequences.size() == total);
+
+            assertEquals(total, journalled.size());
+            assertTrue(publishViolations.isEmpty(), publishViolations.toString());
+            for (int i = 0; i < total; i++) {
+                assertEquals(i, journalled.get(i));
+                assertEquals(i, publishedSequences.get(i));
+            }
+            for (List<Long> matched : matchedPerShard) {
+                assertEquals(total / SHARDS, matched.size());
+                assertPerProducerOrder(matched);
+            }
+        } finally {
+            producers.shutdown();
+            pipeline.halt();
+        }
+    }
+
+    private void assertPerProducerOrder(List<Long> matched) {
+        long[] last = new long[PRODUCERS];
+        Arrays.fill(last, -1);
+        for (long id : matched) {
+            int producer = (int) (id / COMMANDS_PER_PRODUCER);
+            assertTrue(id > last[producer], "Commands from producer " + producer + " matched out of order");
+            last[producer] = id;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"busy-spin", "yielding", "blocking"})
+    void fullRing_parksProducersAndWrapsInOrder(String waitStrategy) throws Exception {
+        int ringSize = 8;
+        int commandsPerProducer = 25 * ringSize;
+        CountDownLatch releasePublish = new CountDownLatch(1);
+        List<List<Long>> matchedPerShard = new ArrayList<>();
+        List<Long> publishedSequences = Collections.synchronizedList(new ArrayList<>());
+        List<Long> publishedIds = Collections.synchronizedList(new ArrayList<>());
+
+        CommandHandler[] matchHandlers = new CommandHandler[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            int shard = i;
+            List<Long> matched = Collections.synchronizedList(new ArrayList<>());
+            matchedPerShard.add(matched);
+            matchHandlers[i] = (command, sequence, endOfBatch) -> {
+                if (command.getShard() == shard) matched.add(command.getOrderId());
+            };
+        }
+
+        CommandPipeline pipeline = new CommandPipeline(
+                ringSize,
+                WaitStrategy.fromName(waitStrategy),
+                (command, sequence, endOfBatch) -> { },
+                matchHandlers,
+                (command, sequence, endOfBatch) -> {
+                    try {
+                        releasePublish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    publishedSequences.add(sequence);
+                    publishedIds.add(command.getOrderId());
+                });
+        pipeline.start();
+
+        // producers don't wait for their commands, so they run ahead until the held publish stage fills the ring
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < SHARDS; p++) {
+            int producer = p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < commandsPerProducer; i++) {
+                    long id = (long) producer * commandsPerProducer + i;
+                    pipeline.publish(command -> {
+                        command.setType(CommandType.QUERY);
+                        command.setShard(producer);
+                        command.setOrderId(id);
+                    });
+                }
+            }, "producer-" + p));
+        }
+        try {
+            producers.forEach(Thread::start);
+
+            await().atMost(ofSeconds(10)).pollInterval(Duration.ofMillis(1)).until(() -> producers.stream()
+                    .anyMatch(producer -> LockSupport.getBlocker(producer) instanceof CommandRingBuffer));
+            // the whole ring has been matched and is waiting on the held publish stage, nothing has been recycled
+            await().atMost(ofSeconds(10)).until(() -> matchedPerShard.stream().mapToInt(List::size).sum() == ringSize);
+            assertTrue(publishedSequences.isEmpty());
+
+            releasePublish.countDown();
+            for (Thread producer : producers) {
+                producer.join(10_000);
+                assertFalse(producer.isAlive());
+            }
+
+            int total = SHARDS * commandsPerProducer;
+            await().atMost(ofSeconds(10)).until(() -> publishedSequences.size() == total);
+
+            for (int i = 0; i < total; i++) {
+                assertEquals(i, publishedSequences.get(i));
+            }
+            // every slot was reused many times over without losing or repeating a command
+            assertEquals(total, new HashSet<>(publishedIds).size());
+            for (int shard = 0; shard < SHARDS; shard++) {
+                List<Long> matched = matchedPerShard.get(shard);
+                assertEquals(commandsPerProducer, matched.size());
+                for (int i = 0; i < commandsPerProducer; i++) {
+                    assertEquals((long) shard * commandsPerProducer + i, matched.get(i));
+                }
+            }
+        } finally {
+            releasePublish.countDown();
+            pipeline.halt();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3, 100})
+    void ringSize_mustBePowerOfTwo(int size) {
+        assertThrows(IllegalArgumentException.class, () -> new CommandRingBuffer(size, new BusySpinWaitStrategy()));
+    }
+}
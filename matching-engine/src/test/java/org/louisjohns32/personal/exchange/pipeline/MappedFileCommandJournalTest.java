@@ -0,0 +1,211 @@
+package org.louisjohns32.personal.exchange.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedFileCommandJournalTest {
+
+    private static final int SEGMENT_SIZE = 2048;
+
+    @TempDir
+    Path dir;
+
+    private MappedFileCommandJournal journal(String sync) {
+        return new MappedFileCommandJournal(dir.toString(), SEGMENT_SIZE, sync, 10);
+    }
+
+    private static OrderCommand createOrder(long orderId, Side side, long quantity, long price) {
+        OrderCommand command = new OrderCommand();
+        command.setType(CommandType.CREATE_ORDER);
+        command.setSymbol("AAPL");
+        command.setOrderId(orderId);
+        command.setOrder(Order.fromScaled("AAPL", side, quantity, price));
+        return command;
+    }
+
+    private static String describe(OrderCommand command) {
+        return switch (command.getType()) {
+            case CREATE_ORDER_BOOK -> "book " + command.getSymbol() + " " + command.getBookType();
+            case CREATE_ORDER -> "order " + command.getSymbol() + " " + command.getOrderId() + " "
+                    + command.getOrder().getSide() + " " + command.getOrder().getScaledQuantity()
+                    + "@" + command.getOrder().getScaledPrice()
+                    + (command.getOrder().getAccountId() != 0 ? " account " + command.getOrder().getAccountId() : "")
+                    + (command.getOrder().isImmediate()
+                            ? " " + command.getOrder().getType() + " " + command.getOrder().getTimeInForce() : "");
+            case CANCEL_ORDER -> "cancel " + command.getSymbol() + " " + command.getOrderId();
+            case AMEND_ORDER -> "amend " + command.getSymbol() + " " + command.getOrderId() + " "
+                    + command.getQuantity() + "@" + command.getPrice();
+            case QUERY, SNAPSHOT -> command.getType().name().toLowerCase();
+        };
+    }
+
+    private List<String> replayAll(MappedFileCommandJournal journal) {
+        List<String> replayed = new ArrayList<>();
+        journal.replay(0, command -> replayed.add(describe(command)));
+        return replayed;
+    }
+
+    @Test
+    public void appendedCommandsReplayInOrderAcrossSegments() throws IOException {
+        MappedFileCommandJournal writer = journal("batch");
+        writer.replay(0, command -> {});
+        List<String> expected = new ArrayList<>();
+
+        OrderCommand book = new OrderCommand();
+        book.setType(CommandType.CREATE_ORDER_BOOK);
+        book.setSymbol("AAPL");
+        book.setBookType(OrderBookType.PRICE_LADDER);
+        writer.append(book, false);
+        expected.add(describe(book));
+
+        OrderCommand query = new OrderCommand();
+        query.setType(CommandType.QUERY);
+        writer.append(query, false);
+
+        for (long id = 1; id <= 200; id++) {
+            OrderCommand command = id % 5 == 0 ? new OrderCommand() : createOrder(id, Side.BUY, id * 100, 10_000 + id);
+            if (id % 3 == 0 && command.getOrder() != null) {
+                // orders with and without an account are journalled as different records
+                command.getOrder().setAccountId(id * 7);
+            }
+            if (id % 4 == 0 && command.getOrder() != null) {
+                // as are immediate orders
+                command.getOrder().setType(id % 8 == 0 ? OrderType.MARKET : OrderType.LIMIT);
+                command.getOrder().setTimeInForce(id % 8 == 0 ? TimeInForce.IOC : TimeInForce.FOK);
+            }
+            if (id % 5 == 0) {
+                command.setType(CommandType.CANCEL_ORDER);
+                command.setSymbol("AAPL");
+                command.setOrderId(id - 1);
+            } else if (id % 7 == 0) {
+                command = new OrderCommand();
+                command.setType(CommandType.AMEND_ORDER);
+                command.setSymbol("AAPL");
+                command.setOrderId(id - 1);
+                command.setQuantity(id % 2 == 0 ? id * 50 : 0);
+                command.setPrice(10_000 + id * 2);
+            }
+            writer.append(command, id % 10 == 0);
+            expected.add(describe(command));
+        }
+        writer.close();
+
+        try (Stream<Path> segments = Files.list(dir)) {
+            assertThat(segments.count()).isGreaterThan(1);
+        }
+        assertThat(replayAll(journal("batch"))).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void appendingAfterReplayContinuesTheJournal() {
+        MappedFileCommandJournal first = journal("never");
+        first.append(createOrder(1, Side.BUY, 100, 200), true);
+        first.close();
+
+        MappedFileCommandJournal second = journal("never");
+        assertThat(replayAll(second)).hasSize(1);
+        second.append(createOrder(2, Side.SELL, 100, 200), true);
+        second.close();
+
+        assertThat(replayAll(journal("never"))).containsExactly(
+                "order AAPL 1 BUY 100@200",
+                "order AAPL 2 SELL 100@200");
+    }
+
+    @Test
+    public void tornTailRecordIsDiscardedAndOverwritten() throws IOException {
+        MappedFileCommandJournal writer = journal("batch");
+        writer.append(createOrder(1, Side.BUY, 100, 200), false);
+        writer.append(createOrder(2, Side.BUY, 100, 200), true);
+        writer.close();
+
+        Path segment;
+        try (Stream<Path> segments = Files.list(dir)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // flip a byte in the second record's payload, as a crash mid-write would
+            long secondRecord = recordEnd(file, 0);
+            file.seek(secondRecord + MappedFileCommandJournal.HEADER_BYTES + 3);
+            file.write(0x7F);
+        }
+
+        MappedFileCommandJournal recovered = journal("batch");
+        assertThat(replayAll(recovered)).containsExactly("order AAPL 1 BUY 100@200");
+        recovered.append(createOrder(3, Side.SELL, 100, 200), true);
+        recovered.close();
+
+        assertThat(replayAll(journal("batch"))).containsExactly(
+                "order AAPL 1 BUY 100@200",
+                "order AAPL 3 SELL 100@200");
+    }
+
+    @Test
+    public void corruptSegmentFollowedByLaterSegmentsIsRejected() throws IOException {
+        MappedFileCommandJournal writer = journal("never");
+        for (long id = 1; id <= 100; id++) {
+            writer.append(createOrder(id, Side.BUY, 100, 200), true);
+        }
+        writer.close();
+
+        Path first;
+        try (Stream<Path> segments = Files.list(dir)) {
+            first = segments.sorted().findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(first.toFile(), "rw")) {
+            file.seek(MappedFileCommandJournal.HEADER_BYTES + 3);
+            file.write(0x7F);
+        }
+
+        assertThatThrownBy(() -> journal("never").replay(0, command -> {}))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void replayFromPositionSkipsEarlierCommandsAndTruncationDropsWholeSegments() throws IOException {
+        MappedFileCommandJournal writer = journal("never");
+        long midpoint = 0;
+        for (long id = 1; id <= 100; id++) {
+            writer.append(createOrder(id, Side.BUY, 100, 200), true);
+            if (id == 60) {
+                midpoint = writer.position();
+            }
+        }
+        writer.truncateBefore(midpoint);
+        writer.close();
+
+        List<Long> ids = new ArrayList<>();
+        journal("never").replay(midpoint, command -> ids.add(command.getOrderId()));
+
+        assertThat(ids).containsExactlyElementsOf(Stream.iterate(61L, id -> id + 1).limit(40).toList());
+        try (Stream<Path> segments = Files.list(dir)) {
+            assertThat(segments.count()).as("the first segment ends before the midpoint").isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void unknownSyncPolicyIsRejected() {
+        assertThatThrownBy(() -> journal("sometimes")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long recordEnd(RandomAccessFile file, long position) throws IOException {
+        file.seek(position);
+        return position + MappedFileCommandJournal.HEADER_BYTES + file.readInt();
+    }
+}
@@ -0,0 +1,258 @@
+package org.louisjohns32.personal.exchange.risk;
+
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.louisjohns32.personal.exchange.exceptions.RiskLimitExceededException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RiskEngineTest {
+
+    private static final long ACCOUNT = 42L;
+
+    private final AtomicLong clock = new AtomicLong(10_000_000L);
+    private final EncodedEvents events = new EncodedEvents();
+
+    private RiskEngine engine(double maxOpenNotional, double maxPosition, int maxOrdersPerSecond) {
+        RiskLimits limits = new RiskLimits(FixedPoint.toScaled(maxOpenNotional), FixedPoint.toScaled(maxPosition),
+                maxOrdersPerSecond);
+        return new RiskEngine(true, accountId -> accountId == ACCOUNT ? limits : RiskLimits.UNLIMITED, clock::get);
+    }
+
+    private static Order order(long accountId, Side side, double quantity, double price) {
+        Order order = new Order("AAPL", side, quantity, price);
+        order.setAccountId(accountId);
+        return order;
+    }
+
+    private EncodedEvents trade(long buyOrderId, long sellOrderId, double quantity, double price) {
+        events.clear();
+        events.tradeExecuted(1, "AAPL", buyOrderId, sellOrderId, FixedPoint.toScaled(price),
+                FixedPoint.toScaled(quantity), 0, Side.SELL);
+        return events;
+    }
+
+    private EncodedEvents cancelled(long orderId, Side side, double remaining, double price) {
+        events.clear();
+        events.orderCancelled(1, orderId, "AAPL", side, FixedPoint.toScaled(price), FixedPoint.toScaled(remaining), 0);
+        return events;
+    }
+
+    @Test
+    public void openNotionalIsReservedUntilCancelled() {
+        RiskEngine engine = engine(1_000, 0, 0);
+
+        engine.check(1L, order(ACCOUNT, Side.BUY, 6, 100));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(600));
+
+        assertThatThrownBy(() -> engine.check(2L, order(ACCOUNT, Side.SELL, 5, 100)))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("open notional");
+        assertThat(engine.getOpenOrderCount()).isEqualTo(1);
+
+        engine.apply(cancelled(1L, Side.BUY, 6, 100));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThatNoException().isThrownBy(() -> engine.check(2L, order(ACCOUNT, Side.SELL, 5, 100)));
+    }
+
+    @Test
+    public void fillsReleaseNotionalAndMoveIntoThePosition() {
+        RiskEngine engine = engine(0, 10, 0);
+        engine.check(1L, order(ACCOUNT, Side.BUY, 5, 100));
+        assertThatThrownBy(() -> engine.check(2L, order(ACCOUNT, Side.BUY, 6, 100)))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("position");
+
+        engine.apply(trade(1L, 99L, 2, 100));
+        engine.apply(trade(1L, 98L, 3, 100));
+
+        assertThat(engine.getPosition(ACCOUNT, "AAPL")).isEqualTo(FixedPoint.toScaled(5));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+        // long 5, so selling up to 15 stays within a short position of 10
+        engine.check(3L, order(ACCOUNT, Side.SELL, 15, 100));
+        assertThatThrownBy(() -> engine.check(4L, order(ACCOUNT, Side.SELL, 0.01, 100)))
+                .isInstanceOf(RiskLimitExceededException.class);
+    }
+
+    @Test
+    public void partialFillsReleaseExactlyWhatWasReserved() {
+        RiskEngine engine = engine(0, 0, 0);
+        engine.check(1L, order(ACCOUNT, Side.SELL, 3, 33.33));
+
+        engine.apply(trade(7L, 1L, 1, 33.33));
+        engine.apply(trade(8L, 1L, 1, 33.33));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(33.33));
+        engine.apply(trade(9L, 1L, 1, 33.33));
+
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getPosition(ACCOUNT, "AAPL")).isEqualTo(FixedPoint.toScaled(-3));
+    }
+
+    @Test
+    public void expiredRemainderOfAnImmediateOrderIsReleased() {
+        RiskEngine engine = engine(1_000, 10, 0);
+        Order ioc = order(ACCOUNT, Side.BUY, 6, 100);
+        ioc.setTimeInForce(TimeInForce.IOC);
+        engine.check(1L, ioc);
+
+        engine.apply(trade(1L, 99L, 2, 100));
+        events.clear();
+        events.orderExpired(2, 1L, "AAPL", Side.BUY, FixedPoint.toScaled(100), FixedPoint.toScaled(4), 0);
+        engine.apply(events);
+
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+        assertThat(engine.getPosition(ACCOUNT, "AAPL")).isEqualTo(FixedPoint.toScaled(2));
+    }
+
+    @Test
+    public void marketOrdersReserveNotionalAtTheMaxPrice() {
+        RiskEngine engine = engine(1_000, 0, 0);
+        InstrumentSpec banded = new InstrumentSpec(0.01, 0.01, 0, 200, 0);
+        Order market = order(ACCOUNT, Side.BUY, 6, 0);
+        market.setType(OrderType.MARKET);
+
+        // 6 at up to 200 could cost 1,200
+        assertThatThrownBy(() -> engine.check(1L, market, banded))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("open notional");
+        assertThatThrownBy(() -> engine.check(1L, market, InstrumentSpec.DEFAULT))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("no max price");
+        assertThat(engine.getOpenOrderCount()).isZero();
+
+        Order smaller = order(ACCOUNT, Side.SELL, 4, 0);
+        smaller.setType(OrderType.MARKET);
+        engine.check(2L, smaller, banded);
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(800));
+
+        engine.apply(trade(99L, 2L, 1, 150));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(600));
+        events.clear();
+        events.orderExpired(2, 2L, "AAPL", Side.SELL, 0, FixedPoint.toScaled(3), 0);
+        engine.apply(events);
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+    }
+
+    @Test
+    public void orderRateIsLimitedPerOneSecondWindow() {
+        RiskEngine engine = engine(0, 0, 2);
+        engine.check(1L, order(ACCOUNT, Side.BUY, 1, 10));
+        engine.check(2L, order(ACCOUNT, Side.BUY, 1, 10));
+
+        assertThatThrownBy(() -> engine.check(3L, order(ACCOUNT, Side.BUY, 1, 10)))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("orders per second");
+
+        clock.addAndGet(1000);
+        assertThatNoException().isThrownBy(() -> engine.check(3L, order(ACCOUNT, Side.BUY, 1, 10)));
+    }
+
+    @Test
+    public void ordersWithoutAnAccountOrWithRiskDisabledAreNotTracked() {
+        RiskEngine engine = engine(1, 1, 1);
+        engine.check(1L, order(0L, Side.BUY, 100, 100));
+        assertThat(engine.getOpenOrderCount()).isZero();
+
+        RiskEngine disabled = new RiskEngine(false, accountId -> new RiskLimits(1, 1, 1), clock::get);
+        disabled.check(1L, order(ACCOUNT, Side.BUY, 100, 100));
+        disabled.check(2L, order(ACCOUNT, Side.BUY, 100, 100));
+        assertThat(disabled.getOpenOrderCount()).isZero();
+    }
+
+    @Test
+    public void releaseFreesAnOrderThatNeverReachedTheBook() {
+        RiskEngine engine = engine(500, 0, 0);
+        engine.check(1L, order(ACCOUNT, Side.BUY, 5, 100));
+
+        engine.release(1L);
+
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThatNoException().isThrownBy(() -> engine.check(2L, order(ACCOUNT, Side.BUY, 5, 100)));
+    }
+
+    private EncodedEvents amended(long orderId, Side side, double remaining, double price, double newQuantity,
+                                  double newRemaining, double newPrice) {
+        events.clear();
+        events.orderAmended(1, orderId, "AAPL", side, FixedPoint.toScaled(price), FixedPoint.toScaled(remaining),
+                FixedPoint.toScaled(newPrice), FixedPoint.toScaled(newQuantity), FixedPoint.toScaled(newRemaining), 0);
+        return events;
+    }
+
+    @Test
+    public void amendsReserveIncreasesUpFrontAndSettleOnTheMatchingResult() {
+        RiskEngine engine = engine(1_000, 0, 0);
+        engine.check(1L, order(ACCOUNT, Side.BUY, 5, 100));
+        engine.apply(trade(1L, 99L, 1, 100));
+
+        // 4 left of 5; raising the total to 9 leaves 8 open at 100
+        assertThatThrownBy(() -> engine.checkAmend(1L, FixedPoint.toScaled(12), 0))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("open notional");
+        engine.checkAmend(1L, FixedPoint.toScaled(9), 0);
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(800));
+
+        engine.apply(amended(1L, Side.BUY, 4, 100, 9, 8, 100));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(800));
+
+        // a price cut only shrinks the reservation, and is settled when matching reports it
+        engine.checkAmend(1L, 0, FixedPoint.toScaled(50));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(800));
+        engine.apply(amended(1L, Side.BUY, 8, 100, 9, 8, 50));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(400));
+
+        engine.apply(trade(1L, 98L, 8, 50));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+        assertThat(engine.getPosition(ACCOUNT, "AAPL")).isEqualTo(FixedPoint.toScaled(9));
+    }
+
+    @Test
+    public void amendsRejectedByMatchingHandBackTheirReservation() {
+        RiskEngine engine = engine(1_000, 0, 0);
+        engine.check(1L, order(ACCOUNT, Side.BUY, 5, 100));
+        engine.checkAmend(1L, FixedPoint.toScaled(8), 0);
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(800));
+
+        engine.rejectAmend(1L);
+
+        // still open on its last settled terms
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(500));
+        engine.apply(trade(1L, 99L, 5, 100));
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+
+        // filled while the amend was in flight
+        engine.check(2L, order(ACCOUNT, Side.BUY, 5, 100));
+        engine.checkAmend(2L, 0, FixedPoint.toScaled(150));
+        engine.apply(trade(2L, 98L, 5, 100));
+        engine.rejectAmend(2L);
+        assertThat(engine.getOpenNotional(ACCOUNT)).isZero();
+        assertThat(engine.getOpenOrderCount()).isZero();
+    }
+
+    @Test
+    public void restoredOrdersAreReservedWithoutBeingChecked() {
+        RiskEngine engine = engine(100, 0, 0);
+        Order resting = order(ACCOUNT, Side.BUY, 5, 100);
+        resting.fill(2.0);
+
+        engine.restore(1L, resting);
+        engine.restore(1L, resting);
+
+        assertThat(engine.getOpenNotional(ACCOUNT)).isEqualTo(FixedPoint.toScaled(300));
+        assertThat(engine.getOpenOrderCount()).isEqualTo(1);
+    }
+}
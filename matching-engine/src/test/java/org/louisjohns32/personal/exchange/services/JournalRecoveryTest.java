@@ -0,0 +1,242 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
+import org.louisjohns32.personal.exchange.dto.OrderBookLevelDTO;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.pipeline.MappedFileCommandJournal;
+import org.louisjohns32.personal.exchange.risk.RiskEngine;
+import org.louisjohns32.personal.exchange.snapshot.EngineSnapshot;
+import org.louisjohns32.personal.exchange.snapshot.FileSnapshotStore;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static java.time.Duration.ofSeconds;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class JournalRecoveryTest {
+
+    private final List<OrderEvent> published = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    private MappedFileCommandJournal journal;
+    private FileSnapshotStore snapshotStore;
+    private ShardedOrderBookService service;
+    private SequenceNumberGenerator sequenceGenerator;
+    private RiskEngine riskEngine;
+
+    private final EventPublisher publisher = new EventPublisher() {
+        @Override
+        public void publish(OrderEvent event) {
+            published.add(event);
+        }
+
+        @Override
+        public void publishBatch(List<OrderEvent> events) {
+            published.addAll(events);
+        }
+    };
+
+    private void start() {
+        OrderBookServiceImpl delegate = new OrderBookServiceImpl();
+        ReflectionTestUtils.setField(delegate, "registry", new OrderBookRegistryImpl());
+        ReflectionTestUtils.setField(delegate, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(delegate, "publisher", publisher);
+        ReflectionTestUtils.setField(delegate, "orderIndex", new OrderIndex());
+        // a small block, so the replayed history crosses persisted high-water marks
+        sequenceGenerator = new SequenceNumberGenerator(dir.resolve("sequences").toString(), 8);
+        ReflectionTestUtils.setField(delegate, "sequenceGenerator", sequenceGenerator);
+        journal = new MappedFileCommandJournal(dir.resolve("journal").toString(), 4096, "batch", 10);
+        snapshotStore = new FileSnapshotStore(dir.resolve("snapshots").toString(), 2);
+        riskEngine = new RiskEngine();
+        service = new ShardedOrderBookService(delegate, publisher, journal, snapshotStore, riskEngine, 2, 64, "blocking");
+    }
+
+    private void stop() {
+        service.shutdown();
+        journal.close();
+        sequenceGenerator.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stop();
+    }
+
+    @Test
+    void restartRebuildsBooksSequencesAndOrderIds() {
+        start();
+        service.createOrderBook("AAPL", OrderBookType.PRICE_LADDER);
+        service.createOrderBook("MSFT");
+        long maxId = 0;
+        long repriced = 0;
+        for (int i = 0; i < 50; i++) {
+            Order bid = service.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0 + i % 3, 99.0 + (i % 5) / 100.0));
+            Order ask = service.createOrder("MSFT", new Order("MSFT", Side.SELL, 2.0, 250.0 + (i % 4) / 100.0));
+            maxId = Math.max(maxId, Math.max(bid.getId(), ask.getId()));
+            if (i % 7 == 0) {
+                service.deleteOrderById(service.getOrderBook("AAPL"), bid.getId());
+            } else if (i % 6 == 1) {
+                service.amendOrder(bid.getId(), 4.0, null);
+            } else if (i % 6 == 3) {
+                service.amendOrder(bid.getId(), null, 98.9);
+                repriced = bid.getId();
+            }
+        }
+        // cross the book so trades are part of the journalled history
+        service.createOrder("AAPL", new Order("AAPL", Side.SELL, 10.0, 99.01));
+        OrderBookDTO aapl = service.getAggregatedOrderBook("AAPL");
+        OrderBookDTO msft = service.getAggregatedOrderBook("MSFT");
+        // halting drains the publish stage, so every event is in by now
+        stop();
+        long lastAaplSequence = lastSequence("AAPL", published);
+        List<String> before = describe(published);
+
+        published.clear();
+        start();
+
+        assertThat(levels(service.getAggregatedOrderBook("AAPL"))).isEqualTo(levels(aapl));
+        assertThat(levels(service.getAggregatedOrderBook("MSFT"))).isEqualTo(levels(msft));
+        assertThat(service.getOrderBook("AAPL").getType()).isEqualTo(OrderBookType.PRICE_LADDER);
+        assertThat(describe(published)).as("replay republishes every event with its original sequence number")
+                .isEqualTo(before);
+
+        int republished = published.size();
+        Order next = service.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 50.0));
+        assertThat(next.getId()).isGreaterThan(maxId);
+        await().atMost(ofSeconds(5)).until(() -> published.size() > republished);
+        OrderCreationEvent created = (OrderCreationEvent) published.get(republished);
+        assertThat(created.getSequenceNumber()).isEqualTo(lastAaplSequence + 1);
+
+        int resting = service.getOrderBook("AAPL").getOrderCount();
+        service.cancelOrder(repriced);
+        assertThat(service.getOrderBook("AAPL").getOrderCount()).as("replay rebuilds the order index").isEqualTo(resting - 1);
+    }
+
+    @Test
+    void restartRestoresSnapshotAndReplaysOnlyTheJournalAfterIt() throws IOException {
+        start();
+        service.createOrderBook("AAPL", OrderBookType.PRICE_LADDER);
+        service.createOrderBook("MSFT");
+        long maxId = 0;
+        for (int i = 0; i < 200; i++) {
+            Order bid = service.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0 + i % 3, 99.0 + (i % 5) / 100.0));
+            maxId = Math.max(maxId, bid.getId());
+        }
+        // partially fill a resting order so the snapshot carries filled quantities
+        service.createOrder("AAPL", new Order("AAPL", Side.SELL, 0.5, 99.04));
+
+        EngineSnapshot snapshot = service.takeSnapshot();
+        snapshotStore.write(snapshot);
+        journal.truncateBefore(snapshotStore.earliestReplayPosition());
+        // the snapshot is only returned once every event it covers has been published
+        int publishedBeforeSnapshot = published.size();
+
+        // after the snapshot: more orders, a cancel and a book it has never seen
+        for (int i = 0; i < 20; i++) {
+            Order ask = service.createOrder("MSFT", new Order("MSFT", Side.SELL, 2.0, 250.0 + (i % 4) / 100.0));
+            maxId = Math.max(maxId, ask.getId());
+        }
+        Order cancelled = service.createOrder("AAPL", new Order("AAPL", Side.BUY, 3.0, 98.0));
+        service.deleteOrderById(service.getOrderBook("AAPL"), cancelled.getId());
+        service.createOrderBook("TSLA");
+        service.createOrder("TSLA", new Order("TSLA", Side.BUY, 1.0, 10.0));
+        OrderBookDTO aapl = service.getAggregatedOrderBook("AAPL");
+        OrderBookDTO msft = service.getAggregatedOrderBook("MSFT");
+        stop();
+        long lastAaplSequence = lastSequence("AAPL", published);
+        List<String> afterSnapshot = describe(published.subList(publishedBeforeSnapshot, published.size()));
+
+        try (Stream<Path> segments = Files.list(dir.resolve("journal"))) {
+            assertThat(segments.count()).as("segments before the snapshot are deleted").isLessThan(3);
+        }
+
+        published.clear();
+        start();
+
+        assertThat(levels(service.getAggregatedOrderBook("AAPL"))).isEqualTo(levels(aapl));
+        assertThat(levels(service.getAggregatedOrderBook("MSFT"))).isEqualTo(levels(msft));
+        assertThat(service.getOrderBook("TSLA").getOrderCount()).isEqualTo(1);
+        assertThat(service.getOrderBook("AAPL").getType()).isEqualTo(OrderBookType.PRICE_LADDER);
+        assertThat(describe(published)).as("only events after the snapshot are republished").isEqualTo(afterSnapshot);
+
+        int republished = published.size();
+        Order next = service.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 50.0));
+        assertThat(next.getId()).isGreaterThan(maxId);
+        await().atMost(ofSeconds(5)).until(() -> published.size() > republished);
+        OrderCreationEvent created = (OrderCreationEvent) published.get(republished);
+        assertThat(created.getSequenceNumber()).isEqualTo(lastAaplSequence + 1);
+    }
+
+    @Test
+    void restartReservesOpenOrdersWithTheRiskEngineAgain() {
+        start();
+        service.createOrderBook("AAPL");
+        for (int i = 0; i < 10; i++) {
+            service.createOrder("AAPL", accountOrder(7L, Side.BUY, 2.0, 100.0));
+        }
+        EngineSnapshot snapshot = service.takeSnapshot();
+        snapshotStore.write(snapshot);
+        // after the snapshot: a partial fill, a cancel and an order for another account
+        service.createOrder("AAPL", accountOrder(8L, Side.SELL, 3.0, 100.0));
+        Order cancelled = service.createOrder("AAPL", accountOrder(7L, Side.BUY, 1.0, 99.0));
+        service.deleteOrderById(service.getOrderBook("AAPL"), cancelled.getId());
+        service.createOrder("AAPL", accountOrder(8L, Side.SELL, 1.0, 101.0));
+        stop();
+        long openNotional = riskEngine.getOpenNotional(7L);
+        assertThat(openNotional).isEqualTo(FixedPoint.toScaled(17 * 100.0));
+        assertThat(riskEngine.getPosition(8L, "AAPL")).isEqualTo(FixedPoint.toScaled(-3.0));
+
+        start();
+
+        assertThat(riskEngine.getOpenNotional(7L)).isEqualTo(openNotional);
+        assertThat(riskEngine.getOpenNotional(8L)).isEqualTo(FixedPoint.toScaled(101.0));
+        assertThat(riskEngine.getOpenOrderCount()).isEqualTo(10);
+        assertThat(riskEngine.getPosition(8L, "AAPL")).as("positions start flat after a restart").isZero();
+    }
+
+    private static Order accountOrder(long accountId, Side side, double quantity, double price) {
+        Order order = new Order("AAPL", side, quantity, price);
+        order.setAccountId(accountId);
+        return order;
+    }
+
+    private static long lastSequence(String symbol, List<OrderEvent> events) {
+        return events.stream().filter(e -> e.getSymbol().equals(symbol))
+                .mapToLong(OrderEvent::getSequenceNumber).max().orElse(0);
+    }
+
+    // trade timestamps are taken again on replay, so events are compared by what identifies them
+    private static List<String> describe(List<OrderEvent> events) {
+        return events.stream()
+                .map(e -> e.getSymbol() + "#" + e.getSequenceNumber() + " " + e.getClass().getSimpleName())
+                .toList();
+    }
+
+    private static List<String> levels(OrderBookDTO book) {
+        return Stream.concat(
+                        book.getBidLevels().stream().map(level -> "bid " + describe(level)),
+                        book.getAskLevels().stream().map(level -> "ask " + describe(level)))
+                .toList();
+    }
+
+    private static String describe(OrderBookLevelDTO level) {
+        return level.getPrice() + "x" + level.getVolume();
+    }
+}
@@ -1,22 +1,37 @@
 package org.louisjohns32.personal.exchange.services;
 
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
 import org.louisjohns32.personal.exchange.common.domain.Side;
 import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -86,4 +101,94 @@ class KafkaEventPublisherTest {
         verify(kafkaTemplate).send(eq(TOPIC), eq("AAPL"), any());
         verify(kafkaTemplate).send(eq(TOPIC), eq("GOOGL"), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBlockPublishingWhileTooManyEventsAreUnacknowledged() throws InterruptedException {
+        CompletableFuture<SendResult<String, OrderEvent>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(pending, new CompletableFuture<>());
+        KafkaEventPublisher bounded = new KafkaEventPublisher(kafkaTemplate, TOPIC, 1);
+        OrderCreationEvent event = new OrderCreationEvent(1L, "AAPL", Side.BUY, 1.0, 150.0, System.currentTimeMillis(), 1);
+
+        bounded.publish(event);
+        AtomicBoolean secondSent = new AtomicBoolean();
+        Thread publisher = new Thread(() -> {
+            bounded.publish(event);
+            secondSent.set(true);
+        });
+        publisher.start();
+
+        await().during(ofMillis(200)).atMost(ofSeconds(1)).untilFalse(secondSent);
+        pending.complete(sendResult);
+        await().atMost(ofSeconds(5)).untilTrue(secondSent);
+        publisher.join();
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), eq("AAPL"), any());
+    }
+
+    @Test
+    void shouldReleaseCapacityWhenSendFails() {
+        when(kafkaTemplate.send(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenThrow(new IllegalStateException("producer closed"));
+        KafkaEventPublisher bounded = new KafkaEventPublisher(kafkaTemplate, TOPIC, 1);
+        OrderCreationEvent event = new OrderCreationEvent(1L, "AAPL", Side.BUY, 1.0, 150.0, System.currentTimeMillis(), 1);
+
+        bounded.publish(event);
+        bounded.publish(event);
+
+        assertThat(bounded.availableInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void jsonFormatShouldDecodeEncodedEventsForTheConfiguredSerializer() {
+        reset(kafkaTemplate);
+        JsonSerializer<OrderEvent> json = new JsonSerializer<>();
+        // the template closes its producer after each send, so keep one open to collect them all
+        MockProducer<String, OrderEvent> producer = new MockProducer<>(true, new StringSerializer(), json) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        KafkaEventPublisher jsonPublisher = new KafkaEventPublisher(
+                new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)), TOPIC, 16, KafkaEventPublisher.JSON);
+        EncodedEvents events = new EncodedEvents();
+        events.orderCreated(7, 12345L, "AAPL", Side.BUY, FixedPoint.toScaled(100.0), FixedPoint.toScaled(150.0), 0);
+        events.orderRested(8, 12345L, "AAPL", Side.BUY, FixedPoint.toScaled(100.0), FixedPoint.toScaled(150.0));
+
+        jsonPublisher.publishEncoded(events);
+
+        List<ProducerRecord<String, OrderEvent>> sent = producer.history();
+        assertThat(sent).hasSize(2);
+        assertThat(sent).allSatisfy(record -> {
+            assertThat(record.topic()).isEqualTo(TOPIC);
+            assertThat(record.key()).isEqualTo("AAPL");
+        });
+        assertThat(sent.get(0).value()).isInstanceOf(OrderCreationEvent.class);
+        assertThat(sent.get(1).value()).isInstanceOf(OrderRestEvent.class);
+        String value = new String(json.serialize(TOPIC, sent.get(0).value()), StandardCharsets.UTF_8);
+        assertThat(value).startsWith("{").contains("\"orderId\":12345", "\"sequenceNumber\":7");
+    }
+
+    @Test
+    void unknownFormatShouldBeRejected() {
+        reset(kafkaTemplate);
+        assertThatThrownBy(() -> new KafkaEventPublisher(kafkaTemplate, TOPIC, 16, "xml"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void flushShouldReportSendsThatFailedSinceTheLastFlush() {
+        when(kafkaTemplate.send(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenThrow(new IllegalStateException("producer closed"));
+        OrderCreationEvent event = new OrderCreationEvent(1L, "AAPL", Side.BUY, 1.0, 150.0, System.currentTimeMillis(), 1);
+
+        eventPublisher.publish(event);
+        eventPublisher.publish(event);
+
+        assertThatThrownBy(eventPublisher::flush).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("2 events");
+        verify(kafkaTemplate).flush();
+        // already reported, nothing has failed since
+        eventPublisher.flush();
+    }
+}
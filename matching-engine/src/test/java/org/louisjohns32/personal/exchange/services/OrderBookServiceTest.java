@@ -1,21 +1,30 @@
 package org.louisjohns32.personal.exchange.services;
 
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderExpiryEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderRestEvent;
 import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
 import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
 import org.louisjohns32.personal.exchange.entities.Order;
 import org.louisjohns32.personal.exchange.entities.OrderBook;
 import org.louisjohns32.personal.exchange.entities.OrderBookLevel;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+import org.louisjohns32.personal.exchange.entities.OrderType;
+import org.louisjohns32.personal.exchange.entities.TimeInForce;
+import org.louisjohns32.personal.exchange.events.EventSink;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+import org.louisjohns32.personal.exchange.exceptions.OrderNotFoundException;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -27,12 +36,12 @@ import org.mockito.quality.Strictness;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -40,9 +49,6 @@ import static org.mockito.Mockito.*;
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class OrderBookServiceTest {
 
-    @Mock
-    private Validator validator;
-
     @Mock
     private OrderBook orderBook;
 
@@ -59,6 +65,12 @@ public class OrderBookServiceTest {
     @Mock
     private EventPublisher eventPublisher;
 
+    @Spy
+    private SequenceNumberGenerator sequenceGenerator;
+
+    @Spy
+    private OrderIndex orderIndex;
+
     private static final String SYMBOL = "AAPL";
     private Order bidOrder;
     private Order askOrder;
@@ -68,6 +80,10 @@ public class OrderBookServiceTest {
         AtomicLong idCounter = new AtomicLong(1000L);
         when(idGenerator.nextId()).thenAnswer(invocation -> idCounter.getAndIncrement());
 
+        when(orderBook.getInstrumentSpec()).thenReturn(InstrumentSpec.DEFAULT);
+        when(orderBook.getSymbol()).thenReturn(SYMBOL);
+        when(orderBook.canRestAt(any(Side.class), anyLong())).thenReturn(true);
+
         bidOrder = new Order(1L, SYMBOL, Side.BUY, 5.0, 100.0);
         askOrder = new Order(2L, SYMBOL, Side.SELL, 5.0, 99.0);
     }
@@ -98,31 +114,45 @@ public class OrderBookServiceTest {
 
         @Test
         void validOrder_addsToOrderBookAndMatches() {
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
 
             Order newOrder = orderBookService.createOrder(orderBook, bidOrder);
 
             assertNotNull(newOrder);
             verify(orderBook, times(1)).addOrder(any(Order.class));
-            verify(orderBookService, times(1)).match(orderBook, newOrder);
+            verify(orderBookService, times(1)).match(eq(orderBook), eq(newOrder), any(EventSink.class));
         }
 
         @Test
-        void invalidOrder_throwsConstraintViolationException() {
-            ConstraintViolation<Order> violation = mock(ConstraintViolation.class);
-            when(validator.validate(any(Order.class))).thenReturn(Set.of(violation));
+        void missingSide_throwsInvalidOrderException() {
+            Order noSide = new Order(SYMBOL, null, 1.0, 100.0);
+
+            assertThrows(InvalidOrderException.class,
+                    () -> orderBookService.createOrder(orderBook, noSide));
+
+            verify(orderBook, never()).addOrder(any(Order.class));
+            verify(orderBookService, never()).match(any(OrderBook.class), any(Order.class), any(EventSink.class));
+        }
 
-            assertThrows(ConstraintViolationException.class,
-                    () -> orderBookService.createOrder(orderBook, bidOrder));
+        @Test
+        void priceOffTick_throwsInvalidOrderException() {
+            Order offTick = new Order(SYMBOL, Side.BUY, 1.0, 100.005);
 
+            assertThrows(InvalidOrderException.class, () -> orderBookService.createOrder(orderBook, offTick));
+            verify(orderBook, never()).addOrder(any(Order.class));
+        }
+
+        @Test
+        void quantityOffLot_throwsInvalidOrderException() {
+            when(orderBook.getInstrumentSpec()).thenReturn(new InstrumentSpec(0.01, 1.0));
+            Order oddLot = new Order(SYMBOL, Side.BUY, 1.5, 100.0);
+
+            assertThrows(InvalidOrderException.class, () -> orderBookService.createOrder(orderBook, oddLot));
             verify(orderBook, never()).addOrder(any(Order.class));
-            verify(orderBookService, never()).match(any(OrderBook.class), any(Order.class));
         }
 
         @Test
         void validOrder_addsOrderToBook() {
             Order inputOrder = new Order(0L, SYMBOL, Side.BUY, 100.0, 10.0);
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBook.getLowestAskLevel()).thenReturn(null);
 
             Order result = orderBookService.createOrder(orderBook, inputOrder);
@@ -145,6 +175,225 @@ public class OrderBookServiceTest {
         }
     }
 
+    @Nested
+    class AmendOrderTests {
+
+        private OrderBook book;
+
+        @BeforeEach
+        void setUp() {
+            book = new OrderBook(SYMBOL);
+            when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(book);
+        }
+
+        private List<OrderEvent> publishedBatch() {
+            ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
+            verify(eventPublisher, atLeastOnce()).publishBatch(batchCaptor.capture());
+            return batchCaptor.getValue();
+        }
+
+        @Test
+        void lowerQuantityAtSamePrice_keepsQueuePosition() {
+            Order first = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+
+            orderBookService.amendOrder(first.getId(), 3.0, null);
+
+            OrderBookLevel level = book.getLevel(100.0, Side.BUY);
+            assertSame(first, level.getOrder());
+            assertEquals(8.0, level.getVolume());
+            List<OrderEvent> events = publishedBatch();
+            OrderAmendEvent amended = (OrderAmendEvent) events.get(0);
+            assertEquals(5.0, amended.getRemainingQuantity());
+            assertEquals(3.0, amended.getNewRemainingQuantity());
+            assertEquals(3.0, ((OrderRestEvent) events.get(1)).getQuantity());
+        }
+
+        @Test
+        void higherQuantity_losesQueuePosition() {
+            Order first = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            Order second = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+
+            orderBookService.amendOrder(first.getId(), 6.0, null);
+
+            OrderBookLevel level = book.getLevel(100.0, Side.BUY);
+            assertSame(second, level.getOrder());
+            assertEquals(11.0, level.getVolume());
+        }
+
+        @Test
+        void crossingPrice_movesOrderAndMatches() {
+            Order bid = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            Order ask = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.SELL, 2.0, 101.0));
+
+            orderBookService.amendOrder(bid.getId(), null, 101.0);
+
+            assertNull(book.getLevel(100.0, Side.BUY));
+            assertNull(book.getLowestAskLevel());
+            assertEquals(3.0, book.getLevel(101.0, Side.BUY).getVolume());
+            assertNull(orderIndex.symbolOf(ask.getId()));
+            List<OrderEvent> events = publishedBatch();
+            assertInstanceOf(OrderAmendEvent.class, events.get(0));
+            TradeExecutionEvent trade = (TradeExecutionEvent) events.get(1);
+            assertEquals(bid.getId(), trade.getBuyOrderId());
+            assertEquals(2.0, trade.getQuantity());
+            assertEquals(3.0, ((OrderRestEvent) events.get(2)).getQuantity());
+        }
+
+        @Test
+        void quantityNotAboveFilled_cancelsRest() {
+            Order bid = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.SELL, 2.0, 100.0));
+
+            orderBookService.amendOrder(bid.getId(), 2.0, null);
+
+            assertEquals(0, book.getOrderCount());
+            assertNull(orderIndex.symbolOf(bid.getId()));
+            OrderCancellationEvent cancelled = (OrderCancellationEvent) publishedBatch().getFirst();
+            assertEquals(3.0, cancelled.getRemainingQuantity());
+        }
+
+        @Test
+        void amendWithoutChanges_throwsInvalidOrderException() {
+            Order bid = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+
+            assertThrows(InvalidOrderException.class, () -> orderBookService.amendOrder(bid.getId(), null, null));
+            assertThrows(InvalidOrderException.class, () -> orderBookService.amendOrder(bid.getId(), null, 100.001));
+        }
+
+        @Test
+        void priceTooFarForLadder_isRejectedBeforeAnyEvent() {
+            book = new OrderBook(SYMBOL, InstrumentSpec.DEFAULT, OrderBookType.PRICE_LADDER);
+            when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(book);
+            Order first = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            Order second = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+            long sequence = sequenceGenerator.getSequenceNumber(book);
+            clearInvocations(eventPublisher);
+
+            // 5242.88 is half the ladder's largest span at a 0.01 tick
+            assertThrows(InvalidOrderException.class, () -> orderBookService.amendOrder(first.getId(), null, 6000.0));
+            assertThrows(InvalidOrderException.class,
+                    () -> orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 6000.0)));
+
+            verify(eventPublisher, never()).publishBatch(any());
+            assertSame(first, book.getLevel(100.0, Side.BUY).getOrder());
+            assertEquals(10.0, book.getLevel(100.0, Side.BUY).getVolume());
+            assertEquals(2, book.getOrderCount());
+            assertEquals(SYMBOL, orderIndex.symbolOf(first.getId()));
+            assertEquals(sequence + 1, sequenceGenerator.getSequenceNumber(book));
+
+            // still amendable within reach
+            orderBookService.amendOrder(first.getId(), null, 5000.0);
+            assertSame(first, book.getLevel(5000.0, Side.BUY).getOrder());
+            assertSame(second, book.getLevel(100.0, Side.BUY).getOrder());
+        }
+
+        @Test
+        void unknownOrder_throwsOrderNotFoundException() {
+            assertThrows(OrderNotFoundException.class, () -> orderBookService.amendOrder(99L, 1.0, null));
+            assertThrows(OrderNotFoundException.class, () -> orderBookService.cancelOrder(99L));
+        }
+
+        @Test
+        void cancelOrder_findsBookByOrderId() {
+            Order bid = orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.BUY, 5.0, 100.0));
+
+            orderBookService.cancelOrder(bid.getId());
+
+            assertEquals(0, book.getOrderCount());
+            assertThrows(OrderNotFoundException.class, () -> orderBookService.cancelOrder(bid.getId()));
+        }
+    }
+
+    @Nested
+    class ImmediateOrderTests {
+
+        private OrderBook book;
+
+        @BeforeEach
+        void setUp() {
+            book = new OrderBook(SYMBOL);
+            when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(book);
+            orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.SELL, 2.0, 100.0));
+            orderBookService.createOrder(SYMBOL, new Order(SYMBOL, Side.SELL, 3.0, 102.0));
+            clearInvocations(eventPublisher, orderBookService);
+        }
+
+        private Order order(Side side, double quantity, double price, OrderType type, TimeInForce timeInForce) {
+            Order order = new Order(SYMBOL, side, quantity, price);
+            order.setType(type);
+            order.setTimeInForce(timeInForce);
+            return order;
+        }
+
+        private List<OrderEvent> publishedBatch() {
+            ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
+            verify(eventPublisher).publishBatch(batchCaptor.capture());
+            return batchCaptor.getValue();
+        }
+
+        @Test
+        void marketOrder_sweepsEveryLevelAndExpiresTheRest() {
+            Order market = orderBookService.createOrder(SYMBOL, order(Side.BUY, 10.0, 0.0, OrderType.MARKET, TimeInForce.GTC));
+
+            assertNull(book.getLowestAskLevel());
+            assertNull(book.getHighestBidLevel());
+            assertEquals(0, book.getOrderCount());
+            assertEquals(OrderStatus.CANCELLED, market.getStatus());
+            List<OrderEvent> events = publishedBatch();
+            assertEquals(4, events.size());
+            assertEquals(102.0, ((TradeExecutionEvent) events.get(2)).getPrice());
+            OrderExpiryEvent expired = (OrderExpiryEvent) events.get(3);
+            assertEquals(market.getId(), expired.getOrderId());
+            assertEquals(5.0, expired.getRemainingQuantity());
+        }
+
+        @Test
+        void immediateOrCancel_tradesUpToItsPriceAndNeverRests() {
+            Order ioc = orderBookService.createOrder(SYMBOL, order(Side.BUY, 4.0, 101.0, OrderType.LIMIT, TimeInForce.IOC));
+
+            assertEquals(2.0, ioc.getFilledQuantity());
+            assertNull(book.getHighestBidLevel());
+            assertEquals(3.0, book.getLowestAskLevel().getVolume());
+            assertThrows(OrderNotFoundException.class, () -> orderBookService.cancelOrder(ioc.getId()));
+            List<OrderEvent> events = publishedBatch();
+            assertInstanceOf(TradeExecutionEvent.class, events.get(1));
+            assertEquals(2.0, ((OrderExpiryEvent) events.get(2)).getRemainingQuantity());
+            assertTrue(events.stream().noneMatch(OrderRestEvent.class::isInstance));
+        }
+
+        @Test
+        void fillOrKill_withoutEnoughLiquidityAtItsPrice_expiresWithoutTouchingTheBook() {
+            Order fok = orderBookService.createOrder(SYMBOL, order(Side.BUY, 4.0, 101.0, OrderType.LIMIT, TimeInForce.FOK));
+
+            assertEquals(0.0, fok.getFilledQuantity());
+            assertEquals(2.0, book.getLevel(100.0, Side.SELL).getVolume());
+            assertEquals(3.0, book.getLevel(102.0, Side.SELL).getVolume());
+            verify(orderBookService, never()).match(any(OrderBook.class), any(Order.class), any(EventSink.class));
+            List<OrderEvent> events = publishedBatch();
+            assertEquals(2, events.size());
+            assertInstanceOf(OrderCreationEvent.class, events.get(0));
+            assertEquals(4.0, ((OrderExpiryEvent) events.get(1)).getRemainingQuantity());
+        }
+
+        @Test
+        void fillOrKill_withEnoughLiquidity_fillsInFull() {
+            Order fok = orderBookService.createOrder(SYMBOL, order(Side.BUY, 4.0, 102.0, OrderType.LIMIT, TimeInForce.FOK));
+
+            assertTrue(fok.isFilled());
+            assertEquals(1.0, book.getLowestAskLevel().getVolume());
+            List<OrderEvent> events = publishedBatch();
+            assertEquals(3, events.size());
+            assertTrue(events.stream().noneMatch(OrderExpiryEvent.class::isInstance));
+        }
+
+        @Test
+        void marketOrderWithAPrice_isRejected() {
+            assertThrows(InvalidOrderException.class, () -> orderBookService.createOrder(SYMBOL,
+                    order(Side.SELL, 1.0, 100.0, OrderType.MARKET, TimeInForce.IOC)));
+        }
+    }
+
     @Nested
     class FillOrderTests {
 
@@ -180,8 +429,8 @@ public class OrderBookServiceTest {
 
             when(orderBook.getHighestBidLevel()).thenReturn(bidLevel);
             when(orderBook.getLowestAskLevel()).thenReturn(askLevel);
-            when(bidLevel.getPrice()).thenReturn(100.0);
-            when(askLevel.getPrice()).thenReturn(99.0);
+            when(bidLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(100.0));
+            when(askLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(99.0));
             when(bidLevel.getOrder()).thenReturn(bidOrder);
             when(askLevel.getOrder()).thenReturn(askOrder);
             when(orderBook.getOrderById(bidOrder.getId())).thenReturn(bidOrder);
@@ -202,8 +451,8 @@ public class OrderBookServiceTest {
 
             when(orderBook.getHighestBidLevel()).thenReturn(bidLevel);
             when(orderBook.getLowestAskLevel()).thenReturn(askLevel);
-            when(bidLevel.getPrice()).thenReturn(100.0);
-            when(askLevel.getPrice()).thenReturn(99.0);
+            when(bidLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(100.0));
+            when(askLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(99.0));
             when(bidLevel.getOrder()).thenReturn(bidOrder);
             when(askLevel.getOrder()).thenReturn(askOrder);
             when(orderBook.getOrderById(bidOrder.getId())).thenReturn(bidOrder);
@@ -227,8 +476,8 @@ public class OrderBookServiceTest {
 
             when(orderBook.getHighestBidLevel()).thenReturn(bidLevel);
             when(orderBook.getLowestAskLevel()).thenReturn(askLevel);
-            when(bidLevel.getPrice()).thenReturn(98.0);
-            when(askLevel.getPrice()).thenReturn(99.0);
+            when(bidLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(98.0));
+            when(askLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(99.0));
             when(bidLevel.getOrder()).thenReturn(bidOrder);
             when(askLevel.getOrder()).thenReturn(askOrder);
 
@@ -249,8 +498,8 @@ public class OrderBookServiceTest {
             when(orderBook.getHighestBidLevel()).thenReturn(bidLevel);
             when(orderBook.getLowestAskLevel()).thenReturn(askLevel);
             when(orderBook.getOrderById(askOrder.getId())).thenReturn(askOrder);
-            when(bidLevel.getPrice()).thenReturn(100.0);
-            when(askLevel.getPrice()).thenReturn(99.0);
+            when(bidLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(100.0));
+            when(askLevel.getScaledPrice()).thenReturn(FixedPoint.toScaled(99.0));
             when(bidLevel.getOrder()).thenReturn(bidOrder);
             when(askLevel.getOrder()).thenReturn(askOrder);
 
@@ -289,13 +538,13 @@ public class OrderBookServiceTest {
             when(orderBook.getOrderById(smallAsk3.getId())).thenReturn(smallAsk3);
             when(orderBook.getOrderById(ask4.getId())).thenReturn(ask4);
 
-            when(askLevel1.getPrice()).thenReturn(99.0);
+            when(askLevel1.getScaledPrice()).thenReturn(FixedPoint.toScaled(99.0));
             when(askLevel1.getOrder()).thenReturn(smallAsk1);
 
-            when(askLevel2.getPrice()).thenReturn(98.0);
+            when(askLevel2.getScaledPrice()).thenReturn(FixedPoint.toScaled(98.0));
             when(askLevel2.getOrder()).thenReturn(smallAsk3);
 
-            when(askLevel3.getPrice()).thenReturn(101.0);
+            when(askLevel3.getScaledPrice()).thenReturn(FixedPoint.toScaled(101.0));
             when(askLevel3.getOrder()).thenReturn(ask4);
 
             doAnswer(invocation -> {
@@ -366,9 +615,9 @@ public class OrderBookServiceTest {
             askLevel.addOrder(new Order(2L, symbol, Side.SELL, 3.0, 101.0));
 
             when(mockOrderBook.getBidLevels()).thenReturn(
-                    new ConcurrentSkipListMap<>(Map.of(100.0, bidLevel)));
+                    new ConcurrentSkipListMap<>(Map.of(FixedPoint.toScaled(100.0), bidLevel)));
             when(mockOrderBook.getAskLevels()).thenReturn(
-                    new ConcurrentSkipListMap<>(Map.of(101.0, askLevel)));
+                    new ConcurrentSkipListMap<>(Map.of(FixedPoint.toScaled(101.0), askLevel)));
 
             when(orderBookService.getOrderBook(symbol)).thenReturn(mockOrderBook);
 
@@ -391,7 +640,7 @@ public class OrderBookServiceTest {
             bidLevel.addOrder(new Order(2L, symbol, Side.BUY, 10.0, 100.0));
 
             when(mockOrderBook.getBidLevels()).thenReturn(
-                    new ConcurrentSkipListMap<>(Map.of(100.0, bidLevel)));
+                    new ConcurrentSkipListMap<>(Map.of(FixedPoint.toScaled(100.0), bidLevel)));
             when(mockOrderBook.getAskLevels()).thenReturn(Collections.emptyNavigableMap());
 
             when(orderBookService.getOrderBook(symbol)).thenReturn(mockOrderBook);
@@ -418,13 +667,13 @@ public class OrderBookServiceTest {
 
             when(mockOrderBook.getBidLevels()).thenReturn(
                     new ConcurrentSkipListMap<>(Map.of(
-                            101.0, bidLevel1,
-                            100.0, bidLevel2
+                            FixedPoint.toScaled(101.0), bidLevel1,
+                            FixedPoint.toScaled(100.0), bidLevel2
                     )));
             when(mockOrderBook.getAskLevels()).thenReturn(
                     new ConcurrentSkipListMap<>(Map.of(
-                            102.0, askLevel1,
-                            103.0, askLevel2
+                            FixedPoint.toScaled(102.0), askLevel1,
+                            FixedPoint.toScaled(103.0), askLevel2
                     )));
 
             when(orderBookService.getOrderBook(symbol)).thenReturn(mockOrderBook);
@@ -439,6 +688,16 @@ public class OrderBookServiceTest {
             assertEquals(4.0, dto.getAskLevels().get(0).getVolume());
             assertEquals(6.0, dto.getAskLevels().get(1).getVolume());
         }
+
+        @Test
+        void reportsTheLastSequenceNumberIssued() {
+            when(mockOrderBook.getBidLevels()).thenReturn(Collections.emptyNavigableMap());
+            when(mockOrderBook.getAskLevels()).thenReturn(Collections.emptyNavigableMap());
+            when(mockOrderBook.getNextSequence()).thenReturn(0L, 42L);
+
+            assertEquals(0, orderBookService.getAggregatedOrderBook(symbol).getSequenceNumber());
+            assertEquals(41, orderBookService.getAggregatedOrderBook(symbol).getSequenceNumber());
+        }
     }
 
     @Nested
@@ -447,7 +706,6 @@ public class OrderBookServiceTest {
         @Test
         void createOrder_publishesOrderCreationEventInBatch() {
             Order newOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(orderBook);
             when(orderBook.getSymbol()).thenReturn(SYMBOL);
 
@@ -459,7 +717,6 @@ public class OrderBookServiceTest {
         @Test
         void createOrder_publishesOrderCreationEventWithCorrectData() {
             Order newOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(orderBook);
             when(orderBook.getSymbol()).thenReturn(SYMBOL);
 
@@ -470,8 +727,9 @@ public class OrderBookServiceTest {
             verify(eventPublisher).publishBatch(batchCaptor.capture());
             List<OrderEvent> events = batchCaptor.getValue();
 
-            assertEquals(1, events.size());
+            assertEquals(2, events.size());
             assertTrue(events.get(0) instanceof OrderCreationEvent);
+            assertTrue(events.get(1) instanceof OrderRestEvent);
 
             OrderCreationEvent event = (OrderCreationEvent) events.get(0);
             assertEquals(result.getId(), event.getOrderId());
@@ -490,7 +748,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -513,7 +770,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -544,7 +800,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -573,7 +828,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 150.0, 150.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -599,7 +853,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 100.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -654,7 +907,6 @@ public class OrderBookServiceTest {
 
             Order newBuyOrder = new Order(null, SYMBOL, Side.BUY, 100.0, 150.0);
 
-            when(validator.validate(any(Order.class))).thenReturn(Collections.emptySet());
             when(orderBookRegistry.getOrderBook(SYMBOL)).thenReturn(realOrderBook);
 
             ArgumentCaptor<List<OrderEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
@@ -0,0 +1,51 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderIndexTest {
+
+    @Test
+    public void tracksSymbolPerOrderUntilRemoved() {
+        OrderIndex index = new OrderIndex();
+        index.put(1L, "AAPL");
+        index.put(2L, "MSFT");
+
+        assertThat(index.symbolOf(1L)).isEqualTo("AAPL");
+        assertThat(index.symbolOf(2L)).isEqualTo("MSFT");
+        assertThat(index.symbolOf(3L)).isNull();
+
+        index.remove(1L);
+        index.remove(3L);
+
+        assertThat(index.symbolOf(1L)).isNull();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentWritersAcrossStripesDoNotLoseEntries() throws InterruptedException {
+        OrderIndex index = new OrderIndex();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = (t + 1) * 1_000_000L;
+            String symbol = "S" + t;
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (long id = base; id < base + 20_000; id++) {
+                    index.put(id, symbol);
+                    if (id % 2 == 0) index.remove(id);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertThat(index.size()).isEqualTo(4 * 10_000);
+        assertThat(index.symbolOf(3_000_001L)).isEqualTo("S2");
+        assertThat(index.symbolOf(3_000_002L)).isNull();
+    }
+}
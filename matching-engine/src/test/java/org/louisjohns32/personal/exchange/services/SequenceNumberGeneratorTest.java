@@ -0,0 +1,150 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.time.Duration.ofSeconds;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class SequenceNumberGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    private static long[] draw(SequenceNumberGenerator generator, OrderBook book, int count) {
+        long[] sequences = new long[count];
+        for (int i = 0; i < count; i++) {
+            sequences[i] = generator.getSequenceNumber(book);
+        }
+        return sequences;
+    }
+
+    private long persistedMark(String symbol) throws Exception {
+        return ByteBuffer.wrap(Files.readAllBytes(dir.resolve(symbol + ".seq"))).getLong();
+    }
+
+    @Test
+    public void eachBookCountsFromOneIndependently() {
+        SequenceNumberGenerator generator = new SequenceNumberGenerator();
+        OrderBook aapl = new OrderBook("AAPL");
+        OrderBook msft = new OrderBook("MSFT");
+
+        assertThat(draw(generator, aapl, 3)).containsExactly(1, 2, 3);
+        assertThat(draw(generator, msft, 2)).containsExactly(1, 2);
+        assertThat(generator.peekSequenceNumber(aapl)).isEqualTo(4);
+        assertThat(generator.getSequenceNumber(aapl)).isEqualTo(4);
+    }
+
+    // a reserver held up until the returned latch is released, so reservations made ahead of time queue behind it
+    private static CountDownLatch holdUp(ExecutorService reserver) {
+        CountDownLatch gate = new CountDownLatch(1);
+        reserver.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return gate;
+    }
+
+    @Test
+    public void blockEndIsPersistedBeforeItsFirstNumberIsIssued() throws Exception {
+        SequenceNumberGenerator generator = new SequenceNumberGenerator(dir.toString(), 4, Executors.newSingleThreadExecutor());
+        OrderBook book = new OrderBook("AAPL");
+
+        generator.getSequenceNumber(book);
+        assertThat(persistedMark("AAPL")).isEqualTo(5);
+        generator.close();
+    }
+
+    @Test
+    public void nextBlockIsReservedHalfWayThroughOffTheMatchingThread() throws Exception {
+        ExecutorService reserver = Executors.newSingleThreadExecutor();
+        CountDownLatch gate = holdUp(reserver);
+        SequenceNumberGenerator generator = new SequenceNumberGenerator(dir.toString(), 4, reserver);
+        OrderBook book = new OrderBook("AAPL");
+
+        assertThat(draw(generator, book, 4)).containsExactly(1, 2, 3, 4);
+        // number 3 asked for the next block, but drawing never waited for it
+        assertThat(persistedMark("AAPL")).isEqualTo(5);
+
+        gate.countDown();
+        await().atMost(ofSeconds(5)).until(() -> generator.getHighWaterMark("AAPL") == 9);
+        assertThat(persistedMark("AAPL")).isEqualTo(9);
+        assertThat(draw(generator, book, 2)).containsExactly(5, 6);
+        assertThat(persistedMark("AAPL")).isEqualTo(9);
+        generator.getSequenceNumber(book);
+        await().atMost(ofSeconds(5)).until(() -> generator.getHighWaterMark("AAPL") == 13);
+        generator.close();
+    }
+
+    @Test
+    public void matchingThreadPersistsTheBlockItselfWhenTheReservationAheadIsLate() throws Exception {
+        ExecutorService reserver = Executors.newSingleThreadExecutor();
+        CountDownLatch gate = holdUp(reserver);
+        SequenceNumberGenerator generator = new SequenceNumberGenerator(dir.toString(), 4, reserver);
+        OrderBook book = new OrderBook("AAPL");
+
+        assertThat(draw(generator, book, 5)).containsExactly(1, 2, 3, 4, 5);
+        assertThat(persistedMark("AAPL")).isEqualTo(9);
+
+        gate.countDown();
+        generator.close();
+        assertThat(persistedMark("AAPL")).as("the late reservation never lowers the mark").isEqualTo(9);
+    }
+
+    @Test
+    public void bookWithoutRecoveredHistoryResumesFromItsHighWaterMark() {
+        SequenceNumberGenerator before = new SequenceNumberGenerator(dir.toString(), 4);
+        OrderBook book = new OrderBook("AAPL");
+        draw(before, book, 6);
+        before.close();
+
+        SequenceNumberGenerator after = new SequenceNumberGenerator(dir.toString(), 4);
+        OrderBook recreated = new OrderBook("AAPL");
+
+        assertThat(after.getHighWaterMark("AAPL")).isEqualTo(9);
+        assertThat(draw(after, recreated, 2)).containsExactly(9, 10);
+        assertThat(after.getSequenceNumber(new OrderBook("MSFT"))).isEqualTo(1);
+        after.close();
+    }
+
+    @Test
+    public void replayRedrawsTheSameNumbersWithoutLoweringTheMark() throws Exception {
+        SequenceNumberGenerator before = new SequenceNumberGenerator(dir.toString(), 4);
+        draw(before, new OrderBook("AAPL"), 6);
+        before.close();
+
+        SequenceNumberGenerator after = new SequenceNumberGenerator(dir.toString(), 4);
+        OrderBook replayed = new OrderBook("AAPL");
+        after.setReplaying(true);
+        assertThat(draw(after, replayed, 6)).containsExactly(1, 2, 3, 4, 5, 6);
+        after.setReplaying(false);
+
+        assertThat(draw(after, replayed, 3)).containsExactly(7, 8, 9);
+        assertThat(persistedMark("AAPL")).isEqualTo(13);
+        after.close();
+    }
+
+    @Test
+    public void restoredCounterContinuesFromTheSnapshot() {
+        SequenceNumberGenerator generator = new SequenceNumberGenerator(dir.toString(), 4);
+        OrderBook book = new OrderBook("AAPL");
+
+        generator.restoreSequenceNumber(book, 42);
+
+        assertThat(generator.peekSequenceNumber(book)).isEqualTo(42);
+        assertThat(draw(generator, book, 2)).containsExactly(42, 43);
+        generator.close();
+    }
+}
@@ -0,0 +1,246 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.louisjohns32.personal.exchange.common.domain.FixedPoint;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.dto.MarketSnapshotDTO;
+import org.louisjohns32.personal.exchange.dto.OrderBookDTO;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.events.EncodedEvents;
+import org.louisjohns32.personal.exchange.events.EventSink;
+import org.louisjohns32.personal.exchange.exceptions.InvalidOrderException;
+import org.louisjohns32.personal.exchange.exceptions.OrderBookNotFoundException;
+import org.louisjohns32.personal.exchange.exceptions.RiskLimitExceededException;
+import org.louisjohns32.personal.exchange.pipeline.CommandJournal;
+import org.louisjohns32.personal.exchange.pipeline.NoOpCommandJournal;
+import org.louisjohns32.personal.exchange.risk.RiskEngine;
+import org.louisjohns32.personal.exchange.risk.RiskLimits;
+import org.louisjohns32.personal.exchange.snapshot.NoOpSnapshotStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.time.Duration.ofSeconds;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ShardedOrderBookServiceTest {
+
+    private OrderBookServiceImpl delegate;
+    private EventPublisher publisher;
+    private ShardedOrderBookService shardedService;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(OrderBookServiceImpl.class);
+        publisher = mock(EventPublisher.class);
+        when(delegate.getOrderBook(any())).thenAnswer(invocation -> new OrderBook(invocation.getArgument(0)));
+        shardedService = new ShardedOrderBookService(delegate, publisher, new NoOpCommandJournal(),
+                4, 64, "blocking");
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardedService.shutdown();
+    }
+
+    @Test
+    void sameSymbol_alwaysRunsOnSameShardThread() throws Exception {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        when(delegate.createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class))).thenAnswer(invocation -> {
+            threadNames.add(Thread.currentThread().getName());
+            return invocation.getArgument(1);
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(callers.submit(() ->
+                    shardedService.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 100.0))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        callers.shutdown();
+
+        assertEquals(Set.of("matching-shard-" + shardedService.shardFor("AAPL").getIndex()), threadNames);
+    }
+
+    @Test
+    void createOrder_returnsMatchResult() {
+        Order order = new Order(1L, "AAPL", Side.BUY, 1.0, 100.0);
+        when(delegate.createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class))).thenReturn(order);
+
+        assertSame(order, shardedService.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 100.0)));
+    }
+
+    @Test
+    void createOrder_publishesEventsFromPublishStage() {
+        Set<String> publishThreads = ConcurrentHashMap.newKeySet();
+        List<OrderEvent> published = new CopyOnWriteArrayList<>();
+        when(delegate.createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class))).thenAnswer(invocation -> {
+            EventSink sink = invocation.getArgument(3);
+            sink.orderCreated(1L, 7L, "AAPL", Side.BUY, FixedPoint.toScaled(1.0), FixedPoint.toScaled(100.0), 0L);
+            return invocation.getArgument(1);
+        });
+        doCallRealMethod().when(publisher).publishEncoded(any(EncodedEvents.class));
+        doAnswer(invocation -> {
+            publishThreads.add(Thread.currentThread().getName());
+            published.addAll(invocation.getArgument(0));
+            return null;
+        }).when(publisher).publishBatch(anyList());
+
+        shardedService.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 100.0));
+
+        await().atMost(ofSeconds(5)).until(() -> published.size() == 1);
+        OrderCreationEvent event = (OrderCreationEvent) published.getFirst();
+        assertEquals(7L, event.getOrderId());
+        assertEquals(100.0, event.getPrice());
+        assertEquals(1L, event.getSequenceNumber());
+        assertEquals(Set.of("pipeline-publish"), publishThreads);
+    }
+
+    @Test
+    void createOrder_rejectedByPreTradeCheck_neverReachesTheShard() {
+        doThrow(new InvalidOrderException("Price off tick")).when(delegate).preTradeCheck(any(OrderBook.class), any(Order.class));
+
+        assertThrows(InvalidOrderException.class,
+                () -> shardedService.createOrder("AAPL", new Order("AAPL", Side.BUY, 1.0, 100.005)));
+
+        verify(delegate, never()).nextOrderId(anyInt());
+        verify(delegate, never()).createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class));
+    }
+
+    @Test
+    void createOrder_breachingRiskLimit_isRejectedBeforeMatching() {
+        RiskEngine riskEngine = new RiskEngine(true, accountId -> new RiskLimits(FixedPoint.toScaled(150), 0, 0),
+                TimeProvider.getSystemTimeProvider());
+        ShardedOrderBookService service = new ShardedOrderBookService(delegate, publisher, new NoOpCommandJournal(),
+                new NoOpSnapshotStore(), riskEngine, 2, 64, "blocking");
+        // the first order rests, so its reservation holds until the second is checked
+        when(delegate.createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class)))
+                .thenAnswer(invocation -> {
+                    Order order = invocation.getArgument(1);
+                    invocation.<EventSink>getArgument(3).orderRested(1, invocation.getArgument(2), "AAPL",
+                            order.getSide(), order.getScaledQuantity(), order.getScaledPrice());
+                    return order;
+                });
+        when(delegate.nextOrderId(anyInt())).thenReturn(1L, 2L);
+        try {
+            Order first = new Order("AAPL", Side.BUY, 1.0, 100.0);
+            first.setAccountId(7L);
+            Order second = new Order("AAPL", Side.BUY, 1.0, 100.0);
+            second.setAccountId(7L);
+
+            service.createOrder("AAPL", first);
+            assertThrows(RiskLimitExceededException.class, () -> service.createOrder("AAPL", second));
+
+            verify(delegate, times(1)).createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class));
+            assertEquals(FixedPoint.toScaled(100), riskEngine.getOpenNotional(7L));
+            assertEquals(1, riskEngine.getOpenOrderCount());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void createOrder_failingToJournal_isRejectedBeforeMatching() {
+        RiskEngine riskEngine = new RiskEngine();
+        CommandJournal failing = (command, endOfBatch) -> {
+            if (command.getType().isJournalled()) throw new UncheckedIOException(new IOException("Disk full"));
+        };
+        ShardedOrderBookService service = new ShardedOrderBookService(delegate, publisher, failing,
+                new NoOpSnapshotStore(), riskEngine, 2, 64, "blocking");
+        when(delegate.nextOrderId(anyInt())).thenReturn(1L);
+        try {
+            Order order = new Order("AAPL", Side.BUY, 1.0, 100.0);
+            order.setAccountId(7L);
+
+            UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                    () -> service.createOrder("AAPL", order));
+
+            assertEquals("Disk full", thrown.getCause().getMessage());
+            verify(delegate, never()).createOrder(any(OrderBook.class), any(Order.class), anyLong(), any(EventSink.class));
+            assertEquals(0, riskEngine.getOpenOrderCount());
+            assertEquals(0, riskEngine.getOpenNotional(7L));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void delegateException_isRethrownToCaller() {
+        when(delegate.getAggregatedOrderBook("NONE")).thenThrow(new OrderBookNotFoundException("NONE"));
+
+        assertThrows(OrderBookNotFoundException.class, () -> shardedService.getAggregatedOrderBook("NONE"));
+    }
+
+    @Test
+    void marketSnapshot_readsEachBookOnItsShard() {
+        Map<String, String> readOn = new ConcurrentHashMap<>();
+        when(delegate.getSymbols()).thenReturn(List.of("AAPL", "MSFT"));
+        when(delegate.getAggregatedOrderBook(any())).thenAnswer(invocation -> {
+            String symbol = invocation.getArgument(0);
+            readOn.put(symbol, Thread.currentThread().getName());
+            return new OrderBookDTO(symbol, List.of(), List.of(), 3L);
+        });
+        long before = System.currentTimeMillis();
+
+        MarketSnapshotDTO snapshot = shardedService.getMarketSnapshot();
+
+        assertTrue(snapshot.getTimestamp() >= before);
+        assertEquals(List.of("AAPL", "MSFT"), snapshot.getBooks().stream().map(OrderBookDTO::getSymbol).toList());
+        for (String symbol : List.of("AAPL", "MSFT")) {
+            assertEquals("matching-shard-" + shardedService.shardFor(symbol).getIndex(), readOn.get(symbol));
+        }
+    }
+
+    @Test
+    void deleteOrderById_runsCancelOnOwningShard() {
+        OrderBook orderBook = new OrderBook("AAPL");
+
+        shardedService.deleteOrderById(orderBook, 42L);
+
+        verify(delegate).deleteOrderById(any(OrderBook.class), eq(42L), any(EventSink.class));
+    }
+
+    @Test
+    void shardAssignment_isStableAndWithinRange() {
+        for (String symbol : List.of("NVDA", "AMZN", "GOOG", "AAPL", "MSFT")) {
+            MatchingShard shard = shardedService.shardFor(symbol);
+            assertSame(shard, shardedService.shardFor(symbol));
+            assertTrue(shard.getIndex() >= 0 && shard.getIndex() < shardedService.getShardCount());
+        }
+    }
+
+    @Test
+    void nonPositiveShardCount_defaultsToAvailableProcessors() {
+        ShardedOrderBookService defaulted = new ShardedOrderBookService(delegate, publisher,
+                new NoOpCommandJournal(), 0, 64, "blocking");
+        try {
+            assertEquals(Runtime.getRuntime().availableProcessors(), defaulted.getShardCount());
+        } finally {
+            defaulted.shutdown();
+        }
+    }
+}
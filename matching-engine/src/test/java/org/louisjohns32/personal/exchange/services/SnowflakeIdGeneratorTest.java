@@ -149,6 +149,45 @@ public class SnowflakeIdGeneratorTest {
     }
 
 
+    @Test
+    void recover_continuesAfterLastIssuedIdInSameMillisecond() {
+        when(mockTimeProvider.currentTimeMillis()).thenReturn(BASE_TIMESTAMP);
+        SnowflakeIdGenerator before = new SnowflakeIdGenerator(WORKER_ID, mockTimeProvider);
+        long lastIssued = 0;
+        for (int i = 0; i < 10; i++) {
+            lastIssued = before.nextId();
+        }
+
+        idGenerator.recover(lastIssued);
+        long next = idGenerator.nextId();
+
+        assertTrue(next > lastIssued);
+        assertEquals(10, extractSequence(next));
+    }
+
+    @Test
+    void lastIssuedId_returnsTheLastIdWithoutIssuingOne() {
+        when(mockTimeProvider.currentTimeMillis()).thenReturn(BASE_TIMESTAMP);
+        assertNull(idGenerator.lastIssuedId());
+        long last = 0;
+        for (int i = 0; i < 3; i++) {
+            last = idGenerator.nextId();
+        }
+
+        assertEquals(last, idGenerator.lastIssuedId());
+        assertEquals(last, idGenerator.lastIssuedId());
+        assertEquals(last + 1, idGenerator.nextId());
+    }
+
+    @Test
+    void recover_ignoresOlderIds() {
+        when(mockTimeProvider.currentTimeMillis()).thenReturn(BASE_TIMESTAMP);
+        long current = idGenerator.nextId();
+
+        idGenerator.recover(current - (1L << 22));
+
+        assertEquals(1, extractSequence(idGenerator.nextId()));
+    }
 
     private long extractSequence(long id) {
         return id & 0xFFF;
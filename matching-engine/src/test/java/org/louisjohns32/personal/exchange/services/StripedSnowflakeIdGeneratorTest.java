@@ -0,0 +1,187 @@
+package org.louisjohns32.personal.exchange.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StripedSnowflakeIdGeneratorTest {
+
+    private static final long WORKER_ID = 5L;
+    private static final long BASE_TIMESTAMP = 10000000L;
+
+    private final AtomicLong clock = new AtomicLong(BASE_TIMESTAMP);
+
+    private StripedSnowflakeIdGenerator generator(int stripeBits, long maxDriftMillis, int blockSize) {
+        return new StripedSnowflakeIdGenerator(WORKER_ID, stripeBits, maxDriftMillis, blockSize, clock::get);
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long worker(long id) {
+        return (id >>> 12) & 0x3FF;
+    }
+
+    private static long sequence(long id) {
+        return id & 0xFFF;
+    }
+
+    @Test
+    public void eachStripeEmbedsItsOwnWorkerBits() {
+        StripedSnowflakeIdGenerator generator = generator(2, 1000, 1);
+
+        long first = generator.nextId(0);
+        long other = generator.nextId(3);
+        long wrapped = generator.nextId(5);
+
+        assertThat(worker(first)).isEqualTo(WORKER_ID << 2);
+        assertThat(worker(other)).isEqualTo(WORKER_ID << 2 | 3);
+        assertThat(worker(wrapped)).isEqualTo(WORKER_ID << 2 | 1);
+        assertThat(sequence(first)).isZero();
+        assertThat(sequence(other)).isZero();
+        assertThat(timestamp(first)).isEqualTo(BASE_TIMESTAMP);
+    }
+
+    @Test
+    public void lastIssuedIdCoversEveryStripeAndPrefetchedBlockWithoutIssuing() {
+        StripedSnowflakeIdGenerator generator = generator(2, 1000, 8);
+        assertThat(generator.lastIssuedId()).isNull();
+
+        long first = generator.nextId(0);
+        long other = generator.nextId(3);
+        Long lastIssued = generator.lastIssuedId();
+
+        // stripe 3 sorts highest in the same millisecond, and its block of 8 is reserved up front
+        assertThat(lastIssued).isGreaterThan(Math.max(first, other));
+        assertThat(worker(lastIssued)).isEqualTo(WORKER_ID << 2 | 3);
+        assertThat(sequence(lastIssued)).isEqualTo(7);
+        assertThat(generator.lastIssuedId()).isEqualTo(lastIssued);
+        for (int i = 0; i < 7; i++) {
+            assertThat(generator.nextId(3)).isLessThanOrEqualTo(lastIssued);
+        }
+    }
+
+    @Test
+    public void exhaustedMillisecondBorrowsFromTheNextWithoutWaiting() {
+        StripedSnowflakeIdGenerator generator = generator(2, 1000, 1);
+
+        long last = 0;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId(1);
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+
+        assertThat(timestamp(last)).isEqualTo(BASE_TIMESTAMP + 2);
+        assertThat(sequence(last)).isEqualTo(4095);
+    }
+
+    @Test
+    public void clockMovingBackwardsKeepsCountingInsteadOfThrowing() {
+        StripedSnowflakeIdGenerator generator = generator(2, 0, 1);
+        long before = generator.nextId(0);
+
+        clock.set(BASE_TIMESTAMP - 5000);
+        long after = generator.nextId(0);
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(timestamp(after)).isEqualTo(BASE_TIMESTAMP);
+        assertThat(sequence(after)).isEqualTo(1);
+    }
+
+    @Test
+    public void driftBeyondTheLimitWaitsForTheClock() throws Exception {
+        StripedSnowflakeIdGenerator generator = generator(0, 0, 1);
+        for (int i = 0; i < 4096; i++) {
+            generator.nextId(0);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> blocked = executor.submit(() -> generator.nextId(0));
+            Thread.sleep(50);
+            assertThat(blocked).isNotDone();
+
+            clock.incrementAndGet();
+            long id = blocked.get();
+            assertThat(timestamp(id)).isEqualTo(BASE_TIMESTAMP + 1);
+            assertThat(sequence(id)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prefetchedBlocksHandOutConsecutiveIdsPerStripe() {
+        StripedSnowflakeIdGenerator generator = generator(1, 1000, 8);
+
+        long first = generator.nextId(0);
+        long otherStripe = generator.nextId(1);
+        long second = generator.nextId(0);
+        // anyone without a stripe reserves past the block rather than into it
+        long unstriped = generator.nextId();
+
+        assertThat(sequence(first)).isZero();
+        assertThat(sequence(second)).isEqualTo(1);
+        assertThat(sequence(otherStripe)).isZero();
+        assertThat(sequence(unstriped)).isEqualTo(8);
+    }
+
+    @Test
+    public void concurrentCallersNeverShareAnId() throws Exception {
+        StripedSnowflakeIdGenerator generator = new StripedSnowflakeIdGenerator(WORKER_ID, 2, 1000, 1,
+                TimeProvider.getSystemTimeProvider());
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    public void recoverMovesEveryStripePastTheLastIssuedIdAndItsDrift() {
+        StripedSnowflakeIdGenerator before = generator(1, 10, 8);
+        long lastIssued = before.nextId(1);
+
+        StripedSnowflakeIdGenerator after = generator(1, 10, 8);
+        after.recover(lastIssued);
+
+        long next = after.nextId(0);
+        assertThat(next).isGreaterThan(lastIssued);
+        assertThat(timestamp(next)).isEqualTo(BASE_TIMESTAMP + 11);
+        assertThat(timestamp(after.nextId())).isEqualTo(BASE_TIMESTAMP + 11);
+    }
+
+    @Test
+    public void workerIdMustLeaveRoomForStripeBits() {
+        assertThatThrownBy(() -> new StripedSnowflakeIdGenerator(64, 4, 1000, 1, clock::get))
+                .isInstanceOf(IllegalArgumentException.class);
+        new StripedSnowflakeIdGenerator(63, 4, 1000, 1, clock::get);
+    }
+}
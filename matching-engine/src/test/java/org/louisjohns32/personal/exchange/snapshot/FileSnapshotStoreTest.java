@@ -0,0 +1,97 @@
+package org.louisjohns32.personal.exchange.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.entities.InstrumentSpec;
+import org.louisjohns32.personal.exchange.entities.Order;
+import org.louisjohns32.personal.exchange.entities.OrderBook;
+import org.louisjohns32.personal.exchange.entities.OrderBookType;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static OrderBook book() {
+        OrderBook book = new OrderBook("AAPL", InstrumentSpec.DEFAULT, OrderBookType.PRICE_LADDER);
+        book.addOrder(new Order(1L, "AAPL", Side.BUY, 2.0, 99.00));
+        book.addOrder(new Order(2L, "AAPL", Side.BUY, 1.0, 99.00));
+        Order ask = new Order(3L, "AAPL", Side.SELL, 5.0, 101.50);
+        ask.setAccountId(77L);
+        book.addOrder(ask);
+        book.getOrderById(3L).fill(1.5);
+        return book;
+    }
+
+    private static List<String> orders(OrderBook book) {
+        List<String> orders = new ArrayList<>();
+        book.forEachOrder(order -> orders.add(order.getId() + " " + order.getSide() + " "
+                + order.getRemainingQuantity() + "@" + order.getPrice()));
+        return orders;
+    }
+
+    @Test
+    public void writtenSnapshotLoadsBackAndRebuildsTheBook() {
+        FileSnapshotStore store = new FileSnapshotStore(dir.toString(), 2);
+        OrderBook original = book();
+
+        store.write(new EngineSnapshot(42, 7, List.of(OrderBookSnapshot.capture(original, 50, 9))));
+        EngineSnapshot loaded = store.loadLatest();
+
+        assertThat(loaded.replayFrom()).isEqualTo(42);
+        assertThat(loaded.lastOrderId()).isEqualTo(7);
+        OrderBookSnapshot snapshot = loaded.books().getFirst();
+        assertThat(snapshot.symbol()).isEqualTo("AAPL");
+        assertThat(snapshot.type()).isEqualTo(OrderBookType.PRICE_LADDER);
+        assertThat(snapshot.journalPosition()).isEqualTo(50);
+        assertThat(snapshot.nextSequence()).isEqualTo(9);
+
+        OrderBook restored = new OrderBook("AAPL", InstrumentSpec.DEFAULT, OrderBookType.PRICE_LADDER);
+        for (int i = 0; i < snapshot.orderCount(); i++) {
+            restored.addOrder(snapshot.order(i));
+        }
+        assertThat(orders(restored)).containsExactlyElementsOf(orders(original))
+                .containsExactly("1 BUY 2.0@99.0", "2 BUY 1.0@99.0", "3 SELL 3.5@101.5");
+        assertThat(restored.getLowestAskLevel().getVolume()).isEqualTo(3.5);
+        assertThat(snapshot.accountIds()).containsExactly(0L, 0L, 77L);
+        assertThat(restored.getOrderById(3L).getAccountId()).isEqualTo(77L);
+    }
+
+    @Test
+    public void corruptLatestSnapshotFallsBackToOlderOneAndOldSnapshotsArePruned() throws IOException {
+        FileSnapshotStore store = new FileSnapshotStore(dir.toString(), 2);
+        store.write(new EngineSnapshot(10, 1, List.of()));
+        store.write(new EngineSnapshot(20, 2, List.of()));
+        store.write(new EngineSnapshot(30, 3, List.of()));
+
+        assertThat(store.earliestReplayPosition()).isEqualTo(20);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve(String.format("snapshot-%020d.bin", 30)).toFile(), "rw")) {
+            file.seek(9);
+            file.write(0x7F);
+        }
+        assertThat(store.loadLatest().replayFrom()).isEqualTo(20);
+    }
+
+    @Test
+    public void emptyStoreHasNothingToLoad() {
+        FileSnapshotStore store = new FileSnapshotStore(dir.resolve("missing").toString(), 2);
+
+        assertThat(store.loadLatest()).isNull();
+        assertThat(store.earliestReplayPosition()).isZero();
+    }
+}
@@ -0,0 +1,10 @@
+package org.louisjohns32.personal.exchange.persist.dao;
+
+import org.louisjohns32.personal.exchange.persist.entity.SymbolSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SymbolSequenceRepository extends JpaRepository<SymbolSequenceEntity, String> {
+
+}
@@ -74,6 +74,11 @@ public class OrderEntity {
     // TODO createdAt and updatedAt are incorrectly used here: time created and updated should be read from OrderEvent
 
 
+    public void amend(Double quantity, Double price) {
+        this.quantity = quantity;
+        this.price = price;
+    }
+
     public Double getRemainingQuantity() {
         return quantity - filledQuantity;
     }
@@ -0,0 +1,31 @@
+package org.louisjohns32.personal.exchange.persist.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Last event sequence number applied for a symbol. Updated in the same
+ * transaction as the orders and trades, so an event the engine republishes
+ * after a restart is recognised and skipped.
+ */
+@Getter
+@Entity
+@Table(name = "symbol_sequences")
+public class SymbolSequenceEntity {
+
+    @Id
+    @Column(length = 10)
+    private String symbol;
+
+    @Setter
+    @Column(name = "last_sequence_number", nullable = false)
+    private long lastSequenceNumber;
+
+    protected SymbolSequenceEntity() {
+    }
+
+    public SymbolSequenceEntity(String symbol) {
+        this.symbol = symbol;
+    }
+}
@@ -3,8 +3,10 @@ package org.louisjohns32.personal.exchange.persist.service;
 import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.events.*;
 import org.louisjohns32.personal.exchange.persist.dao.OrderRepository;
+import org.louisjohns32.personal.exchange.persist.dao.SymbolSequenceRepository;
 import org.louisjohns32.personal.exchange.persist.dao.TradeRepository;
 import org.louisjohns32.personal.exchange.persist.entity.OrderEntity;
+import org.louisjohns32.personal.exchange.persist.entity.SymbolSequenceEntity;
 import org.louisjohns32.personal.exchange.persist.entity.TradeEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +14,9 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderPersistService {
@@ -29,6 +33,8 @@ public class OrderPersistService {
     @Autowired
     TradeRepository tradeRepository;
 
+    @Autowired
+    SymbolSequenceRepository symbolSequenceRepository;
 
     // TODO we should be consuming events in batches and batching database transactions to increase TPS
     @KafkaListener(topics = "${exchange.kafka.topics.order-events}", groupId = "${exchange.kafka.group-id}",
@@ -36,17 +42,29 @@ public class OrderPersistService {
     )
     @Transactional
     public void consume(List<OrderEvent> events) {
+        // the matching engine republishes events after a restart, skip any at or below a symbol's last applied one
+        Map<String, SymbolSequenceEntity> sequences = new HashMap<>();
         for  (OrderEvent event : events) {
+            SymbolSequenceEntity sequence = sequences.computeIfAbsent(event.getSymbol(), symbol ->
+                    symbolSequenceRepository.findById(symbol).orElseGet(() -> new SymbolSequenceEntity(symbol)));
+            if (event.getSequenceNumber() <= sequence.getLastSequenceNumber()) {
+                continue;
+            }
+            sequence.setLastSequenceNumber(event.getSequenceNumber());
             switch (event) {
                 case OrderCreationEvent orderCreationEvent -> handleOrderCreation(orderCreationEvent);
-                case OrderCancellationEvent orderCancellationEvent -> handleOrderCancellation(orderCancellationEvent);
+                case OrderCancellationEvent orderCancellationEvent -> cancelOrder(orderCancellationEvent.getOrderId());
+                // an immediate order's unfilled remainder; the order is as done as a cancelled one
+                case OrderExpiryEvent orderExpiryEvent -> cancelOrder(orderExpiryEvent.getOrderId());
                 case TradeExecutionEvent tradeExecutionEvent -> handleTradeExecution(tradeExecutionEvent);
+                case OrderAmendEvent orderAmendEvent -> handleOrderAmend(orderAmendEvent);
                 case OrderRestEvent orderRestEvent -> {}
                 default -> throw new IllegalArgumentException(
                         "Unknown event type: " + event.getClass().getName()
                 );
             }
         }
+        symbolSequenceRepository.saveAll(sequences.values());
     }
 
     private void handleOrderCreation(OrderCreationEvent event) {
@@ -62,14 +80,24 @@ public class OrderPersistService {
     }
 
 
-    private void handleOrderCancellation(OrderCancellationEvent event) {
+    private void cancelOrder(Long orderId) {
+
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Order not found: " + orderId
+                ));
+
+        order.setStatus(OrderStatus.CANCELLED);
+        orderRepository.save(order);
+    }
 
+    private void handleOrderAmend(OrderAmendEvent event) {
         OrderEntity order = orderRepository.findById(event.getOrderId())
                 .orElseThrow(() -> new IllegalStateException(
                         "Order not found: " + event.getOrderId()
                 ));
 
-        order.setStatus(OrderStatus.CANCELLED);
+        order.amend(event.getNewQuantity(), event.getNewPrice());
         orderRepository.save(order);
     }
 
@@ -2,13 +2,19 @@ package org.louisjohns32.personal.exchange.persist.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.louisjohns32.personal.exchange.common.domain.OrderStatus;
 import org.louisjohns32.personal.exchange.common.domain.Side;
+import org.louisjohns32.personal.exchange.common.events.OrderAmendEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderCancellationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderCreationEvent;
 import org.louisjohns32.personal.exchange.common.events.OrderEvent;
+import org.louisjohns32.personal.exchange.common.events.OrderExpiryEvent;
 import org.louisjohns32.personal.exchange.common.events.TradeExecutionEvent;
 import org.louisjohns32.personal.exchange.persist.dao.OrderRepository;
+import org.louisjohns32.personal.exchange.persist.dao.SymbolSequenceRepository;
 import org.louisjohns32.personal.exchange.persist.dao.TradeRepository;
 import org.louisjohns32.personal.exchange.persist.entity.OrderEntity;
+import org.louisjohns32.personal.exchange.persist.entity.SymbolSequenceEntity;
 import org.louisjohns32.personal.exchange.persist.entity.TradeEntity;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -36,6 +42,9 @@ class OrderPersistServiceTest {
     @Mock
     private TradeRepository tradeRepository;
 
+    @Mock
+    private SymbolSequenceRepository symbolSequenceRepository;
+
     @Captor
     private ArgumentCaptor<OrderEntity> orderCaptor;
 
@@ -50,6 +59,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(10.0)
+                .sequenceNumber(1)
                 .build();
 
 
@@ -70,6 +80,7 @@ class OrderPersistServiceTest {
                 .sellOrderId(2)
                 .price(150)
                 .quantity(5)
+                .sequenceNumber(1)
                 .build();
 
         OrderEntity buyOrder = new OrderEntity(1L, event.getSymbol(), Side.BUY, event.getQuantity(),  event.getPrice());
@@ -89,6 +100,45 @@ class OrderPersistServiceTest {
         assertEquals(150, savedEntity.getPrice());
     }
 
+    @Test
+    void consume_shouldUpdateQuantityAndPrice_whenOrderAmendEventReceived() {
+        OrderAmendEvent event = OrderAmendEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .side(Side.BUY)
+                .price(150.0)
+                .remainingQuantity(10.0)
+                .newPrice(151.0)
+                .newQuantity(6.0)
+                .newRemainingQuantity(6.0)
+                .sequenceNumber(1)
+                .build();
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(new OrderEntity(1L, "AAPL", Side.BUY, 10.0, 150.0)));
+
+        service.consume(List.of(event));
+
+        verify(orderRepository).save(orderCaptor.capture());
+        assertEquals(6.0, orderCaptor.getValue().getQuantity());
+        assertEquals(151.0, orderCaptor.getValue().getPrice());
+    }
+
+    @Test
+    void consume_shouldMarkOrderCancelled_whenOrderExpiryEventReceived() {
+        OrderExpiryEvent event = OrderExpiryEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .side(Side.BUY)
+                .price(0.0)
+                .remainingQuantity(4.0)
+                .sequenceNumber(1)
+                .build();
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(new OrderEntity(1L, "AAPL", Side.BUY, 10.0, 0.0)));
+
+        service.consume(List.of(event));
+
+        verify(orderRepository).save(orderCaptor.capture());
+        assertEquals(OrderStatus.CANCELLED, orderCaptor.getValue().getStatus());
+    }
 
     @Test
     void consume_shouldPersistMultipleOrders_whenBatchContainsMultipleCreationEvents() {
@@ -97,6 +147,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(10.0)
+                .sequenceNumber(1)
                 .build();
 
         OrderCreationEvent event2 = OrderCreationEvent.builder()
@@ -104,6 +155,7 @@ class OrderPersistServiceTest {
                 .symbol("GOOGL")
                 .price(2800.0)
                 .quantity(5.0)
+                .sequenceNumber(2)
                 .build();
 
         service.consume(List.of(event1, event2));
@@ -123,6 +175,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(10.0)
+                .sequenceNumber(1)
                 .build();
 
         TradeExecutionEvent tradeEvent = TradeExecutionEvent.builder()
@@ -131,6 +184,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(5.0)
+                .sequenceNumber(2)
                 .build();
 
         OrderEntity buyOrder = new OrderEntity(2L, "AAPL", Side.BUY, 5.0, 150.0);
@@ -152,6 +206,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(10.0)
+                .sequenceNumber(1)
                 .build();
         when(orderRepository.save(any())).thenThrow(new RuntimeException("Database error"));
 
@@ -165,6 +220,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(10.0)
+                .sequenceNumber(1)
                 .build();
 
         TradeExecutionEvent event2 = TradeExecutionEvent.builder()
@@ -173,6 +229,7 @@ class OrderPersistServiceTest {
                 .symbol("AAPL")
                 .price(150.0)
                 .quantity(5.0)
+                .sequenceNumber(2)
                 .build();
 
         when(orderRepository.findById(999L)).thenReturn(Optional.empty());
@@ -197,6 +254,7 @@ class OrderPersistServiceTest {
                     .symbol("AAPL")
                     .price(150.0)
                     .quantity(10.0)
+                    .sequenceNumber(i)
                     .build());
         }
 
@@ -205,5 +263,69 @@ class OrderPersistServiceTest {
         verify(orderRepository, times(500)).save(any(OrderEntity.class));
     }
 
+    @Test
+    void consume_shouldSkipEventsAlreadyApplied_whenEngineRepublishesAfterRestart() {
+        SymbolSequenceEntity applied = new SymbolSequenceEntity("AAPL");
+        applied.setLastSequenceNumber(2);
+        when(symbolSequenceRepository.findById("AAPL")).thenReturn(Optional.of(applied));
+        OrderCreationEvent alreadyApplied = OrderCreationEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .price(150.0)
+                .quantity(10.0)
+                .sequenceNumber(1)
+                .build();
+        OrderCancellationEvent alreadyCancelled = OrderCancellationEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .sequenceNumber(2)
+                .build();
+        OrderCreationEvent lost = OrderCreationEvent.builder()
+                .orderId(2L)
+                .symbol("AAPL")
+                .price(151.0)
+                .quantity(5.0)
+                .sequenceNumber(3)
+                .build();
+
+        service.consume(List.of(alreadyApplied, alreadyCancelled, lost));
+
+        verify(orderRepository).save(orderCaptor.capture());
+        assertEquals(2L, orderCaptor.getValue().getId());
+        verify(orderRepository, never()).findById(1L);
+        assertEquals(3, applied.getLastSequenceNumber());
+        verify(symbolSequenceRepository).saveAll(argThat(sequences -> sequences.iterator().next() == applied));
+    }
+
+    @Test
+    void consume_shouldTrackSequencesPerSymbol() {
+        when(symbolSequenceRepository.findById("AAPL")).thenReturn(Optional.empty());
+        when(symbolSequenceRepository.findById("MSFT")).thenReturn(Optional.empty());
+        OrderCreationEvent aapl = OrderCreationEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .price(150.0)
+                .quantity(10.0)
+                .sequenceNumber(5)
+                .build();
+        OrderCreationEvent msft = OrderCreationEvent.builder()
+                .orderId(2L)
+                .symbol("MSFT")
+                .price(400.0)
+                .quantity(1.0)
+                .sequenceNumber(1)
+                .build();
+        OrderCreationEvent aaplDuplicate = OrderCreationEvent.builder()
+                .orderId(1L)
+                .symbol("AAPL")
+                .price(150.0)
+                .quantity(10.0)
+                .sequenceNumber(5)
+                .build();
+
+        service.consume(List.of(aapl, msft, aaplDuplicate));
 
-}
\ No newline at end of file
+        verify(orderRepository, times(2)).save(orderCaptor.capture());
+        assertEquals(List.of(1L, 2L), orderCaptor.getAllValues().stream().map(OrderEntity::getId).toList());
+    }
+}